@@ -5,9 +5,14 @@ import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.metrics.MetricsOptions;
 import org.example.services.db.DatabaseClient;
+import org.example.services.db.DatabasePoolMetrics;
 import org.example.services.db.DatabaseVerticle;
+import org.example.services.db.SchemaMigrator;
 import org.example.services.discovery.DiscoveryVerticle;
+import org.example.services.retention.RetentionVerticle;
+import org.example.services.rollup.RollupVerticle;
 import org.example.services.scheduler.SchedulerVerticle;
 import org.example.services.server.HttpServerVerticle;
 import org.example.utils.ConfigLoader;
@@ -15,6 +20,7 @@ import org.example.utils.ConfigLoader;
 import java.util.List;
 
 import static org.example.constants.AppConstants.AddressesAndPaths.CONFIG_FILE_PATH;
+import static org.example.constants.AppConstants.TRUE;
 
 public class MainApp
 {
@@ -23,7 +29,13 @@ public class MainApp
         ConfigLoader.init(CONFIG_FILE_PATH);
     }
 
-    private static final Vertx vertx = Vertx.vertx(new VertxOptions().setWorkerPoolSize(ConfigLoader.get().getInteger("vertx.worker.pool.size")));
+    // Only the database pools report metrics, see DatabasePoolMetrics
+    private static final Vertx vertx = Vertx.builder()
+            .with(new VertxOptions()
+                    .setWorkerPoolSize(ConfigLoader.get().getInteger("vertx.worker.pool.size"))
+                    .setMetricsOptions(new MetricsOptions().setEnabled(TRUE)))
+            .withMetrics(DatabasePoolMetrics.factory())
+            .build();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MainApp.class);
 
@@ -52,13 +64,13 @@ public class MainApp
 
                     LOGGER.info("✅ Database connected successfully!");
 
-                    DatabaseClient.createTablesIfNotExist(tableRes ->
+                    SchemaMigrator.migrate(vertx, tableRes ->
                     {
                         try
                         {
                             if (tableRes.failed())
                             {
-                                LOGGER.error("❌ Failed to create tables: " + tableRes.cause().getMessage());
+                                LOGGER.error("❌ Failed to migrate schema: " + tableRes.cause().getMessage());
 
                                 DatabaseClient.close()
                                         .compose(v -> vertx.close());
@@ -66,7 +78,7 @@ public class MainApp
                                 return;
                             }
 
-                            LOGGER.info("📦 Tables created or already exist.");
+                            LOGGER.info("📦 Schema is up to date.");
 
                             deployAllVerticles()
                                     .onSuccess(v -> LOGGER.info("🚀 All verticles deployed successfully!"))
@@ -80,7 +92,7 @@ public class MainApp
                         }
                         catch (Exception exception)
                         {
-                            LOGGER.error("❌ Failed to create tables: " + exception.getMessage());
+                            LOGGER.error("❌ Failed to migrate schema: " + exception.getMessage());
 
                             DatabaseClient.close()
                                     .compose(v -> vertx.close());
@@ -112,6 +124,8 @@ public class MainApp
             var verticles = List.of(
                     DatabaseVerticle.class,
                     SchedulerVerticle.class,
+                    RollupVerticle.class,
+                    RetentionVerticle.class,
                     DiscoveryVerticle.class,
                     HttpServerVerticle.class
             );
@@ -30,9 +30,23 @@ public class AppConstants
 
         public static final String DATA_TO_PLUGIN_FOR_DISCOVERY = "SELECT d.id, d.port, d.ip, c.username, c.password, c.system_type FROM discovery_profile d JOIN credential_profile c ON d.credential_profile_id = c.id WHERE d.id = $1";
 
-        public static final String UPDATE_DISCOVERY_STATUS = "UPDATE discovery_profile SET status = $1 WHERE id = $2";
+        public static final String BULK_UPDATE_DISCOVERY_STATUS = "UPDATE discovery_profile d SET status = v.status FROM jsonb_to_recordset($1::jsonb) AS v(id INTEGER, status VARCHAR) WHERE d.id = v.id";
 
         public static final String FETCH_CREDENTIAL_FROM_ID = "SELECT username, password, system_type FROM credential_profile WHERE id = $1";
+
+        public static final String BULK_ADD_DISCOVERY = "INSERT INTO discovery_profile (name, ip, port, status, credential_profile_id) SELECT v.name, v.ip, v.port, $2, v.credential_profile_id FROM jsonb_to_recordset($1::jsonb) AS v(name VARCHAR, ip VARCHAR, port INTEGER, credential_profile_id INTEGER) ON CONFLICT (name) DO UPDATE SET ip = EXCLUDED.ip, port = EXCLUDED.port, credential_profile_id = EXCLUDED.credential_profile_id RETURNING id, ip";
+
+        public static final String ADD_DISCOVERY_JOB = "INSERT INTO discovery_job (name, status, total) VALUES ($1, $2, $3) RETURNING id";
+
+        public static final String START_DISCOVERY_JOB = "UPDATE discovery_job SET status = $1, started_at = CURRENT_TIMESTAMP WHERE id = $2";
+
+        public static final String UPDATE_DISCOVERY_JOB_PROGRESS = "UPDATE discovery_job SET probed = $1, reachable = $2, written = $3 WHERE id = $4 AND finished_at IS NULL";
+
+        public static final String FINISH_DISCOVERY_JOB = "UPDATE discovery_job SET status = $1, probed = $2, reachable = $3, written = $4, finished_at = CURRENT_TIMESTAMP WHERE id = $5";
+
+        public static final String GET_DISCOVERY_JOB_BY_ID = "SELECT id, name, status, total, probed, reachable, written, created_at::text AS created_at, started_at::text AS started_at, finished_at::text AS finished_at FROM discovery_job WHERE id = $1";
+
+        public static final String FAIL_INTERRUPTED_DISCOVERY_JOBS = "UPDATE discovery_job SET status = $1, finished_at = CURRENT_TIMESTAMP WHERE status IN ($2, $3)";
     }
 
 
@@ -74,23 +88,309 @@ public class AppConstants
         public static final String INACTIVE = "inactive";
 
         public static final String DISCOVERY = "discovery";
+
+        public static final String DISCOVERY_BULK = "discovery_bulk";
+
+        public static final String TARGETS = "targets";
+
+        public static final String DISCOVERY_COUNT_RESPONSE = "discovery.count";
     }
 
-    public static class ProvisionQuery
+    public static class DiscoveryJobField
     {
-        public static final String ADD_PROVISION = "INSERT INTO provisioned_device (name, ip, port, credential_profile_id) VALUES ($1, $2, $3, $4) RETURNING id";
+        public static final String JOB_ID_RESPONSE = "job.id";
+
+        public static final String TOTAL = "total";
+
+        public static final String PROBED = "probed";
 
-        public static final String RE_PROVISION = "UPDATE provisioned_device SET name = $1, port = $2, credential_profile_id = $3, is_deleted = FALSE WHERE ip = $4 RETURNING id";
+        public static final String WRITTEN = "written";
 
-        public static final String GET_ALL_PROVISIONS = "SELECT pd.*, COALESCE(json_agg(json_build_object('polled.at', pr.polled_at, 'metrics', pr.metrics)) FILTER (WHERE pr.id IS NOT NULL), '[]') AS polling_results, (SELECT ROUND(COUNT(*) FILTER (WHERE was_available)/GREATEST(COUNT(*),1)::decimal * 100, 2) FROM availability a WHERE a.provisioned_device_id = pd.id) AS availability_percent FROM provisioned_device pd LEFT JOIN polling_result pr ON pd.id = pr.provisioned_device_id GROUP BY pd.id";
+        public static final String PENDING = "pending";
 
-        public static final String GET_PROVISION_BY_ID = "SELECT pd.*, COALESCE(json_agg(json_build_object('polled.at', pr.polled_at, 'metrics', pr.metrics)) FILTER (WHERE pr.id IS NOT NULL), '[]') AS polling_results, (SELECT ROUND(COUNT(*) FILTER (WHERE was_available)/GREATEST(COUNT(*),1)::decimal * 100, 2) FROM availability a WHERE a.provisioned_device_id = pd.id) AS availability_percent FROM provisioned_device pd LEFT JOIN polling_result pr ON pd.id = pr.provisioned_device_id WHERE pd.id = $1 GROUP BY pd.id";
+        public static final String COLLAPSED = "collapsed";
+
+        public static final String CREATED_AT = "created_at";
+
+        public static final String STARTED_AT = "started_at";
+
+        public static final String FINISHED_AT = "finished_at";
+
+        public static final String CREATED_AT_RESPONSE = "created.at";
+
+        public static final String STARTED_AT_RESPONSE = "started.at";
+
+        public static final String FINISHED_AT_RESPONSE = "finished.at";
+
+        public static final String QUEUED = "queued";
+
+        public static final String RUNNING = "running";
+
+        public static final String CANCELLING = "cancelling";
+
+        public static final String DONE = "done";
+
+        public static final String CANCELLED = "cancelled";
+
+        public static final String FAILED = "failed";
+    }
+
+    public static class ProvisionQuery
+    {
+        public static final String ADD_PROVISION = "INSERT INTO provisioned_device (name, ip, port, credential_profile_id, is_critical) VALUES ($1, $2, $3, $4, $5) RETURNING id";
+
+        public static final String RE_PROVISION = "UPDATE provisioned_device SET name = $1, port = $2, credential_profile_id = $3, is_critical = $4, is_deleted = FALSE WHERE ip = $5 RETURNING id";
+
+        // Each device looks up its own rows through the (provisioned_device_id, time) indexes instead of grouping a join of every row.
+        // Its $1 latest polls start at the $1-th distinct timestamp of its typed samples, found by a scan of the index that stops
+        // at the limit; the samples from there on are one range of the same index, grouped back into one flat
+        // metric name -> value object per poll.
+        // Availability covers the last $2 hours: the hourly rollup up to its watermark, then the few raw checks after it,
+        // so the rows read per device depend on the window and not on the length of its history
+        public static final String GET_ALL_PROVISIONS = "SELECT pd.*, COALESCE(pr.polling_results, '[]') AS polling_results, av.availability_percent FROM provisioned_device pd "
+                + "LEFT JOIN LATERAL (SELECT json_agg(json_build_object('polled.at', p.ts, 'metrics', p.metrics) ORDER BY p.ts DESC) AS polling_results "
+                + "FROM (SELECT s.ts, json_object_agg(c.name, s.value) AS metrics FROM metric_sample s JOIN metric_catalog c ON c.id = s.metric_id "
+                + "WHERE s.provisioned_device_id = pd.id AND s.ts >= (SELECT MIN(l.ts) FROM (SELECT DISTINCT r.ts FROM metric_sample r "
+                + "WHERE r.provisioned_device_id = pd.id ORDER BY r.ts DESC LIMIT $1) l) GROUP BY s.ts) p) pr ON TRUE "
+                + "LEFT JOIN LATERAL (SELECT ROUND(SUM(c.up_count)/GREATEST(SUM(c.total_count),1)::decimal * 100, 2) AS availability_percent FROM ("
+                + "SELECT r.up_count, r.total_count FROM availability_rollup_1h r WHERE r.provisioned_device_id = pd.id AND r.bucket >= date_trunc('hour', LOCALTIMESTAMP - make_interval(hours => $2::integer)) "
+                + "UNION ALL SELECT COUNT(*) FILTER (WHERE a.was_available), COUNT(*) FROM availability a WHERE a.provisioned_device_id = pd.id "
+                + "AND a.checked_at > GREATEST((SELECT w.watermark FROM rollup_watermark w WHERE w.resolution = 'avail_1h'), LOCALTIMESTAMP - make_interval(hours => $2::integer))) c) av ON TRUE";
+
+        public static final String GET_PROVISION_BY_ID = GET_ALL_PROVISIONS + " WHERE pd.id = $3";
 
         public static final String DELETE_PROVISION = "UPDATE provisioned_device SET is_deleted = TRUE WHERE id = $1 AND is_deleted = FALSE";
 
-        public static final String INSERT_POLLING_RESULT = "INSERT INTO polling_result (provisioned_device_id, metrics) VALUES ($1, $2)";
+        // Timestamps are passed explicitly, so rows replayed from the ingestion spool keep the time they were collected
+        public static final String INSERT_POLLING_RESULT = "INSERT INTO polling_result (provisioned_device_id, metrics, polled_at) VALUES ($1, $2, to_timestamp($3::bigint / 1000.0)::timestamp)";
+
+        public static final String ADD_AVAILABILITY_DATA = "INSERT INTO availability (provisioned_device_id, was_available, checked_at) VALUES ($1, $2, to_timestamp($3::bigint / 1000.0)::timestamp)";
+
+        // Registers new metric names in a statement of their own, so that the sample insert that follows sees names another session
+        // registered concurrently; on such a conflict DO UPDATE waits for that session and returns its row.
+        // A metric keeps the unit it was first stored with; names registered before units were recorded take the unit of their next sample
+        public static final String UPSERT_METRIC_CATALOG = "INSERT INTO metric_catalog (name, unit) SELECT DISTINCT ON (v.name) v.name, v.unit FROM jsonb_to_recordset($1::jsonb) AS v(name VARCHAR, unit TEXT) "
+                + "WHERE NOT EXISTS (SELECT 1 FROM metric_catalog m WHERE m.name = v.name AND m.unit IS NOT NULL) ORDER BY v.name, v.unit "
+                + "ON CONFLICT (name) DO UPDATE SET unit = COALESCE(metric_catalog.unit, EXCLUDED.unit) RETURNING id";
+
+        // Samples in another unit than the one of their metric in the catalog are not inserted
+        public static final String INSERT_METRIC_SAMPLES = "INSERT INTO metric_sample (provisioned_device_id, metric_id, ts, value) SELECT v.device_id, m.id, to_timestamp($2::bigint / 1000.0)::timestamp, v.value "
+                + "FROM jsonb_to_recordset($1::jsonb) AS v(device_id INTEGER, name VARCHAR, unit TEXT, value DOUBLE PRECISION) JOIN metric_catalog m ON m.name = v.name AND m.unit = v.unit ON CONFLICT DO NOTHING";
+    }
+
+    public static class SchedulerQuery
+    {
+        public static final String GET_SCHEDULED_DEVICES = "SELECT pd.id, pd.is_critical, s.last_polled_at FROM provisioned_device pd LEFT JOIN scheduler_state s ON s.provisioned_device_id = pd.id WHERE pd.is_deleted = FALSE";
+
+        public static final String UPSERT_SCHEDULER_STATE = "INSERT INTO scheduler_state (provisioned_device_id, last_polled_at, next_due_at) SELECT v.id, v.last_polled_at, v.next_due_at FROM jsonb_to_recordset($1::jsonb) AS v(id INTEGER, last_polled_at BIGINT, next_due_at BIGINT) JOIN provisioned_device pd ON pd.id = v.id ON CONFLICT (provisioned_device_id) DO UPDATE SET last_polled_at = EXCLUDED.last_polled_at, next_due_at = EXCLUDED.next_due_at";
+
+        // Each active device reads its own latest row, a single step down its (provisioned_device_id, time DESC) index, instead of
+        // sorting or walking every row of the table; devices never checked or polled have no row and are left out
+        public static final String GET_LATEST_AVAILABILITY = "SELECT pd.id, a.was_available, (extract(epoch FROM a.checked_at::timestamptz) * 1000)::bigint AS checked_at FROM provisioned_device pd "
+                + "JOIN LATERAL (SELECT l.was_available, l.checked_at FROM availability l WHERE l.provisioned_device_id = pd.id ORDER BY l.checked_at DESC LIMIT 1) a ON TRUE WHERE pd.is_deleted = FALSE";
 
-        public static final String ADD_AVAILABILITY_DATA = "INSERT INTO availability (provisioned_device_id, was_available) VALUES ($1, $2)";
+        public static final String GET_LATEST_POLLING_RESULTS = "SELECT pd.id, pr.metrics, (extract(epoch FROM pr.polled_at::timestamptz) * 1000)::bigint AS polled_at FROM provisioned_device pd "
+                + "JOIN LATERAL (SELECT l.metrics, l.polled_at FROM polling_result l WHERE l.provisioned_device_id = pd.id ORDER BY l.polled_at DESC LIMIT 1) pr ON TRUE WHERE pd.is_deleted = FALSE";
+
+        // The samples of the latest poll are then read from the same index
+        public static final String GET_LATEST_METRIC_SAMPLES = "SELECT pd.id, m.metrics, (extract(epoch FROM l.ts::timestamptz) * 1000)::bigint AS polled_at FROM provisioned_device pd "
+                + "JOIN LATERAL (SELECT ms.ts FROM metric_sample ms WHERE ms.provisioned_device_id = pd.id ORDER BY ms.ts DESC LIMIT 1) l ON TRUE "
+                + "CROSS JOIN LATERAL (SELECT jsonb_object_agg(c.name, s.value) AS metrics FROM metric_sample s JOIN metric_catalog c ON c.id = s.metric_id "
+                + "WHERE s.provisioned_device_id = pd.id AND s.ts = l.ts) m WHERE pd.is_deleted = FALSE";
+    }
+
+    public static class RollupQuery
+    {
+        public static final String ROLLUP_METRIC_SAMPLES = "WITH bounds AS (SELECT COALESCE((SELECT watermark FROM rollup_watermark WHERE resolution = $1), 'epoch'::timestamp) AS low, to_timestamp($2::bigint / 1000.0)::timestamp AS high), "
+                + "agg AS (SELECT s.provisioned_device_id, s.metric_id, 'epoch'::timestamp + (floor(extract(epoch FROM s.ts) / $3::integer) * $3::integer)::double precision * interval '1 second' AS bucket, "
+                + "min(s.value) AS min_value, max(s.value) AS max_value, sum(s.value) AS sum_value, count(*) AS sample_count, (array_agg(s.value ORDER BY s.ts DESC))[1] AS last_value, max(s.ts) AS last_ts "
+                + "FROM metric_sample s, bounds b WHERE s.ts > b.low AND s.ts <= b.high GROUP BY 1, 2, 3), "
+                + "upserted AS (INSERT INTO %s AS t (provisioned_device_id, metric_id, bucket, min_value, max_value, sum_value, sample_count, last_value, last_ts) SELECT * FROM agg "
+                + "ON CONFLICT (provisioned_device_id, metric_id, bucket) DO UPDATE SET min_value = LEAST(t.min_value, EXCLUDED.min_value), max_value = GREATEST(t.max_value, EXCLUDED.max_value), "
+                + "sum_value = t.sum_value + EXCLUDED.sum_value, sample_count = t.sample_count + EXCLUDED.sample_count, "
+                + "last_value = CASE WHEN EXCLUDED.last_ts >= t.last_ts THEN EXCLUDED.last_value ELSE t.last_value END, last_ts = GREATEST(t.last_ts, EXCLUDED.last_ts) RETURNING 1) "
+                + "INSERT INTO rollup_watermark (resolution, watermark) SELECT $1, high FROM bounds ON CONFLICT (resolution) DO UPDATE SET watermark = EXCLUDED.watermark "
+                + "RETURNING (SELECT count(*) FROM upserted) AS buckets";
+
+        public static final String GET_RAW_METRIC_SERIES = "SELECT (extract(epoch FROM s.ts::timestamptz) * 1000)::bigint AS ts, s.value AS min_value, s.value AS max_value, s.value AS avg_value, s.value AS last_value, 1 AS sample_count "
+                + "FROM metric_sample s JOIN metric_catalog m ON m.id = s.metric_id "
+                + "WHERE s.provisioned_device_id = $1 AND m.name = $2 AND s.ts >= to_timestamp($3::bigint / 1000.0)::timestamp AND s.ts < to_timestamp($4::bigint / 1000.0)::timestamp ORDER BY s.ts";
+
+        // Same watermark scheme as ROLLUP_METRIC_SAMPLES, counting the checks and the successful ones per device and hour
+        public static final String ROLLUP_AVAILABILITY = "WITH bounds AS (SELECT COALESCE((SELECT watermark FROM rollup_watermark WHERE resolution = $1), 'epoch'::timestamp) AS low, to_timestamp($2::bigint / 1000.0)::timestamp AS high), "
+                + "agg AS (SELECT a.provisioned_device_id, date_trunc('hour', a.checked_at) AS bucket, count(*) FILTER (WHERE a.was_available) AS up_count, count(*) AS total_count "
+                + "FROM availability a, bounds b WHERE a.checked_at > b.low AND a.checked_at <= b.high GROUP BY 1, 2), "
+                + "upserted AS (INSERT INTO availability_rollup_1h AS t (provisioned_device_id, bucket, up_count, total_count) SELECT * FROM agg "
+                + "ON CONFLICT (provisioned_device_id, bucket) DO UPDATE SET up_count = t.up_count + EXCLUDED.up_count, total_count = t.total_count + EXCLUDED.total_count RETURNING 1) "
+                + "INSERT INTO rollup_watermark (resolution, watermark) SELECT $1, high FROM bounds ON CONFLICT (resolution) DO UPDATE SET watermark = EXCLUDED.watermark "
+                + "RETURNING (SELECT count(*) FROM upserted) AS buckets";
+
+        public static final String GET_ROLLUP_METRIC_SERIES = "SELECT (extract(epoch FROM r.bucket::timestamptz) * 1000)::bigint AS ts, r.min_value, r.max_value, r.sum_value / r.sample_count AS avg_value, r.last_value, r.sample_count "
+                + "FROM %s r JOIN metric_catalog m ON m.id = r.metric_id "
+                + "WHERE r.provisioned_device_id = $1 AND m.name = $2 AND r.bucket >= to_timestamp($3::bigint / 1000.0)::timestamp AND r.bucket < to_timestamp($4::bigint / 1000.0)::timestamp ORDER BY r.bucket";
+    }
+
+    public static class IngestionSpoolQuery
+    {
+        // Same insert as INSERT_METRIC_SAMPLES, followed by one late rollup per resolution (LATE_ROLLUP, see IngestionSpool).
+        // The metric names are registered by a spooled UPSERT_METRIC_CATALOG replayed just before
+        public static final String REPLAY_METRIC_SAMPLES = "WITH inserted AS (INSERT INTO metric_sample (provisioned_device_id, metric_id, ts, value) SELECT v.device_id, m.id, to_timestamp($2::bigint / 1000.0)::timestamp, v.value "
+                + "FROM jsonb_to_recordset($1::jsonb) AS v(device_id INTEGER, name VARCHAR, unit TEXT, value DOUBLE PRECISION) JOIN metric_catalog m ON m.name = v.name AND m.unit = v.unit "
+                + "ON CONFLICT DO NOTHING RETURNING provisioned_device_id, metric_id, ts, value)"
+                + "%s SELECT count(*) AS samples FROM inserted";
+
+        // Merges the replayed samples a resolution's watermark has already passed, which its regular rollup will never read
+        public static final String LATE_ROLLUP = ", late_%1$s AS (INSERT INTO %2$s AS t (provisioned_device_id, metric_id, bucket, min_value, max_value, sum_value, sample_count, last_value, last_ts) "
+                + "SELECT i.provisioned_device_id, i.metric_id, 'epoch'::timestamp + (floor(extract(epoch FROM i.ts) / %3$d) * %3$d)::double precision * interval '1 second', "
+                + "min(i.value), max(i.value), sum(i.value), count(*), (array_agg(i.value ORDER BY i.ts DESC))[1], max(i.ts) "
+                + "FROM inserted i WHERE i.ts <= (SELECT w.watermark FROM rollup_watermark w WHERE w.resolution = '%1$s') GROUP BY 1, 2, 3 "
+                + "ON CONFLICT (provisioned_device_id, metric_id, bucket) DO UPDATE SET min_value = LEAST(t.min_value, EXCLUDED.min_value), max_value = GREATEST(t.max_value, EXCLUDED.max_value), "
+                + "sum_value = t.sum_value + EXCLUDED.sum_value, sample_count = t.sample_count + EXCLUDED.sample_count, "
+                + "last_value = CASE WHEN EXCLUDED.last_ts >= t.last_ts THEN EXCLUDED.last_value ELSE t.last_value END, last_ts = GREATEST(t.last_ts, EXCLUDED.last_ts) RETURNING 1)";
+
+        // Same insert as ADD_AVAILABILITY_DATA, merging a replayed check the availability rollup's watermark has already passed
+        public static final String REPLAY_AVAILABILITY_DATA = "WITH inserted AS (INSERT INTO availability (provisioned_device_id, was_available, checked_at) VALUES ($1, $2, to_timestamp($3::bigint / 1000.0)::timestamp) "
+                + "RETURNING provisioned_device_id, was_available, checked_at) "
+                + "INSERT INTO availability_rollup_1h AS t (provisioned_device_id, bucket, up_count, total_count) SELECT i.provisioned_device_id, date_trunc('hour', i.checked_at), CASE WHEN i.was_available THEN 1 ELSE 0 END, 1 "
+                + "FROM inserted i WHERE i.checked_at <= (SELECT w.watermark FROM rollup_watermark w WHERE w.resolution = 'avail_1h') "
+                + "ON CONFLICT (provisioned_device_id, bucket) DO UPDATE SET up_count = t.up_count + EXCLUDED.up_count, total_count = t.total_count + EXCLUDED.total_count";
+
+        public static final String PROBE_DATABASE = "SELECT 1";
+    }
+
+    public static class MetricSeriesField
+    {
+        public static final String METRIC = "metric";
+
+        public static final String FROM = "from";
+
+        public static final String TO = "to";
+
+        public static final String POINTS = "points";
+
+        public static final String RESOLUTION = "resolution";
+
+        public static final String RAW = "raw";
+
+        public static final String TS = "ts";
+
+        public static final String MIN = "min";
+
+        public static final String MAX = "max";
+
+        public static final String AVG = "avg";
+
+        public static final String LAST = "last";
+
+        public static final String COUNT = "count";
+
+        public static final String MIN_VALUE = "min_value";
+
+        public static final String MAX_VALUE = "max_value";
+
+        public static final String AVG_VALUE = "avg_value";
+
+        public static final String LAST_VALUE = "last_value";
+
+        public static final String SAMPLE_COUNT = "sample_count";
+
+        public static final String BUCKETS = "buckets";
+    }
+
+    public static class RollupConstants
+    {
+        public static final String ROLLUP = "rollup";
+
+        public static final String INTERVAL = "interval";
+
+        public static final String LATENESS = "lateness";
+
+        public static final String MAX_POINTS = "max.points";
+
+        // Key of the availability rollup in rollup_watermark, also written into the provision and replay queries
+        public static final String AVAILABILITY_ROLLUP = "avail_1h";
+    }
+
+    public static class RetentionQuery
+    {
+        public static final String DELETE_EXPIRED_BATCH = "DELETE FROM %1$s WHERE ctid IN (SELECT ctid FROM %1$s WHERE %2$s < LOCALTIMESTAMP - make_interval(days => $1::integer) LIMIT $2)";
+
+        public static final String GET_TABLE_SIZE = "SELECT pg_total_relation_size(c.oid) AS bytes, GREATEST(c.reltuples, 1)::bigint AS row_estimate FROM pg_class c WHERE c.oid = $1::regclass";
+    }
+
+    public static class SchemaQuery
+    {
+        public static final String CREATE_SCHEMA_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version (version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+
+        public static final String TRY_LOCK_SCHEMA_VERSION = "SELECT pg_try_advisory_lock($1) AS locked";
+
+        public static final String UNLOCK_SCHEMA_VERSION = "SELECT pg_advisory_unlock($1)";
+
+        public static final String LOCKED = "locked";
+
+        public static final String GET_INVALID_INDEXES = "SELECT quote_ident(c.relname) AS index_name FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid WHERE NOT i.indisvalid AND c.relnamespace = current_schema()::regnamespace";
+
+        public static final String INDEX_NAME = "index_name";
+
+        public static final String DROP_INDEX = "DROP INDEX CONCURRENTLY IF EXISTS %s";
+
+        public static final String IS_SCHEMA_VERSION_APPLIED = "SELECT 1 FROM schema_version WHERE version = $1";
+
+        public static final String ADD_SCHEMA_VERSION = "INSERT INTO schema_version (version, description) VALUES ($1, $2)";
+
+        public static final String GET_CREDENTIALS_TO_REENCRYPT = "SELECT id, password FROM credential_profile WHERE password NOT LIKE $1";
+
+        // Skips a credential that was changed since it was read, it is then already encrypted with the current key
+        public static final String REENCRYPT_CREDENTIAL = "UPDATE credential_profile SET password = $1 WHERE id = $2 AND password = $3";
+    }
+
+    public static class ReplicaQuery
+    {
+        public static final String GET_PRIMARY_WAL_POSITION = "SELECT pg_current_wal_lsn()::text AS lsn";
+
+        // A server that is not in recovery has no replay position, and is never behind
+        public static final String GET_REPLAY_POSITION = "SELECT pg_is_in_recovery() AS in_recovery, pg_last_wal_replay_lsn()::text AS lsn";
+    }
+
+    public static class RetentionConstants
+    {
+        public static final String RETENTION = "retention";
+
+        public static final String INTERVAL = "interval";
+
+        public static final String BATCH_SIZE = "batch.size";
+
+        public static final String BATCH_PAUSE = "batch.pause";
+
+        public static final String WINDOW_START_HOUR = "window.start.hour";
+
+        public static final String WINDOW_END_HOUR = "window.end.hour";
+
+        public static final String TTL_DAYS = "ttl.days";
+
+        public static final String BYTES = "bytes";
+
+        public static final String ROW_ESTIMATE = "row_estimate";
+    }
+
+    public static class MetricSampleField
+    {
+        public static final String DEVICE_ID = "device_id";
+
+        public static final String NAME = "name";
+
+        public static final String UNIT = "unit";
+
+        public static final String VALUE = "value";
+    }
+
+    public static class MetricStorageConstants
+    {
+        public static final String METRIC_STORAGE = "metric.storage";
+
+        public static final String TYPED = "typed";
+
+        public static final String LEGACY_JSONB = "legacy.jsonb";
     }
 
     public static class ProvisionField
@@ -103,6 +403,10 @@ public class AppConstants
 
         public static final String IS_DELETED = "is_deleted";
 
+        public static final String IS_CRITICAL = "is_critical";
+
+        public static final String IS_CRITICAL_RESPONSE = "is.critical";
+
         public static final String DISCOVERY_PROFILE_ID = "discovery_profile_id";
 
         public static final String AVAILABILITY_PERCENT_RESPONSE = "availability.percent";
@@ -117,6 +421,29 @@ public class AppConstants
 
         public static final String PROVISION = "provision";
 
+        public static final String PROVISIONS = "provisions";
+
+        public static final String POLLING_RESULTS_LIMIT = "provision.polling.results.limit";
+
+        public static final String AVAILABILITY_WINDOW_HOURS = "provision.availability.window.hours";
+
+    }
+
+    public static class LatestValueField
+    {
+        public static final String AVAILABLE = "available";
+
+        public static final String WAS_AVAILABLE = "was_available";
+
+        public static final String CHECKED_AT = "checked_at";
+
+        public static final String CHECKED_AT_RESPONSE = "checked.at";
+
+        public static final String POLLED_AT = "polled_at";
+
+        public static final String POLLED_AT_RESPONSE = "polled.at";
+
+        public static final String METRICS = "metrics";
     }
 
 
@@ -142,6 +469,8 @@ public class AppConstants
 
         public static final String ROWS = "rows";
 
+        public static final String SQL_STATE = "sqlState";
+
         public static final String ACTION = "action";
 
         public static final String DEVICE = "device";
@@ -179,8 +508,26 @@ public class AppConstants
 
         public static final String INVALID_IP = "Invalid IP address";
 
+        public static final String INVALID_TARGETS = "Invalid discovery targets";
+
+        public static final String DISCOVERY_JOB_QUEUED = "Discovery job queued";
+
+        public static final String DISCOVERY_JOB_ALREADY_ACTIVE = "Discovery already queued or running for this target";
+
+        public static final String DISCOVERY_JOB_NOT_ACTIVE = "Discovery job is not queued or running";
+
+        public static final String FAILED_TO_QUEUE = "Failed to queue discovery job";
+
         public static final String INVALID_PORT = "Invalid port";
 
+        public static final String INVALID_QUERY_PARAMS = "Invalid or missing query parameters";
+
+        public static final String TOO_MANY_SUBSCRIBERS = "Too many live stream subscribers";
+
+        public static final String TOO_MANY_REQUESTS = "Too many requests";
+
+        public static final String SERVER_BUSY = "Server busy, retry later";
+
         public static final String DEVICE_NOT_DISCOVERED = "Device not discovered";
 
         public static final String UPDATE_NOT_ALLOWED = "Update operation is not permitted for provisioned devices";
@@ -191,6 +538,22 @@ public class AppConstants
         public static final String CONTENT_TYPE = "Content-Type";
 
         public static final String APPLICATION_JSON = "application/json";
+
+        public static final String TEXT_EVENT_STREAM = "text/event-stream";
+
+        public static final String CACHE_CONTROL = "Cache-Control";
+
+        public static final String NO_CACHE = "no-cache";
+
+        public static final String ETAG = "ETag";
+
+        public static final String IF_NONE_MATCH = "If-None-Match";
+
+        public static final String CONTENT_ENCODING = "Content-Encoding";
+
+        public static final String IDENTITY = "identity";
+
+        public static final String RETRY_AFTER = "Retry-After";
     }
 
     public static class Routes
@@ -205,9 +568,25 @@ public class AppConstants
 
         public static final String DISCOVERY_RUN = "/discovery/:id/run";
 
+        public static final String DISCOVERY_BULK = "/discovery/bulk";
+
+        public static final String DISCOVERY_JOB_BY_ID = "/discovery/jobs/:id";
+
         public static final String PROVISIONS = "/provision";
 
         public static final String PROVISION_BY_ID = "/provision/:id";
+
+        public static final String PROVISION_METRICS = "/provision/:id/metrics";
+
+        public static final String PROVISIONS_LATEST = "/provision/latest";
+
+        public static final String PROVISION_LATEST_BY_ID = "/provision/:id/latest";
+
+        public static final String PROVISIONS_STREAM = "/provision/stream";
+
+        public static final String METRICS = "/metrics";
+
+        public static final String METRICS_BY_NAME = "/metrics/:name";
     }
 
     public static class AddressesAndPaths
@@ -248,10 +627,448 @@ public class AppConstants
         public static final String PROCESS = "process";
     }
 
+    public static class MetricsField
+    {
+        public static final String NAME = "name";
+
+        public static final String SCHEDULER = "scheduler";
+
+        public static final String CYCLES_STARTED = "cycles.started";
+
+        public static final String CYCLES_COMPLETED = "cycles.completed";
+
+        public static final String CYCLE_OVERRUNS = "cycle.overruns";
+
+        public static final String MERGED_TICKS = "merged.ticks";
+
+        public static final String CYCLE_IN_PROGRESS = "cycle.in.progress";
+
+        public static final String LAST_CYCLE_DURATION_MS = "last.cycle.duration.ms";
+
+        public static final String IN_FLIGHT_DEVICES = "in.flight.devices";
+
+        public static final String SCHEDULED_DEVICES = "scheduled.devices";
+
+        public static final String CRITICAL_DEVICES = "critical.devices";
+
+        public static final String POLL_LAG_MS = "poll.lag.ms";
+
+        public static final String OVERLOADED = "overloaded";
+
+        public static final String OVERLOAD_EPISODES = "overload.episodes";
+
+        public static final String STRETCHED_DEFERRALS = "stretched.deferrals";
+
+        public static final String BATCH_CAP_DEFERRALS = "batch.cap.deferrals";
+
+        public static final String METRICS_SKIPPED = "metrics.skipped";
+
+        public static final String RESTORED_DEVICES = "restored.devices";
+
+        public static final String CHECKPOINTS = "checkpoints";
+
+        public static final String CHECKPOINT_FAILURES = "checkpoint.failures";
+
+        public static final String DIRTY_DEVICES = "dirty.devices";
+
+        public static final String SAMPLES_STORED = "samples.stored";
+
+        public static final String LATEST_DEVICES = "latest.devices";
+
+        public static final String LATEST_SEEDED = "latest.seeded";
+
+        public static final String SUBSCRIBERS = "subscribers";
+
+        public static final String EVENTS_SENT = "events.sent";
+
+        public static final String DELTAS_RECEIVED = "deltas.received";
+
+        public static final String DELTAS_COALESCED = "deltas.coalesced";
+
+        public static final String SLOW_CONSUMERS_EVICTED = "slow.consumers.evicted";
+
+        public static final String SUBSCRIBERS_REJECTED = "subscribers.rejected";
+
+        public static final String RUNS = "runs";
+
+        public static final String FAILURES = "failures";
+
+        public static final String BUCKETS_UPSERTED = "buckets.upserted";
+
+        public static final String LAST_RUN_DURATION_MS = "last.run.duration.ms";
+
+        public static final String ROWS_DELETED = "rows.deleted";
+
+        public static final String BYTES_RECLAIMED_ESTIMATE = "bytes.reclaimed.estimate";
+
+        public static final String LAST_RUN_ROWS_DELETED = "last.run.rows.deleted";
+
+        public static final String OUTSIDE_WINDOW_SKIPS = "outside.window.skips";
+
+        public static final String TABLES = "tables";
+
+        public static final String HITS = "hits";
+
+        public static final String MISSES = "misses";
+
+        public static final String COALESCED = "coalesced";
+
+        public static final String HIT_RATIO = "hit.ratio";
+
+        public static final String ENTRIES = "entries";
+
+        public static final String NOT_MODIFIED = "not.modified";
+
+        public static final String INVALIDATIONS = "invalidations";
+
+        public static final String RATE_LIMITED = "rate.limited";
+
+        public static final String LOGIN_RATE_LIMITED = "login.rate.limited";
+
+        public static final String EXPENSIVE_REJECTED = "expensive.rejected";
+
+        public static final String EXPENSIVE_IN_FLIGHT = "expensive.in.flight";
+
+        public static final String CLIENTS = "clients";
+
+        public static final String QUERIES = "queries";
+
+        public static final String IN_FLIGHT = "in.flight";
+
+        public static final String REJECTED = "rejected";
+
+        public static final String HEALTHY = "healthy";
+
+        public static final String LAG = "lag";
+
+        public static final String ROUTED = "routed";
+
+        public static final String FALLBACKS = "fallbacks";
+
+        public static final String LAST_CHECKED = "last.checked";
+
+        public static final String WAIT = "wait";
+
+        public static final String EXECUTION = "execution";
+
+        public static final String ROWS_RETURNED = "rows.returned";
+
+        public static final String BYTES_MAPPED = "bytes.mapped";
+
+        public static final String SPOOLED = "spooled";
+
+        public static final String REPLAYED = "replayed";
+
+        public static final String DROPPED = "dropped";
+
+        public static final String POISONED = "poisoned";
+
+        public static final String REPLAY_FAILURES = "replay.failures";
+
+        public static final String SEGMENTS = "segments";
+
+        public static final String PENDING_RECORDS = "pending.records";
+
+        public static final String DISK_BYTES = "disk.bytes";
+    }
+
+    public static class SchedulerConstants
+    {
+        public static final String OVERLAP_POLICY = "scheduler.overlap.policy";
+
+        public static final String OVERLAP_SKIP = "skip";
+
+        public static final String OVERLAP_MERGE = "merge";
+
+        public static final String OVERLOAD = "scheduler.overload";
+
+        public static final String LAG_THRESHOLD = "lag.threshold";
+
+        public static final String RECOVERY_THRESHOLD = "recovery.threshold";
+
+        public static final String STRETCH_FACTOR = "stretch.factor";
+
+        public static final String AVAILABILITY_ONLY = "availability.only";
+
+        public static final String MAX_BATCH_SIZE = "max.batch.size";
+
+        public static final String CHECKPOINT_INTERVAL = "scheduler.checkpoint.interval";
+
+        public static final String LAST_POLLED_AT = "last_polled_at";
+
+        public static final String NEXT_DUE_AT = "next_due_at";
+    }
+
+    public static class DiscoverySweepConstants
+    {
+        public static final String DISCOVERY_SWEEP = "discovery.sweep";
+
+        public static final String RATE = "rate";
+
+        public static final String MAX_CONCURRENCY = "max.concurrency";
+
+        public static final String SSH_BATCH_SIZE = "ssh.batch.size";
+
+        public static final String WRITE_BATCH_SIZE = "write.batch.size";
+
+        public static final String MAX_HOSTS = "max.hosts";
+    }
+
+    public static class IpResolutionConstants
+    {
+        public static final String TIMEOUT = "ip.resolution.timeout";
+
+        public static final String CACHE_TTL = "ip.resolution.cache.ttl";
+
+        public static final String CACHE_NEGATIVE_TTL = "ip.resolution.cache.negative.ttl";
+
+        public static final String CACHE_MAX_ENTRIES = "ip.resolution.cache.max.entries";
+
+        public static final String SEARCH = "ip.resolution.search";
+
+        public static final String NDOTS = "ip.resolution.ndots";
+
+        public static final String DNS_HOST = "ip.resolution.dns.host";
+
+        public static final String DNS_PORT = "ip.resolution.dns.port";
+
+        public static final String RESOLV_CONF = "/etc/resolv.conf";
+
+        public static final String NDOTS_OPTION = "ndots:";
+    }
+
+    public static class ReachabilityCacheConstants
+    {
+        public static final String REACHABILITY_CACHE = "reachability.cache";
+
+        public static final String ENABLED = "enabled";
+
+        public static final String TTL = "ttl";
+
+        public static final String NEGATIVE_TTL = "negative.ttl";
+
+        public static final String MAX_ENTRIES = "max.entries";
+    }
+
+    public static class HttpServerConstants
+    {
+        public static final String HTTP_SERVER_PORT = "http.server.port";
+
+        public static final String H2C = "http.server.h2c";
+
+        public static final String COMPRESSION = "http.server.compression";
+
+        public static final String ENABLED = "enabled";
+
+        public static final String LEVEL = "level";
+
+        public static final String MIN_SIZE = "min.size";
+    }
+
+    public static class AdmissionConstants
+    {
+        public static final String HTTP_ADMISSION = "http.admission";
+
+        public static final String RATE_LIMIT_ENABLED = "rate.limit.enabled";
+
+        public static final String RATE = "rate";
+
+        public static final String BURST = "burst";
+
+        public static final String MAX_CLIENTS = "max.clients";
+
+        public static final String EXPENSIVE_MAX_CONCURRENT = "expensive.max.concurrent";
+
+        public static final String LOGIN_RATE = "login.rate";
+
+        public static final String LOGIN_BURST = "login.burst";
+
+        public static final String LOGIN_BUCKET_PREFIX = "login:";
+
+        public static final String USERNAME = "username";
+    }
+
+    public static class JwtCacheConstants
+    {
+        public static final String JWT_CACHE = "jwt.cache";
+
+        public static final String ENABLED = "enabled";
+
+        public static final String MAX_ENTRIES = "max.entries";
+
+        public static final String EXP = "exp";
+    }
+
+    public static class ResponseCacheConstants
+    {
+        public static final String RESPONSE_CACHE = "response.cache";
+
+        public static final String ENABLED = "enabled";
+
+        public static final String MAX_ENTRIES = "max.entries";
+    }
+
+    public static class DiscoveryJobConstants
+    {
+        public static final String DISCOVERY_JOBS = "discovery.jobs";
+
+        public static final String MAX_CONCURRENT = "max.concurrent";
+    }
+
+    public static class LiveStreamConstants
+    {
+        public static final String POLLING_UPDATES = "polling.updates";
+
+        public static final String LIVE_STREAM = "live.stream";
+
+        public static final String FLUSH_INTERVAL = "flush.interval";
+
+        public static final String HEARTBEAT_INTERVAL = "heartbeat.interval";
+
+        public static final String MAX_SUBSCRIBERS = "max.subscribers";
+
+        public static final String WRITE_QUEUE_MAX_SIZE = "write.queue.max.size";
+
+        public static final String SLOW_CONSUMER_TIMEOUT = "slow.consumer.timeout";
+
+        public static final String IDS = "ids";
+
+        public static final String UPDATES = "updates";
+
+        public static final String EVENT_SNAPSHOT = "snapshot";
+
+        public static final String EVENT_UPDATE = "update";
+    }
+
+    public static class ProbeExecutorConstants
+    {
+        public static final String PROBE_EXECUTOR = "probe.executor";
+
+        public static final String VIRTUAL_THREADS = "virtual.threads";
+
+        public static final String MAX_CONCURRENCY = "max.concurrency";
+    }
+
+    public static class DatabasePoolConstants
+    {
+        public static final String DATABASE_POOLS = "database.pools";
+
+        public static final String POOL = "pool";
+
+        public static final String INGESTION = "ingestion";
+
+        public static final String INTERACTIVE = "interactive";
+
+        public static final String ANALYTICS = "analytics";
+
+        public static final String MIGRATION = "migration";
+
+        public static final String SIZE = "size";
+
+        public static final String MAX_WAIT_QUEUE = "max.wait.queue";
+
+        public static final String ENABLED = "enabled";
+
+        public static final String DATABASE_REPLICAS = "database.replicas";
+
+        public static final String ENDPOINTS = "endpoints";
+
+        public static final String HOST = "host";
+
+        public static final String PORT = "port";
+
+        public static final String MAX_LAG = "max.lag";
+
+        public static final String CHECK_INTERVAL = "check.interval";
+
+        public static final String REPLICA = "replica";
+
+        public static final String IN_RECOVERY = "in_recovery";
+
+        public static final String LSN = "lsn";
+    }
+
+    public static class IngestionSpoolConstants
+    {
+        public static final String INGESTION_SPOOL = "ingestion.spool";
+
+        public static final String ENABLED = "enabled";
+
+        public static final String DIRECTORY = "directory";
+
+        public static final String SEGMENT_SIZE = "segment.size";
+
+        public static final String MAX_BYTES = "max.bytes";
+
+        public static final String REPLAY_INTERVAL = "replay.interval";
+
+        public static final String REPLAY_RATE = "replay.rate";
+
+        public static final String MAX_ATTEMPTS = "max.attempts";
+
+        public static final String BATCH = "batch";
+
+        public static final String REQUEST = "request";
+    }
+
+    public static class DatabaseStatementConstants
+    {
+        public static final String DATABASE_STATEMENTS = "database.statements";
+
+        public static final String PIPELINING_LIMIT = "pipelining.limit";
+
+        public static final String PREPARED_CACHE = "prepared.cache";
+
+        public static final String PREPARED_CACHE_MAX_SIZE = "prepared.cache.max.size";
+
+        public static final String PREPARED_CACHE_SQL_LIMIT = "prepared.cache.sql.limit";
+
+        public static final String INSTRUMENTATION = "instrumentation";
+
+        public static final String MAX_STATEMENTS = "max.statements";
+
+        public static final String OTHER_STATEMENTS = "other";
+    }
+
+    public static class PluginConstants
+    {
+        public static final String PLUGIN_EXECUTABLE = "plugin.path";
+
+        public static final String PLUGIN_FRAMING = "plugin.framing";
+
+        public static final String PLUGIN_MAX_FRAME_SIZE = "plugin.max.frame.size";
+
+        public static final String TEXT = "text";
+
+        public static final String BINARY = "binary";
+
+        public static final String FRAMING_OPTION = "--framing=binary";
+
+        // Exit code and error of a plugin whose flag parser does not know the framing option
+        public static final int USAGE_EXIT_CODE = 2;
+
+        public static final String UNKNOWN_FRAMING_OPTION = "flag provided but not defined: -framing";
+    }
+
+    public static class EncryptionConstants
+    {
+        public static final String ENCRYPTION_SECRET = "ENCRYPTION_SECRET";
+
+        public static final String ENCRYPTION_KEY_VERSION = "ENCRYPTION_KEY_VERSION";
+
+        public static final String CREDENTIAL_REENCRYPTION = "credential.reencryption";
+
+        public static final String SECRET_PREFIX = "v%d:";
+    }
+
     public static final String START_DISCOVERY = "startDiscovery";
 
     public static final String SAVE_AND_RUN_DISCOVERY = "fetchCredentialsAndRunDiscovery";
 
+    public static final String SWEEP_DISCOVERY = "sweepDiscovery";
+
+    public static final String CANCEL_DISCOVERY_JOB = "cancelDiscoveryJob";
+
     public static final Boolean FALSE = false;
 
     public static final Boolean TRUE = true;
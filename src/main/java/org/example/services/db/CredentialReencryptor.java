@@ -0,0 +1,88 @@
+package org.example.services.db;
+
+import io.vertx.core.Future;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Tuple;
+import org.example.utils.ConfigLoader;
+import org.example.utils.DecryptionUtil;
+import org.example.utils.EncryptionKeys;
+import org.example.utils.EncryptionUtil;
+
+import java.util.ArrayList;
+
+import static org.example.constants.AppConstants.CredentialField.ID;
+import static org.example.constants.AppConstants.CredentialField.PASSWORD;
+import static org.example.constants.AppConstants.EncryptionConstants.CREDENTIAL_REENCRYPTION;
+import static org.example.constants.AppConstants.EncryptionConstants.SECRET_PREFIX;
+import static org.example.constants.AppConstants.SchemaQuery.GET_CREDENTIALS_TO_REENCRYPT;
+import static org.example.constants.AppConstants.SchemaQuery.REENCRYPT_CREDENTIAL;
+import static org.example.constants.AppConstants.TRUE;
+
+/**
+ * Re-encrypts stored credential passwords with the current key version at startup.
+ * <p>
+ * Passwords written before key versioning use AES-CBC, and passwords written under an older key version still
+ * reference that key. Both remain readable, so this only has to run once per key change; it moves every
+ * password to AES-GCM under the current key so that older keys can eventually be retired. A password that
+ * cannot be decrypted is left as it is and reported. Disabled with {@code credential.reencryption}.
+ */
+class CredentialReencryptor
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CredentialReencryptor.class);
+
+    /**
+     * Re-encrypts every password that is not encrypted with the current key version.
+     * Never fails, since the passwords it could not migrate stay readable.
+     *
+     * @param client The pool to run the migration on.
+     * @return A Future completed once all passwords have been considered.
+     */
+    static Future<Void> reencrypt(Pool client)
+    {
+        if (!ConfigLoader.get().getBoolean(CREDENTIAL_REENCRYPTION, TRUE))
+        {
+            return Future.succeededFuture();
+        }
+
+        var prefix = String.format(SECRET_PREFIX, EncryptionKeys.currentVersion());
+
+        return client.preparedQuery(GET_CREDENTIALS_TO_REENCRYPT)
+                .execute(Tuple.of(prefix + "%"))
+                .compose(rows ->
+                {
+                    var batch = new ArrayList<Tuple>();
+
+                    for (var row : rows)
+                    {
+                        try
+                        {
+                            var stored = row.getString(PASSWORD);
+
+                            batch.add(Tuple.of(EncryptionUtil.encryptSecret(DecryptionUtil.decryptSecret(stored)), row.getInteger(ID), stored));
+                        }
+                        catch (Exception exception)
+                        {
+                            LOGGER.error("Failed to re-encrypt credential " + row.getInteger(ID) + ": " + exception.getMessage());
+                        }
+                    }
+
+                    if (batch.isEmpty())
+                    {
+                        return Future.<Void>succeededFuture();
+                    }
+
+                    return client.preparedQuery(REENCRYPT_CREDENTIAL)
+                            .executeBatch(batch)
+                            .onSuccess(result -> LOGGER.info("Re-encrypted " + batch.size() + " credential(s) with key version " + EncryptionKeys.currentVersion()))
+                            .<Void>mapEmpty();
+                })
+                .recover(error ->
+                {
+                    LOGGER.error("Failed to re-encrypt credentials: " + error.getMessage());
+
+                    return Future.succeededFuture();
+                });
+    }
+}
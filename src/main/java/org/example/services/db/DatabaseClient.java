@@ -6,17 +6,26 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
 import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.sqlclient.Pool;
 import io.vertx.sqlclient.PoolOptions;
 import io.vertx.sqlclient.SqlClient;
 import io.vertx.pgclient.PgBuilder;
 import org.example.utils.ConfigLoader;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.example.constants.AppConstants.DatabasePoolConstants.*;
+import static org.example.constants.AppConstants.DatabaseStatementConstants.*;
+import static org.example.constants.AppConstants.FALSE;
+import static org.example.constants.AppConstants.TRUE;
 
 /**
- * Utility class to manage the PostgreSQL database client using Vert.x.
- * Provides methods to get a shared client, test the connection, and
- * create necessary tables on application startup.
+ * Utility class to manage the PostgreSQL database clients using Vert.x.
+ * Provides methods to get the shared client of each connection pool and test the connection.
+ * The schema itself is maintained by {@link SchemaMigrator}.
  */
 public class DatabaseClient
 {
@@ -24,39 +33,129 @@ public class DatabaseClient
 
     private static final Dotenv dotenv = Dotenv.load();
 
-    private static SqlClient client;
+    private static final Map<String, SqlClient> clients = new ConcurrentHashMap<>();
 
     /**
-     * Retrieves the singleton instance of {@link SqlClient}.
-     * Initializes the client if not already created, using environment variables for configuration.
+     * Retrieves the client of the interactive pool, used for API requests.
      *
      * @return The initialized {@link SqlClient} instance for executing queries.
      */
     public static SqlClient getClient()
     {
-        if (client == null)
+        return getClient(INTERACTIVE);
+    }
+
+    /**
+     * Retrieves the client of a connection pool, creating it on first use.
+     * <p>
+     * Each pool named under {@code database.pools} has its own {@code size} and {@code max.wait.queue}, so that
+     * a burst of slow reads in one pool can neither take the connections of another nor queue in front of its
+     * requests. The analytics pool is optional: unless enabled, its requests share the interactive pool.
+     * Unknown pool names also fall back to the interactive pool. This is the primary side of analytics reads;
+     * {@link ReplicaRouter} may serve them from a replica instead.
+     * <p>
+     * The clients are pipelined: each connection carries up to {@code database.statements.pipelining.limit}
+     * statements at once, from any caller, so a statement only waits for a connection when every connection of
+     * the pool has a full pipeline. These waits are reported by {@link DatabasePoolMetrics}.
+     *
+     * @param pool The pool name: ingestion, interactive or analytics.
+     * @return The initialized {@link SqlClient} instance of the pool.
+     */
+    public static SqlClient getClient(String pool)
+    {
+        var name = resolvePool(pool);
+
+        return clients.computeIfAbsent(name, key -> createClient(name, ConfigLoader.get()
+                .getJsonObject(DATABASE_POOLS, new JsonObject())
+                .getJsonObject(name, new JsonObject())));
+    }
+
+    /**
+     * Returns the name of the pool that serves requests addressed to the given pool.
+     *
+     * @param pool The requested pool name, may be null.
+     * @return The name of the pool actually used.
+     */
+    public static String resolvePool(String pool)
+    {
+        var pools = ConfigLoader.get().getJsonObject(DATABASE_POOLS, new JsonObject());
+
+        if (pool == null || !pools.containsKey(pool) || (ANALYTICS.equals(pool) && !pools.getJsonObject(pool).getBoolean(ENABLED, FALSE)))
         {
-            try
-            {
-                client = PgBuilder.client()
-                        .with(new PoolOptions().setMaxSize(ConfigLoader.get().getInteger("database.pool.size", 5)))
-                        .connectingTo(new PgConnectOptions()
-                                .setPort(Integer.parseInt(dotenv.get("DB_PORT")))
-                                .setHost(dotenv.get("DB_HOST"))
-                                .setDatabase(dotenv.get("DB_NAME"))
-                                .setUser(dotenv.get("DB_USER"))
-                                .setPassword(dotenv.get("DB_PASSWORD"))
-                                .setConnectTimeout(ConfigLoader.get().getInteger("database.connection.timeout", 5))
-                                .setIdleTimeout(ConfigLoader.get().getInteger("database.idle.timeout", 300)))
-                        .build();
-            }
-            catch (Exception exception)
-            {
-                LOGGER.error(exception.getMessage());
-            }
+            return INTERACTIVE;
+        }
+
+        return pool;
+    }
+
+    private static SqlClient createClient(String pool, JsonObject config)
+    {
+        return createClient(pool, config, dotenv.get("DB_HOST"), Integer.parseInt(dotenv.get("DB_PORT")));
+    }
+
+    /**
+     * Creates a pipelined client to a server, with the database and credentials of the primary.
+     *
+     * @param pool   The name of the pool, used in logs and metrics.
+     * @param config The pool configuration, with its {@code size} and {@code max.wait.queue}.
+     * @param host   The host of the server.
+     * @param port   The port of the server.
+     * @return The created {@link SqlClient}, or null if it could not be created.
+     */
+    static SqlClient createClient(String pool, JsonObject config, String host, int port)
+    {
+        try
+        {
+            var size = config.getInteger(SIZE, ConfigLoader.get().getInteger("database.pool.size", 5));
+
+            LOGGER.info("Creating " + pool + " database pool of " + size + " connections to " + host + ":" + port);
+
+            return PgBuilder.client()
+                    .with(new PoolOptions()
+                            .setName(pool)
+                            .setMaxSize(size)
+                            .setMaxWaitQueueSize(config.getInteger(MAX_WAIT_QUEUE, -1)))
+                    .connectingTo(getConnectOptions(host, port))
+                    .build();
         }
+        catch (Exception exception)
+        {
+            LOGGER.error(exception.getMessage());
 
-        return client;
+            return null;
+        }
+    }
+
+    /**
+     * Creates a pool of one connection to the primary for schema migrations, which need transactions that the
+     * pipelined clients cannot hold. The caller closes it once done.
+     *
+     * @return The created {@link Pool}.
+     */
+    static Pool createMigrationPool()
+    {
+        return PgBuilder.pool()
+                .with(new PoolOptions().setName(MIGRATION).setMaxSize(1))
+                .connectingTo(getConnectOptions(dotenv.get("DB_HOST"), Integer.parseInt(dotenv.get("DB_PORT"))))
+                .build();
+    }
+
+    private static PgConnectOptions getConnectOptions(String host, int port)
+    {
+        var statements = ConfigLoader.get().getJsonObject(DATABASE_STATEMENTS, new JsonObject());
+
+        return new PgConnectOptions()
+                .setPort(port)
+                .setHost(host)
+                .setDatabase(dotenv.get("DB_NAME"))
+                .setUser(dotenv.get("DB_USER"))
+                .setPassword(dotenv.get("DB_PASSWORD"))
+                .setConnectTimeout(ConfigLoader.get().getInteger("database.connection.timeout", 5))
+                .setIdleTimeout(ConfigLoader.get().getInteger("database.idle.timeout", 300))
+                .setPipeliningLimit(Math.max(1, statements.getInteger(PIPELINING_LIMIT, 256)))
+                .setCachePreparedStatements(statements.getBoolean(PREPARED_CACHE, TRUE))
+                .setPreparedStatementCacheMaxSize(statements.getInteger(PREPARED_CACHE_MAX_SIZE, 256))
+                .setPreparedStatementCacheSqlLimit(statements.getInteger(PREPARED_CACHE_SQL_LIMIT, 4096));
     }
 
     /**
@@ -102,100 +201,16 @@ public class DatabaseClient
     }
 
     /**
-     * Creates all necessary database tables if they do not already exist.
-     * This includes tables for credential profiles, discovery profiles,
-     * provisioned devices, polling results, and availability checks.
-     *
-     * @param resultHandler A handler to process the result once all table creation queries are executed.
+     * Closes the client of every pool, releasing all database connections.
+     * @return A Future that completes when the clients are closed.
      */
-    public static void createTablesIfNotExist(Handler<AsyncResult<Void>> resultHandler)
+    public static Future<Void> close()
     {
-        try
-        {
-            var future = Future.succeededFuture((Void)null);
-
-            for (var query : new String[]{
-                    """
-            CREATE TABLE IF NOT EXISTS credential_profile (
-                id SERIAL PRIMARY KEY,
-                name VARCHAR(100) UNIQUE NOT NULL,
-                username VARCHAR(100) NOT NULL,
-                password VARCHAR(100) NOT NULL,
-                system_type VARCHAR(50) NOT NULL
-            );
-            """,
-                    """
-            CREATE TABLE IF NOT EXISTS discovery_profile (
-                id SERIAL PRIMARY KEY,
-                name VARCHAR(100) UNIQUE NOT NULL,
-                ip VARCHAR(45) NOT NULL,
-                port INTEGER DEFAULT 22,
-                status VARCHAR(50) DEFAULT 'inactive',
-                credential_profile_id INTEGER NOT NULL,
-                FOREIGN KEY (credential_profile_id)
-                    REFERENCES credential_profile(id)
-                    ON DELETE RESTRICT
-            );
-            """,
-                    """
-            CREATE TABLE IF NOT EXISTS provisioned_device (
-                  id SERIAL PRIMARY KEY,
-                  name VARCHAR(100) UNIQUE NOT NULL,
-                  ip VARCHAR(45) UNIQUE NOT NULL,
-                  port INTEGER DEFAULT 22,
-                  credential_profile_id INTEGER NOT NULL,
-                  is_deleted BOOLEAN DEFAULT FALSE,
-                  FOREIGN KEY (credential_profile_id)
-                      REFERENCES credential_profile(id)
-                      ON DELETE RESTRICT
-              );
-            """,
-                    """
-            CREATE TABLE IF NOT EXISTS polling_result (
-                id SERIAL PRIMARY KEY,
-                provisioned_device_id INTEGER NOT NULL,
-                polled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                metrics JSONB NOT NULL,
-                FOREIGN KEY (provisioned_device_id)
-                    REFERENCES provisioned_device(id)
-                    ON DELETE CASCADE
-            );
-            """,
-                    """
-            CREATE TABLE IF NOT EXISTS availability (
-                 id SERIAL PRIMARY KEY,
-                 provisioned_device_id INTEGER NOT NULL,
-                 checked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                 was_available BOOLEAN NOT NULL,
-                 FOREIGN KEY (provisioned_device_id)
-                     REFERENCES provisioned_device(id)
-                     ON DELETE CASCADE
-             );
-            """
-            })
-            {
-                future = future.compose(v -> getClient().query(query).execute().mapEmpty());
-            }
-
-            future.onComplete(resultHandler);
-        }
-        catch (Exception exception)
-        {
-            LOGGER.error(exception.getMessage());
-        }
+        clients.values().forEach(SqlClient::close);
 
-    }
+        clients.clear();
 
-    /**
-     * Closes the SqlClient, releasing all database connections.
-     * @return A Future that completes when the client is closed.
-     */
-    public static Future<Void> close()
-    {
-        if (client != null)
-        {
-            client.close();
-        }
+        ReplicaRouter.close();
 
         return Future.succeededFuture();
     }
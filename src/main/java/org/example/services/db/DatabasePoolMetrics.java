@@ -0,0 +1,92 @@
+package org.example.services.db;
+
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.spi.VertxMetricsFactory;
+import io.vertx.core.spi.metrics.PoolMetrics;
+import io.vertx.core.spi.metrics.VertxMetrics;
+import org.example.utils.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.example.constants.AppConstants.MetricsField.WAIT;
+
+/**
+ * Connection wait times of the database pools, reported by the SQL client itself.
+ * <p>
+ * Statements run on the pipelined clients of {@link DatabaseClient}, so the time a statement waits for a
+ * connection, or for a free slot in the pipeline of one, cannot be told apart from its execution by the caller.
+ * The SQL client reports every lease of a connection to the pool metrics SPI of Vert.x instead: this factory,
+ * installed through {@code Vertx.builder().withMetrics}, times each lease from its submission until it is
+ * granted, per pool name. A lease whose connection could not be opened is never granted nor rejected, so only
+ * granted leases are counted. Every other Vert.x metric is left disabled.
+ */
+public class DatabasePoolMetrics implements PoolMetrics<Long>
+{
+    private static final String SQL_POOL = "sql";
+
+    private static final Map<String, DatabasePoolMetrics> POOLS = new ConcurrentHashMap<>();
+
+    private final Histogram wait = new Histogram(1, 5, 10, 50, 100, 500, 1000, 5000);
+
+    /**
+     * Returns the factory to install in the options of the Vertx instance.
+     *
+     * @return a metrics factory that only creates the metrics of SQL pools
+     */
+    public static VertxMetricsFactory factory()
+    {
+        return DatabasePoolMetrics::create;
+    }
+
+    private static VertxMetrics create(VertxOptions options)
+    {
+        return new VertxMetrics()
+        {
+            @Override
+            public PoolMetrics<?> createPoolMetrics(String poolType, String poolName, int maxPoolSize)
+            {
+                if (!SQL_POOL.equals(poolType) || poolName == null)
+                {
+                    return null;
+                }
+
+                // A pool created again under the same name, such as after a reconnect, keeps adding to the same figures
+                return POOLS.computeIfAbsent(poolName, name -> new DatabasePoolMetrics());
+            }
+        };
+    }
+
+    @Override
+    public Long submitted()
+    {
+        return System.nanoTime();
+    }
+
+    @Override
+    public Long begin(Long submitted)
+    {
+        wait.record((System.nanoTime() - submitted) / 1_000_000);
+
+        return submitted;
+    }
+
+    /**
+     * Builds a snapshot of the connection waits of a pool.
+     *
+     * @param pool the name of the pool
+     * @return the wait histogram, or null if the pool never reported
+     */
+    static JsonObject getStats(String pool)
+    {
+        var metrics = POOLS.get(pool);
+
+        if (metrics == null)
+        {
+            return null;
+        }
+
+        return new JsonObject().put(WAIT, metrics.wait.toJson());
+    }
+}
@@ -38,12 +38,14 @@ public interface DatabaseService
 
     /**
      * Executes a single SQL query using the provided request object.
-     * The request should contain necessary fields such as `query` and optionally `params`.
+     * The request should contain necessary fields such as `query` and optionally `params`, and may name the
+     * connection `pool` to run on (ingestion, interactive or analytics; interactive when absent).
      * Example request:
      * <pre>
      * {
      *   "query": "SELECT * FROM credential_profile WHERE id = $1",
-     *   "params": [1]
+     *   "params": [1],
+     *   "pool": "interactive"
      * }
      * </pre>
      *
@@ -54,7 +56,8 @@ public interface DatabaseService
 
     /**
      * Executes multiple SQL statements as a batch using the provided request object.
-     * The request should include a batch query and an array of parameter sets.
+     * The request should include a batch query and an array of parameter sets, and may name the connection
+     * `pool` like {@link #executeQuery(JsonObject)}.
      * Example request:
      * <pre>
      * {
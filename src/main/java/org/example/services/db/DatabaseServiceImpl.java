@@ -1,30 +1,64 @@
 package org.example.services.db;
 
 import io.vertx.core.Future;
+import io.vertx.core.http.ConnectionPoolTooBusyException;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.pgclient.PgException;
 import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.SqlClient;
 import io.vertx.sqlclient.Tuple;
+import org.example.utils.MetricsRegistry;
 
 import java.util.ArrayList;
-
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.example.constants.AppConstants.DatabasePoolConstants.ANALYTICS;
+import static org.example.constants.AppConstants.DatabasePoolConstants.DATABASE_POOLS;
+import static org.example.constants.AppConstants.DatabasePoolConstants.POOL;
+import static org.example.constants.AppConstants.DatabasePoolConstants.REPLICA;
 import static org.example.constants.AppConstants.FALSE;
 import static org.example.constants.AppConstants.JsonKey.*;
+import static org.example.constants.AppConstants.MetricsField.*;
 import static org.example.constants.AppConstants.TRUE;
 
 public class DatabaseServiceImpl implements DatabaseService
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseServiceImpl.class);
 
-    private static final SqlClient dbClient = DatabaseClient.getClient();
+    private final Map<String, PoolStats> poolStats = new ConcurrentHashMap<>();
+
+    private static class PoolStats
+    {
+        private final AtomicLong queries = new AtomicLong();
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicLong failures = new AtomicLong();
+
+        private final AtomicLong rejected = new AtomicLong();
+    }
+
+    public DatabaseServiceImpl()
+    {
+        MetricsRegistry.register(DATABASE_POOLS, this::getStats);
+    }
 
     @Override
     public Future<JsonObject> executeQuery(JsonObject request)
     {
+        var pool = DatabaseClient.resolvePool(request.getString(POOL));
+
+        var dbClient = DatabaseClient.getClient(pool);
+
         if(dbClient == null)
         {
             LOGGER.error("Database client is not initialized.");
@@ -43,27 +77,44 @@ public class DatabaseServiceImpl implements DatabaseService
 
                 LOGGER.trace("Executing query: " + query);
 
+                var params = Tuple.tuple();
+
                 if (request.containsKey(PARAMS))
                 {
-                    var params = Tuple.tuple();
-
                     for (var param : request.getJsonArray(PARAMS))
                     {
                         params.addValue(param);
                     }
-
-                    return dbClient.preparedQuery(query)
-                            .execute(params)
-                            .map(this::processQueryResult)
-                            .recover(this::handleQueryError);
                 }
-                else
+
+                Function<SqlClient, Future<RowSet<Row>>> statement = client -> client.preparedQuery(query).execute(params);
+
+                if (ANALYTICS.equals(request.getString(POOL)))
                 {
-                    return dbClient.preparedQuery(query)
-                            .execute()
-                            .map(this::processQueryResult)
-                            .recover(this::handleQueryError);
+                    var replica = ReplicaRouter.pick();
+
+                    if (replica != null)
+                    {
+                        return count(REPLICA, run(replica.getClient(), query, statement))
+                                .recover(error ->
+                                {
+                                    // An error raised by the statement itself would recur on the primary
+                                    if (error instanceof PgException)
+                                    {
+                                        return Future.failedFuture(error);
+                                    }
+
+                                    ReplicaRouter.markFailed(replica, error);
+
+                                    // The retry runs on the primary, so it counts against the primary pool
+                                    return count(pool, run(dbClient, query, statement));
+                                })
+                                .map(rows -> processQueryResult(query, rows))
+                                .recover(this::handleQueryError);
+                    }
                 }
+
+                return track(pool, query, run(dbClient, query, statement));
             }
             catch (Exception exception)
             {
@@ -93,6 +144,21 @@ public class DatabaseServiceImpl implements DatabaseService
                 );
             }
 
+            var pool = DatabaseClient.resolvePool(request.getString(POOL));
+
+            var dbClient = DatabaseClient.getClient(pool);
+
+            if (dbClient == null)
+            {
+                LOGGER.error("Database client is not initialized.");
+
+                return Future.failedFuture(
+                        String.valueOf(new JsonObject()
+                                .put(SUCCESS, FALSE)
+                                .put(ERROR, "Database client is not initialized"))
+                );
+            }
+
             var batchParams = new ArrayList<Tuple>();
 
             for (var param : request.getJsonArray(PARAMS))
@@ -107,10 +173,9 @@ public class DatabaseServiceImpl implements DatabaseService
                 batchParams.add(tuple);
             }
 
-            return dbClient.preparedQuery(request.getString(QUERY))
-                    .executeBatch(batchParams)
-                    .map(this::processQueryResult)
-                    .recover(this::handleQueryError);
+            var query = request.getString(QUERY);
+
+            return track(pool, query, run(dbClient, query, client -> client.preparedQuery(query).executeBatch(batchParams)));
         }
         catch (Exception exception)
         {
@@ -125,13 +190,112 @@ public class DatabaseServiceImpl implements DatabaseService
 
     }
 
+    /**
+     * Runs a statement on a pipelined client, timing it from submission to completion. The part of that time
+     * spent waiting for a connection is reported per pool by {@link DatabasePoolMetrics}.
+     *
+     * @param client    the client to run the statement on
+     * @param query     the statement text, used to label its metrics
+     * @param statement the statement to run on the client
+     * @return a Future with the rows of the statement
+     */
+    private Future<RowSet<Row>> run(SqlClient client, String query, Function<SqlClient, Future<RowSet<Row>>> statement)
+    {
+        var submitted = System.nanoTime();
+
+        return statement.apply(client)
+                .onComplete(result ->
+                {
+                    if (StatementMetrics.isEnabled())
+                    {
+                        StatementMetrics.recordTiming(query, System.nanoTime() - submitted);
+                    }
+                });
+    }
+
+    /**
+     * Counts a statement against its pool while it runs and converts its outcome.
+     *
+     * @param pool   the name of the pool the statement runs on
+     * @param query  the statement text, used to label its metrics
+     * @param result the pending result of the statement
+     * @return a Future with the processed result
+     */
+    private Future<JsonObject> track(String pool, String query, Future<RowSet<Row>> result)
+    {
+        return count(pool, result)
+                .map(rows -> processQueryResult(query, rows))
+                .recover(this::handleQueryError);
+    }
+
+    /**
+     * Counts a statement against its pool while it runs.
+     * A statement refused because the wait queue of its pool is full is counted as rejected.
+     *
+     * @param pool   the name of the pool the statement runs on
+     * @param result the pending result of the statement
+     * @return the same result
+     */
+    private Future<RowSet<Row>> count(String pool, Future<RowSet<Row>> result)
+    {
+        var stats = poolStats.computeIfAbsent(pool, key -> new PoolStats());
+
+        stats.queries.incrementAndGet();
+
+        stats.inFlight.incrementAndGet();
+
+        return result
+                .onComplete(completed ->
+                {
+                    stats.inFlight.decrementAndGet();
+
+                    if (completed.failed())
+                    {
+                        stats.failures.incrementAndGet();
+
+                        if (completed.cause() instanceof ConnectionPoolTooBusyException)
+                        {
+                            stats.rejected.incrementAndGet();
+                        }
+                    }
+                });
+    }
+
+    private JsonObject getStats()
+    {
+        var stats = new JsonObject();
+
+        for (var pool : new TreeSet<>(poolStats.keySet()))
+        {
+            var counters = poolStats.get(pool);
+
+            var poolJson = new JsonObject()
+                    .put(QUERIES, counters.queries.get())
+                    .put(IN_FLIGHT, counters.inFlight.get())
+                    .put(FAILURES, counters.failures.get())
+                    .put(REJECTED, counters.rejected.get());
+
+            var waits = DatabasePoolMetrics.getStats(pool);
+
+            if (waits != null)
+            {
+                poolJson.mergeIn(waits);
+            }
+
+            stats.put(pool, poolJson);
+        }
+
+        return stats;
+    }
+
     /**
      * Processes the result of a SQL query and converts it to a JSON object.
      *
+     * @param query  the statement text, used to label its metrics
      * @param result the result set from the database query
      * @return a JsonObject containing "success", "rowCount", and optionally a "rows" array with row data
      */
-    private JsonObject processQueryResult(RowSet<Row> result)
+    private JsonObject processQueryResult(String query, RowSet<Row> result)
     {
         var response = new JsonObject()
                 .put(SUCCESS, TRUE)
@@ -144,6 +308,11 @@ public class DatabaseServiceImpl implements DatabaseService
 
         var rows = new JsonArray();
 
+        var bytes = 0L;
+
+        // Encoded size of the first JSON value of each column, used as the estimate for the rest of the column
+        var jsonSizes = new long[result.columnsNames().size()];
+
         for (var row : result)
         {
             try
@@ -155,6 +324,11 @@ public class DatabaseServiceImpl implements DatabaseService
                     try
                     {
                         jsonRow.put(row.getColumnName(i), row.getValue(i));
+
+                        if (StatementMetrics.isEnabled())
+                        {
+                            bytes += row.getColumnName(i).length() + estimateSize(row.getValue(i), i, jsonSizes);
+                        }
                     }
                     catch (Exception exception)
                     {
@@ -176,23 +350,68 @@ public class DatabaseServiceImpl implements DatabaseService
             response.put(ROWS, rows);
         }
 
+        if (StatementMetrics.isEnabled())
+        {
+            StatementMetrics.recordResult(query, rows.size(), bytes);
+        }
+
         return response;
     }
 
+    /**
+     * Estimates the size of a mapped value. Encoding a JSON value costs as much as encoding the response itself,
+     * so only the first JSON value of a column is encoded and the others are assumed to be the same size.
+     *
+     * @param value     the mapped value
+     * @param column    the index of the value's column
+     * @param jsonSizes the sampled JSON size of each column of the result, 0 until sampled
+     * @return the estimated size of the value in bytes
+     */
+    private long estimateSize(Object value, int column, long[] jsonSizes)
+    {
+        if (value == null)
+        {
+            return 4;
+        }
+
+        if (value instanceof Number || value instanceof Boolean)
+        {
+            return 8;
+        }
+
+        if (value instanceof JsonObject || value instanceof JsonArray)
+        {
+            if (jsonSizes[column] == 0)
+            {
+                jsonSizes[column] = value instanceof JsonObject json ? json.encode().length() : ((JsonArray) value).encode().length();
+            }
+
+            return jsonSizes[column];
+        }
+
+        return value.toString().length();
+    }
+
     /**
      * Handles errors encountered during database query execution.
      *
      * @param error the Throwable representing the cause of the failure
-     * @return a failed Future containing a JSON-formatted error response
+     * @return a failed Future containing a JSON-formatted error response, with the SQLSTATE of a database error
      */
     private Future<JsonObject> handleQueryError(Throwable error)
     {
         LOGGER.error("Database query failed: " + error.getMessage());
 
-        return Future.failedFuture(
-                String.valueOf(new JsonObject()
-                        .put(SUCCESS, FALSE)
-                        .put(ERROR, error.getMessage()))
-        );
+        var response = new JsonObject()
+                .put(SUCCESS, FALSE)
+                .put(ERROR, error.getMessage());
+
+        // Lets callers tell a statement the database rejects from a failure that may pass on a retry
+        if (error instanceof PgException pgException)
+        {
+            response.put(SQL_STATE, pgException.getSqlState());
+        }
+
+        return Future.failedFuture(String.valueOf(response));
     }
 }
\ No newline at end of file
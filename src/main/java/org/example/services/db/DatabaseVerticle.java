@@ -35,6 +35,8 @@ public class DatabaseVerticle extends AbstractVerticle
                     .setAddress(SERVICE_ADDRESS)
                     .register(DatabaseService.class, DatabaseService.create());
 
+            ReplicaRouter.start(vertx);
+
             startPromise.complete();
         }
         catch (Exception exception)
@@ -49,6 +51,8 @@ public class DatabaseVerticle extends AbstractVerticle
     @Override
     public void stop()
     {
+        ReplicaRouter.stop(vertx);
+
         LOGGER.info("Stopping DatabaseVerticle");
     }
 }
\ No newline at end of file
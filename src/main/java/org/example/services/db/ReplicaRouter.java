@@ -0,0 +1,403 @@
+package org.example.services.db;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.SqlClient;
+import org.example.utils.ConfigLoader;
+import org.example.utils.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.constants.AppConstants.DatabasePoolConstants.*;
+import static org.example.constants.AppConstants.FALSE;
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.ReplicaQuery.GET_PRIMARY_WAL_POSITION;
+import static org.example.constants.AppConstants.ReplicaQuery.GET_REPLAY_POSITION;
+import static org.example.constants.AppConstants.TRUE;
+
+/**
+ * Routes analytics reads to read replicas.
+ * <p>
+ * Each endpoint under {@code database.replicas.endpoints} gets its own pool, with the database and credentials
+ * of the primary. Every {@code check.interval} milliseconds the current WAL position of the primary is sampled,
+ * then each replica reports the position it has replayed up to. The lag of a replica is the age of the newest
+ * primary sample it has replayed past: its data is at least as recent as that sample. A standby whose WAL
+ * receiver is disconnected stops advancing, so its lag grows with every write on the primary, while an idle
+ * primary leaves every replica current. A replica is used only while its last check succeeded, is recent, and
+ * found a lag within {@code max.lag} milliseconds. A plain server that is not in recovery, such as a second
+ * local instance standing in for a replica, always reports no lag.
+ * <p>
+ * Healthy replicas are picked in turn. When none is healthy, or a replica cannot be reached, analytics reads
+ * fall back to the primary.
+ */
+public class ReplicaRouter
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private static final List<Replica> replicas = new CopyOnWriteArrayList<>();
+
+    private static final AtomicInteger next = new AtomicInteger();
+
+    private static final AtomicLong fallbacks = new AtomicLong();
+
+    private static long checkTimerId = -1;
+
+    // WAL positions of the primary and when they were sampled, oldest first; only touched by the checks
+    private static final Deque<long[]> primaryPositions = new ArrayDeque<>();
+
+    /**
+     * A replica endpoint with its pool and the outcome of its last health check.
+     */
+    static class Replica
+    {
+        private final String name;
+
+        private final SqlClient client;
+
+        private volatile boolean healthy = FALSE;
+
+        private volatile long lag = -1;
+
+        private volatile long lastChecked;
+
+        private final AtomicLong routed = new AtomicLong();
+
+        private Replica(String name, SqlClient client)
+        {
+            this.name = name;
+
+            this.client = client;
+        }
+
+        SqlClient getClient()
+        {
+            return client;
+        }
+
+        String getName()
+        {
+            return name;
+        }
+    }
+
+    /**
+     * Creates the pools of the configured replicas and starts checking their health.
+     * Does nothing unless {@code database.replicas.enabled} is set.
+     *
+     * @param vertx the Vertx instance running the checks
+     */
+    public static void start(Vertx vertx)
+    {
+        try
+        {
+            var config = getConfig();
+
+            if (!config.getBoolean(ENABLED, FALSE))
+            {
+                return;
+            }
+
+            var endpoints = config.getJsonArray(ENDPOINTS, new JsonArray());
+
+            for (var i = 0; i < endpoints.size(); i++)
+            {
+                var endpoint = endpoints.getJsonObject(i);
+
+                var name = endpoint.getString(HOST) + ":" + endpoint.getInteger(PORT, 5432);
+
+                var client = DatabaseClient.createClient(REPLICA + " " + name, config, endpoint.getString(HOST), endpoint.getInteger(PORT, 5432));
+
+                if (client != null)
+                {
+                    replicas.add(new Replica(name, client));
+                }
+            }
+
+            if (replicas.isEmpty())
+            {
+                LOGGER.warn("Replica routing enabled without any usable endpoint, analytics reads use the primary");
+
+                return;
+            }
+
+            checkReplicas();
+
+            checkTimerId = vertx.setPeriodic(Math.max(100, config.getLong(CHECK_INTERVAL, 5000L)), id -> checkReplicas());
+
+            MetricsRegistry.register(DATABASE_REPLICAS, ReplicaRouter::getStats);
+
+            LOGGER.info("Routing analytics reads to " + replicas.size() + " replica(s)");
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to start replica routing: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Stops checking the replicas.
+     *
+     * @param vertx the Vertx instance running the checks
+     */
+    public static void stop(Vertx vertx)
+    {
+        if (checkTimerId != -1)
+        {
+            vertx.cancelTimer(checkTimerId);
+
+            checkTimerId = -1;
+        }
+
+        MetricsRegistry.unregister(DATABASE_REPLICAS);
+    }
+
+    /**
+     * Closes the pools of all replicas.
+     */
+    static void close()
+    {
+        replicas.forEach(replica -> replica.client.close());
+
+        replicas.clear();
+    }
+
+    /**
+     * Returns how far behind the primary an analytics read may be.
+     *
+     * @return {@code max.lag} in milliseconds while reads are routed to replicas, 0 otherwise
+     */
+    public static long getStalenessBound()
+    {
+        return replicas.isEmpty() ? 0 : getConfig().getLong(MAX_LAG, 5000L);
+    }
+
+    /**
+     * Picks the next healthy replica.
+     *
+     * @return a replica to run an analytics read on, or null if the read must go to the primary
+     */
+    static Replica pick()
+    {
+        if (replicas.isEmpty())
+        {
+            return null;
+        }
+
+        // A replica whose checks stopped coming back is as suspect as one that failed them
+        var staleAfter = System.currentTimeMillis() - 3 * Math.max(100, getConfig().getLong(CHECK_INTERVAL, 5000L));
+
+        var start = Math.floorMod(next.getAndIncrement(), replicas.size());
+
+        for (var i = 0; i < replicas.size(); i++)
+        {
+            var replica = replicas.get((start + i) % replicas.size());
+
+            if (replica.healthy && replica.lastChecked >= staleAfter)
+            {
+                replica.routed.incrementAndGet();
+
+                return replica;
+            }
+        }
+
+        fallbacks.incrementAndGet();
+
+        return null;
+    }
+
+    /**
+     * Takes a replica out of rotation after a connection failure, until its next successful check.
+     *
+     * @param replica the replica that failed
+     * @param error   the cause of the failure
+     */
+    static void markFailed(Replica replica, Throwable error)
+    {
+        if (replica.healthy)
+        {
+            LOGGER.warn("Replica " + replica.name + " failed, falling back to the primary: " + error.getMessage());
+        }
+
+        replica.healthy = FALSE;
+
+        fallbacks.incrementAndGet();
+    }
+
+    private static void checkReplicas()
+    {
+        var sampledAt = System.currentTimeMillis();
+
+        // Sampled before the replicas are asked, so that a replica is never compared to a position it cannot have seen
+        DatabaseClient.getClient().query(GET_PRIMARY_WAL_POSITION)
+                .execute()
+                .onComplete(result ->
+                {
+                    try
+                    {
+                        if (result.succeeded() && result.result().iterator().hasNext())
+                        {
+                            recordPrimaryPosition(sampledAt, parseLsn(result.result().iterator().next().getString(LSN)));
+                        }
+                        else
+                        {
+                            LOGGER.warn("Failed to sample the WAL position of the primary: "
+                                    + (result.failed() ? result.cause().getMessage() : "no result"));
+                        }
+                    }
+                    catch (Exception exception)
+                    {
+                        LOGGER.error("Failed to sample the WAL position of the primary: " + exception.getMessage());
+                    }
+
+                    replicas.forEach(ReplicaRouter::checkReplica);
+                });
+    }
+
+    private static void recordPrimaryPosition(long sampledAt, long position)
+    {
+        var config = getConfig();
+
+        // Enough history to tell any lag up to the bound, and then some
+        var retention = 2 * config.getLong(MAX_LAG, 5000L) + 3 * Math.max(100, config.getLong(CHECK_INTERVAL, 5000L));
+
+        primaryPositions.addLast(new long[]{sampledAt, position});
+
+        while (primaryPositions.size() > 1 && primaryPositions.peekFirst()[0] < sampledAt - retention)
+        {
+            primaryPositions.pollFirst();
+        }
+    }
+
+    /**
+     * Computes how far behind the primary a replica is from the position it has replayed up to.
+     *
+     * @param replayed the replayed WAL position of the replica
+     * @return the age of the newest primary sample the replica has replayed past, or at least the age of the
+     * oldest sample if it has replayed none of them; -1 if the primary has not been sampled yet
+     */
+    private static long computeLag(long replayed)
+    {
+        if (primaryPositions.isEmpty())
+        {
+            return -1;
+        }
+
+        var now = System.currentTimeMillis();
+
+        var iterator = primaryPositions.descendingIterator();
+
+        while (iterator.hasNext())
+        {
+            var sample = iterator.next();
+
+            if (sample[1] <= replayed)
+            {
+                return now - sample[0];
+            }
+        }
+
+        return now - primaryPositions.peekFirst()[0];
+    }
+
+    private static void checkReplica(Replica replica)
+    {
+        var maxLag = getConfig().getLong(MAX_LAG, 5000L);
+
+        replica.client.query(GET_REPLAY_POSITION)
+                .execute()
+                .onComplete(result ->
+                {
+                    try
+                    {
+                        var wasHealthy = replica.healthy;
+
+                        if (result.succeeded() && result.result().iterator().hasNext())
+                        {
+                            var row = result.result().iterator().next();
+
+                            replica.lag = row.getBoolean(IN_RECOVERY) ? computeLag(parseLsn(row.getString(LSN))) : 0;
+
+                            replica.healthy = replica.lag >= 0 && replica.lag <= maxLag;
+
+                            replica.lastChecked = System.currentTimeMillis();
+
+                            if (!replica.healthy && wasHealthy)
+                            {
+                                LOGGER.warn("Replica " + replica.name + " lags by " + replica.lag + "ms, above the " + maxLag + "ms bound");
+                            }
+                        }
+                        else
+                        {
+                            replica.healthy = FALSE;
+
+                            if (wasHealthy)
+                            {
+                                LOGGER.warn("Replica " + replica.name + " health check failed: "
+                                        + (result.failed() ? result.cause().getMessage() : "no result"));
+                            }
+                        }
+
+                        if (replica.healthy && !wasHealthy)
+                        {
+                            LOGGER.info("Replica " + replica.name + " is healthy, lag " + replica.lag + "ms");
+                        }
+                    }
+                    catch (Exception exception)
+                    {
+                        replica.healthy = FALSE;
+
+                        LOGGER.error("Failed to check replica " + replica.name + ": " + exception.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Parses a WAL position in the {@code X/Y} text form of {@code pg_lsn}.
+     *
+     * @param lsn the position, may be null for a standby that has not replayed anything yet
+     * @return the position as an unsigned 64-bit offset, 0 if null
+     */
+    private static long parseLsn(String lsn)
+    {
+        if (lsn == null)
+        {
+            return 0;
+        }
+
+        var separator = lsn.indexOf('/');
+
+        return (Long.parseLong(lsn.substring(0, separator), 16) << 32) | Long.parseLong(lsn.substring(separator + 1), 16);
+    }
+
+    private static JsonObject getConfig()
+    {
+        return ConfigLoader.get().getJsonObject(DATABASE_REPLICAS, new JsonObject());
+    }
+
+    private static JsonObject getStats()
+    {
+        var endpoints = new JsonObject();
+
+        for (var replica : replicas)
+        {
+            endpoints.put(replica.name, new JsonObject()
+                    .put(HEALTHY, replica.healthy)
+                    .put(LAG, replica.lag)
+                    .put(ROUTED, replica.routed.get())
+                    .put(LAST_CHECKED, replica.lastChecked));
+        }
+
+        return new JsonObject()
+                .put(ENABLED, TRUE)
+                .put(FALLBACKS, fallbacks.get())
+                .put(ENDPOINTS, endpoints);
+    }
+}
@@ -0,0 +1,419 @@
+package org.example.services.db;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+
+import java.util.List;
+
+import static org.example.constants.AppConstants.SchemaQuery.*;
+
+/**
+ * Versioned schema migrations, applied in order at startup.
+ * <p>
+ * Each {@link Migration} has a version and a list of statements. The versions already applied are recorded in
+ * {@code schema_version}; a transactional migration runs in its own transaction together with the insert of its
+ * version, so a failed migration leaves no trace and is retried on the next start.
+ * <p>
+ * Indexes are built with {@code CREATE INDEX CONCURRENTLY}, so that tables already holding data stay writable,
+ * and such a statement cannot run in a transaction. A migration made of them is therefore not transactional:
+ * its statements run one by one and its version is recorded after the last one. Each statement must then be
+ * idempotent, and since a failed concurrent build leaves an invalid index behind that {@code IF NOT EXISTS}
+ * would keep, the invalid indexes of the schema are dropped before such a migration is retried.
+ * <p>
+ * All migrations run on one connection holding a session advisory lock, so that instances starting together
+ * apply each migration only once. The other instances poll for the lock instead of waiting on it: a statement
+ * blocked on the lock would hold a snapshot that a concurrent index build has to wait for, a deadlock.
+ * <p>
+ * Migrations are never edited once released; a change to the schema is a new migration at the end of the list.
+ * Versions 1 and 2 are the tables and indexes that used to be created ad hoc at startup, written so that they
+ * also apply cleanly over a database created that way.
+ * <p>
+ * Once the schema is current, stored credential passwords are moved to the current encryption key, see
+ * {@link CredentialReencryptor}.
+ */
+public class SchemaMigrator
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    // Arbitrary key of the advisory lock serializing migrations across instances
+    private static final long MIGRATION_LOCK = 7318420051L;
+
+    // Delay between two attempts to take the migration lock while another instance holds it
+    private static final long LOCK_RETRY_DELAY = 1000;
+
+    private record Migration(int version, String description, boolean transactional, List<String> statements)
+    {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Baseline schema", true, List.of(
+
+                    """
+            CREATE TABLE IF NOT EXISTS credential_profile (
+                id SERIAL PRIMARY KEY,
+                name VARCHAR(100) UNIQUE NOT NULL,
+                username VARCHAR(100) NOT NULL,
+                password VARCHAR(100) NOT NULL,
+                system_type VARCHAR(50) NOT NULL
+            );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS discovery_profile (
+                id SERIAL PRIMARY KEY,
+                name VARCHAR(100) UNIQUE NOT NULL,
+                ip VARCHAR(45) NOT NULL,
+                port INTEGER DEFAULT 22,
+                status VARCHAR(50) DEFAULT 'inactive',
+                credential_profile_id INTEGER NOT NULL,
+                FOREIGN KEY (credential_profile_id)
+                    REFERENCES credential_profile(id)
+                    ON DELETE RESTRICT
+            );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS provisioned_device (
+                  id SERIAL PRIMARY KEY,
+                  name VARCHAR(100) UNIQUE NOT NULL,
+                  ip VARCHAR(45) UNIQUE NOT NULL,
+                  port INTEGER DEFAULT 22,
+                  credential_profile_id INTEGER NOT NULL,
+                  is_deleted BOOLEAN DEFAULT FALSE,
+                  FOREIGN KEY (credential_profile_id)
+                      REFERENCES credential_profile(id)
+                      ON DELETE RESTRICT
+              );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS polling_result (
+                id SERIAL PRIMARY KEY,
+                provisioned_device_id INTEGER NOT NULL,
+                polled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                metrics JSONB NOT NULL,
+                FOREIGN KEY (provisioned_device_id)
+                    REFERENCES provisioned_device(id)
+                    ON DELETE CASCADE
+            );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS availability (
+                 id SERIAL PRIMARY KEY,
+                 provisioned_device_id INTEGER NOT NULL,
+                 checked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                 was_available BOOLEAN NOT NULL,
+                 FOREIGN KEY (provisioned_device_id)
+                     REFERENCES provisioned_device(id)
+                     ON DELETE CASCADE
+             );
+            """,
+                    """
+            ALTER TABLE provisioned_device ADD COLUMN IF NOT EXISTS is_critical BOOLEAN DEFAULT FALSE;
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS scheduler_state (
+                 provisioned_device_id INTEGER PRIMARY KEY,
+                 last_polled_at BIGINT NOT NULL,
+                 next_due_at BIGINT NOT NULL,
+                 FOREIGN KEY (provisioned_device_id)
+                     REFERENCES provisioned_device(id)
+                     ON DELETE CASCADE
+             );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS discovery_job (
+                 id SERIAL PRIMARY KEY,
+                 name VARCHAR(200) NOT NULL,
+                 status VARCHAR(20) NOT NULL,
+                 total INTEGER NOT NULL DEFAULT 0,
+                 probed INTEGER NOT NULL DEFAULT 0,
+                 reachable INTEGER NOT NULL DEFAULT 0,
+                 written INTEGER NOT NULL DEFAULT 0,
+                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                 started_at TIMESTAMP,
+                 finished_at TIMESTAMP
+             );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS metric_catalog (
+                 id SERIAL PRIMARY KEY,
+                 name VARCHAR(200) UNIQUE NOT NULL
+             );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS metric_sample (
+                 provisioned_device_id INTEGER NOT NULL,
+                 metric_id INTEGER NOT NULL,
+                 ts TIMESTAMP NOT NULL,
+                 value DOUBLE PRECISION NOT NULL,
+                 PRIMARY KEY (provisioned_device_id, metric_id, ts),
+                 FOREIGN KEY (provisioned_device_id)
+                     REFERENCES provisioned_device(id)
+                     ON DELETE CASCADE,
+                 FOREIGN KEY (metric_id)
+                     REFERENCES metric_catalog(id)
+             );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS metric_rollup_5m (
+                 provisioned_device_id INTEGER NOT NULL,
+                 metric_id INTEGER NOT NULL,
+                 bucket TIMESTAMP NOT NULL,
+                 min_value DOUBLE PRECISION NOT NULL,
+                 max_value DOUBLE PRECISION NOT NULL,
+                 sum_value DOUBLE PRECISION NOT NULL,
+                 sample_count BIGINT NOT NULL,
+                 last_value DOUBLE PRECISION NOT NULL,
+                 last_ts TIMESTAMP NOT NULL,
+                 PRIMARY KEY (provisioned_device_id, metric_id, bucket),
+                 FOREIGN KEY (provisioned_device_id)
+                     REFERENCES provisioned_device(id)
+                     ON DELETE CASCADE,
+                 FOREIGN KEY (metric_id)
+                     REFERENCES metric_catalog(id)
+             );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS metric_rollup_1h (
+                 provisioned_device_id INTEGER NOT NULL,
+                 metric_id INTEGER NOT NULL,
+                 bucket TIMESTAMP NOT NULL,
+                 min_value DOUBLE PRECISION NOT NULL,
+                 max_value DOUBLE PRECISION NOT NULL,
+                 sum_value DOUBLE PRECISION NOT NULL,
+                 sample_count BIGINT NOT NULL,
+                 last_value DOUBLE PRECISION NOT NULL,
+                 last_ts TIMESTAMP NOT NULL,
+                 PRIMARY KEY (provisioned_device_id, metric_id, bucket),
+                 FOREIGN KEY (provisioned_device_id)
+                     REFERENCES provisioned_device(id)
+                     ON DELETE CASCADE,
+                 FOREIGN KEY (metric_id)
+                     REFERENCES metric_catalog(id)
+             );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS metric_rollup_1d (
+                 provisioned_device_id INTEGER NOT NULL,
+                 metric_id INTEGER NOT NULL,
+                 bucket TIMESTAMP NOT NULL,
+                 min_value DOUBLE PRECISION NOT NULL,
+                 max_value DOUBLE PRECISION NOT NULL,
+                 sum_value DOUBLE PRECISION NOT NULL,
+                 sample_count BIGINT NOT NULL,
+                 last_value DOUBLE PRECISION NOT NULL,
+                 last_ts TIMESTAMP NOT NULL,
+                 PRIMARY KEY (provisioned_device_id, metric_id, bucket),
+                 FOREIGN KEY (provisioned_device_id)
+                     REFERENCES provisioned_device(id)
+                     ON DELETE CASCADE,
+                 FOREIGN KEY (metric_id)
+                     REFERENCES metric_catalog(id)
+             );
+            """,
+                    """
+            CREATE TABLE IF NOT EXISTS rollup_watermark (
+                 resolution VARCHAR(10) PRIMARY KEY,
+                 watermark TIMESTAMP NOT NULL
+             );
+            """
+            )),
+            // Built without a write lock on tables that may already hold data, which cannot be done in a transaction
+            new Migration(2, "Indexes for time ranges, per-device lookups and active devices", false, List.of(
+                    """
+            CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_metric_sample_metric_ts ON metric_sample (metric_id, ts);
+            """,
+                    """
+            CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_metric_sample_ts ON metric_sample (ts);
+            """,
+                    """
+            CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_polling_result_polled_at ON polling_result (polled_at);
+            """,
+                    """
+            CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_availability_checked_at ON availability (checked_at);
+            """,
+                    """
+            CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_polling_result_device_polled_at ON polling_result (provisioned_device_id, polled_at DESC);
+            """,
+                    """
+            CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_availability_device_checked_at ON availability (provisioned_device_id, checked_at DESC) INCLUDE (was_available);
+            """,
+                    """
+            CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_provisioned_device_active ON provisioned_device (id) INCLUDE (is_critical) WHERE is_deleted = FALSE;
+            """
+            )),
+            new Migration(3, "Room for versioned AES-GCM credential passwords", true, List.of(
+                    """
+            ALTER TABLE credential_profile ALTER COLUMN password TYPE TEXT;
+            """
+            )),
+            new Migration(4, "Hourly availability rollup", true, List.of(
+                    """
+            CREATE TABLE IF NOT EXISTS availability_rollup_1h (
+                 provisioned_device_id INTEGER NOT NULL,
+                 bucket TIMESTAMP NOT NULL,
+                 up_count BIGINT NOT NULL,
+                 total_count BIGINT NOT NULL,
+                 PRIMARY KEY (provisioned_device_id, bucket),
+                 FOREIGN KEY (provisioned_device_id)
+                     REFERENCES provisioned_device(id)
+                     ON DELETE CASCADE
+             );
+            """
+            )),
+            // The primary key starts with the device but not with the time, so it cannot find a device's latest polls;
+            // the metric and value are included so that reading them does not visit a heap page per sample
+            new Migration(5, "Index for the latest metric samples of a device", false, List.of(
+                    """
+            CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_metric_sample_device_ts ON metric_sample (provisioned_device_id, ts DESC) INCLUDE (metric_id, value);
+            """
+            )),
+            // The base unit values of a metric are stored in (see MetricsUtil); null until the metric's next sample
+            new Migration(6, "Unit of each metric", true, List.of(
+                    """
+            ALTER TABLE metric_catalog ADD COLUMN IF NOT EXISTS unit TEXT;
+            """
+            ))
+    );
+
+    /**
+     * Applies every migration newer than the current schema version.
+     *
+     * @param vertx         The Vertx instance, used to wait between attempts to take the migration lock.
+     * @param resultHandler A handler to process the result once all pending migrations are applied.
+     */
+    public static void migrate(Vertx vertx, Handler<AsyncResult<Void>> resultHandler)
+    {
+        try
+        {
+            var client = DatabaseClient.createMigrationPool();
+
+            client.getConnection()
+                    .compose(connection -> lock(vertx, connection)
+                            .compose(locked -> migrate(connection)
+                                    .eventually(() -> connection.preparedQuery(UNLOCK_SCHEMA_VERSION).execute(Tuple.of(MIGRATION_LOCK))))
+                            .eventually(() -> connection.close()))
+                    .compose(v -> CredentialReencryptor.reencrypt(client))
+                    .eventually(() -> client.close())
+                    .onComplete(resultHandler);
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to migrate schema: " + exception.getMessage());
+
+            resultHandler.handle(Future.failedFuture(exception));
+        }
+    }
+
+    /**
+     * Takes the migration lock on a connection, retrying while another instance holds it.
+     *
+     * @param vertx      The Vertx instance.
+     * @param connection The connection to hold the lock.
+     * @return A Future completed once the lock is held.
+     */
+    private static Future<Void> lock(Vertx vertx, SqlConnection connection)
+    {
+        return connection.preparedQuery(TRY_LOCK_SCHEMA_VERSION).execute(Tuple.of(MIGRATION_LOCK))
+                .compose(rows ->
+                {
+                    if (rows.iterator().next().getBoolean(LOCKED))
+                    {
+                        return Future.<Void>succeededFuture();
+                    }
+
+                    LOGGER.info("Waiting for another instance to finish migrating the schema");
+
+                    return vertx.timer(LOCK_RETRY_DELAY).compose(v -> lock(vertx, connection));
+                });
+    }
+
+    /**
+     * Applies every pending migration in order on a connection holding the migration lock.
+     *
+     * @param connection The connection holding the lock.
+     * @return A Future completed once all migrations are applied.
+     */
+    private static Future<Void> migrate(SqlConnection connection)
+    {
+        var future = connection.query(CREATE_SCHEMA_VERSION_TABLE).execute().<Void>mapEmpty();
+
+        for (var migration : MIGRATIONS)
+        {
+            future = future.compose(v -> connection.preparedQuery(IS_SCHEMA_VERSION_APPLIED).execute(Tuple.of(migration.version())))
+                    .compose(applied ->
+                    {
+                        if (applied.iterator().hasNext())
+                        {
+                            return Future.<Void>succeededFuture();
+                        }
+
+                        LOGGER.info("Applying schema migration " + migration.version() + ": " + migration.description());
+
+                        if (!migration.transactional())
+                        {
+                            return dropInvalidIndexes(connection).compose(v -> apply(connection, migration));
+                        }
+
+                        return connection.begin()
+                                .compose(transaction -> apply(connection, migration)
+                                        .compose(v -> transaction.commit(), error -> transaction.rollback()
+                                                .transform(rolledBack -> Future.<Void>failedFuture(error))));
+                    });
+        }
+
+        return future;
+    }
+
+    /**
+     * Runs the statements of a migration in order, then records its version.
+     *
+     * @param connection The connection to run the migration on, in a transaction if the migration is transactional.
+     * @param migration  The migration to apply.
+     * @return A Future completed once the migration is applied.
+     */
+    private static Future<Void> apply(SqlConnection connection, Migration migration)
+    {
+        var future = Future.<Void>succeededFuture();
+
+        for (var statement : migration.statements())
+        {
+            future = future.compose(v -> connection.query(statement).execute().mapEmpty());
+        }
+
+        return future
+                .compose(v -> connection.preparedQuery(ADD_SCHEMA_VERSION)
+                        .execute(Tuple.of(migration.version(), migration.description())))
+                .<Void>mapEmpty();
+    }
+
+    /**
+     * Drops the indexes left invalid by a concurrent build that failed, so that it can be run again.
+     *
+     * @param connection The connection holding the migration lock.
+     * @return A Future completed once the invalid indexes are dropped.
+     */
+    private static Future<Void> dropInvalidIndexes(SqlConnection connection)
+    {
+        return connection.query(GET_INVALID_INDEXES).execute()
+                .compose(rows ->
+                {
+                    var future = Future.<Void>succeededFuture();
+
+                    for (var row : rows)
+                    {
+                        var name = row.getString(INDEX_NAME);
+
+                        LOGGER.warn("Dropping invalid index " + name + " left by a failed migration");
+
+                        future = future.compose(v -> connection.query(String.format(DROP_INDEX, name)).execute().mapEmpty());
+                    }
+
+                    return future;
+                });
+    }
+}
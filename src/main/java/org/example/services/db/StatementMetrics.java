@@ -0,0 +1,212 @@
+package org.example.services.db;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+import org.example.constants.AppConstants;
+import org.example.utils.ConfigLoader;
+import org.example.utils.Histogram;
+import org.example.utils.MetricsRegistry;
+
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static org.example.constants.AppConstants.DatabaseStatementConstants.*;
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.TRUE;
+
+/**
+ * Per-statement instrumentation of the database service.
+ * <p>
+ * Statements are labelled with the name of the {@code AppConstants} query constant they come from, such as
+ * {@code ProvisionQuery.GET_ALL_PROVISIONS}; constants that are {@link String#format} templates also match the
+ * statements formatted from them. Statements built elsewhere are counted under {@code other}. For every label
+ * the time from submission to completion is kept as a histogram, along with the rows returned and an estimate
+ * of the bytes mapped into JSON, where only the first JSON value of each column is encoded to be measured.
+ * Statements are pipelined, so the time spent waiting for a connection is not
+ * known per statement; {@link DatabasePoolMetrics} reports it per pool.
+ */
+class StatementMetrics
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementMetrics.class);
+
+    private static final Map<String, String> CONSTANT_LABELS = new ConcurrentHashMap<>();
+
+    private static final Map<Pattern, String> TEMPLATE_LABELS = new LinkedHashMap<>();
+
+    private static final Map<String, String> RESOLVED_LABELS = new ConcurrentHashMap<>();
+
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    private static final boolean ENABLED_FLAG;
+
+    private static final int MAX_STATEMENTS_LIMIT;
+
+    static
+    {
+        var config = ConfigLoader.get().getJsonObject(DATABASE_STATEMENTS, new JsonObject());
+
+        ENABLED_FLAG = config.getBoolean(INSTRUMENTATION, TRUE);
+
+        MAX_STATEMENTS_LIMIT = config.getInteger(MAX_STATEMENTS, 1024);
+
+        for (var holder : AppConstants.class.getDeclaredClasses())
+        {
+            if (!holder.getSimpleName().endsWith("Query"))
+            {
+                continue;
+            }
+
+            for (var field : holder.getDeclaredFields())
+            {
+                try
+                {
+                    if (!Modifier.isStatic(field.getModifiers()) || field.getType() != String.class)
+                    {
+                        continue;
+                    }
+
+                    var sql = (String) field.get(null);
+
+                    var label = holder.getSimpleName() + "." + field.getName();
+
+                    if (sql.contains("%"))
+                    {
+                        TEMPLATE_LABELS.put(toPattern(sql), label);
+                    }
+                    else
+                    {
+                        CONSTANT_LABELS.putIfAbsent(sql, label);
+                    }
+                }
+                catch (Exception exception)
+                {
+                    LOGGER.error("Failed to read query constant " + field.getName() + ": " + exception.getMessage());
+                }
+            }
+        }
+
+        MetricsRegistry.register(DATABASE_STATEMENTS, StatementMetrics::getStats);
+    }
+
+    private static class Stats
+    {
+        private final Histogram execution = new Histogram(1, 5, 10, 50, 100, 500, 1000, 5000);
+
+        private final AtomicLong rowsReturned = new AtomicLong();
+
+        private final AtomicLong bytesMapped = new AtomicLong();
+    }
+
+    static boolean isEnabled()
+    {
+        return ENABLED_FLAG;
+    }
+
+    /**
+     * Records the execution time of a statement.
+     *
+     * @param sql          the statement text
+     * @param executeNanos the time between submitting the statement and its completion
+     */
+    static void recordTiming(String sql, long executeNanos)
+    {
+        var stats = STATS.computeIfAbsent(label(sql), key -> new Stats());
+
+        stats.execution.record(executeNanos / 1_000_000);
+    }
+
+    /**
+     * Records the rows returned by a statement and the bytes they were mapped into.
+     *
+     * @param sql   the statement text
+     * @param rows  the number of rows returned
+     * @param bytes the estimated size of the mapped rows
+     */
+    static void recordResult(String sql, long rows, long bytes)
+    {
+        var stats = STATS.computeIfAbsent(label(sql), key -> new Stats());
+
+        stats.rowsReturned.addAndGet(rows);
+
+        stats.bytesMapped.addAndGet(bytes);
+    }
+
+    private static String label(String sql)
+    {
+        var label = CONSTANT_LABELS.get(sql);
+
+        if (label != null)
+        {
+            return label;
+        }
+
+        label = RESOLVED_LABELS.get(sql);
+
+        if (label != null)
+        {
+            return label;
+        }
+
+        label = OTHER_STATEMENTS;
+
+        for (var template : TEMPLATE_LABELS.entrySet())
+        {
+            if (template.getKey().matcher(sql).matches())
+            {
+                label = template.getValue();
+
+                break;
+            }
+        }
+
+        // Statements with generated parameter lists vary without bound, so stop remembering them at some point
+        if (RESOLVED_LABELS.size() < MAX_STATEMENTS_LIMIT)
+        {
+            RESOLVED_LABELS.put(sql, label);
+        }
+
+        return label;
+    }
+
+    private static Pattern toPattern(String template)
+    {
+        var pattern = new StringBuilder();
+
+        var parts = template.split("%(\\d+\\$)?[sd]", -1);
+
+        for (var i = 0; i < parts.length; i++)
+        {
+            if (i > 0)
+            {
+                pattern.append(".+?");
+            }
+
+            pattern.append(Pattern.quote(parts[i]));
+        }
+
+        return Pattern.compile(pattern.toString(), Pattern.DOTALL);
+    }
+
+    private static JsonObject getStats()
+    {
+        var statements = new JsonObject();
+
+        for (var label : new TreeMap<>(STATS).keySet())
+        {
+            var stats = STATS.get(label);
+
+            statements.put(label, new JsonObject()
+                    .put(EXECUTION, stats.execution.toJson())
+                    .put(ROWS_RETURNED, stats.rowsReturned.get())
+                    .put(BYTES_MAPPED, stats.bytesMapped.get()));
+        }
+
+        return statements;
+    }
+}
@@ -10,18 +10,30 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.example.services.db.DatabaseService;
 import org.example.services.db.DatabaseVerticle;
+import org.example.utils.ConfigLoader;
 import org.example.utils.PluginOperationsUtil;
 import org.example.utils.DecryptionUtil;
 import org.example.utils.ConnectivityUtil;
 import org.example.utils.ConnectivityUtil.CheckType;
+import org.example.utils.ProbeExecutor;
+import org.example.utils.ResponseCache;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
 
 import static org.example.constants.AppConstants.*;
 import static org.example.constants.AppConstants.DiscoveryQuery.*;
 import static org.example.constants.AppConstants.DiscoveryField.*;
+import static org.example.constants.AppConstants.DiscoverySweepConstants.*;
+import static org.example.constants.AppConstants.DiscoveryJobConstants.*;
+import static org.example.constants.AppConstants.DiscoveryJobField.*;
+import static org.example.constants.AppConstants.Message.FAILED_TO_QUEUE;
+import static org.example.constants.AppConstants.Message.DISCOVERY_JOB_NOT_ACTIVE;
 import static org.example.constants.AppConstants.CredentialField.USERNAME;
 import static org.example.constants.AppConstants.CredentialField.PASSWORD;
 import static org.example.constants.AppConstants.CredentialField.SYSTEM_TYPE_RESPONSE;
@@ -34,6 +46,17 @@ import static org.example.constants.AppConstants.JsonKey.*;
  * Handles device reachability checks (ping, port, SSH) and updates
  * discovery status in the database. Communicates over the event bus
  * at {@code discovery.service}.
+ * <p>
+ * Every discovery run, from a single profile to a bulk CIDR sweep, goes through the same sweep
+ * pipeline: PING/PORT probes run concurrently under a global {@link ProbeRateLimiter}, reachable
+ * devices are SSH-checked in batches, and statuses are written back in batches.
+ * <p>
+ * Each run is a discovery job. Jobs are persisted in {@code discovery_job}, queued and started at most
+ * {@code discovery.jobs.max.concurrent} at a time, and a run requested for a profile or sweep that is
+ * already queued or running is collapsed into the existing job. Jobs report their progress per write
+ * batch and can be cancelled, which drops their queued probes. Probes run on a dedicated worker pool
+ * sized to {@code discovery.sweep.max.concurrency}, so large sweeps never compete with the poller for
+ * the shared worker pool.
  */
 public class DiscoveryVerticle extends AbstractVerticle
 {
@@ -41,14 +64,107 @@ public class DiscoveryVerticle extends AbstractVerticle
 
     public static final String SERVICE_ADDRESS = "discovery.service";
 
+    private DatabaseService databaseService;
+
+    private ProbeExecutor probeExecutor;
+
+    private ProbeRateLimiter probeLimiter;
+
+    private int sshBatchSize;
+
+    private int writeBatchSize;
+
+    private int maxConcurrentJobs;
+
+    private int runningJobs;
+
+    private final Map<Integer, Sweep> jobs = new HashMap<>();
+
+    private final Map<String, Sweep> jobsByKey = new HashMap<>();
+
+    private final ArrayDeque<Sweep> jobQueue = new ArrayDeque<>();
+
+    /**
+     * A discovery job: the progress and pending work of a single discovery sweep.
+     */
+    private static class Sweep
+    {
+        private final String key;
+
+        private final String label;
+
+        private final Supplier<Future<JsonArray>> loader;
+
+        private Future<Integer> registration;
+
+        private Integer jobId;
+
+        private String status = QUEUED;
+
+        private boolean cancelled;
+
+        private final int total;
+
+        private int probed;
+
+        private int portReachable;
+
+        private int sshReachable;
+
+        private int written;
+
+        private JsonArray sshBatch = new JsonArray();
+
+        private JsonArray pendingResults = new JsonArray();
+
+        private final List<Future<Void>> sshFutures = new ArrayList<>();
+
+        private final List<Future<Void>> writeFutures = new ArrayList<>();
+
+        private Sweep(String key, String label, int total, Supplier<Future<JsonArray>> loader)
+        {
+            this.key = key;
+
+            this.label = label;
+
+            this.total = total;
+
+            this.loader = loader;
+        }
+    }
+
     @Override
     public void start(Promise<Void> startPromise)
     {
         try
         {
-            vertx.eventBus().localConsumer(SERVICE_ADDRESS, this::handleDiscoveryRequests);
+            databaseService = DatabaseService.createProxy(vertx, DatabaseVerticle.SERVICE_ADDRESS);
 
-            startPromise.complete();
+            var sweepConfig = ConfigLoader.get().getJsonObject(DISCOVERY_SWEEP, new JsonObject());
+
+            var maxConcurrency = Math.max(1, sweepConfig.getInteger(MAX_CONCURRENCY, 20));
+
+            probeExecutor = ProbeExecutor.create(vertx, "discovery-probe", maxConcurrency);
+
+            probeLimiter = new ProbeRateLimiter(vertx, sweepConfig.getDouble(RATE, 50.0), maxConcurrency);
+
+            sshBatchSize = Math.max(1, sweepConfig.getInteger(SSH_BATCH_SIZE, 50));
+
+            writeBatchSize = Math.max(1, sweepConfig.getInteger(WRITE_BATCH_SIZE, 100));
+
+            maxConcurrentJobs = Math.max(1, ConfigLoader.get().getJsonObject(DISCOVERY_JOBS, new JsonObject())
+                    .getInteger(MAX_CONCURRENT, 2));
+
+            // Jobs left queued or running by a previous process can no longer make progress
+            executeQuery(FAIL_INTERRUPTED_DISCOVERY_JOBS, List.of(FAILED, QUEUED, RUNNING))
+                    .onSuccess(result -> LOGGER.info("Marked " + result.getInteger(ROW_COUNT, 0) + " interrupted discovery jobs as failed"))
+                    .onFailure(error -> LOGGER.error("Failed to mark interrupted discovery jobs: " + error.getMessage()))
+                    .onComplete(result ->
+                    {
+                        vertx.eventBus().localConsumer(SERVICE_ADDRESS, this::handleDiscoveryRequests);
+
+                        startPromise.complete();
+                    });
         }
         catch (Exception exception)
         {
@@ -61,12 +177,18 @@ public class DiscoveryVerticle extends AbstractVerticle
     @Override
     public void stop()
     {
+        if (probeExecutor != null)
+        {
+            probeExecutor.close();
+        }
+
         LOGGER.info("Stopping DiscoveryVerticle");
     }
 
     /**
      * Handles incoming discovery-related requests from the Event Bus.
-     * Supports actions like "startDiscovery" and "fetchDeviceDetailsAndRunDiscovery".
+     * Supports actions like "startDiscovery", "fetchCredentialsAndRunDiscovery" and "sweepDiscovery", which
+     * queue a discovery job and reply with its ID, and "cancelDiscoveryJob".
      *
      * @param message the message containing the action and payload.
      */
@@ -89,18 +211,34 @@ public class DiscoveryVerticle extends AbstractVerticle
                         return;
                     }
 
-                    startDiscoveryPipeline(new JsonArray().add(device), new JsonArray().add(new JsonObject()
-                            .put(ID, device.getInteger(ID))
-                            .put(REACHABLE, FALSE)));
+                    submitJob(message, "profile:" + device.getInteger(ID), "profile " + device.getInteger(ID), 1,
+                            () -> Future.succeededFuture(new JsonArray().add(device)));
 
                     break;
 
                 case SAVE_AND_RUN_DISCOVERY:
 
-                    fetchCredentialsAndRunDiscovery(request.getInteger(ID),
-                            request.getString(IP),
-                            request.getInteger(PORT),
-                            request.getInteger(CREDENTIAL_PROFILE_ID));
+                    var profile = new JsonArray().add(new JsonObject()
+                            .put(ID, request.getInteger(ID))
+                            .put(IP, request.getString(IP)));
+
+                    submitJob(message, "profile:" + request.getInteger(ID), "profile " + request.getInteger(ID), 1,
+                            () -> fetchDevices(profile, request.getInteger(PORT), request.getInteger(CREDENTIAL_PROFILE_ID)));
+
+                    break;
+
+                case SWEEP_DISCOVERY:
+
+                    var targets = request.getJsonArray(TARGETS, new JsonArray());
+
+                    submitJob(message, "sweep:" + request.getString(NAME), request.getString(NAME), targets.size(),
+                            () -> fetchDevices(targets, request.getInteger(PORT), request.getInteger(CREDENTIAL_PROFILE_ID)));
+
+                    break;
+
+                case CANCEL_DISCOVERY_JOB:
+
+                    cancelJob(message, request.getInteger(ID));
 
                     break;
 
@@ -116,296 +254,550 @@ public class DiscoveryVerticle extends AbstractVerticle
     }
 
     /**
-     * Executes the discovery pipeline for a given list of devices:
-     * 1. PING check (concurrent)
-     * 2. PORT check (concurrent)
-     * 3. SSH reachability check via external plugin (all reachable devices together, in executeBlocking)
-     * Updates the database with the final reachability status.
+     * Queues a discovery job and replies with its ID once it is persisted. If a job with the same key is
+     * already queued or running, no new job is created and the reply carries the existing job instead.
      *
-     * @param devices         a JsonArray of device details including IP, port, and credentials.
-     * @param defaultResults  a JsonArray containing initial reachability status (usually false).
+     * @param message the request to reply to
+     * @param key     identifies the target of the job, e.g. a discovery profile or a bulk sweep name
+     * @param label   a name for the job used in the job record and in progress logging
+     * @param total   the number of discovery profiles the job covers
+     * @param loader  supplies the devices to discover once the job starts
      */
-    private void startDiscoveryPipeline(JsonArray devices, JsonArray defaultResults)
+    private void submitJob(Message<JsonObject> message, String key, String label, int total, Supplier<Future<JsonArray>> loader)
     {
         try
         {
-            // Process PING and PORT checks concurrently for each device
-            var deviceFutures = devices.stream()
-                    .map(obj -> (JsonObject) obj)
-                    .map(device -> vertx.executeBlocking(
-                            () ->
-                            {
-                                try
-                                {
-                                    // Perform PING check
-                                    var pingResult = ConnectivityUtil.filterReachableDevices(new JsonArray().add(device), CheckType.PING);
+            var active = jobsByKey.get(key);
 
-                                    if (pingResult.isEmpty())
-                                    {
-                                        return null;
-                                    }
+            if (active != null)
+            {
+                LOGGER.info("Discovery for '" + label + "' is already " + active.status + ", collapsing duplicate request");
 
-                                    // Perform PORT check
-                                    var portResult = ConnectivityUtil.filterReachableDevices(pingResult, CheckType.PORT);
+                active.registration
+                        .onSuccess(id -> message.reply(jobReply(active, TRUE)))
+                        .onFailure(error -> message.fail(500, FAILED_TO_QUEUE));
 
-                                    if (portResult.isEmpty())
-                                    {
-                                        return null;
-                                    }
+                return;
+            }
 
-                                    // Return the device that passed both checks
-                                    return portResult.getJsonObject(0);
-                                }
-                                catch (Exception exception)
-                                {
-                                    LOGGER.error("Error processing device ID " + device.getInteger(ID) + ": " + exception.getMessage());
+            var sweep = new Sweep(key, label, total, loader);
 
-                                    return null;
-                                }
-                            },
-                            FALSE // Ordered execution not required
-                    ))
-                    .collect(Collectors.toList());
-
-            // Wait for all PING and PORT checks to complete
-            Future.all(deviceFutures)
-                    .compose(passedDevices ->
-                    {
-                        try
-                        {
-                            // Collect devices that passed PING and PORT checks
-                            var reachableDevices = new JsonArray();
+            // Claim the key before the insert completes, so that duplicates arriving meanwhile collapse too
+            jobsByKey.put(key, sweep);
 
-                            for (var i = 0; i < passedDevices.size(); i++)
-                            {
-                                var result = passedDevices.resultAt(i);
+            sweep.registration = executeQuery(ADD_DISCOVERY_JOB, List.of(label, QUEUED, total))
+                    .map(result -> result.getJsonArray(ROWS).getJsonObject(0).getInteger(ID));
 
-                                if (result instanceof JsonObject)
-                                {
-                                    reachableDevices.add(result);
-                                }
-                            }
+            sweep.registration
+                    .onSuccess(id ->
+                    {
+                        sweep.jobId = id;
 
-                            if (reachableDevices.isEmpty())
-                            {
-                                LOGGER.info("No devices passed PING and PORT checks.");
+                        jobs.put(id, sweep);
 
-                                return Future.succeededFuture(new JsonArray());
-                            }
+                        jobQueue.add(sweep);
 
-                            // Perform SSH check for all reachable devices in executeBlocking
-                            return vertx.executeBlocking(
-                                    () ->
-                                    {
-                                        try
-                                        {
-                                            return PluginOperationsUtil.runSSHReachability(reachableDevices);
-                                        }
-                                        catch (Exception exception)
-                                        {
-                                            LOGGER.error("SSH reachability check failed: " + exception.getMessage());
-
-                                            return new JsonArray();
-                                        }
-                                    },
-                                    FALSE
-                            );
-                        }
-                        catch (Exception exception)
-                        {
-                            LOGGER.error("Error during discovery pipeline: " + exception.getMessage());
+                        LOGGER.info("Discovery job " + id + " for '" + label + "' queued with " + total + " targets, "
+                                + jobQueue.size() + " jobs queued, " + runningJobs + " running");
 
-                            return Future.failedFuture(exception);
-                        }
+                        message.reply(jobReply(sweep, FALSE));
+
+                        scheduleJobs();
                     })
-                    .onSuccess(sshResults ->
+                    .onFailure(error ->
                     {
-                        try
+                        LOGGER.error("Failed to persist discovery job for '" + label + "': " + error.getMessage());
+
+                        jobsByKey.remove(key);
+
+                        message.fail(500, FAILED_TO_QUEUE);
+                    });
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to submit discovery job: " + exception.getMessage());
+
+            message.fail(500, FAILED_TO_QUEUE);
+        }
+    }
+
+    /**
+     * Starts queued jobs while fewer than {@code discovery.jobs.max.concurrent} jobs are running.
+     */
+    private void scheduleJobs()
+    {
+        while (runningJobs < maxConcurrentJobs && !jobQueue.isEmpty())
+        {
+            runJob(jobQueue.poll());
+        }
+    }
+
+    /**
+     * Runs a job: loads its devices, runs the discovery pipeline over them and records the outcome.
+     *
+     * @param sweep the job to run
+     */
+    private void runJob(Sweep sweep)
+    {
+        runningJobs++;
+
+        sweep.status = RUNNING;
+
+        executeQuery(START_DISCOVERY_JOB, List.of(RUNNING, sweep.jobId))
+                .onFailure(error -> LOGGER.error("Failed to mark discovery job " + sweep.jobId + " running: " + error.getMessage()));
+
+        Future<Void> run;
+
+        try
+        {
+            run = sweep.loader.get().compose(devices -> startDiscoveryPipeline(sweep, devices));
+        }
+        catch (Exception exception)
+        {
+            run = Future.failedFuture(exception);
+        }
+
+        run.onComplete(result ->
+        {
+            runningJobs--;
+
+            if (result.failed())
+            {
+                LOGGER.error("Discovery job " + sweep.jobId + " failed: " + result.cause().getMessage());
+            }
+
+            finishJob(sweep, sweep.cancelled ? CANCELLED : result.succeeded() ? DONE : FAILED);
+
+            scheduleJobs();
+        });
+    }
+
+    /**
+     * Removes a job from the active set and persists its final status and counts.
+     *
+     * @param sweep  the job to finish
+     * @param status the final status of the job
+     */
+    private void finishJob(Sweep sweep, String status)
+    {
+        sweep.status = status;
+
+        jobs.remove(sweep.jobId);
+
+        jobsByKey.remove(sweep.key);
+
+        executeQuery(FINISH_DISCOVERY_JOB, List.of(status, sweep.probed, sweep.sshReachable, sweep.written, sweep.jobId))
+                .onSuccess(result -> LOGGER.info("Discovery job " + sweep.jobId + " " + status))
+                .onFailure(error -> LOGGER.error("Failed to finish discovery job " + sweep.jobId + ": " + error.getMessage()));
+    }
+
+    /**
+     * Cancels a queued or running job. A queued job is dropped right away; a running job drops its queued
+     * probes and finishes once the probes already in flight have completed, discarding their results.
+     *
+     * @param message the request to reply to
+     * @param jobId   the ID of the job to cancel
+     */
+    private void cancelJob(Message<JsonObject> message, Integer jobId)
+    {
+        try
+        {
+            var sweep = jobId == null ? null : jobs.get(jobId);
+
+            if (sweep == null)
+            {
+                message.fail(404, DISCOVERY_JOB_NOT_ACTIVE);
+
+                return;
+            }
+
+            sweep.cancelled = true;
+
+            if (QUEUED.equals(sweep.status))
+            {
+                jobQueue.remove(sweep);
+
+                finishJob(sweep, CANCELLED);
+            }
+            else if (RUNNING.equals(sweep.status))
+            {
+                sweep.status = CANCELLING;
+
+                var dropped = probeLimiter.cancel(sweep);
+
+                LOGGER.info("Cancelling discovery job " + jobId + ", dropped " + dropped + " queued probes");
+            }
+
+            message.reply(jobReply(sweep, FALSE));
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to cancel discovery job " + jobId + ": " + exception.getMessage());
+
+            message.fail(500, exception.getMessage());
+        }
+    }
+
+    private JsonObject jobReply(Sweep sweep, boolean collapsed)
+    {
+        return new JsonObject()
+                .put(JOB_ID_RESPONSE, sweep.jobId)
+                .put(STATUS, sweep.status)
+                .put(COLLAPSED, collapsed);
+    }
+
+    /**
+     * Executes the discovery pipeline for a given list of devices:
+     * 1. PING and PORT checks per device, concurrently, within the global probe rate limit
+     * 2. SSH reachability check via external plugin, in batches of {@code ssh.batch.size} reachable devices
+     * 3. Status updates written back in batches of {@code write.batch.size}
+     * Devices that fail any stage are marked INACTIVE.
+     *
+     * Once the job is cancelled, results of probes that were still in flight are discarded.
+     *
+     * @param sweep   the job the pipeline runs for.
+     * @param devices a JsonArray of device details including IP, port, and credentials.
+     * @return a Future completed once all statuses of the sweep are written
+     */
+    private Future<Void> startDiscoveryPipeline(Sweep sweep, JsonArray devices)
+    {
+        var label = sweep.label;
+
+        try
+        {
+            LOGGER.info("Discovery sweep '" + label + "' (job " + sweep.jobId + ") started for " + devices.size() + " devices");
+
+            var probeFutures = new ArrayList<Future<Void>>();
+
+            for (var obj : devices)
+            {
+                var device = (JsonObject) obj;
+
+                probeFutures.add(probeLimiter.submit(sweep, () -> probeExecutor.execute(() -> checkPingAndPort(device)))
+                        .otherwise(error ->
                         {
-                            var updatedResults = new JsonArray();
+                            if (!(error instanceof CancellationException))
+                            {
+                                LOGGER.error("Probe failed for device ID " + device.getInteger(ID) + ": " + error.getMessage());
+                            }
 
-                            if (sshResults.isEmpty())
+                            return null;
+                        })
+                        .map(reachableDevice ->
+                        {
+                            if (sweep.cancelled)
                             {
-                                // If no results from SSH, all devices are unreachable
-                                for (var i = 0; i < defaultResults.size(); i++)
-                                {
-                                    try
-                                    {
-                                        updatedResults.add(new JsonObject()
-                                                .put(ID, defaultResults.getJsonObject(i).getInteger(ID))
-                                                .put(REACHABLE, FALSE));
-                                    }
-                                    catch (Exception exception)
-                                    {
-                                        LOGGER.error("Error processing default result: " + exception.getMessage());
-                                    }
-                                }
+                                return null;
+                            }
+
+                            sweep.probed++;
+
+                            if (reachableDevice == null)
+                            {
+                                recordResult(sweep, device.getInteger(ID), FALSE);
                             }
                             else
                             {
-                                // Build lookup map only when needed
-                                var sshResultMap = new HashMap<Integer, Boolean>();
+                                sweep.portReachable++;
 
-                                for (var i = 0; i < sshResults.size(); i++)
-                                {
-                                    try
-                                    {
-                                        sshResultMap.put(sshResults.getJsonObject(i).getInteger(ID), sshResults.getJsonObject(i).getBoolean(REACHABLE));
-                                    }
-                                    catch (Exception exception)
-                                    {
-                                        LOGGER.error("Error processing SSH result: " + exception.getMessage());
-                                    }
-                                }
+                                sweep.sshBatch.add(reachableDevice);
 
-                                // Generate updated results
-                                for (var i = 0; i < defaultResults.size(); i++)
+                                if (sweep.sshBatch.size() >= sshBatchSize)
                                 {
-                                    try
-                                    {
-                                        var id = defaultResults.getJsonObject(i).getInteger(ID);
-
-                                        updatedResults.add(new JsonObject()
-                                                .put(ID, id)
-                                                .put(REACHABLE, sshResultMap.getOrDefault(id, FALSE)));
-                                    }
-                                    catch (Exception exception)
-                                    {
-                                        LOGGER.error("Error processing default result: " + exception.getMessage());
-                                    }
+                                    runSshBatch(sweep);
                                 }
                             }
 
-                            LOGGER.info("Discovery completed. Updating status for devices.");
+                            return null;
+                        }));
+            }
 
-                            updateDiscoveryStatus(updatedResults);
-                        }
-                        catch (Exception exception)
+            return Future.join(probeFutures)
+                    .transform(probed ->
+                    {
+                        if (!sweep.sshBatch.isEmpty() && !sweep.cancelled)
                         {
-                            LOGGER.error("Error while processing discovery results: " + exception.getMessage());
-
-                            updateDiscoveryStatus(defaultResults);
+                            runSshBatch(sweep);
                         }
+
+                        return Future.join(sweep.sshFutures);
                     })
-                    .onFailure(cause ->
+                    .transform(checked ->
                     {
-                        LOGGER.error("Discovery pipeline failed: " + cause.getMessage());
+                        flushResults(sweep);
 
-                        updateDiscoveryStatus(defaultResults);
-                    });
+                        return Future.join(sweep.writeFutures);
+                    })
+                    .onComplete(result -> LOGGER.info("Discovery sweep '" + label + "' " + (sweep.cancelled ? "cancelled" : "completed") + ": "
+                            + sweep.probed + "/" + sweep.total + " probed, "
+                            + sweep.portReachable + " passed PING/PORT, "
+                            + sweep.sshReachable + " SSH reachable, "
+                            + sweep.written + " statuses written"))
+                    .mapEmpty();
         }
         catch (Exception exception)
         {
             LOGGER.error("Error starting discovery pipeline: " + exception.getMessage());
 
-            // Fallback to default results if any error occurs
-            updateDiscoveryStatus(defaultResults);
+            return Future.failedFuture(exception);
         }
     }
 
     /**
-     * Updates the discovery_profile status in the database based on SSH reachability results.
-     * Sets the status to ACTIVE or INACTIVE accordingly.
+     * Runs the PING check and then the PORT check for a single device. Blocking.
      *
-     * @param results  a JsonArray containing the device ID and its reachability result.
+     * @param device the device to check
+     * @return the device if it passed both checks, otherwise null
      */
-    private void updateDiscoveryStatus(JsonArray results)
+    private JsonObject checkPingAndPort(JsonObject device)
     {
         try
         {
-            if (results.isEmpty())
+            // Perform PING check
+            var pingResult = ConnectivityUtil.filterReachableDevices(new JsonArray().add(device), CheckType.PING);
+
+            if (pingResult.isEmpty())
             {
-                LOGGER.warn("No devices to update discovery status.");
+                return null;
+            }
 
-                return;
+            // Perform PORT check
+            var portResult = ConnectivityUtil.filterReachableDevices(pingResult, CheckType.PORT);
+
+            if (portResult.isEmpty())
+            {
+                return null;
             }
 
-            // Update status for each device concurrently
-            var updateFutures = results.stream()
-                    .map(obj -> (JsonObject) obj)
-                    .map(result ->
+            // Return the device that passed both checks
+            return portResult.getJsonObject(0);
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error processing device ID " + device.getInteger(ID) + ": " + exception.getMessage());
+
+            return null;
+        }
+    }
+
+    /**
+     * Runs the SSH reachability plugin for the devices collected so far and records their results.
+     * A plugin failure marks every device of the batch unreachable.
+     *
+     * @param sweep the sweep whose pending SSH batch is run
+     */
+    private void runSshBatch(Sweep sweep)
+    {
+        var batch = sweep.sshBatch;
+
+        sweep.sshBatch = new JsonArray();
+
+        sweep.sshFutures.add(probeLimiter.submit(sweep, () -> probeExecutor.execute(() -> PluginOperationsUtil.runSSHReachability(batch)))
+                .otherwise(error ->
+                {
+                    if (!(error instanceof CancellationException))
+                    {
+                        LOGGER.error("SSH reachability check failed: " + error.getMessage());
+                    }
+
+                    return new JsonArray();
+                })
+                .map(sshResults ->
+                {
+                    if (sweep.cancelled)
+                    {
+                        return null;
+                    }
+
+                    var sshResultMap = new HashMap<Integer, Boolean>();
+
+                    for (var i = 0; i < sshResults.size(); i++)
                     {
                         try
                         {
-                            var id = result.getInteger(ID);
-
-                            return executeQuery(UPDATE_DISCOVERY_STATUS, List.of(result.getBoolean(REACHABLE) ? ACTIVE : INACTIVE, id))
-                                    .onSuccess(res -> LOGGER.info("Discovery status updated for device ID: " + id))
-                                    .onFailure(error -> LOGGER.error("Failed to update status for device ID " + id + ": " + error.getMessage()));
+                            sshResultMap.put(sshResults.getJsonObject(i).getInteger(ID), sshResults.getJsonObject(i).getBoolean(REACHABLE));
                         }
                         catch (Exception exception)
                         {
-                            LOGGER.error("Error while updating discovery status for device ID " + result.getInteger(ID) + ": " + exception.getMessage());
-
-                            return Future.failedFuture(exception);
+                            LOGGER.error("Error processing SSH result: " + exception.getMessage());
                         }
-                    })
-                    .collect(Collectors.toList());
+                    }
+
+                    for (var i = 0; i < batch.size(); i++)
+                    {
+                        var id = batch.getJsonObject(i).getInteger(ID);
+
+                        recordResult(sweep, id, Boolean.TRUE.equals(sshResultMap.get(id)));
+                    }
+
+                    return null;
+                }));
+    }
+
+    /**
+     * Adds a device result to the sweep and writes the pending results once a full batch is collected.
+     *
+     * @param sweep     the sweep the result belongs to
+     * @param id        the discovery profile ID
+     * @param reachable whether the device passed all discovery checks
+     */
+    private void recordResult(Sweep sweep, Integer id, boolean reachable)
+    {
+        if (reachable)
+        {
+            sweep.sshReachable++;
+        }
+
+        sweep.pendingResults.add(new JsonObject()
+                .put(ID, id)
+                .put(REACHABLE, reachable));
 
-            // Wait for all updates to complete
-            Future.all(updateFutures)
-                    .onFailure(error -> LOGGER.error("Failed to update some discovery statuses: " + error.getMessage()));
+        if (sweep.pendingResults.size() >= writeBatchSize)
+        {
+            flushResults(sweep);
+        }
+    }
+
+    /**
+     * Writes the pending results of a sweep, persists the job progress and logs it.
+     *
+     * @param sweep the sweep whose pending results are written
+     */
+    private void flushResults(Sweep sweep)
+    {
+        if (sweep.pendingResults.isEmpty())
+        {
+            return;
+        }
+
+        var results = sweep.pendingResults;
+
+        sweep.pendingResults = new JsonArray();
+
+        sweep.writeFutures.add(updateDiscoveryStatus(results)
+                .onSuccess(result ->
+                {
+                    sweep.written += results.size();
+
+                    executeQuery(UPDATE_DISCOVERY_JOB_PROGRESS, List.of(sweep.probed, sweep.sshReachable, sweep.written, sweep.jobId))
+                            .onFailure(error -> LOGGER.error("Failed to persist progress of discovery job " + sweep.jobId + ": " + error.getMessage()));
+                }));
+
+        if (sweep.total > 1)
+        {
+            LOGGER.info("Discovery sweep '" + sweep.label + "': " + sweep.probed + "/" + sweep.total + " probed, "
+                    + sweep.sshReachable + " reachable, " + probeLimiter.queued() + " probes queued");
+        }
+    }
+
+    /**
+     * Updates the discovery_profile status in the database based on SSH reachability results.
+     * Sets the status to ACTIVE or INACTIVE accordingly. The whole batch is applied by a single
+     * UPDATE joined against a jsonb record set, so N results cost one event bus round trip
+     * and one statement.
+     *
+     * @param results  a JsonArray containing the device ID and its reachability result.
+     * @return a Future completed once the batch is written; failures are logged, not propagated
+     */
+    private Future<Void> updateDiscoveryStatus(JsonArray results)
+    {
+        try
+        {
+            if (results.isEmpty())
+            {
+                LOGGER.warn("No devices to update discovery status.");
+
+                return Future.succeededFuture();
+            }
+
+            var statuses = new JsonArray();
+
+            for (var i = 0; i < results.size(); i++)
+            {
+                var result = results.getJsonObject(i);
+
+                statuses.add(new JsonObject()
+                        .put(ID, result.getInteger(ID))
+                        .put(STATUS, result.getBoolean(REACHABLE) ? ACTIVE : INACTIVE));
+            }
+
+            return executeQuery(BULK_UPDATE_DISCOVERY_STATUS, List.of(statuses))
+                    .onSuccess(res ->
+                    {
+                        ResponseCache.invalidate(DISCOVERIES);
+
+                        LOGGER.info("Discovery status updated for " + res.getInteger(ROW_COUNT, 0) + " devices");
+                    })
+                    .onFailure(error -> LOGGER.error("Failed to update discovery statuses: " + error.getMessage()))
+                    .<Void>mapEmpty()
+                    .otherwiseEmpty();
         }
         catch (Exception exception)
         {
             LOGGER.error("Error updating discovery status: " + exception.getMessage());
+
+            return Future.succeededFuture();
         }
     }
 
     /**
-     * Fetches credential details for a specific credential profile ID,
-     * constructs a full device JSON object (with decrypted password),
-     * and initiates the discovery pipeline for that device.
+     * Fetches credential details for a specific credential profile ID and
+     * constructs full device JSON objects (with decrypted password) for every target.
      *
-     * @param id                   the ID of the discovery profile/device.
-     * @param ip                   the IP address of the device.
+     * @param targets              the discovery profiles to run, as objects with an ID and IP address.
      * @param port                 the port number to check connectivity.
      * @param credentialProfileId  the associated credential_profile ID.
+     * @return a Future with the devices to discover, failed if the credentials cannot be fetched
      */
-    private void fetchCredentialsAndRunDiscovery(int id, String ip, int port, int credentialProfileId)
+    private Future<JsonArray> fetchDevices(JsonArray targets, int port, int credentialProfileId)
     {
         try
         {
-            executeQuery(FETCH_CREDENTIAL_FROM_ID, List.of(credentialProfileId))
-                    .onSuccess(result -> {
+            return executeQuery(FETCH_CREDENTIAL_FROM_ID, List.of(credentialProfileId))
+                    .compose(result ->
+                    {
                         try
                         {
                             var rows = result.getJsonArray(ROWS, new JsonArray());
 
                             if (rows.isEmpty())
                             {
-                                LOGGER.warn("No credentials found for credentialProfileId: " + credentialProfileId);
-
-                                return;
+                                return Future.failedFuture("No credentials found for credentialProfileId: " + credentialProfileId);
                             }
 
                             var row = rows.getJsonObject(0);
 
-                            // Construct device JSON object
-                            var device = new JsonObject()
-                                    .put(ID, id)
-                                    .put(IP, ip)
-                                    .put(PORT, port)
-                                    .put(USERNAME, row.getString(USERNAME))
-                                    .put(PASSWORD, DecryptionUtil.decrypt(row.getString(PASSWORD)))
-                                    .put(SYSTEM_TYPE_RESPONSE, row.getString(SYSTEM_TYPE));
-
-                            // Run discovery for the single device
-                            startDiscoveryPipeline(new JsonArray().add(device),
-                                    new JsonArray().add(new JsonObject()
-                                            .put(ID, id)
-                                            .put(REACHABLE, FALSE)));
+                            var password = DecryptionUtil.decryptSecret(row.getString(PASSWORD));
+
+                            var devices = new JsonArray();
+
+                            for (var i = 0; i < targets.size(); i++)
+                            {
+                                var target = targets.getJsonObject(i);
+
+                                // Construct device JSON object
+                                devices.add(new JsonObject()
+                                        .put(ID, target.getInteger(ID))
+                                        .put(IP, target.getString(IP))
+                                        .put(PORT, port)
+                                        .put(USERNAME, row.getString(USERNAME))
+                                        .put(PASSWORD, password)
+                                        .put(SYSTEM_TYPE_RESPONSE, row.getString(SYSTEM_TYPE)));
+                            }
+
+                            return Future.succeededFuture(devices);
                         }
                         catch (Exception exception)
                         {
-                            LOGGER.error("Error while processing result: " + exception.getMessage());
+                            return Future.failedFuture(exception);
                         }
-                    })
-                    .onFailure(cause -> LOGGER.error("Failed to fetch credentials for device ID " + id + ": " + cause.getMessage()));
+                    });
         }
         catch (Exception exception)
         {
-            LOGGER.error("Failed to fetch device details and run discovery: " + exception.getMessage());
+            LOGGER.error("Failed to fetch device details for discovery: " + exception.getMessage());
+
+            return Future.failedFuture(exception);
         }
     }
 
@@ -429,7 +821,7 @@ public class DiscoveryVerticle extends AbstractVerticle
                 request.put(PARAMS, new JsonArray(params));
             }
 
-            return DatabaseService.createProxy(vertx, DatabaseVerticle.SERVICE_ADDRESS).executeQuery(request);
+            return databaseService.executeQuery(request);
         }
         catch (Exception exception)
         {
@@ -438,4 +830,4 @@ public class DiscoveryVerticle extends AbstractVerticle
             return Future.failedFuture(exception);
         }
     }
-}
\ No newline at end of file
+}
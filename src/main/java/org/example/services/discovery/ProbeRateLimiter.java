@@ -0,0 +1,184 @@
+package org.example.services.discovery;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * Token-bucket rate limiter with a concurrency cap for discovery probes.
+ * <p>
+ * Tasks are queued and started only while a token is available and fewer than
+ * {@code maxConcurrency} tasks are running. Tokens refill at {@code ratePerSecond}, with a burst of
+ * at most one second's worth. The limiter is global to the {@link DiscoveryVerticle}, so all sweeps
+ * together stay within the configured probe rate.
+ * <p>
+ * Every task is tagged with an owner, so that all queued tasks of a cancelled discovery job can be
+ * dropped at once without spending tokens on them.
+ * <p>
+ * Not thread-safe: it must only be used from the context of the verticle that created it.
+ */
+class ProbeRateLimiter
+{
+    private static final long REFILL_INTERVAL_MS = 100;
+
+    private final Vertx vertx;
+
+    private final double ratePerSecond;
+
+    private final int maxConcurrency;
+
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+
+    private double tokens;
+
+    private int running;
+
+    private long refillTimerId = -1;
+
+    private long lastRefill = System.currentTimeMillis();
+
+    private record Task(Object owner, Runnable start, Runnable cancel)
+    {
+    }
+
+    ProbeRateLimiter(Vertx vertx, double ratePerSecond, int maxConcurrency)
+    {
+        this.vertx = vertx;
+
+        this.ratePerSecond = Math.max(1, ratePerSecond);
+
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+
+        this.tokens = this.ratePerSecond;
+    }
+
+    /**
+     * Queues a task and starts it once the rate and concurrency limits allow.
+     *
+     * @param owner the owner of the task, used by {@link #cancel(Object)}
+     * @param task  supplies the asynchronous work to run
+     * @param <T>   the type of the task result
+     * @return a Future completed with the result of the task, or failed with a
+     *         {@link CancellationException} if the task is cancelled before it starts
+     */
+    <T> Future<T> submit(Object owner, Supplier<Future<T>> task)
+    {
+        var promise = Promise.<T>promise();
+
+        queue.add(new Task(owner, () ->
+        {
+            Future<T> future;
+
+            try
+            {
+                future = task.get();
+            }
+            catch (Exception exception)
+            {
+                future = Future.failedFuture(exception);
+            }
+
+            future.onComplete(result ->
+            {
+                running--;
+
+                drain();
+
+                promise.handle(result);
+            });
+        }, () -> promise.fail(new CancellationException())));
+
+        drain();
+
+        return promise.future();
+    }
+
+    /**
+     * Drops every queued task of the given owner. Tasks already running are not interrupted.
+     *
+     * @param owner the owner whose queued tasks are dropped
+     * @return the number of tasks dropped
+     */
+    int cancel(Object owner)
+    {
+        var dropped = new ArrayList<Task>();
+
+        queue.removeIf(task ->
+        {
+            if (task.owner() != owner)
+            {
+                return false;
+            }
+
+            dropped.add(task);
+
+            return true;
+        });
+
+        // Fail the dropped tasks only after the queue is consistent again, their callbacks may submit new work
+        dropped.forEach(task -> task.cancel().run());
+
+        drain();
+
+        return dropped.size();
+    }
+
+    /**
+     * Returns the number of tasks waiting for a token or a free slot.
+     *
+     * @return the number of queued tasks
+     */
+    int queued()
+    {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of tasks currently running.
+     *
+     * @return the number of running tasks
+     */
+    int running()
+    {
+        return running;
+    }
+
+    private void drain()
+    {
+        refill();
+
+        while (!queue.isEmpty() && running < maxConcurrency && tokens >= 1)
+        {
+            tokens--;
+
+            running++;
+
+            queue.poll().start().run();
+        }
+
+        if (queue.isEmpty() && refillTimerId != -1)
+        {
+            vertx.cancelTimer(refillTimerId);
+
+            refillTimerId = -1;
+        }
+        else if (!queue.isEmpty() && refillTimerId == -1)
+        {
+            refillTimerId = vertx.setPeriodic(REFILL_INTERVAL_MS, id -> drain());
+        }
+    }
+
+    private void refill()
+    {
+        var now = System.currentTimeMillis();
+
+        tokens = Math.min(ratePerSecond, tokens + (now - lastRefill) * ratePerSecond / 1000.0);
+
+        lastRefill = now;
+    }
+}
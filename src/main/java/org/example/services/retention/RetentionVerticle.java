@@ -0,0 +1,315 @@
+package org.example.services.retention;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.example.services.db.DatabaseService;
+import org.example.services.db.DatabaseVerticle;
+import org.example.utils.ConfigLoader;
+import org.example.utils.MetricsRegistry;
+
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.constants.AppConstants.DatabasePoolConstants.INGESTION;
+import static org.example.constants.AppConstants.DatabasePoolConstants.POOL;
+import static org.example.constants.AppConstants.FALSE;
+import static org.example.constants.AppConstants.TRUE;
+import static org.example.constants.AppConstants.JsonKey.*;
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.RetentionConstants.*;
+import static org.example.constants.AppConstants.RetentionQuery.*;
+
+/**
+ * Verticle that prunes expired rows from the time-series tables.
+ * <p>
+ * Every {@code retention.interval} milliseconds, and only while the local time is inside the off-peak window
+ * {@code [window.start.hour, window.end.hour)}, each table listed under {@code retention.ttl.days} is pruned of
+ * rows older than its TTL. Rows are deleted in batches of {@code batch.size} with a {@code batch.pause} between
+ * batches, so pruning never holds long locks or floods the WAL, and a run that reaches the end of the window
+ * stops and continues in the next one.
+ * <p>
+ * Only the tables known to this verticle can be pruned; the time column of each is fixed here rather than
+ * taken from configuration. Deleted rows and an estimate of the reclaimed bytes (deleted rows times the
+ * average row size of the table, including indexes) are exported as metrics. The space itself is reused by
+ * autovacuum.
+ */
+public class RetentionVerticle extends AbstractVerticle
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetentionVerticle.class);
+
+    private static final Map<String, String> TIME_COLUMNS = new LinkedHashMap<>();
+
+    static
+    {
+        TIME_COLUMNS.put("polling_result", "polled_at");
+
+        TIME_COLUMNS.put("availability", "checked_at");
+
+        TIME_COLUMNS.put("availability_rollup_1h", "bucket");
+
+        TIME_COLUMNS.put("metric_sample", "ts");
+
+        TIME_COLUMNS.put("metric_rollup_5m", "bucket");
+
+        TIME_COLUMNS.put("metric_rollup_1h", "bucket");
+
+        TIME_COLUMNS.put("metric_rollup_1d", "bucket");
+
+        TIME_COLUMNS.put("discovery_job", "finished_at");
+    }
+
+    private DatabaseService databaseService;
+
+    private long retentionTimerId = -1;
+
+    private boolean running = FALSE;
+
+    private final AtomicLong runs = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong outsideWindowSkips = new AtomicLong();
+
+    private final Map<String, AtomicLong> rowsDeleted = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> bytesReclaimed = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> lastRunRowsDeleted = new ConcurrentHashMap<>();
+
+    @Override
+    public void start(Promise<Void> startPromise)
+    {
+        try
+        {
+            databaseService = DatabaseService.createProxy(vertx, DatabaseVerticle.SERVICE_ADDRESS);
+
+            var interval = getConfig().getLong(INTERVAL, 3600000L);
+
+            retentionTimerId = vertx.setPeriodic(interval, id -> runRetention());
+
+            MetricsRegistry.register(RETENTION, this::getStats);
+
+            LOGGER.info("Retention scheduled every " + interval + "ms");
+
+            startPromise.complete();
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to start Retention Verticle: " + exception.getMessage());
+
+            startPromise.fail(exception);
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        if (retentionTimerId != -1)
+        {
+            vertx.cancelTimer(retentionTimerId);
+        }
+
+        MetricsRegistry.unregister(RETENTION);
+
+        LOGGER.info("Stopping RetentionVerticle");
+    }
+
+    /**
+     * Prunes every configured table in turn, if inside the off-peak window and no run is in progress.
+     */
+    private void runRetention()
+    {
+        if (running)
+        {
+            return;
+        }
+
+        if (!insideWindow())
+        {
+            outsideWindowSkips.incrementAndGet();
+
+            return;
+        }
+
+        running = TRUE;
+
+        var ttls = getConfig().getJsonObject(TTL_DAYS, new JsonObject());
+
+        var chain = Future.<Void>succeededFuture();
+
+        for (var table : ttls.fieldNames())
+        {
+            var column = TIME_COLUMNS.get(table);
+
+            if (column == null)
+            {
+                LOGGER.warn("Retention configured for unknown table " + table + ", ignoring");
+
+                continue;
+            }
+
+            var days = ttls.getInteger(table);
+
+            if (days == null || days <= 0)
+            {
+                continue;
+            }
+
+            chain = chain.compose(v -> pruneTable(table, column, days));
+        }
+
+        chain.onComplete(result ->
+        {
+            running = FALSE;
+
+            runs.incrementAndGet();
+        });
+    }
+
+    /**
+     * Prunes one table and records the deleted rows and the estimated reclaimed bytes.
+     * Failures are logged and counted and do not stop the other tables.
+     *
+     * @param table  the table to prune
+     * @param column the timestamp column compared with the TTL
+     * @param days   the TTL in days
+     * @return a Future completed once the table is pruned or the window has ended
+     */
+    private Future<Void> pruneTable(String table, String column, int days)
+    {
+        var query = String.format(DELETE_EXPIRED_BATCH, table, column);
+
+        return estimateRowSize(table)
+                .compose(rowSize -> deleteBatches(query, days, 0L)
+                        .onSuccess(deleted ->
+                        {
+                            rowsDeleted.computeIfAbsent(table, key -> new AtomicLong()).addAndGet(deleted);
+
+                            bytesReclaimed.computeIfAbsent(table, key -> new AtomicLong()).addAndGet(deleted * rowSize);
+
+                            lastRunRowsDeleted.computeIfAbsent(table, key -> new AtomicLong()).set(deleted);
+
+                            if (deleted > 0)
+                            {
+                                LOGGER.info("Retention pruned " + deleted + " rows (~" + (deleted * rowSize / 1024) + " KiB) from " + table);
+                            }
+                        }))
+                .onFailure(error ->
+                {
+                    failures.incrementAndGet();
+
+                    LOGGER.error("Retention of " + table + " failed: " + error.getMessage());
+                })
+                .<Void>mapEmpty()
+                .otherwiseEmpty();
+    }
+
+    /**
+     * Deletes expired rows batch by batch until a batch comes back short or the window ends.
+     *
+     * @param query        the batch delete statement of the table
+     * @param days         the TTL in days
+     * @param deletedSoFar the rows deleted by the previous batches
+     * @return a Future with the total number of rows deleted
+     */
+    private Future<Long> deleteBatches(String query, int days, long deletedSoFar)
+    {
+        var batchSize = getConfig().getInteger(BATCH_SIZE, 5000);
+
+        return databaseService.executeQuery(new JsonObject()
+                        .put(QUERY, query)
+                        .put(PARAMS, new JsonArray().add(days).add(batchSize))
+                        .put(POOL, INGESTION))
+                .compose(result ->
+                {
+                    var deleted = deletedSoFar + result.getInteger(ROW_COUNT, 0);
+
+                    if (result.getInteger(ROW_COUNT, 0) < batchSize || !insideWindow())
+                    {
+                        return Future.succeededFuture(deleted);
+                    }
+
+                    var pause = Promise.<Void>promise();
+
+                    vertx.setTimer(Math.max(1, getConfig().getLong(BATCH_PAUSE, 200L)), id -> pause.complete());
+
+                    return pause.future().compose(v -> deleteBatches(query, days, deleted));
+                });
+    }
+
+    /**
+     * Estimates the average on-disk size of a row of the table, indexes and TOAST included.
+     *
+     * @param table the table to estimate
+     * @return a Future with the estimated bytes per row, 0 if it cannot be estimated
+     */
+    private Future<Long> estimateRowSize(String table)
+    {
+        return databaseService.executeQuery(new JsonObject()
+                        .put(QUERY, GET_TABLE_SIZE)
+                        .put(PARAMS, new JsonArray().add(table))
+                        .put(POOL, INGESTION))
+                .map(result ->
+                {
+                    var rows = result.getJsonArray(ROWS, new JsonArray());
+
+                    if (rows.isEmpty())
+                    {
+                        return 0L;
+                    }
+
+                    return rows.getJsonObject(0).getLong(BYTES, 0L) / Math.max(1L, rows.getJsonObject(0).getLong(ROW_ESTIMATE, 1L));
+                })
+                .otherwise(0L);
+    }
+
+    private boolean insideWindow()
+    {
+        var start = getConfig().getInteger(WINDOW_START_HOUR, 0);
+
+        var end = getConfig().getInteger(WINDOW_END_HOUR, 0);
+
+        if (start.equals(end))
+        {
+            return TRUE;
+        }
+
+        var hour = LocalTime.now().getHour();
+
+        // A window such as 22-4 wraps around midnight
+        return start < end ? hour >= start && hour < end : hour >= start || hour < end;
+    }
+
+    private JsonObject getConfig()
+    {
+        return ConfigLoader.get().getJsonObject(RETENTION, new JsonObject());
+    }
+
+    private JsonObject getStats()
+    {
+        var tables = new JsonObject();
+
+        for (var table : new TreeMap<>(rowsDeleted).keySet())
+        {
+            tables.put(table, new JsonObject()
+                    .put(ROWS_DELETED, rowsDeleted.get(table).get())
+                    .put(BYTES_RECLAIMED_ESTIMATE, bytesReclaimed.getOrDefault(table, new AtomicLong()).get())
+                    .put(LAST_RUN_ROWS_DELETED, lastRunRowsDeleted.getOrDefault(table, new AtomicLong()).get()));
+        }
+
+        return new JsonObject()
+                .put(RUNS, runs.get())
+                .put(FAILURES, failures.get())
+                .put(OUTSIDE_WINDOW_SKIPS, outsideWindowSkips.get())
+                .put(TABLES, tables);
+    }
+}
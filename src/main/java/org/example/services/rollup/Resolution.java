@@ -0,0 +1,68 @@
+package org.example.services.rollup;
+
+/**
+ * Resolutions maintained by the {@link RollupVerticle}, from finest to coarsest.
+ */
+public enum Resolution
+{
+    FIVE_MINUTES("5m", "metric_rollup_5m", 300),
+
+    ONE_HOUR("1h", "metric_rollup_1h", 3600),
+
+    ONE_DAY("1d", "metric_rollup_1d", 86400);
+
+    private final String label;
+
+    private final String table;
+
+    private final int bucketSeconds;
+
+    Resolution(String label, String table, int bucketSeconds)
+    {
+        this.label = label;
+
+        this.table = table;
+
+        this.bucketSeconds = bucketSeconds;
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+
+    public String getTable()
+    {
+        return table;
+    }
+
+    public int getBucketSeconds()
+    {
+        return bucketSeconds;
+    }
+
+    /**
+     * Picks the coarsest resolution that still yields the requested number of points over the range.
+     *
+     * @param rangeMillis the length of the requested range in milliseconds
+     * @param points      the number of points requested
+     * @return the coarsest resolution whose bucket fits {@code points} times into the range,
+     *         or null if even the finest one is too coarse and raw samples must be used
+     */
+    public static Resolution coarsestFor(long rangeMillis, int points)
+    {
+        var maxBucketMillis = rangeMillis / Math.max(1, points);
+
+        Resolution chosen = null;
+
+        for (var resolution : values())
+        {
+            if (resolution.bucketSeconds * 1000L <= maxBucketMillis)
+            {
+                chosen = resolution;
+            }
+        }
+
+        return chosen;
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.services.rollup;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.example.services.db.DatabaseService;
+import org.example.services.db.DatabaseVerticle;
+import org.example.utils.ConfigLoader;
+import org.example.utils.MetricsRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.constants.AppConstants.DatabasePoolConstants.INGESTION;
+import static org.example.constants.AppConstants.DatabasePoolConstants.POOL;
+import static org.example.constants.AppConstants.FALSE;
+import static org.example.constants.AppConstants.TRUE;
+import static org.example.constants.AppConstants.JsonKey.*;
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.MetricSeriesField.BUCKETS;
+import static org.example.constants.AppConstants.RollupConstants.*;
+import static org.example.constants.AppConstants.RollupQuery.ROLLUP_AVAILABILITY;
+import static org.example.constants.AppConstants.RollupQuery.ROLLUP_METRIC_SAMPLES;
+
+/**
+ * Verticle that incrementally downsamples {@code metric_sample} into 5-minute, 1-hour and 1-day rollups.
+ * <p>
+ * Every {@code rollup.interval} milliseconds each resolution aggregates the samples between its watermark
+ * and {@code now - rollup.lateness} into min, max, sum, count and last value per device, metric and bucket,
+ * merges them into the existing buckets and advances its watermark, all in a single statement. Samples are
+ * therefore rolled up exactly once, and the lateness window leaves room for in-flight inserts to commit.
+ * <p>
+ * Availability checks are rolled up the same way into successful and total checks per device and hour, from
+ * which the provision endpoints compute availability over a window without reading the raw history.
+ */
+public class RollupVerticle extends AbstractVerticle
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(RollupVerticle.class);
+
+    private DatabaseService databaseService;
+
+    private long rollupTimerId = -1;
+
+    private boolean running = FALSE;
+
+    private final AtomicLong runs = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong bucketsUpserted = new AtomicLong();
+
+    private final AtomicLong lastRunDuration = new AtomicLong();
+
+    @Override
+    public void start(Promise<Void> startPromise)
+    {
+        try
+        {
+            databaseService = DatabaseService.createProxy(vertx, DatabaseVerticle.SERVICE_ADDRESS);
+
+            var interval = ConfigLoader.get().getJsonObject(ROLLUP, new JsonObject()).getInteger(INTERVAL, 60000);
+
+            rollupTimerId = vertx.setPeriodic(interval, id -> runRollups());
+
+            MetricsRegistry.register(ROLLUP, this::getStats);
+
+            LOGGER.info("Metric rollups scheduled every " + interval + "ms");
+
+            startPromise.complete();
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to start Rollup Verticle: " + exception.getMessage());
+
+            startPromise.fail(exception);
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        if (rollupTimerId != -1)
+        {
+            vertx.cancelTimer(rollupTimerId);
+        }
+
+        MetricsRegistry.unregister(ROLLUP);
+
+        LOGGER.info("Stopping RollupVerticle");
+    }
+
+    /**
+     * Rolls up every resolution in turn. A tick that fires while a run is still in progress is skipped.
+     */
+    private void runRollups()
+    {
+        if (running)
+        {
+            LOGGER.warn("Previous rollup run still in progress, skipping tick");
+
+            return;
+        }
+
+        running = TRUE;
+
+        var start = System.currentTimeMillis();
+
+        var high = start - ConfigLoader.get().getJsonObject(ROLLUP, new JsonObject()).getLong(LATENESS, 60000L);
+
+        var chain = Future.<Void>succeededFuture();
+
+        for (var resolution : Resolution.values())
+        {
+            chain = chain.compose(v -> rollup(resolution.getLabel(), String.format(ROLLUP_METRIC_SAMPLES, resolution.getTable()),
+                    new JsonArray().add(resolution.getLabel()).add(high).add(resolution.getBucketSeconds())));
+        }
+
+        chain = chain.compose(v -> rollup(AVAILABILITY_ROLLUP, ROLLUP_AVAILABILITY, new JsonArray().add(AVAILABILITY_ROLLUP).add(high)));
+
+        chain.onComplete(result ->
+        {
+            running = FALSE;
+
+            runs.incrementAndGet();
+
+            lastRunDuration.set(System.currentTimeMillis() - start);
+        });
+    }
+
+    /**
+     * Runs one rollup up to the upper bound given in its parameters. Failures are logged and counted,
+     * the watermark is left unchanged and the next run retries the same range.
+     *
+     * @param label  the key of the rollup's watermark, for the log
+     * @param query  the rollup statement
+     * @param params the watermark key, the upper bound in epoch milliseconds and, for metrics, the bucket size
+     * @return a Future completed once the rollup has finished
+     */
+    private Future<Void> rollup(String label, String query, JsonArray params)
+    {
+        try
+        {
+            return databaseService.executeQuery(new JsonObject()
+                            .put(QUERY, query)
+                            .put(PARAMS, params)
+                            .put(POOL, INGESTION))
+                    .onSuccess(result ->
+                    {
+                        var rows = result.getJsonArray(ROWS, new JsonArray());
+
+                        var buckets = rows.isEmpty() ? 0L : rows.getJsonObject(0).getLong(BUCKETS, 0L);
+
+                        bucketsUpserted.addAndGet(buckets);
+
+                        LOGGER.debug("Rollup " + label + " upserted " + buckets + " buckets");
+                    })
+                    .onFailure(error ->
+                    {
+                        failures.incrementAndGet();
+
+                        LOGGER.error("Rollup " + label + " failed: " + error.getMessage());
+                    })
+                    .<Void>mapEmpty()
+                    .otherwiseEmpty();
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error running rollup " + label + ": " + exception.getMessage());
+
+            return Future.succeededFuture();
+        }
+    }
+
+    private JsonObject getStats()
+    {
+        return new JsonObject()
+                .put(RUNS, runs.get())
+                .put(FAILURES, failures.get())
+                .put(BUCKETS_UPSERTED, bucketsUpserted.get())
+                .put(LAST_RUN_DURATION_MS, lastRunDuration.get());
+    }
+}
@@ -0,0 +1,593 @@
+package org.example.services.scheduler;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+import org.example.services.db.DatabaseService;
+import org.example.utils.ConfigLoader;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import static org.example.constants.AppConstants.FALSE;
+import static org.example.constants.AppConstants.IngestionSpoolConstants.*;
+import static org.example.constants.AppConstants.IngestionSpoolQuery.PROBE_DATABASE;
+import static org.example.constants.AppConstants.DatabasePoolConstants.POOL;
+import static org.example.constants.AppConstants.JsonKey.ERROR;
+import static org.example.constants.AppConstants.JsonKey.QUERY;
+import static org.example.constants.AppConstants.JsonKey.SQL_STATE;
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.TRUE;
+
+/**
+ * Durable local spool for ingestion writes that could not reach the database.
+ * <p>
+ * A failed insert request is appended to a memory-mapped segment file under {@code ingestion.spool.directory}.
+ * Each record is its length, a CRC32 and the encoded request. The length is written last and the segment is
+ * forced to disk, so a record cut short by a crash is never read back; on startup every segment is scanned up
+ * to its first missing or corrupt record. Segments are {@code segment.size} bytes and at most
+ * {@code max.bytes} of them are kept; a request that does not fit is dropped and counted.
+ * <p>
+ * Every {@code replay.interval} milliseconds up to {@code replay.rate} records per second are replayed in
+ * order, one at a time, so recovery adds a bounded load to the primary. The read position of a segment is
+ * kept in its header and advances only after a record has been written; fully replayed segments are deleted.
+ * A record is dropped as poisoned, with its content logged, only when the database rejects it with a data
+ * exception or an integrity constraint violation (SQLSTATE classes 22 and 23), which would recur on every
+ * retry. Any other failure leaves the record in place and replay waits for the next tick; the database is
+ * probed on the pool of the record, and only failures while the probe succeeds count as attempts. A record
+ * that fails {@code max.attempts} times that way is dropped as poisoned too, so that it cannot block the
+ * records behind it forever.
+ * <p>
+ * All file access runs on worker threads, in order.
+ */
+public class IngestionSpool
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestionSpool.class);
+
+    private static final String SEGMENT_PREFIX = "spool-";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // The header holds the read position of the segment
+    private static final int HEADER_SIZE = 8;
+
+    // Length and CRC32 of every record
+    private static final int RECORD_OVERHEAD = 8;
+
+    private final Vertx vertx;
+
+    private final DatabaseService databaseService;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private long nextSequence;
+
+    private long replayTimerId = -1;
+
+    private boolean replaying = FALSE;
+
+    private boolean closed = FALSE;
+
+    // Replay only ever retries the oldest record, so a single count covers it
+    private int headAttempts;
+
+    private final AtomicLong pendingRecords = new AtomicLong();
+
+    private final AtomicLong spooled = new AtomicLong();
+
+    private final AtomicLong replayed = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong poisoned = new AtomicLong();
+
+    private final AtomicLong replayFailures = new AtomicLong();
+
+    private static class Segment
+    {
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private int readPosition;
+
+        private int writePosition;
+
+        private Segment(Path path, int size) throws IOException
+        {
+            this.path = path;
+
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        private boolean isDrained()
+        {
+            return readPosition >= writePosition;
+        }
+
+        private void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException exception)
+            {
+                LOGGER.error("Failed to close spool segment " + path + ": " + exception.getMessage());
+            }
+        }
+    }
+
+    public IngestionSpool(Vertx vertx, DatabaseService databaseService)
+    {
+        this.vertx = vertx;
+
+        this.databaseService = databaseService;
+    }
+
+    public static boolean isEnabled()
+    {
+        return getConfig().getBoolean(ENABLED, TRUE);
+    }
+
+    /**
+     * Recovers the segments left by a previous run and starts replaying them.
+     *
+     * @return a Future completed once the segments have been recovered
+     */
+    public Future<Void> start()
+    {
+        return vertx.<Void>executeBlocking(() ->
+                {
+                    recover();
+
+                    return null;
+                })
+                .onSuccess(v ->
+                {
+                    replayTimerId = vertx.setPeriodic(Math.max(10, getConfig().getLong(REPLAY_INTERVAL, 1000L)), id -> replay());
+
+                    if (pendingRecords.get() > 0)
+                    {
+                        LOGGER.info("Ingestion spool recovered " + pendingRecords.get() + " records to replay");
+                    }
+                })
+                .onFailure(error -> LOGGER.error("Failed to recover ingestion spool: " + error.getMessage()));
+    }
+
+    /**
+     * Stops replaying and releases the segment files. The records left are replayed on the next start.
+     *
+     * @return a Future completed once the segments are closed
+     */
+    public Future<Void> stop()
+    {
+        if (replayTimerId != -1)
+        {
+            vertx.cancelTimer(replayTimerId);
+
+            replayTimerId = -1;
+        }
+
+        return vertx.executeBlocking(() ->
+        {
+            close();
+
+            return null;
+        });
+    }
+
+    /**
+     * Appends a failed insert request to the spool.
+     *
+     * @param request the database service request
+     * @param batch   whether the request is for {@code executeBatch} rather than {@code executeQuery}
+     * @return a Future completed once the record is durable, or failed if it was dropped
+     */
+    public Future<Void> append(JsonObject request, boolean batch)
+    {
+        var payload = new JsonObject().put(BATCH, batch).put(REQUEST, request).toBuffer().getBytes();
+
+        return vertx.<Void>executeBlocking(() ->
+                {
+                    write(payload);
+
+                    return null;
+                })
+                .onSuccess(v ->
+                {
+                    spooled.incrementAndGet();
+
+                    pendingRecords.incrementAndGet();
+                })
+                .onFailure(error ->
+                {
+                    dropped.incrementAndGet();
+
+                    LOGGER.error("Dropped ingestion batch, spool unavailable: " + error.getMessage());
+                });
+    }
+
+    /**
+     * Replays up to one tick's worth of records in order, stopping at the first one the database cannot take.
+     */
+    private void replay()
+    {
+        if (replaying || pendingRecords.get() == 0)
+        {
+            return;
+        }
+
+        replaying = TRUE;
+
+        var interval = Math.max(10, getConfig().getLong(REPLAY_INTERVAL, 1000L));
+
+        var budget = Math.max(1, (int) (getConfig().getDouble(REPLAY_RATE, 5.0) * interval / 1000));
+
+        replayNext(budget)
+                .onFailure(error -> LOGGER.error("Spool replay failed: " + error.getMessage()))
+                .onComplete(result -> replaying = FALSE);
+    }
+
+    private Future<Void> replayNext(int budget)
+    {
+        if (budget == 0)
+        {
+            return Future.succeededFuture();
+        }
+
+        return vertx.executeBlocking(this::peek)
+                .compose(record ->
+                {
+                    if (record == null)
+                    {
+                        return Future.succeededFuture();
+                    }
+
+                    var request = record.getJsonObject(REQUEST);
+
+                    var execution = record.getBoolean(BATCH, FALSE)
+                            ? databaseService.executeBatch(request)
+                            : databaseService.executeQuery(request);
+
+                    return execution
+                            .compose(result ->
+                            {
+                                replayed.incrementAndGet();
+
+                                return consume().compose(v -> replayNext(budget - 1));
+                            }, error ->
+                            {
+                                if (isDeterministic(error))
+                                {
+                                    headAttempts++;
+
+                                    return drop(record, error).compose(v -> replayNext(budget - 1));
+                                }
+
+                                return databaseService.executeQuery(new JsonObject().put(QUERY, PROBE_DATABASE).put(POOL, request.getString(POOL)))
+                                        .compose(probe ->
+                                        {
+                                            replayFailures.incrementAndGet();
+
+                                            if (++headAttempts >= getConfig().getInteger(MAX_ATTEMPTS, 50))
+                                            {
+                                                return drop(record, error);
+                                            }
+
+                                            LOGGER.warn("Spool replay failed, attempt " + headAttempts + ", retrying on the next tick: " + error.getMessage());
+
+                                            return Future.<Void>succeededFuture();
+                                        }, probeError ->
+                                        {
+                                            replayFailures.incrementAndGet();
+
+                                            LOGGER.warn("Database still unavailable, spool replay deferred: " + probeError.getMessage());
+
+                                            return Future.succeededFuture();
+                                        });
+                            });
+                });
+    }
+
+    /**
+     * Tells whether the database rejected a statement for its data, so that replaying it again cannot succeed.
+     *
+     * @param error the failure reported by the database service
+     * @return true for a data exception or an integrity constraint violation
+     */
+    private static boolean isDeterministic(Throwable error)
+    {
+        try
+        {
+            var sqlState = new JsonObject(error.getMessage()).getString(SQL_STATE);
+
+            return sqlState != null && (sqlState.startsWith("22") || sqlState.startsWith("23"));
+        }
+        catch (Exception exception)
+        {
+            // Not a statement error from the database, such as a timeout or a closed connection
+            return FALSE;
+        }
+    }
+
+    private Future<Void> drop(JsonObject record, Throwable error)
+    {
+        poisoned.incrementAndGet();
+
+        LOGGER.error("Dropping spooled ingestion batch after " + headAttempts + " attempt(s), rejected by the database: "
+                + error.getMessage() + ", record: " + record.encode());
+
+        return consume();
+    }
+
+    private Future<Void> consume()
+    {
+        return vertx.<Void>executeBlocking(() ->
+        {
+            advance();
+
+            return null;
+        }).onSuccess(v ->
+        {
+            headAttempts = 0;
+
+            pendingRecords.decrementAndGet();
+        });
+    }
+
+    /**
+     * Opens the existing segments in sequence order and finds the last complete record of each.
+     */
+    private synchronized void recover() throws IOException
+    {
+        var directory = getDirectory();
+
+        Files.createDirectories(directory);
+
+        try (var files = Files.list(directory))
+        {
+            var paths = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX) && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+
+            for (var path : paths)
+            {
+                var name = path.getFileName().toString();
+
+                nextSequence = Math.max(nextSequence, Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())) + 1);
+
+                var segment = new Segment(path, (int) Files.size(path));
+
+                segment.readPosition = (int) Math.max(HEADER_SIZE, Math.min(segment.buffer.getLong(0), segment.buffer.capacity()));
+
+                segment.writePosition = scan(segment);
+
+                if (segment.isDrained())
+                {
+                    segment.close();
+
+                    Files.deleteIfExists(path);
+
+                    continue;
+                }
+
+                segments.addLast(segment);
+
+                var position = segment.readPosition;
+
+                while (position < segment.writePosition)
+                {
+                    pendingRecords.incrementAndGet();
+
+                    position += RECORD_OVERHEAD + segment.buffer.getInt(position);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the complete records of a segment. Whatever a crash left after them is overwritten by
+     * the next records, and cannot be mistaken for a record as its CRC does not match.
+     *
+     * @return the position the next record is written at
+     */
+    private int scan(Segment segment)
+    {
+        var buffer = segment.buffer;
+
+        var position = HEADER_SIZE;
+
+        while (position + RECORD_OVERHEAD <= buffer.capacity())
+        {
+            var length = buffer.getInt(position);
+
+            if (length <= 0 || position + RECORD_OVERHEAD + length > buffer.capacity())
+            {
+                break;
+            }
+
+            var payload = new byte[length];
+
+            buffer.get(position + RECORD_OVERHEAD, payload);
+
+            if (crc(payload) != buffer.getInt(position + 4))
+            {
+                LOGGER.warn("Discarding torn record at " + position + " of spool segment " + segment.path);
+
+                break;
+            }
+
+            position += RECORD_OVERHEAD + length;
+        }
+
+        return position;
+    }
+
+    private synchronized void write(byte[] payload) throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("spool is closed");
+        }
+
+        var segmentSize = getConfig().getInteger(SEGMENT_SIZE, 16777216);
+
+        var recordSize = RECORD_OVERHEAD + payload.length;
+
+        if (HEADER_SIZE + recordSize > segmentSize)
+        {
+            throw new IOException("record of " + payload.length + " bytes exceeds the segment size");
+        }
+
+        var segment = segments.peekLast();
+
+        if (segment == null || segment.writePosition + recordSize > segment.buffer.capacity())
+        {
+            if ((long) (segments.size() + 1) * segmentSize > getConfig().getLong(MAX_BYTES, 268435456L))
+            {
+                throw new IOException("spool is full");
+            }
+
+            segment = new Segment(getDirectory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX)), segmentSize);
+
+            segment.buffer.putLong(0, HEADER_SIZE);
+
+            segment.readPosition = HEADER_SIZE;
+
+            segment.writePosition = HEADER_SIZE;
+
+            segments.addLast(segment);
+        }
+
+        var position = segment.writePosition;
+
+        segment.buffer.putInt(position + 4, crc(payload));
+
+        segment.buffer.put(position + RECORD_OVERHEAD, payload);
+
+        segment.buffer.force();
+
+        // The record only becomes visible once its length is on disk
+        segment.buffer.putInt(position, payload.length);
+
+        segment.buffer.force();
+
+        segment.writePosition = position + recordSize;
+    }
+
+    /**
+     * Reads the oldest record that has not been replayed.
+     *
+     * @return the record, or null if the spool is empty
+     */
+    private synchronized JsonObject peek()
+    {
+        var segment = segments.peekFirst();
+
+        if (closed || segment == null || segment.isDrained())
+        {
+            return null;
+        }
+
+        var length = segment.buffer.getInt(segment.readPosition);
+
+        var payload = new byte[length];
+
+        segment.buffer.get(segment.readPosition + RECORD_OVERHEAD, payload);
+
+        return Buffer.buffer(payload).toJsonObject();
+    }
+
+    /**
+     * Moves past the oldest record, deleting its segment once all of it has been replayed.
+     */
+    private synchronized void advance() throws IOException
+    {
+        var segment = segments.peekFirst();
+
+        if (segment == null || segment.isDrained())
+        {
+            return;
+        }
+
+        segment.readPosition += RECORD_OVERHEAD + segment.buffer.getInt(segment.readPosition);
+
+        segment.buffer.putLong(0, segment.readPosition);
+
+        segment.buffer.force();
+
+        if (segment.isDrained())
+        {
+            segments.pollFirst();
+
+            segment.close();
+
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    private synchronized void close()
+    {
+        closed = TRUE;
+
+        segments.forEach(Segment::close);
+
+        segments.clear();
+    }
+
+    private static int crc(byte[] payload)
+    {
+        var crc = new CRC32();
+
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+
+    private static Path getDirectory()
+    {
+        return Path.of(getConfig().getString(DIRECTORY, "spool"));
+    }
+
+    private static JsonObject getConfig()
+    {
+        return ConfigLoader.get().getJsonObject(INGESTION_SPOOL, new JsonObject());
+    }
+
+    /**
+     * Builds a snapshot of the spool counters.
+     *
+     * @return a JsonObject with the spool counters and its current size
+     */
+    public synchronized JsonObject getStats()
+    {
+        var segmentSize = getConfig().getInteger(SEGMENT_SIZE, 16777216);
+
+        return new JsonObject()
+                .put(SPOOLED, spooled.get())
+                .put(REPLAYED, replayed.get())
+                .put(DROPPED, dropped.get())
+                .put(POISONED, poisoned.get())
+                .put(REPLAY_FAILURES, replayFailures.get())
+                .put(PENDING_RECORDS, pendingRecords.get())
+                .put(SEGMENTS, segments.size())
+                .put(DISK_BYTES, (long) segments.size() * segmentSize);
+    }
+}
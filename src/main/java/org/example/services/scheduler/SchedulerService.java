@@ -3,6 +3,8 @@ package org.example.services.scheduler;
 import io.vertx.codegen.annotations.ProxyGen;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import org.example.services.db.DatabaseService;
 import org.example.services.db.DatabaseServiceVertxEBProxy;
 
@@ -47,7 +49,46 @@ public interface SchedulerService
      */
     Future<String> startPolling(int interval);
 
-    Future<Void> addEntry(int id);
+    /**
+     * Adds a provisioned device to the polling schedule.
+     *
+     * @param id       the provisioned device ID
+     * @param critical whether the device keeps its polling cadence when the scheduler is overloaded
+     * @return a succeeded Future once the device is scheduled
+     */
+    Future<Void> addEntry(int id, boolean critical);
 
     Future<Void> removeEntry(int id);
+
+    /**
+     * Returns the last known state of a provisioned device from memory: its latest availability
+     * check and its latest metrics document, each with its timestamp in epoch milliseconds.
+     *
+     * @param id the provisioned device ID
+     * @return a Future with the device's last known state, or null if the device has no results yet
+     */
+    Future<JsonObject> getLatest(int id);
+
+    /**
+     * Returns the last known state of every provisioned device that has results, from memory.
+     *
+     * @return a Future with the last known state of each device, ordered by device ID
+     */
+    Future<JsonArray> getAllLatest();
+
+    /**
+     * Persists the last-poll and next-due times of every device changed since the previous
+     * checkpoint to the {@code scheduler_state} table. Runs periodically and on shutdown.
+     *
+     * @return a Future completed once the state has been written
+     */
+    Future<Void> checkpoint();
+
+    /**
+     * Stops the polling and checkpoint timers and releases the ingestion spool. Spooled records that were not
+     * replayed yet stay on disk for the next start.
+     *
+     * @return a Future completed once the spool is closed
+     */
+    Future<Void> stopPolling();
 }
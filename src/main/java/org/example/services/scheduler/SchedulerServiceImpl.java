@@ -8,23 +8,47 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.example.services.db.DatabaseService;
 import org.example.services.db.DatabaseVerticle;
+import org.example.services.rollup.Resolution;
 import org.example.utils.ConfigLoader;
 import org.example.utils.ConnectivityUtil;
+import org.example.utils.MetricsRegistry;
 import org.example.utils.PluginOperationsUtil;
 import org.example.utils.DecryptionUtil;
+import org.example.utils.Histogram;
+import org.example.utils.MetricsUtil;
+import org.example.utils.ProbeExecutor;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static org.example.constants.AppConstants.DatabasePoolConstants.INGESTION;
+import static org.example.constants.AppConstants.DatabasePoolConstants.POOL;
 import static org.example.constants.AppConstants.FALSE;
+import static org.example.constants.AppConstants.IngestionSpoolConstants.INGESTION_SPOOL;
+import static org.example.constants.AppConstants.IngestionSpoolQuery.LATE_ROLLUP;
+import static org.example.constants.AppConstants.IngestionSpoolQuery.REPLAY_AVAILABILITY_DATA;
+import static org.example.constants.AppConstants.IngestionSpoolQuery.REPLAY_METRIC_SAMPLES;
+import static org.example.constants.AppConstants.TRUE;
 import static org.example.constants.AppConstants.JsonKey.*;
+import static org.example.constants.AppConstants.LatestValueField.*;
+import static org.example.constants.AppConstants.LiveStreamConstants.POLLING_UPDATES;
+import static org.example.constants.AppConstants.LiveStreamConstants.UPDATES;
+import static org.example.constants.AppConstants.MetricsField.*;
 import static org.example.constants.AppConstants.ProvisionField.*;
 import static org.example.constants.AppConstants.CredentialField.USERNAME;
 import static org.example.constants.AppConstants.CredentialField.PASSWORD;
 import static org.example.constants.AppConstants.CredentialField.SYSTEM_TYPE_RESPONSE;
 import static org.example.constants.AppConstants.CredentialField.SYSTEM_TYPE;
 import static org.example.constants.AppConstants.ProvisionQuery.*;
+import static org.example.constants.AppConstants.SchedulerConstants.*;
+import static org.example.constants.AppConstants.SchedulerQuery.*;
+import static org.example.constants.AppConstants.MetricStorageConstants.*;
+import static org.example.constants.AppConstants.MetricSampleField.DEVICE_ID;
+import static org.example.constants.AppConstants.MetricSampleField.UNIT;
+import static org.example.constants.AppConstants.MetricSampleField.VALUE;
 import static org.example.utils.ConnectivityUtil.CheckType;
 
 /**
@@ -34,27 +58,115 @@ import static org.example.utils.ConnectivityUtil.CheckType;
  * running connectivity checks (ping and port), performing SSH
  * metric collection using the plugin, and writing results back
  * to the database.
+ * <p>
+ * Only one polling cycle runs at a time. A timer tick that fires while a cycle is still running
+ * is counted as an overrun and, depending on {@code scheduler.overlap.policy}, either dropped
+ * ({@code skip}) or coalesced into a single follow-up cycle ({@code merge}). Devices selected by a
+ * cycle stay in the in-flight set until their results are stored, so they are never selected twice.
+ * <p>
+ * Every selected device records its schedule lag (actual minus intended poll time) in a histogram.
+ * When the worst lag of a tick exceeds {@code scheduler.overload.lag.threshold} the scheduler enters
+ * overload mode until it drops below {@code recovery.threshold}. In overload mode non-critical devices
+ * have their interval stretched, are limited to availability checks, and the batch size is capped with
+ * critical and most-late devices first, so critical devices keep their cadence.
+ * <p>
+ * Last-poll and next-due times are checkpointed to the {@code scheduler_state} table every
+ * {@code scheduler.checkpoint.interval} milliseconds, so a restart resumes each device's cadence
+ * instead of resetting the whole fleet to "now".
+ * <p>
+ * Plugin output is flattened into typed samples (device, metric, timestamp, double value in a base unit) and
+ * stored in {@code metric_sample}, with metric names and units kept in the {@code metric_catalog}. A sample in
+ * another unit than its metric's is dropped rather than mixed into its history. Storing the raw JSONB document
+ * in {@code polling_result} as well is controlled by {@code metric.storage.legacy.jsonb}, off by default: the
+ * provision endpoints read the typed samples, so the documents are only kept for tools still reading that table.
+ * <p>
+ * The latest availability and metrics of every device are also kept in memory, seeded from the database
+ * at startup and updated as results are stored, so the current state of the fleet is served without
+ * querying the database. Every change is also published on {@code polling.updates} as a batch of
+ * per-device deltas for the live stream.
  */
 public class SchedulerServiceImpl implements SchedulerService
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(SchedulerServiceImpl.class);
 
+    private static final String REPLAY_SAMPLES_QUERY = String.format(REPLAY_METRIC_SAMPLES, Arrays.stream(Resolution.values())
+            .map(resolution -> String.format(LATE_ROLLUP, resolution.getLabel(), resolution.getTable(), resolution.getBucketSeconds()))
+            .collect(Collectors.joining()));
+
     private final DatabaseService databaseService;
 
     private long pollingTimerId = -1;
 
     private final Vertx vertx;
 
-    private static final Map<Integer, Long> deviceLastPolledTimes = new HashMap<>();
+    private final ProbeExecutor probeExecutor;
+
+    private final Map<Integer, Long> deviceLastPolledTimes = new ConcurrentHashMap<>();
+
+    private final Set<Integer> inFlightDevices = ConcurrentHashMap.newKeySet();
+
+    private final Set<Integer> criticalDevices = ConcurrentHashMap.newKeySet();
+
+    private final Set<Integer> dirtyDevices = ConcurrentHashMap.newKeySet();
+
+    private long checkpointTimerId = -1;
+
+    private volatile boolean cycleInProgress = FALSE;
+
+    private boolean pendingTick = FALSE;
+
+    private final AtomicLong cyclesStarted = new AtomicLong();
+
+    private final AtomicLong cyclesCompleted = new AtomicLong();
+
+    private final AtomicLong cycleOverruns = new AtomicLong();
+
+    private final AtomicLong mergedTicks = new AtomicLong();
+
+    private final AtomicLong lastCycleDuration = new AtomicLong();
+
+    private final Histogram pollLag = new Histogram(1000, 5000, 10000, 30000, 60000, 300000);
+
+    private volatile boolean overloaded = FALSE;
 
-    // New query to fetch all device IDs from provisioned_device table
-    public static final String GET_ALL_DEVICE_IDS = "SELECT id FROM provisioned_device WHERE is_deleted = false";
+    private final AtomicLong overloadEpisodes = new AtomicLong();
+
+    private final AtomicLong stretchedDeferrals = new AtomicLong();
+
+    private final AtomicLong batchCapDeferrals = new AtomicLong();
+
+    private final AtomicLong metricsSkipped = new AtomicLong();
+
+    private final AtomicLong restoredDevices = new AtomicLong();
+
+    private final AtomicLong checkpoints = new AtomicLong();
+
+    private final AtomicLong checkpointFailures = new AtomicLong();
+
+    private final AtomicLong samplesStored = new AtomicLong();
+
+    private final Map<Integer, JsonObject> latestValues = new ConcurrentHashMap<>();
+
+    private final AtomicLong latestSeeded = new AtomicLong();
+
+    private final IngestionSpool spool;
 
     public SchedulerServiceImpl(Vertx vertx)
     {
         this.databaseService = DatabaseService.createProxy(vertx, DatabaseVerticle.SERVICE_ADDRESS);
 
         this.vertx = vertx;
+
+        this.probeExecutor = ProbeExecutor.create(vertx, "polling-probe");
+
+        this.spool = IngestionSpool.isEnabled() ? new IngestionSpool(vertx, databaseService) : null;
+
+        MetricsRegistry.register(SCHEDULER, this::getStats);
+
+        if (spool != null)
+        {
+            MetricsRegistry.register(INGESTION_SPOOL, spool::getStats);
+        }
     }
 
     @Override
@@ -70,21 +182,27 @@ public class SchedulerServiceImpl implements SchedulerService
             }
 
             // Initialize the device last polled times map
-            return initializeDeviceMap().compose(result ->
-            {
-                // Set up the periodic timer after initialization
-                pollingTimerId = vertx.setPeriodic(interval, id -> runPollingTask());
+            return initializeDeviceMap()
+                    .compose(result -> seedLatestValues())
+                    // Polling can go on without the spool, failed inserts are then dropped as before
+                    .compose(result -> spool == null ? Future.succeededFuture() : spool.start().otherwiseEmpty())
+                    .compose(result ->
+                    {
+                        // Set up the periodic timer after initialization
+                        pollingTimerId = vertx.setPeriodic(interval, id -> runPollingTask());
 
-                LOGGER.info("Polling scheduled every " + interval + "ms");
+                        checkpointTimerId = vertx.setPeriodic(ConfigLoader.get().getInteger(CHECKPOINT_INTERVAL, 15000), id -> checkpoint());
 
-                return Future.succeededFuture("Polling scheduled");
+                        LOGGER.info("Polling scheduled every " + interval + "ms");
 
-            }).recover(error ->
-            {
-                LOGGER.error("Failed to initialize device map: " + error.getMessage());
+                        return Future.succeededFuture("Polling scheduled");
+                    })
+                    .recover(error ->
+                    {
+                        LOGGER.error("Failed to initialize device map: " + error.getMessage());
 
-                return Future.failedFuture("Failed to start polling: " + error.getMessage());
-            });
+                        return Future.failedFuture("Failed to start polling: " + error.getMessage());
+                    });
         }
         catch (Exception exception)
         {
@@ -95,12 +213,23 @@ public class SchedulerServiceImpl implements SchedulerService
     }
 
     @Override
-    public Future<Void> addEntry(int id)
+    public Future<Void> addEntry(int id, boolean critical)
     {
         try
         {
             deviceLastPolledTimes.put(id, System.currentTimeMillis());
 
+            dirtyDevices.add(id);
+
+            if (critical)
+            {
+                criticalDevices.add(id);
+            }
+            else
+            {
+                criticalDevices.remove(id);
+            }
+
             LOGGER.info("Added device ID " + id + " to map");
 
             return Future.succeededFuture();
@@ -118,6 +247,12 @@ public class SchedulerServiceImpl implements SchedulerService
     {
         try
         {
+            criticalDevices.remove(id);
+
+            dirtyDevices.remove(id);
+
+            latestValues.remove(id);
+
             if (deviceLastPolledTimes.remove(id) != null)
             {
                 LOGGER.info("Removed device ID " + id + " from map");
@@ -137,15 +272,149 @@ public class SchedulerServiceImpl implements SchedulerService
         }
     }
 
+    @Override
+    public Future<JsonObject> getLatest(int id)
+    {
+        try
+        {
+            var latest = latestValues.get(id);
+
+            return Future.succeededFuture(latest == null ? null : latest.copy());
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to get latest values of device ID " + id + ": " + exception.getMessage());
+
+            return Future.failedFuture(exception);
+        }
+    }
+
+    @Override
+    public Future<JsonArray> getAllLatest()
+    {
+        try
+        {
+            var latest = new JsonArray();
+
+            new TreeMap<>(latestValues).values().forEach(values -> latest.add(values.copy()));
+
+            return Future.succeededFuture(latest);
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to get latest values: " + exception.getMessage());
+
+            return Future.failedFuture(exception);
+        }
+    }
+
+    @Override
+    public Future<Void> stopPolling()
+    {
+        if (pollingTimerId != -1)
+        {
+            vertx.cancelTimer(pollingTimerId);
+
+            pollingTimerId = -1;
+        }
+
+        if (checkpointTimerId != -1)
+        {
+            vertx.cancelTimer(checkpointTimerId);
+
+            checkpointTimerId = -1;
+        }
+
+        if (spool == null)
+        {
+            return Future.succeededFuture();
+        }
+
+        MetricsRegistry.unregister(INGESTION_SPOOL);
+
+        return spool.stop();
+    }
+
+    @Override
+    public Future<Void> checkpoint()
+    {
+        try
+        {
+            if (dirtyDevices.isEmpty())
+            {
+                return Future.succeededFuture();
+            }
+
+            var pollingInterval = ConfigLoader.get().getInteger("polling.interval", 30000);
+
+            var states = new JsonArray();
+
+            var checkpointed = new ArrayList<Integer>();
+
+            for (var id : dirtyDevices)
+            {
+                var lastPolled = deviceLastPolledTimes.get(id);
+
+                if (lastPolled != null)
+                {
+                    states.add(new JsonObject()
+                            .put(ID, id)
+                            .put(LAST_POLLED_AT, lastPolled)
+                            .put(NEXT_DUE_AT, lastPolled + pollingInterval));
+                }
+
+                checkpointed.add(id);
+            }
+
+            // Cleared before the write so that updates made while it is in flight are kept for the next checkpoint
+            checkpointed.forEach(dirtyDevices::remove);
+
+            if (states.isEmpty())
+            {
+                return Future.succeededFuture();
+            }
+
+            return databaseService.executeQuery(new JsonObject()
+                            .put(QUERY, UPSERT_SCHEDULER_STATE)
+                            .put(PARAMS, new JsonArray().add(states))
+                            .put(POOL, INGESTION))
+                    .onSuccess(result ->
+                    {
+                        checkpoints.incrementAndGet();
+
+                        LOGGER.debug("Checkpointed scheduler state for " + states.size() + " devices");
+                    })
+                    .onFailure(error ->
+                    {
+                        checkpointFailures.incrementAndGet();
+
+                        // Retry these devices on the next checkpoint unless they were removed meanwhile
+                        checkpointed.stream()
+                                .filter(deviceLastPolledTimes::containsKey)
+                                .forEach(dirtyDevices::add);
+
+                        LOGGER.error("Failed to checkpoint scheduler state: " + error.getMessage());
+                    })
+                    .mapEmpty();
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to checkpoint scheduler state: " + exception.getMessage());
+
+            return Future.failedFuture(exception);
+        }
+    }
+
     /**
-     * Initialize the device map with all device IDs and current timestamp
+     * Initialize the device map from the persisted scheduler state. Devices without a saved
+     * state are spread evenly across the first polling interval instead of all firing at once.
      */
     private Future<Void> initializeDeviceMap()
     {
         try
         {
             return databaseService.executeQuery(new JsonObject()
-                            .put(QUERY, GET_ALL_DEVICE_IDS)
+                            .put(QUERY, GET_SCHEDULED_DEVICES)
                             .put(PARAMS, Collections.emptyList()))
                     .compose(dbResponse ->
                     {
@@ -156,11 +425,38 @@ public class SchedulerServiceImpl implements SchedulerService
                                 return Future.failedFuture("DB query failed: " + dbResponse.getString(ERROR));
                             }
 
-                            for (var rowObj : dbResponse.getJsonArray(ROWS, new JsonArray()))
+                            var rows = dbResponse.getJsonArray(ROWS, new JsonArray());
+
+                            var now = System.currentTimeMillis();
+
+                            var pollingInterval = ConfigLoader.get().getInteger("polling.interval", 30000);
+
+                            var newDevices = new ArrayList<Integer>();
+
+                            for (var rowObj : rows)
                             {
                                 try
                                 {
-                                    deviceLastPolledTimes.put(((JsonObject) rowObj).getInteger(ID), System.currentTimeMillis());
+                                    var row = (JsonObject) rowObj;
+
+                                    var lastPolledAt = row.getLong(LAST_POLLED_AT);
+
+                                    if (lastPolledAt != null)
+                                    {
+                                        // Clamped so that a skewed clock cannot push a device's first poll far into the future
+                                        deviceLastPolledTimes.put(row.getInteger(ID), Math.min(lastPolledAt, now));
+
+                                        restoredDevices.incrementAndGet();
+                                    }
+                                    else
+                                    {
+                                        newDevices.add(row.getInteger(ID));
+                                    }
+
+                                    if (row.getBoolean(IS_CRITICAL, FALSE))
+                                    {
+                                        criticalDevices.add(row.getInteger(ID));
+                                    }
                                 }
                                 catch (Exception exception)
                                 {
@@ -168,7 +464,14 @@ public class SchedulerServiceImpl implements SchedulerService
                                 }
                             }
 
-                            LOGGER.info("Initialized device map with " + deviceLastPolledTimes.size() + " devices");
+                            for (var i = 0; i < newDevices.size(); i++)
+                            {
+                                deviceLastPolledTimes.put(newDevices.get(i), now - pollingInterval + (long) i * pollingInterval / newDevices.size());
+
+                                dirtyDevices.add(newDevices.get(i));
+                            }
+
+                            LOGGER.info("Initialized device map with " + deviceLastPolledTimes.size() + " devices (" + restoredDevices.get() + " restored from saved state)");
 
                             return Future.succeededFuture();
                         }
@@ -189,298 +492,739 @@ public class SchedulerServiceImpl implements SchedulerService
     }
 
     /**
-     * Run the polling task for eligible devices
+     * Seeds the in-memory latest values with the most recent availability check and metrics of every
+     * provisioned device. Metrics come from {@code polling_result} when the JSONB documents are stored,
+     * otherwise from the latest typed samples. A failure leaves the store to be filled by polling and
+     * does not prevent polling from starting.
      */
-    private void runPollingTask()
+    private Future<Void> seedLatestValues()
     {
-        LOGGER.info("Running scheduled polling task");
+        try
+        {
+            var metricsQuery = ConfigLoader.get().getJsonObject(METRIC_STORAGE, new JsonObject()).getBoolean(LEGACY_JSONB, FALSE)
+                    ? GET_LATEST_POLLING_RESULTS
+                    : GET_LATEST_METRIC_SAMPLES;
 
-        // Get eligible devices for polling (last polled > 1 minute ago)
-        var eligibleDeviceIds = getEligibleDeviceIds();
+            var availabilityFuture = databaseService.executeQuery(new JsonObject()
+                    .put(QUERY, GET_LATEST_AVAILABILITY)
+                    .put(PARAMS, Collections.emptyList()));
 
-        if (eligibleDeviceIds.isEmpty())
+            var metricsFuture = databaseService.executeQuery(new JsonObject()
+                    .put(QUERY, metricsQuery)
+                    .put(PARAMS, Collections.emptyList()));
+
+            return Future.all(availabilityFuture, metricsFuture)
+                    .onSuccess(composite ->
+                    {
+                        for (var rowObj : availabilityFuture.result().getJsonArray(ROWS, new JsonArray()))
+                        {
+                            var row = (JsonObject) rowObj;
+
+                            updateLatestAvailability(row.getInteger(ID), row.getBoolean(WAS_AVAILABLE, FALSE), row.getLong(CHECKED_AT));
+                        }
+
+                        for (var rowObj : metricsFuture.result().getJsonArray(ROWS, new JsonArray()))
+                        {
+                            var row = (JsonObject) rowObj;
+
+                            updateLatestMetrics(row.getInteger(ID), row.getJsonObject(METRICS, new JsonObject()), row.getLong(POLLED_AT));
+                        }
+
+                        latestSeeded.set(latestValues.size());
+
+                        LOGGER.info("Seeded latest values of " + latestValues.size() + " devices");
+                    })
+                    .onFailure(error -> LOGGER.error("Failed to seed latest values: " + error.getMessage()))
+                    .<Void>mapEmpty()
+                    .otherwiseEmpty();
+        }
+        catch (Exception exception)
         {
-            LOGGER.info("No devices eligible for polling at this time");
+            LOGGER.error("Failed to seed latest values: " + exception.getMessage());
+
+            return Future.succeededFuture();
+        }
+    }
+
+    /**
+     * Timer entry point. Admits a new polling cycle only if the previous one has finished;
+     * otherwise records an overrun and applies the configured overlap policy.
+     */
+    private void runPollingTask()
+    {
+        try
+        {
+            if (cycleInProgress)
+            {
+                cycleOverruns.incrementAndGet();
+
+                if (OVERLAP_MERGE.equals(ConfigLoader.get().getString(OVERLAP_POLICY, OVERLAP_MERGE)))
+                {
+                    if (pendingTick)
+                    {
+                        mergedTicks.incrementAndGet();
+                    }
+
+                    pendingTick = TRUE;
 
-            return;
+                    LOGGER.warn("Previous polling cycle still running. Tick merged into the next cycle.");
+                }
+                else
+                {
+                    LOGGER.warn("Previous polling cycle still running. Tick skipped.");
+                }
+
+                return;
+            }
+
+            LOGGER.info("Running scheduled polling task");
+
+            // Get eligible devices for polling (due, not in flight, within the overload batch cap)
+            var eligibleDeviceIds = getEligibleDeviceIds();
+
+            // Decided once per cycle so that the whole cycle applies the same policy
+            var metricsForCriticalOnly = overloaded && getOverloadConfig().getBoolean(AVAILABILITY_ONLY, FALSE);
+
+            if (eligibleDeviceIds.isEmpty())
+            {
+                LOGGER.info("No devices eligible for polling at this time");
+
+                return;
+            }
+
+            LOGGER.info("Found " + eligibleDeviceIds.size() + " devices eligible for polling");
+
+            // Claim the devices before any asynchronous work so that no other cycle can select them
+            inFlightDevices.addAll(eligibleDeviceIds);
+
+            updateLastPolledTimes(eligibleDeviceIds);
+
+            cycleInProgress = TRUE;
+
+            cyclesStarted.incrementAndGet();
+
+            var cycleStart = System.currentTimeMillis();
+
+            pollDevices(eligibleDeviceIds, metricsForCriticalOnly)
+                    .onFailure(error -> LOGGER.error("Polling cycle failed: " + error.getMessage()))
+                    .onComplete(result ->
+                    {
+                        eligibleDeviceIds.forEach(inFlightDevices::remove);
+
+                        cycleInProgress = FALSE;
+
+                        cyclesCompleted.incrementAndGet();
+
+                        lastCycleDuration.set(System.currentTimeMillis() - cycleStart);
+
+                        if (pendingTick)
+                        {
+                            pendingTick = FALSE;
+
+                            runPollingTask();
+                        }
+                    });
         }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to run polling task: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Runs one full polling cycle for the given devices: fetch device details, check
+     * reachability, collect metrics and store the results.
+     *
+     * @param deviceIds              the IDs of the devices to poll
+     * @param metricsForCriticalOnly whether SSH metrics are collected for critical devices only
+     * @return a Future completed once all results of the cycle are stored
+     */
+    private Future<Void> pollDevices(List<Integer> deviceIds, boolean metricsForCriticalOnly)
+    {
+        return fetchDevices(deviceIds).compose(devices ->
+        {
+            if (devices.isEmpty())
+            {
+                LOGGER.info("No devices found for polling");
 
-        LOGGER.info("Found " + eligibleDeviceIds.size() + " devices eligible for polling");
+                return Future.succeededFuture();
+            }
+
+            return checkReachability(devices)
+                    .compose(reachableDevices -> collectMetrics(devices, reachableDevices, metricsForCriticalOnly))
+                    .compose(this::storeResults)
+                    .recover(error ->
+                    {
+                        LOGGER.error("Polling pipeline failed: " + error.getMessage());
+
+                        // Update availability as false for all devices on failure
+                        var availabilityParams = new JsonArray(
+                                devices.stream()
+                                        .map(device -> List.of(((JsonObject) device).getInteger(ID), FALSE))
+                                        .toList()
+                        );
+
+                        return insertAvailability(availabilityParams);
+                    });
+        });
+    }
 
-        databaseService.executeQuery(new JsonObject()
+    /**
+     * Fetches connection details and decrypted credentials for the given devices.
+     *
+     * @param deviceIds the IDs of the devices to fetch
+     * @return a Future with the devices that could be loaded
+     */
+    private Future<JsonArray> fetchDevices(List<Integer> deviceIds)
+    {
+        return databaseService.executeQuery(new JsonObject()
                         .put(QUERY, String.format(
                                 "SELECT p.id, p.port, p.ip, c.username, c.password, c.system_type " +
                                         "FROM provisioned_device p " +
                                         "JOIN credential_profile c ON p.credential_profile_id = c.id " +
-                                        "WHERE p.id IN (%s)", IntStream.range(1, eligibleDeviceIds.size() + 1)
+                                        "WHERE p.id IN (%s)", IntStream.range(1, deviceIds.size() + 1)
                                         .mapToObj(i -> "$" + i)
                                         .collect(Collectors.joining(","))))
-                        .put(PARAMS, new JsonArray(eligibleDeviceIds)))
-                .onSuccess(dbResponse ->
+                        .put(PARAMS, new JsonArray(deviceIds))
+                        .put(POOL, INGESTION))
+                .compose(dbResponse ->
                 {
-                    try
+                    if (!dbResponse.getBoolean(SUCCESS))
                     {
-                        if (!dbResponse.getBoolean(SUCCESS))
-                        {
-                            LOGGER.warn("DB query failed: " + dbResponse.getString(ERROR));
+                        return Future.failedFuture("DB query failed: " + dbResponse.getString(ERROR));
+                    }
 
-                            return;
-                        }
+                    var devices = new JsonArray();
 
-                        var devices = new JsonArray();
+                    for (var rowObj : dbResponse.getJsonArray(ROWS, new JsonArray()))
+                    {
+                        var row = (JsonObject) rowObj;
 
-                        for (var rowObj : dbResponse.getJsonArray(ROWS, new JsonArray()))
+                        try
                         {
-                            var row = (JsonObject) rowObj;
+                            var device = new JsonObject()
+                                    .put(ID, row.getInteger(ID))
+                                    .put(PORT, row.getInteger(PORT))
+                                    .put(IP, row.getString(IP))
+                                    .put(USERNAME, row.getString(USERNAME))
+                                    .put(PASSWORD, DecryptionUtil.decryptSecret(row.getString(PASSWORD)))
+                                    .put(SYSTEM_TYPE_RESPONSE, row.getString(SYSTEM_TYPE));
+
+                            devices.add(device);
+                        }
+                        catch (Exception exception)
+                        {
+                            LOGGER.error("Failed to process device: " + exception.getMessage());
+                        }
+                    }
+
+                    return Future.succeededFuture(devices);
+                });
+    }
 
+    /**
+     * Runs PING and then PORT checks concurrently for each device on the probe executor.
+     *
+     * @param devices the devices to check
+     * @return a Future with the devices that passed both checks
+     */
+    private Future<JsonArray> checkReachability(JsonArray devices)
+    {
+        var deviceFutures = devices.stream()
+                .map(obj -> (JsonObject) obj)
+                .map(device -> probeExecutor.execute(
+                        () ->
+                        {
                             try
                             {
-                                var device = new JsonObject()
-                                        .put(ID, row.getInteger(ID))
-                                        .put(PORT, row.getInteger(PORT))
-                                        .put(IP, row.getString(IP))
-                                        .put(USERNAME, row.getString(USERNAME))
-                                        .put(PASSWORD, DecryptionUtil.decrypt(row.getString(PASSWORD)))
-                                        .put(SYSTEM_TYPE_RESPONSE, row.getString(SYSTEM_TYPE));
-
-                                devices.add(device);
+                                // Perform PING check
+                                var pingResult = ConnectivityUtil.filterReachableDevices(new JsonArray().add(device), CheckType.PING);
+
+                                if (pingResult.isEmpty())
+                                {
+                                    return null;
+                                }
+
+                                // Perform PORT check
+                                var portResult = ConnectivityUtil.filterReachableDevices(pingResult, CheckType.PORT);
+
+                                if (portResult.isEmpty())
+                                {
+                                    return null;
+                                }
+
+                                // Return the device that passed both checks
+                                return portResult.getJsonObject(0);
+
                             }
                             catch (Exception exception)
                             {
-                                LOGGER.error("Failed to process device: " + exception.getMessage());
+                                LOGGER.error("Error processing device ID " + device.getInteger(ID) + ": " + exception.getMessage());
+
+                                return null;
                             }
                         }
+                ))
+                .collect(Collectors.toList());
 
-                        if (devices.isEmpty())
-                        {
-                            LOGGER.info("No devices found for polling");
+        // Wait for all PING and PORT checks to complete
+        return Future.all(deviceFutures).map(composite ->
+        {
+            // Collect devices that passed PING and PORT checks
+            var reachableDevices = new JsonArray();
 
-                            return;
-                        }
+            for (var i = 0; i < composite.size(); i++)
+            {
+                try
+                {
+                    var result = composite.resultAt(i);
 
-                        // Update the last polled time for these devices
-                        updateLastPolledTimes(devices);
-
-                        // Process PING and PORT checks concurrently for each device
-                        var deviceFutures = devices.stream()
-                                .map(obj -> (JsonObject) obj)
-                                .map(device -> vertx.executeBlocking(
-                                        () ->
-                                        {
-                                            try
-                                            {
-                                                // Perform PING check
-                                                var pingResult = ConnectivityUtil.filterReachableDevices(new JsonArray().add(device), CheckType.PING);
-
-                                                if (pingResult.isEmpty())
-                                                {
-                                                    return null;
-                                                }
-
-                                                // Perform PORT check
-                                                var portResult = ConnectivityUtil.filterReachableDevices(pingResult, CheckType.PORT);
-
-                                                if (portResult.isEmpty())
-                                                {
-                                                    return null;
-                                                }
-
-                                                // Return the device that passed both checks
-                                                return portResult.getJsonObject(0);
-
-                                            }
-                                            catch (Exception exception)
-                                            {
-                                                LOGGER.error("Error processing device ID " + device.getInteger(ID) + ": " + exception.getMessage());
-
-                                                return null;
-                                            }
-                                        },
-                                        FALSE // Ordered execution not required
-                                ))
-                                .collect(Collectors.toList());
-
-                        // Wait for all PING and PORT checks to complete
-                        Future.all(deviceFutures)
-                                .compose(composite ->
-                                {
-                                    // Collect devices that passed PING and PORT checks
-                                    var reachableDevices = new JsonArray();
+                    if (result instanceof JsonObject)
+                    {
+                        reachableDevices.add(result);
+                    }
+                }
+                catch (Exception exception)
+                {
+                    LOGGER.error("Error processing result for device ID " + devices.getJsonObject(i).getInteger(ID) + ": " + exception.getMessage());
+                }
+            }
 
-                                    for (var i = 0; i < composite.size(); i++)
-                                    {
-                                        try
-                                        {
-                                            var result = composite.resultAt(i);
-
-                                            if (result instanceof JsonObject)
-                                            {
-                                                reachableDevices.add(result);
-                                            }
-                                        }
-                                        catch (Exception exception)
-                                        {
-                                            LOGGER.error("Error processing result for device ID " + devices.getJsonObject(i).getInteger(ID) + ": " + exception.getMessage());
-                                        }
-                                    }
+            return reachableDevices;
+        });
+    }
 
-                                    // Prepare availability params
-                                    var availabilityParams = new ArrayList<>();
+    /**
+     * Builds availability rows for every polled device and runs SSH metric collection for the reachable ones.
+     *
+     * @param devices                all devices polled in this cycle
+     * @param reachableDevices       the devices that passed PING and PORT checks
+     * @param metricsForCriticalOnly whether SSH metrics are collected for critical devices only
+     * @return a Future with the availability params and the metrics results
+     */
+    private Future<JsonObject> collectMetrics(JsonArray devices, JsonArray reachableDevices, boolean metricsForCriticalOnly)
+    {
+        // Prepare availability params
+        var availabilityParams = new ArrayList<>();
 
-                                    var reachableIds = reachableDevices.stream()
-                                            .map(dev -> ((JsonObject) dev).getInteger(ID))
-                                            .collect(Collectors.toSet());
+        var reachableIds = reachableDevices.stream()
+                .map(dev -> ((JsonObject) dev).getInteger(ID))
+                .collect(Collectors.toSet());
 
-                                    for (var i = 0; i < devices.size(); i++)
-                                    {
-                                        try
-                                        {
-                                            availabilityParams.add(List.of(devices.getJsonObject(i).getInteger(ID), reachableIds.contains(devices.getJsonObject(i).getInteger(ID))));
-                                        }
-                                        catch (Exception exception)
-                                        {
-                                            LOGGER.error("Error processing device ID " + devices.getJsonObject(i).getInteger(ID) + ": " + exception.getMessage());
-                                        }
-                                    }
+        for (var i = 0; i < devices.size(); i++)
+        {
+            try
+            {
+                availabilityParams.add(List.of(devices.getJsonObject(i).getInteger(ID), reachableIds.contains(devices.getJsonObject(i).getInteger(ID))));
+            }
+            catch (Exception exception)
+            {
+                LOGGER.error("Error processing device ID " + devices.getJsonObject(i).getInteger(ID) + ": " + exception.getMessage());
+            }
+        }
 
-                                    if (reachableDevices.isEmpty())
-                                    {
-                                        LOGGER.info("No devices passed PING and PORT checks.");
+        // Under overload non-critical devices only get an availability record
+        var metricsDevices = reachableDevices;
 
-                                        return Future.succeededFuture(new JsonObject()
-                                                .put(AVAILABILITY_PARAMS, new JsonArray(availabilityParams))
-                                                .put(METRICS_RESULTS, new JsonArray()));
-                                    }
+        if (metricsForCriticalOnly)
+        {
+            metricsDevices = new JsonArray(reachableDevices.stream()
+                    .filter(dev -> criticalDevices.contains(((JsonObject) dev).getInteger(ID)))
+                    .toList());
 
-                                    // Perform SSH metrics collection in executeBlocking
-                                    return vertx.executeBlocking(
-                                            () ->
-                                            {
-                                                try
-                                                {
-                                                    return PluginOperationsUtil.runSSHMetrics(reachableDevices);
-                                                }
-                                                catch (Exception exception)
-                                                {
-                                                    LOGGER.error("SSH metrics collection failed: " + exception.getMessage());
-
-                                                    return new JsonArray();
-                                                }
-                                            },
-                                            FALSE
-                                    ).map(metricsResults -> new JsonObject()
-                                            .put(AVAILABILITY_PARAMS, new JsonArray(availabilityParams))
-                                            .put(METRICS_RESULTS, metricsResults));
-                                })
-                                .onSuccess(result ->
-                                {
-                                    // Process and insert metrics results
-                                    try
-                                    {
-                                        var availabilityParams = result.getJsonArray(AVAILABILITY_PARAMS);
-
-                                        var metricsResults = result.getJsonArray(METRICS_RESULTS);
-
-                                        // Update availability data in database
-                                        databaseService.executeBatch(new JsonObject()
-                                                        .put(QUERY, ADD_AVAILABILITY_DATA)
-                                                        .put(PARAMS, availabilityParams))
-                                                .onSuccess(res -> LOGGER.info("Availability records inserted: " + availabilityParams.size()))
-                                                .onFailure(error -> LOGGER.error("Availability insert failed: " + error.getMessage()));
-
-                                        if (metricsResults.isEmpty())
-                                        {
-                                            LOGGER.info("No metrics results to process.");
-
-                                            return;
-                                        }
-
-                                        LOGGER.info("Polling completed. Received " + metricsResults.size() + " results.");
-
-                                        var batchParams = new ArrayList<>();
-
-                                        for (var i = 0; i < metricsResults.size(); i++)
-                                        {
-                                            try
-                                            {
-                                                batchParams.add(List.of(metricsResults.getJsonObject(i).remove(ID), metricsResults.getJsonObject(i)));
-                                            }
-                                            catch (Exception exception)
-                                            {
-                                                LOGGER.error("Error processing metrics result: " + exception.getMessage());
-                                            }
-                                        }
-
-                                        databaseService.executeBatch(new JsonObject()
-                                                        .put(QUERY, INSERT_POLLING_RESULT)
-                                                        .put(PARAMS, new JsonArray(batchParams)))
-                                                .onSuccess(batchResponse ->
-                                                {
-                                                    if (batchResponse.getBoolean(SUCCESS))
-                                                    {
-                                                        LOGGER.info("Successfully inserted " + batchParams.size() + " polling results.");
-                                                    }
-                                                    else
-                                                    {
-                                                        LOGGER.warn("Batch insert failed: " + batchResponse.getString(ERROR));
-                                                    }
-                                                })
-                                                .onFailure(error -> LOGGER.error("Batch insert failed: " + error.getMessage()));
-                                    }
-                                    catch (Exception exception)
-                                    {
-                                        LOGGER.error("Failed to process metrics results: " + exception.getMessage());
-                                    }
-                                })
-                                .onFailure(error ->
-                                {
-                                    LOGGER.error("Polling pipeline failed: " + error.getMessage());
-
-                                    // Update availability as false for all devices on failure
-                                    var availabilityParams = new JsonArray(
-                                            devices.stream()
-                                                    .map(device -> List.of(((JsonObject) device).getInteger(ID), FALSE))
-                                                    .toList()
-                                    );
-
-                                    databaseService.executeBatch(new JsonObject()
-                                                    .put(QUERY, ADD_AVAILABILITY_DATA)
-                                                    .put(PARAMS, availabilityParams))
-                                            .onSuccess(res -> LOGGER.info("Availability records inserted: " + availabilityParams.size()))
-                                            .onFailure(exception -> LOGGER.error("Availability insert failed: " + exception.getMessage()));
-                                });
+            metricsSkipped.addAndGet(reachableDevices.size() - metricsDevices.size());
+        }
+
+        if (metricsDevices.isEmpty())
+        {
+            LOGGER.info("No devices passed PING and PORT checks or are eligible for metrics.");
+
+            return Future.succeededFuture(new JsonObject()
+                    .put(AVAILABILITY_PARAMS, new JsonArray(availabilityParams))
+                    .put(METRICS_RESULTS, new JsonArray()));
+        }
+
+        var sshDevices = metricsDevices;
+
+        // Perform SSH metrics collection on the probe executor
+        return probeExecutor.execute(
+                () ->
+                {
+                    try
+                    {
+                        return PluginOperationsUtil.runSSHMetrics(sshDevices);
                     }
                     catch (Exception exception)
                     {
-                        LOGGER.error("Failed to process DB response: " + exception.getMessage());
+                        LOGGER.error("SSH metrics collection failed: " + exception.getMessage());
+
+                        return new JsonArray();
+                    }
+                }
+        ).map(metricsResults -> new JsonObject()
+                .put(AVAILABILITY_PARAMS, new JsonArray(availabilityParams))
+                .put(METRICS_RESULTS, metricsResults));
+    }
+
+    /**
+     * Stores availability and metrics results of a cycle. Metrics are stored as typed samples and, if
+     * enabled, as raw JSONB documents. Storage failures are logged and do not fail the cycle.
+     *
+     * @param result the availability params and metrics results of the cycle
+     * @return a Future completed once all inserts have finished
+     */
+    private Future<Void> storeResults(JsonObject result)
+    {
+        var availabilityParams = result.getJsonArray(AVAILABILITY_PARAMS);
+
+        var metricsResults = result.getJsonArray(METRICS_RESULTS);
+
+        // Update availability data in database
+        var availabilityFuture = insertAvailability(availabilityParams);
+
+        if (metricsResults.isEmpty())
+        {
+            LOGGER.info("No metrics results to process.");
+
+            return availabilityFuture;
+        }
+
+        LOGGER.info("Polling completed. Received " + metricsResults.size() + " results.");
+
+        var storageConfig = ConfigLoader.get().getJsonObject(METRIC_STORAGE, new JsonObject());
+
+        var storeTyped = storageConfig.getBoolean(TYPED, TRUE);
+
+        var storeJsonb = storageConfig.getBoolean(LEGACY_JSONB, FALSE);
+
+        var polledAt = System.currentTimeMillis();
+
+        var batchParams = new ArrayList<>();
+
+        var samples = new JsonArray();
+
+        var deltas = new JsonArray();
+
+        for (var i = 0; i < metricsResults.size(); i++)
+        {
+            try
+            {
+                var metrics = metricsResults.getJsonObject(i);
+
+                var deviceId = metrics.remove(ID);
+
+                var delta = updateLatestMetrics(deviceId instanceof Number number ? number.intValue() : null, metrics, polledAt);
+
+                if (delta != null)
+                {
+                    deltas.add(delta);
+                }
+
+                if (storeJsonb)
+                {
+                    batchParams.add(List.of(deviceId, metrics, polledAt));
+                }
+
+                if (storeTyped)
+                {
+                    MetricsUtil.flatten(metrics).forEach((name, metric) -> samples.add(new JsonObject()
+                            .put(DEVICE_ID, deviceId)
+                            .put(NAME, name)
+                            .put(UNIT, metric.unit())
+                            .put(VALUE, metric.value())));
+                }
+            }
+            catch (Exception exception)
+            {
+                LOGGER.error("Error processing metrics result: " + exception.getMessage());
+            }
+        }
+
+        var futures = new ArrayList<Future<Void>>();
+
+        futures.add(availabilityFuture);
+
+        if (!batchParams.isEmpty())
+        {
+            var request = new JsonObject()
+                    .put(QUERY, INSERT_POLLING_RESULT)
+                    .put(PARAMS, new JsonArray(batchParams))
+                    .put(POOL, INGESTION);
+
+            futures.add(databaseService.executeBatch(request)
+                    .onSuccess(batchResponse ->
+                    {
+                        if (batchResponse.getBoolean(SUCCESS))
+                        {
+                            LOGGER.info("Successfully inserted " + batchParams.size() + " polling results.");
+                        }
+                        else
+                        {
+                            LOGGER.warn("Batch insert failed: " + batchResponse.getString(ERROR));
+                        }
+                    })
+                    .<Void>mapEmpty()
+                    .recover(error -> spoolFailed("Batch insert", request, TRUE, error)));
+        }
+
+        if (!samples.isEmpty())
+        {
+            futures.add(insertSamples(samples, polledAt));
+        }
+
+        // Listeners such as the provision response cache read the database, so they hear of the new values once stored
+        return Future.all(futures)
+                .<Void>mapEmpty()
+                .onComplete(stored -> publishUpdates(deltas));
+    }
+
+    /**
+     * Inserts typed metric samples, registering unknown metric names in the catalog first. Failures are
+     * logged and swallowed.
+     *
+     * @param samples  the (device id, metric name, unit, value) objects to insert
+     * @param polledAt the poll timestamp of the samples in epoch milliseconds
+     * @return a Future completed once the insert has finished
+     */
+    private Future<Void> insertSamples(JsonArray samples, long polledAt)
+    {
+        var catalogRequest = new JsonObject()
+                .put(QUERY, UPSERT_METRIC_CATALOG)
+                .put(PARAMS, new JsonArray().add(samples))
+                .put(POOL, INGESTION);
+
+        return databaseService.executeQuery(catalogRequest)
+                .compose(catalog -> databaseService.executeQuery(new JsonObject()
+                        .put(QUERY, INSERT_METRIC_SAMPLES)
+                        .put(PARAMS, new JsonArray().add(samples).add(polledAt))
+                        .put(POOL, INGESTION)))
+                .onSuccess(res ->
+                {
+                    var inserted = res.getInteger(ROW_COUNT, 0);
+
+                    samplesStored.addAndGet(inserted);
+
+                    LOGGER.info("Metric samples inserted: " + inserted);
+
+                    if (inserted < samples.size())
+                    {
+                        LOGGER.warn("Metric samples not inserted, in another unit than their metric or already stored: " + (samples.size() - inserted));
                     }
                 })
-                .onFailure(error -> LOGGER.error("DB query failed: " + error.getMessage()));
+                .<Void>mapEmpty()
+                // Replayed samples may be older than the rollup watermarks, so they are replayed with a statement that rolls them up too.
+                // The catalog upsert is replayed first in any case, it does nothing if it had gone through
+                .recover(error -> spoolFailed("Metric catalog upsert", catalogRequest, FALSE, error)
+                        .compose(v -> spoolFailed("Metric sample insert", new JsonObject()
+                                .put(QUERY, REPLAY_SAMPLES_QUERY)
+                                .put(PARAMS, new JsonArray().add(samples).add(polledAt))
+                                .put(POOL, INGESTION), FALSE, error)));
+    }
+
+    /**
+     * Inserts availability rows. Failures are logged and swallowed.
+     *
+     * @param availabilityParams the (device id, was available) pairs to insert
+     * @return a Future completed once the insert has finished
+     */
+    private Future<Void> insertAvailability(JsonArray availabilityParams)
+    {
+        var checkedAt = System.currentTimeMillis();
+
+        var deltas = new JsonArray();
+
+        for (var i = 0; i < availabilityParams.size(); i++)
+        {
+            var params = availabilityParams.getJsonArray(i);
+
+            var delta = updateLatestAvailability(params.getInteger(0), params.getBoolean(1), checkedAt);
+
+            if (delta != null)
+            {
+                deltas.add(delta);
+            }
+        }
+
+        var rows = new JsonArray();
+
+        for (var i = 0; i < availabilityParams.size(); i++)
+        {
+            rows.add(availabilityParams.getJsonArray(i).copy().add(checkedAt));
+        }
+
+        var request = new JsonObject()
+                .put(QUERY, ADD_AVAILABILITY_DATA)
+                .put(PARAMS, rows)
+                .put(POOL, INGESTION);
+
+        return databaseService.executeBatch(request)
+                .onSuccess(res -> LOGGER.info("Availability records inserted: " + availabilityParams.size()))
+                .<Void>mapEmpty()
+                // Replayed checks may be older than the availability rollup's watermark, so they are replayed with a statement that rolls them up too
+                .recover(error -> spoolFailed("Availability insert", request.copy().put(QUERY, REPLAY_AVAILABILITY_DATA), TRUE, error))
+                .onComplete(result -> publishUpdates(deltas));
+    }
+
+    /**
+     * Hands a failed insert to the ingestion spool, or drops it if the spool is disabled.
+     * Never fails, so one failed insert does not fail the cycle.
+     *
+     * @param operation the insert, for the log
+     * @param request   the failed database service request
+     * @param batch     whether the request is for {@code executeBatch}
+     * @param error     the cause of the failure
+     * @return a Future completed once the request is spooled or dropped
+     */
+    private Future<Void> spoolFailed(String operation, JsonObject request, boolean batch, Throwable error)
+    {
+        if (spool == null)
+        {
+            LOGGER.error(operation + " failed: " + error.getMessage());
+
+            return Future.succeededFuture();
+        }
+
+        LOGGER.warn(operation + " failed, spooling for replay: " + error.getMessage());
+
+        return spool.append(request, batch).otherwiseEmpty();
+    }
+
+    /**
+     * Records the latest availability of a device.
+     *
+     * @return the delta to publish, or null if the device is no longer scheduled
+     */
+    private JsonObject updateLatestAvailability(Integer id, boolean available, Long checkedAt)
+    {
+        // Results of a device removed while its cycle was running are not cached
+        if (id == null || !deviceLastPolledTimes.containsKey(id))
+        {
+            return null;
+        }
+
+        var delta = new JsonObject()
+                .put(ID, id)
+                .put(AVAILABLE, available)
+                .put(CHECKED_AT_RESPONSE, checkedAt);
+
+        latestValues.computeIfAbsent(id, key -> new JsonObject()).mergeIn(delta);
+
+        return delta;
+    }
+
+    /**
+     * Records the latest metrics of a device.
+     *
+     * @return the delta to publish, or null if the device is no longer scheduled
+     */
+    private JsonObject updateLatestMetrics(Integer id, JsonObject metrics, Long polledAt)
+    {
+        if (id == null || !deviceLastPolledTimes.containsKey(id))
+        {
+            return null;
+        }
+
+        var delta = new JsonObject()
+                .put(ID, id)
+                .put(METRICS, metrics.copy())
+                .put(POLLED_AT_RESPONSE, polledAt);
+
+        latestValues.computeIfAbsent(id, key -> new JsonObject()).mergeIn(delta);
+
+        return delta;
+    }
+
+    private void publishUpdates(JsonArray deltas)
+    {
+        if (!deltas.isEmpty())
+        {
+            vertx.eventBus().publish(POLLING_UPDATES, new JsonObject().put(UPDATES, deltas));
+        }
     }
 
     /**
-     * Get device IDs that are eligible for polling (last polled > 1 minute ago)
+     * Get device IDs that are eligible for polling (last polled at least one effective interval ago
+     * and not already being polled by a running cycle). Records the schedule lag of every selected
+     * device, updates the overload state and, while overloaded, caps the batch size.
+     * <p>
+     * Lag is measured against {@code polling.interval} for every device, deferred ones included; the
+     * stretched interval only decides which devices are polled. Measured against the stretched interval,
+     * lag would drop as soon as stretching starts and end overload mode without polling catching up.
      */
     private List<Integer> getEligibleDeviceIds()
     {
         try
         {
-            var eligibleDevices = new ArrayList<Integer>();
+            var overloadConfig = getOverloadConfig();
+
+            var now = System.currentTimeMillis();
+
+            var pollingInterval = ConfigLoader.get().getInteger("polling.interval", 30000);
+
+            var stretchedInterval = (long) (pollingInterval * Math.max(1.0, overloadConfig.getDouble(STRETCH_FACTOR, 1.0)));
+
+            var dueDevices = new HashMap<Integer, Long>();
+
+            var maxLag = 0L;
 
             for (Map.Entry<Integer, Long> entry : deviceLastPolledTimes.entrySet())
             {
                 try
                 {
-                    if (System.currentTimeMillis() - entry.getValue() >= ConfigLoader.get().getInteger("polling.interval",30000))
+                    if (inFlightDevices.contains(entry.getKey()))
+                    {
+                        continue;
+                    }
+
+                    // Lag is always measured against the base interval, so that stretching does not hide how far behind polling is
+                    var lag = now - (entry.getValue() + pollingInterval);
+
+                    if (lag < 0)
+                    {
+                        continue;
+                    }
+
+                    maxLag = Math.max(maxLag, lag);
+
+                    // While overloaded, non-critical devices are only polled once the stretched interval has elapsed
+                    if (overloaded && !criticalDevices.contains(entry.getKey()) && now - (entry.getValue() + stretchedInterval) < 0)
                     {
-                        eligibleDevices.add(entry.getKey());
+                        stretchedDeferrals.incrementAndGet();
+
+                        continue;
                     }
+
+                    dueDevices.put(entry.getKey(), lag);
                 }
                 catch (Exception exception)
                 {
                     LOGGER.error("Failed to process device ID " + entry.getKey() + ": " + exception.getMessage());
                 }
             }
+
+            var eligibleDevices = new ArrayList<>(dueDevices.keySet());
+
+            var maxBatchSize = overloadConfig.getInteger(MAX_BATCH_SIZE, 0);
+
+            if (overloaded && maxBatchSize > 0 && eligibleDevices.size() > maxBatchSize)
+            {
+                // Critical devices first, then the ones furthest behind schedule
+                eligibleDevices.sort(Comparator
+                        .comparing((Integer id) -> !criticalDevices.contains(id))
+                        .thenComparing(id -> -dueDevices.get(id)));
+
+                batchCapDeferrals.addAndGet(eligibleDevices.size() - maxBatchSize);
+
+                eligibleDevices = new ArrayList<>(eligibleDevices.subList(0, maxBatchSize));
+            }
+
+            for (var id : eligibleDevices)
+            {
+                pollLag.record(dueDevices.get(id));
+            }
+
+            updateOverloadState(maxLag, overloadConfig);
+
             return eligibleDevices;
         }
         catch (Exception exception)
@@ -491,24 +1235,54 @@ public class SchedulerServiceImpl implements SchedulerService
         }
     }
 
+    /**
+     * Enters overload mode when the worst schedule lag exceeds the lag threshold and leaves it
+     * once the lag falls below the recovery threshold.
+     *
+     * @param maxLag         the worst schedule lag against the base interval among due devices in this tick,
+     *                       including the ones deferred by stretching or the batch cap, in milliseconds
+     * @param overloadConfig the {@code scheduler.overload} configuration
+     */
+    private void updateOverloadState(long maxLag, JsonObject overloadConfig)
+    {
+        var lagThreshold = overloadConfig.getLong(LAG_THRESHOLD, Long.MAX_VALUE);
+
+        if (!overloaded && maxLag > lagThreshold)
+        {
+            overloaded = TRUE;
+
+            overloadEpisodes.incrementAndGet();
+
+            LOGGER.warn("Scheduler overloaded: poll lag " + maxLag + "ms exceeds " + lagThreshold + "ms. Shedding non-critical load.");
+        }
+        else if (overloaded && maxLag < overloadConfig.getLong(RECOVERY_THRESHOLD, lagThreshold))
+        {
+            overloaded = FALSE;
+
+            LOGGER.info("Scheduler recovered: poll lag " + maxLag + "ms. Restoring normal cadence.");
+        }
+    }
+
+    private JsonObject getOverloadConfig()
+    {
+        return ConfigLoader.get().getJsonObject(OVERLOAD, new JsonObject());
+    }
+
     /**
      * Update the last polled time for devices
      */
-    private void updateLastPolledTimes(JsonArray devices)
+    private void updateLastPolledTimes(List<Integer> deviceIds)
     {
         try
         {
-            for (int i = 0; i < devices.size(); i++)
-            {
-                try
-                {
-                    Integer deviceId = devices.getJsonObject(i).getInteger(ID);
+            var now = System.currentTimeMillis();
 
-                    deviceLastPolledTimes.put(deviceId, System.currentTimeMillis());
-                }
-                catch (Exception exception)
+            for (var deviceId : deviceIds)
+            {
+                // Devices removed while the cycle was being selected are not re-added
+                if (deviceLastPolledTimes.computeIfPresent(deviceId, (id, lastPolled) -> now) != null)
                 {
-                    LOGGER.error("Failed to update last polled time: " + exception.getMessage());
+                    dirtyDevices.add(deviceId);
                 }
             }
         }
@@ -517,4 +1291,36 @@ public class SchedulerServiceImpl implements SchedulerService
             LOGGER.error("Failed to update last polled times: " + exception.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds a snapshot of the scheduler's cycle counters for the metrics endpoint.
+     *
+     * @return the current scheduler statistics
+     */
+    private JsonObject getStats()
+    {
+        return new JsonObject()
+                .put(CYCLES_STARTED, cyclesStarted.get())
+                .put(CYCLES_COMPLETED, cyclesCompleted.get())
+                .put(CYCLE_OVERRUNS, cycleOverruns.get())
+                .put(MERGED_TICKS, mergedTicks.get())
+                .put(CYCLE_IN_PROGRESS, cycleInProgress)
+                .put(LAST_CYCLE_DURATION_MS, lastCycleDuration.get())
+                .put(IN_FLIGHT_DEVICES, inFlightDevices.size())
+                .put(SCHEDULED_DEVICES, deviceLastPolledTimes.size())
+                .put(CRITICAL_DEVICES, criticalDevices.size())
+                .put(POLL_LAG_MS, pollLag.toJson())
+                .put(OVERLOADED, overloaded)
+                .put(OVERLOAD_EPISODES, overloadEpisodes.get())
+                .put(STRETCHED_DEFERRALS, stretchedDeferrals.get())
+                .put(BATCH_CAP_DEFERRALS, batchCapDeferrals.get())
+                .put(METRICS_SKIPPED, metricsSkipped.get())
+                .put(RESTORED_DEVICES, restoredDevices.get())
+                .put(CHECKPOINTS, checkpoints.get())
+                .put(CHECKPOINT_FAILURES, checkpointFailures.get())
+                .put(DIRTY_DEVICES, dirtyDevices.size())
+                .put(SAMPLES_STORED, samplesStored.get())
+                .put(LATEST_DEVICES, latestValues.size())
+                .put(LATEST_SEEDED, latestSeeded.get());
+    }
+}
@@ -16,16 +16,22 @@ public class SchedulerVerticle extends AbstractVerticle
 
     public static final String SERVICE_ADDRESS = "scheduler.service";
 
+    private SchedulerService schedulerService;
+
     @Override
     public void start(Promise<Void> startPromise)
     {
         try
         {
+            // A single instance both serves the proxy and runs the timer, so add/remove calls and
+            // polling cycles share the same device map and in-flight state
+            schedulerService = SchedulerService.create(vertx);
+
             new ServiceBinder(vertx)
                     .setAddress(SERVICE_ADDRESS)
-                    .register(SchedulerService.class, SchedulerService.create(vertx));
+                    .register(SchedulerService.class, schedulerService);
 
-            SchedulerService.create(vertx).startPolling(ConfigLoader.get().getInteger("scheduler.interval",10000));
+            schedulerService.startPolling(ConfigLoader.get().getInteger("scheduler.interval",10000));
 
             startPromise.complete();
         }
@@ -38,8 +44,22 @@ public class SchedulerVerticle extends AbstractVerticle
     }
 
     @Override
-    public void stop()
+    public void stop(Promise<Void> stopPromise)
     {
         LOGGER.info("Stopping SchedulerVerticle");
+
+        if (schedulerService == null)
+        {
+            stopPromise.complete();
+
+            return;
+        }
+
+        // Save the latest poll times so that the next start resumes the same cadence
+        schedulerService.checkpoint()
+                .onFailure(error -> LOGGER.error("Final scheduler checkpoint failed: " + error.getMessage()))
+                .eventually(() -> schedulerService.stopPolling())
+                .onFailure(error -> LOGGER.error("Failed to stop polling: " + error.getMessage()))
+                .onComplete(result -> stopPromise.complete());
     }
 }
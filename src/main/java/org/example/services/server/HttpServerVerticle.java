@@ -1,26 +1,41 @@
 package org.example.services.server;
 
 import io.vertx.core.Promise;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
+import org.example.services.server.handlers.AdmissionHandler;
 import org.example.services.server.handlers.AuthHandler;
 import org.example.services.server.routes.CredentialRoutes;
 import org.example.services.server.routes.DiscoveryRoutes;
+import org.example.services.server.routes.LiveStreamRoutes;
+import org.example.services.server.routes.MetricsRoutes;
 import org.example.services.server.routes.ProvisionRoutes;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BodyHandler;
 import org.example.utils.ConfigLoader;
 
+import static org.example.constants.AppConstants.HttpServerConstants.*;
+import static org.example.constants.AppConstants.TRUE;
+
 /**
  * Verticle responsible for initializing and starting the HTTP server.
  * This server supports:
  * <ul>
  *     <li>Login and token-based authentication using JWT (handled by {@link AuthHandler}).</li>
  *     <li>Protected REST endpoints for credentials, discovery, and provision resources.</li>
+ *     <li>A protected read-only endpoint exposing runtime metrics.</li>
+ *     <li>A protected Server-Sent Events stream of device availability and metric updates.</li>
+ *     <li>Per-client rate limiting and a concurrency cap on expensive queries (see {@link AdmissionHandler}).</li>
  *     <li>Support for access and refresh tokens with secure cookie handling.</li>
  * </ul>
  *
+ * Responses are compressed with gzip or deflate when the client accepts it, except bodies smaller than
+ * {@code http.server.compression.min.size} bytes. Cleartext HTTP/2 (h2c), by prior knowledge or upgrade,
+ * is accepted next to HTTP/1.1 unless {@code http.server.h2c} is false.
+ *
  * Route handlers are initialized through corresponding route
  * classes like {@link CredentialRoutes}, {@link DiscoveryRoutes}, and {@link ProvisionRoutes}.
  */
@@ -38,26 +53,47 @@ public class HttpServerVerticle extends AbstractVerticle
 
             router.route().handler(BodyHandler.create());
 
+            // Login and refresh are answered before any JWT is checked, so they are limited per remote address here
+            router.post("/login").handler(AdmissionHandler.getInstance()::limitLogin);
+
+            router.post("/refresh").handler(AdmissionHandler.getInstance()::limitLogin);
+
             // Set up authentication
             new AuthHandler().setupAuth(router);
 
+            // Registered after authentication so that requests are limited per JWT subject
+            router.route().handler(AdmissionHandler.getInstance()::rateLimit);
+
             // Initialize route handlers
             new CredentialRoutes().init(router);
 
             new DiscoveryRoutes().init(router);
 
+            new LiveStreamRoutes().init(router);
+
             new ProvisionRoutes().init(router);
 
+            new MetricsRoutes().init(router);
+
+            var compression = ConfigLoader.get().getJsonObject(COMPRESSION, new JsonObject());
+
+            var port = ConfigLoader.get().getInteger(HTTP_SERVER_PORT, 8888);
+
+            var options = new HttpServerOptions()
+                    .setCompressionSupported(compression.getBoolean(ENABLED, TRUE))
+                    .setCompressionLevel(compression.getInteger(LEVEL, 6))
+                    .setHttp2ClearTextEnabled(ConfigLoader.get().getBoolean(H2C, TRUE));
+
             // Start the HTTP server
-            vertx.createHttpServer()
+            vertx.createHttpServer(options)
                     .requestHandler(router)
-                    .listen(ConfigLoader.get().getInteger("http.server.port",8888), http ->
+                    .listen(port, http ->
                     {
                         try
                         {
                             if (http.succeeded())
                             {
-                                LOGGER.info("HTTP server started on port 8888");
+                                LOGGER.info("HTTP server started on port " + port);
 
                                 startPromise.complete();
                             }
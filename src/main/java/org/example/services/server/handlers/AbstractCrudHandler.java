@@ -1,6 +1,7 @@
 package org.example.services.server.handlers;
 
 import io.vertx.core.Future;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonArray;
@@ -9,22 +10,31 @@ import io.vertx.ext.web.RoutingContext;
 import org.example.MainApp;
 import org.example.services.db.DatabaseService;
 import org.example.services.db.DatabaseVerticle;
+import org.example.utils.ConfigLoader;
+import org.example.utils.ResponseCache;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
+import static org.example.constants.AppConstants.DatabasePoolConstants.INTERACTIVE;
+import static org.example.constants.AppConstants.DatabasePoolConstants.POOL;
 import static org.example.constants.AppConstants.DiscoveryField.ID;
 import static org.example.constants.AppConstants.DiscoveryField.PORT;
 import static org.example.constants.AppConstants.DiscoveryField.IP;
 import static org.example.constants.AppConstants.DiscoveryField.CREDENTIAL_PROFILE_ID;
 import static org.example.constants.AppConstants.DiscoveryField.DISCOVERY;
+import static org.example.constants.AppConstants.DiscoveryField.DISCOVERY_BULK;
+import static org.example.constants.AppConstants.DiscoveryField.TARGETS;
 import static org.example.constants.AppConstants.ProvisionField.DISCOVERY_PROFILE_ID;
+import static org.example.constants.AppConstants.ProvisionField.IS_CRITICAL;
 import static org.example.constants.AppConstants.CredentialField.*;
 import static org.example.constants.AppConstants.FALSE;
 import static org.example.constants.AppConstants.JsonKey.*;
 import static org.example.constants.AppConstants.Message.*;
 import static org.example.constants.AppConstants.Headers.*;
+import static org.example.constants.AppConstants.HttpServerConstants.COMPRESSION;
+import static org.example.constants.AppConstants.HttpServerConstants.MIN_SIZE;
 import static org.example.constants.AppConstants.ProvisionField.PROVISION;
 import static org.example.constants.AppConstants.TRUE;
 
@@ -36,6 +46,8 @@ public abstract class AbstractCrudHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractCrudHandler.class);
 
+    private static final int MIN_COMPRESSION_SIZE = ConfigLoader.get().getJsonObject(COMPRESSION, new JsonObject()).getInteger(MIN_SIZE, 1024);
+
     DatabaseService databaseService = DatabaseService.createProxy(MainApp.getVertx(), DatabaseVerticle.SERVICE_ADDRESS);
 
     /**
@@ -214,8 +226,49 @@ public abstract class AbstractCrudHandler
 
                     break;
 
+                case DISCOVERY_BULK:
+                    // Validate bulk discovery fields: name (string), targets (string or array of strings), credential_profile_id (integer)
+
+                    var bulkName = getStringValue(body, NAME);
+
+                    var targets = body.getValue(TARGETS);
+
+                    var validTargets = targets instanceof String targetString && !targetString.isBlank()
+                            || targets instanceof JsonArray targetArray && !targetArray.isEmpty()
+                            && targetArray.stream().allMatch(target -> target instanceof String);
+
+                    if (bulkName == null || !validTargets)
+                    {
+                        handleMissingData(ctx, MISSING_FIELDS);
+
+                        return FALSE;
+                    }
+
+                    var bulkCredentialProfileId = getIntegerValue(body, CREDENTIAL_PROFILE_ID);
+
+                    if (bulkCredentialProfileId == null || bulkCredentialProfileId <= 0)
+                    {
+                        handleInvalidData(ctx, "Invalid credential profile ID");
+
+                        return FALSE;
+                    }
+
+                    if (body.containsKey(PORT))
+                    {
+                        var bulkPort = getIntegerValue(body, PORT);
+
+                        if (bulkPort == null || bulkPort < 1 || bulkPort > 65535)
+                        {
+                            handleInvalidData(ctx, INVALID_PORT);
+
+                            return FALSE;
+                        }
+                    }
+
+                    break;
+
                 case PROVISION:
-                    // Validate provision fields: discovery_profile_id (integer)
+                    // Validate provision fields: discovery_profile_id (integer), is_critical (optional boolean)
 
                     var discoveryProfileId = getIntegerValue(body, DISCOVERY_PROFILE_ID);
 
@@ -226,6 +279,14 @@ public abstract class AbstractCrudHandler
                         return FALSE;
                     }
 
+                    // Validate criticality flag if present
+                    if (body.containsKey(IS_CRITICAL) && !(body.getValue(IS_CRITICAL) instanceof Boolean))
+                    {
+                        handleInvalidData(ctx, "Invalid critical flag");
+
+                        return FALSE;
+                    }
+
                     break;
 
                 default:
@@ -308,6 +369,86 @@ public abstract class AbstractCrudHandler
         sendJsonResponse(ctx, 200, response);
     }
 
+    /**
+     * Answers a read of a versioned collection without running its query when possible: with 304 if the
+     * client's If-None-Match holds the current ETag, or with the cached body of the current version.
+     *
+     * @param ctx        the RoutingContext containing the request data
+     * @param collection the collection read
+     * @param version    the version of the collection, read before anything else
+     * @return true if the response has been sent
+     */
+    protected boolean handleCached(RoutingContext ctx, String collection, long version)
+    {
+        try
+        {
+            if (!ResponseCache.isEnabled())
+            {
+                return FALSE;
+            }
+
+            var etag = ResponseCache.etag(collection, version);
+
+            if (ResponseCache.matches(ctx.request().getHeader(IF_NONE_MATCH), etag))
+            {
+                ctx.response()
+                        .setStatusCode(304)
+                        .putHeader(ETAG, etag)
+                        .end();
+
+                return TRUE;
+            }
+
+            var body = ResponseCache.get(ctx.request().path(), version);
+
+            if (body == null)
+            {
+                return FALSE;
+            }
+
+            endJson(ctx.response().putHeader(ETAG, etag), 200, body);
+
+            return TRUE;
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to serve cached response: " + exception.getMessage());
+
+            return FALSE;
+        }
+    }
+
+    /**
+     * Sends a 200 response for a read of a versioned collection with its ETag, and caches the encoded body.
+     *
+     * @param ctx        the RoutingContext containing the request data
+     * @param collection the collection read
+     * @param version    the version read before the collection was loaded
+     * @param response   the response body
+     */
+    protected void handleCachedSuccess(RoutingContext ctx, String collection, long version, JsonObject response)
+    {
+        if (!ResponseCache.isEnabled())
+        {
+            handleSuccess(ctx, response);
+
+            return;
+        }
+
+        try
+        {
+            var body = response.encode();
+
+            ResponseCache.put(ctx.request().path(), version, body);
+
+            endJson(ctx.response().putHeader(ETAG, ResponseCache.etag(collection, version)), 200, body);
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to send JSON response: " + exception.getMessage());
+        }
+    }
+
     protected void handleCreated(RoutingContext ctx, JsonObject response)
     {
         sendJsonResponse(ctx, 201, response);
@@ -338,10 +479,7 @@ public abstract class AbstractCrudHandler
     {
         try
         {
-            ctx.response()
-                    .setStatusCode(statusCode)
-                    .putHeader(CONTENT_TYPE, APPLICATION_JSON)
-                    .end(body.encodePrettily());
+            endJson(ctx.response(), statusCode, body.encode());
         }
         catch (Exception exception)
         {
@@ -350,18 +488,53 @@ public abstract class AbstractCrudHandler
     }
 
     /**
-     * Executes a query with the specified SQL query and parameters.
+     * Ends a response with an encoded JSON body. Bodies smaller than {@code http.server.compression.min.size}
+     * bytes are sent uncompressed, as compressing them costs more CPU than it saves on the wire.
+     *
+     * @param response   the response to end
+     * @param statusCode the HTTP status code to send
+     * @param body       the encoded JSON body
+     */
+    static void endJson(HttpServerResponse response, int statusCode, String body)
+    {
+        if (body.length() < MIN_COMPRESSION_SIZE)
+        {
+            // Vert.x skips compression of responses with an explicit identity encoding
+            response.putHeader(CONTENT_ENCODING, IDENTITY);
+        }
+
+        response.setStatusCode(statusCode)
+                .putHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .end(body);
+    }
+
+    /**
+     * Executes a query with the specified SQL query and parameters on the interactive pool.
      *
      * @param query the SQL query to execute
      * @param params the parameters to bind to the query
      * @return a Future representing the result of the query execution
      */
     Future<JsonObject> executeQuery(String query, List<Object> params)
+    {
+        return executeQuery(query, params, INTERACTIVE);
+    }
+
+    /**
+     * Executes a query with the specified SQL query and parameters on the given connection pool.
+     *
+     * @param query the SQL query to execute
+     * @param params the parameters to bind to the query
+     * @param pool the connection pool to run the query on
+     * @return a Future representing the result of the query execution
+     */
+    Future<JsonObject> executeQuery(String query, List<Object> params, String pool)
     {
         try
         {
             var request = new JsonObject()
-                    .put(QUERY, query);
+                    .put(QUERY, query)
+                    .put(POOL, pool);
 
             if (params != null && !params.isEmpty())
             {
@@ -0,0 +1,279 @@
+package org.example.services.server.handlers;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.example.utils.ConfigLoader;
+import org.example.utils.MetricsRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.constants.AppConstants.AdmissionConstants.*;
+import static org.example.constants.AppConstants.Headers.RETRY_AFTER;
+import static org.example.constants.AppConstants.JsonKey.ERROR;
+import static org.example.constants.AppConstants.Message.SERVER_BUSY;
+import static org.example.constants.AppConstants.Message.TOO_MANY_REQUESTS;
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.TRUE;
+
+/**
+ * Admission control for the HTTP API.
+ * <p>
+ * Every request draws a token from the bucket of its client: the {@code username} of its JWT or, on a route
+ * that needs no token, its remote address. Buckets hold up to {@code http.admission.burst} tokens and refill
+ * at {@code rate} tokens per second; a request finding its bucket empty is rejected with 429 and a
+ * {@code Retry-After} of the time until the next token.
+ * <p>
+ * Login and token refresh are answered before any JWT is checked, so they are limited on their own, per
+ * remote address, by a bucket of {@code login.burst} tokens refilled at {@code login.rate} per second. This
+ * throttles credential guessing regardless of the limits of authenticated clients.
+ * <p>
+ * Routes that run heavy aggregate queries are additionally limited to {@code expensive.max.concurrent}
+ * requests in flight, so that API bursts cannot take every connection of the database pool away from
+ * polling inserts. Requests above the limit are rejected with 503 and {@code Retry-After: 1}.
+ */
+public class AdmissionHandler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionHandler.class);
+
+    private static final AdmissionHandler INSTANCE = new AdmissionHandler();
+
+    private final Map<String, Bucket> buckets;
+
+    private final AtomicInteger expensiveInFlight = new AtomicInteger();
+
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    private final AtomicLong loginRateLimited = new AtomicLong();
+
+    private final AtomicLong expensiveRejected = new AtomicLong();
+
+    private static class Bucket
+    {
+        private double tokens;
+
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt)
+        {
+            this.tokens = tokens;
+
+            this.refilledAt = refilledAt;
+        }
+    }
+
+    private AdmissionHandler()
+    {
+        var maxClients = getConfig().getInteger(MAX_CLIENTS, 10000);
+
+        // Evicting the least recently seen client only forgets a bucket that has most likely refilled anyway
+        buckets = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest)
+            {
+                return size() > maxClients;
+            }
+        };
+
+        MetricsRegistry.register(HTTP_ADMISSION, this::getStats);
+    }
+
+    public static AdmissionHandler getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Admits the request if its client's token bucket is not empty, otherwise rejects it with 429.
+     *
+     * @param ctx the routing context
+     */
+    public void rateLimit(RoutingContext ctx)
+    {
+        try
+        {
+            var config = getConfig();
+
+            if (!config.getBoolean(RATE_LIMIT_ENABLED, TRUE))
+            {
+                ctx.next();
+
+                return;
+            }
+
+            var client = ctx.user() != null && ctx.user().principal().getString(USERNAME) != null
+                    ? ctx.user().principal().getString(USERNAME)
+                    : ctx.request().remoteAddress().host();
+
+            var waitSeconds = takeToken(client, config.getDouble(RATE, 20.0), config.getDouble(BURST, 40.0));
+
+            if (waitSeconds == 0)
+            {
+                ctx.next();
+
+                return;
+            }
+
+            rateLimited.incrementAndGet();
+
+            LOGGER.warn("Rate limit exceeded by " + client);
+
+            reject(ctx, 429, TOO_MANY_REQUESTS, (long) Math.ceil(waitSeconds));
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error in rate limit handler: " + exception.getMessage());
+
+            ctx.next();
+        }
+    }
+
+    /**
+     * Admits a login or token refresh if the login bucket of its remote address is not empty, otherwise
+     * rejects it with 429. Must be registered before the authentication routes.
+     *
+     * @param ctx the routing context
+     */
+    public void limitLogin(RoutingContext ctx)
+    {
+        try
+        {
+            var config = getConfig();
+
+            if (!config.getBoolean(RATE_LIMIT_ENABLED, TRUE))
+            {
+                ctx.next();
+
+                return;
+            }
+
+            var address = ctx.request().remoteAddress().host();
+
+            // Kept apart from the bucket the same address uses on routes that need no token
+            var waitSeconds = takeToken(LOGIN_BUCKET_PREFIX + address, config.getDouble(LOGIN_RATE, 0.2), config.getDouble(LOGIN_BURST, 5.0));
+
+            if (waitSeconds == 0)
+            {
+                ctx.next();
+
+                return;
+            }
+
+            loginRateLimited.incrementAndGet();
+
+            LOGGER.warn("Login rate limit exceeded by " + address);
+
+            reject(ctx, 429, TOO_MANY_REQUESTS, (long) Math.ceil(waitSeconds));
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error in login rate limit handler: " + exception.getMessage());
+
+            ctx.next();
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of a client, refilling it first.
+     *
+     * @param client the bucket key
+     * @param rate   the tokens added per second
+     * @param burst  the capacity of the bucket
+     * @return 0 if a token was taken, otherwise the seconds until the next token
+     */
+    private double takeToken(String client, double rate, double burst)
+    {
+        var refillRate = Math.max(0.001, rate);
+
+        var capacity = Math.max(1.0, burst);
+
+        var now = System.nanoTime();
+
+        synchronized (buckets)
+        {
+            var bucket = buckets.computeIfAbsent(client, key -> new Bucket(capacity, now));
+
+            bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) / 1e9 * refillRate);
+
+            bucket.refilledAt = now;
+
+            if (bucket.tokens >= 1.0)
+            {
+                bucket.tokens -= 1.0;
+
+                return 0;
+            }
+
+            return (1.0 - bucket.tokens) / refillRate;
+        }
+    }
+
+    /**
+     * Admits a request to an expensive route if fewer than {@code expensive.max.concurrent} such requests are
+     * in flight, otherwise rejects it with 503. The slot is released when the response ends or the
+     * connection closes.
+     *
+     * @param ctx the routing context
+     */
+    public void limitExpensive(RoutingContext ctx)
+    {
+        try
+        {
+            var maxConcurrent = getConfig().getInteger(EXPENSIVE_MAX_CONCURRENT, 2);
+
+            if (expensiveInFlight.incrementAndGet() > maxConcurrent)
+            {
+                expensiveInFlight.decrementAndGet();
+
+                expensiveRejected.incrementAndGet();
+
+                reject(ctx, 503, SERVER_BUSY, 1);
+
+                return;
+            }
+
+            ctx.addEndHandler(result -> expensiveInFlight.decrementAndGet());
+
+            ctx.next();
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error in expensive query limiter: " + exception.getMessage());
+
+            ctx.next();
+        }
+    }
+
+    private void reject(RoutingContext ctx, int statusCode, String message, long retryAfterSeconds)
+    {
+        AbstractCrudHandler.endJson(ctx.response().putHeader(RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds))),
+                statusCode, new JsonObject().put(ERROR, message).encode());
+    }
+
+    private JsonObject getConfig()
+    {
+        return ConfigLoader.get().getJsonObject(HTTP_ADMISSION, new JsonObject());
+    }
+
+    private JsonObject getStats()
+    {
+        int clients;
+
+        synchronized (buckets)
+        {
+            clients = buckets.size();
+        }
+
+        return new JsonObject()
+                .put(RATE_LIMITED, rateLimited.get())
+                .put(LOGIN_RATE_LIMITED, loginRateLimited.get())
+                .put(EXPENSIVE_REJECTED, expensiveRejected.get())
+                .put(EXPENSIVE_IN_FLIGHT, expensiveInFlight.get())
+                .put(CLIENTS, clients);
+    }
+}
@@ -13,8 +13,8 @@ import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.JWTAuthHandler;
 import org.example.MainApp;
 import org.example.utils.ConfigLoader;
+import org.example.utils.VerifiedTokenCache;
 
-import static org.example.constants.AppConstants.Headers.*;
 import static org.example.constants.AppConstants.JsonKey.ERROR;
 
 /**
@@ -89,17 +89,15 @@ public class AuthHandler
                             .put("username", username)
                             .put("role", "admin");
 
-                    ctx.response()
-                            .putHeader(CONTENT_TYPE, APPLICATION_JSON)
+                    AbstractCrudHandler.endJson(ctx.response()
                             .putHeader("Set-Cookie", "refresh_token=" + jwtAuth.generateToken(
                                     claims,
                                     new JWTOptions().setExpiresInMinutes(ConfigLoader.get().getInteger("jwt.refresh.token.expire",60*24*7))) +
-                                    "; HttpOnly; SameSite=Strict; Path=/refresh")
-                            .end(new JsonObject()
+                                    "; HttpOnly; SameSite=Strict; Path=/refresh"), 200, new JsonObject()
                                     .put("access_token", jwtAuth.generateToken(
                                             claims,
                                             new JWTOptions().setExpiresInMinutes(ConfigLoader.get().getInteger("jwt.access.token.expire", 15))))
-                                    .encodePrettily());
+                                    .encode());
                 }
                 else
                 {
@@ -150,11 +148,9 @@ public class AuthHandler
                                         new JWTOptions().setExpiresInMinutes(ConfigLoader.get().getInteger("jwt.access.token.expire", 15))
                                 );
 
-                                ctx.response()
-                                        .putHeader(CONTENT_TYPE, APPLICATION_JSON)
-                                        .end(new JsonObject()
-                                                .put("access_token", newAccessToken)
-                                                .encodePrettily());
+                                AbstractCrudHandler.endJson(ctx.response(), 200, new JsonObject()
+                                        .put("access_token", newAccessToken)
+                                        .encode());
                             }
                             catch (Exception exception)
                             {
@@ -184,12 +180,16 @@ public class AuthHandler
     {
         try
         {
-            // Protect API routes with JWT authentication
-            router.route("/credentials/*").handler(JWTAuthHandler.create(jwtAuth));
+            // Protect API routes with JWT authentication, skipping signature checks of already verified tokens
+            var authHandler = JWTAuthHandler.create(VerifiedTokenCache.isEnabled() ? new CachingJWTAuth(jwtAuth) : jwtAuth);
 
-            router.route("/discovery/*").handler(JWTAuthHandler.create(jwtAuth));
+            router.route("/credentials/*").handler(authHandler);
 
-            router.route("/provision/*").handler(JWTAuthHandler.create(jwtAuth));
+            router.route("/discovery/*").handler(authHandler);
+
+            router.route("/provision/*").handler(authHandler);
+
+            router.route("/metrics/*").handler(authHandler);
 
             // Add a failure handler for authentication errors
             router.route().failureHandler(ctx ->
@@ -198,12 +198,9 @@ public class AuthHandler
                 {
                     if (ctx.statusCode() == 401)
                     {
-                        ctx.response()
-                                .setStatusCode(401)
-                                .putHeader(CONTENT_TYPE, APPLICATION_JSON)
-                                .end(new JsonObject()
-                                        .put(ERROR, "Unauthorized: Please login first")
-                                        .encodePrettily());
+                        AbstractCrudHandler.endJson(ctx.response(), 401, new JsonObject()
+                                .put(ERROR, "Unauthorized: Please login first")
+                                .encode());
                     }
                     else
                     {
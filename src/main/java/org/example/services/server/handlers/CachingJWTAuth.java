@@ -0,0 +1,75 @@
+package org.example.services.server.handlers;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.JWTOptions;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.authentication.Credentials;
+import io.vertx.ext.auth.authentication.TokenCredentials;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import org.example.utils.VerifiedTokenCache;
+
+/**
+ * {@link JWTAuth} that answers tokens verified before from the {@link VerifiedTokenCache} and verifies the others
+ * with the provider it wraps, caching them until they expire.
+ * <p>
+ * It is installed in a stock {@code JWTAuthHandler}, which still parses the request and attaches the user to it.
+ * A cache hit costs a SHA-256 of the token and a map lookup, several times less than an HS256 verification, see
+ * {@code AuthOverheadBenchmark} under src/test.
+ */
+class CachingJWTAuth implements JWTAuth
+{
+    private final JWTAuth delegate;
+
+    CachingJWTAuth(JWTAuth delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Future<User> authenticate(Credentials credentials)
+    {
+        if (!(credentials instanceof TokenCredentials tokenCredentials))
+        {
+            return delegate.authenticate(credentials);
+        }
+
+        var token = tokenCredentials.getToken();
+
+        var user = VerifiedTokenCache.get(token);
+
+        if (user != null)
+        {
+            return Future.succeededFuture(user);
+        }
+
+        return delegate.authenticate(credentials).onSuccess(verified -> VerifiedTokenCache.put(token, verified));
+    }
+
+    @Override
+    public void authenticate(Credentials credentials, Handler<AsyncResult<User>> resultHandler)
+    {
+        authenticate(credentials).onComplete(resultHandler);
+    }
+
+    @Override
+    @Deprecated
+    public void authenticate(JsonObject credentials, Handler<AsyncResult<User>> resultHandler)
+    {
+        authenticate(new TokenCredentials(credentials), resultHandler);
+    }
+
+    @Override
+    public String generateToken(JsonObject claims, JWTOptions options)
+    {
+        return delegate.generateToken(claims, options);
+    }
+
+    @Override
+    public String generateToken(JsonObject claims)
+    {
+        return delegate.generateToken(claims);
+    }
+}
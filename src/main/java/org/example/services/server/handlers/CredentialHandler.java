@@ -6,6 +6,7 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import org.example.utils.EncryptionUtil;
+import org.example.utils.ResponseCache;
 
 import java.util.List;
 
@@ -38,7 +39,7 @@ public class CredentialHandler extends AbstractCrudHandler
 
             LOGGER.info("Adding new credential: " + body.encode());
 
-            executeQuery(ADD_CREDENTIAL, List.of(body.getString(NAME), body.getString(USERNAME), EncryptionUtil.encrypt(body.getString(PASSWORD)),body.getString(SYSTEM_TYPE)))
+            executeQuery(ADD_CREDENTIAL, List.of(body.getString(NAME), body.getString(USERNAME), EncryptionUtil.encryptSecret(body.getString(PASSWORD)),body.getString(SYSTEM_TYPE)))
                     .onSuccess(result ->
                     {
                         try
@@ -51,6 +52,8 @@ public class CredentialHandler extends AbstractCrudHandler
 
                                 LOGGER.info("Credential added with ID: " + id);
 
+                                ResponseCache.invalidate(CREDENTIALS);
+
                                 handleCreated(ctx, new JsonObject().put(MESSAGE, ADDED_SUCCESS).put(ID, id));
                             }
                             else
@@ -80,6 +83,10 @@ public class CredentialHandler extends AbstractCrudHandler
     {
         try
         {
+            var version = ResponseCache.version(CREDENTIALS);
+
+            if (handleCached(ctx, CREDENTIALS, version)) return;
+
             LOGGER.info("Fetching credential list");
 
             executeQuery(GET_ALL_CREDENTIALS)
@@ -111,7 +118,7 @@ public class CredentialHandler extends AbstractCrudHandler
 
                             LOGGER.info("Fetched " + credentialList.size() + " credentials");
 
-                            handleSuccess(ctx, new JsonObject().put(CREDENTIALS, credentialList));
+                            handleCachedSuccess(ctx, CREDENTIALS, version, new JsonObject().put(CREDENTIALS, credentialList));
                         }
                         catch (Exception exception)
                         {
@@ -188,7 +195,7 @@ public class CredentialHandler extends AbstractCrudHandler
 
             LOGGER.info("Updating credential ID " + id + " with data: " + body.encode());
 
-            executeQuery(UPDATE_CREDENTIAL, List.of(body.getString(NAME), body.getString(USERNAME), EncryptionUtil.encrypt(body.getString(PASSWORD)), id))
+            executeQuery(UPDATE_CREDENTIAL, List.of(body.getString(NAME), body.getString(USERNAME), EncryptionUtil.encryptSecret(body.getString(PASSWORD)), id))
                     .onSuccess(result ->
                     {
                         try
@@ -203,6 +210,8 @@ public class CredentialHandler extends AbstractCrudHandler
                             {
                                 LOGGER.info("Credential updated successfully for ID " + id);
 
+                                ResponseCache.invalidate(CREDENTIALS);
+
                                 handleSuccess(ctx, new JsonObject().put(MESSAGE, UPDATED_SUCCESS));
                             }
                         }
@@ -245,6 +254,8 @@ public class CredentialHandler extends AbstractCrudHandler
                             {
                                 LOGGER.info("Credential deleted for ID: " + id);
 
+                                ResponseCache.invalidate(CREDENTIALS);
+
                                 handleSuccess(ctx, new JsonObject().put(MESSAGE, DELETED_SUCCESS));
                             }
                         }
@@ -1,21 +1,21 @@
 package org.example.services.server.handlers;
 
+import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
-import org.example.MainApp;
 import org.example.services.discovery.DiscoveryVerticle;
 import org.example.utils.*;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
 import static org.example.constants.AppConstants.*;
 import static org.example.constants.AppConstants.CredentialField.NAME;
 import static org.example.constants.AppConstants.DiscoveryQuery.*;
 import static org.example.constants.AppConstants.DiscoveryField.*;
+import static org.example.constants.AppConstants.DiscoveryJobField.*;
 import static org.example.constants.AppConstants.CredentialField.USERNAME;
 import static org.example.constants.AppConstants.CredentialField.PASSWORD;
 import static org.example.constants.AppConstants.CredentialField.SYSTEM_TYPE_RESPONSE;
@@ -51,8 +51,7 @@ public class DiscoveryHandler extends AbstractCrudHandler
 
             LOGGER.info("Adding new discovery profile: " + body.encode());
 
-            MainApp.getVertx().executeBlocking(() -> IpResolutionUtil.resolveAndValidateIp(body.getString(IP)))
-                    .timeout(ConfigLoader.get().getInteger("ip.resolution.timeout"), TimeUnit.MILLISECONDS)
+            IpResolutionUtil.resolve(body.getString(IP))
                     .onSuccess(validIp ->
                     {
                         try
@@ -77,14 +76,30 @@ public class DiscoveryHandler extends AbstractCrudHandler
 
                                                 LOGGER.info("Discovery profile added with ID: " + id);
 
-                                                ctx.vertx().eventBus().send(DiscoveryVerticle.SERVICE_ADDRESS, new JsonObject()
+                                                ResponseCache.invalidate(DISCOVERIES);
+
+                                                ctx.vertx().eventBus().<JsonObject>request(DiscoveryVerticle.SERVICE_ADDRESS, new JsonObject()
                                                         .put(ACTION, SAVE_AND_RUN_DISCOVERY)
                                                         .put(ID, id)
                                                         .put(IP, validIp)
                                                         .put(PORT, port)
-                                                        .put(CREDENTIAL_PROFILE_ID, credentialProfileId));
-
-                                                handleCreated(ctx, new JsonObject().put(MESSAGE, ADDED_SUCCESS).put(ID, id));
+                                                        .put(CREDENTIAL_PROFILE_ID, credentialProfileId))
+                                                        .onComplete(reply ->
+                                                        {
+                                                            var response = new JsonObject().put(MESSAGE, ADDED_SUCCESS).put(ID, id);
+
+                                                            // The profile is stored either way, the job ID is only added when the run was queued
+                                                            if (reply.succeeded())
+                                                            {
+                                                                response.put(JOB_ID_RESPONSE, reply.result().body().getInteger(JOB_ID_RESPONSE));
+                                                            }
+                                                            else
+                                                            {
+                                                                LOGGER.error("Failed to queue discovery for profile " + id + ": " + reply.cause().getMessage());
+                                                            }
+
+                                                            handleCreated(ctx, response);
+                                                        });
                                             }
                                             else
                                             {
@@ -118,11 +133,156 @@ public class DiscoveryHandler extends AbstractCrudHandler
         }
     }
 
+    /**
+     * Adds one discovery profile per address of the given CIDR blocks, IP ranges or hostnames and queues a single
+     * rate-limited discovery sweep over all of them. Hostnames are resolved together in one batch before the
+     * ranges are expanded. Profiles are named {@code <name>-<ip>}; re-importing the same name and address
+     * updates the existing profile instead of failing.
+     *
+     * @param ctx the RoutingContext containing the request data
+     */
+    public void addBulk(RoutingContext ctx)
+    {
+        try
+        {
+            var body = ctx.body().asJsonObject();
+
+            if(!isBodyValid(ctx,body,DISCOVERY_BULK)) return;
+
+            var port = body.getInteger(PORT, 22);
+
+            var credentialProfileId = body.getInteger(CREDENTIAL_PROFILE_ID);
+
+            var name = body.getString(NAME);
+
+            var targets = body.getValue(TARGETS) instanceof JsonArray targetArray
+                    ? targetArray.stream().map(String::valueOf).toList()
+                    : List.of(body.getString(TARGETS));
+
+            var hostnames = targets.stream().filter(target -> !IpRangeUtil.isAddressTarget(target)).toList();
+
+            IpResolutionUtil.resolveAll(hostnames)
+                    .onSuccess(resolved ->
+                    {
+                        try
+                        {
+                            for (var hostname : hostnames)
+                            {
+                                if (resolved.get(hostname) == null)
+                                {
+                                    handleInvalidData(ctx, INVALID_TARGETS + ": cannot resolve " + hostname);
+
+                                    return;
+                                }
+                            }
+
+                            List<String> addresses;
+
+                            try
+                            {
+                                addresses = IpRangeUtil.expand(targets.stream().map(target -> resolved.getOrDefault(target, target)).toList(),
+                                        ConfigLoader.get().getJsonObject(DiscoverySweepConstants.DISCOVERY_SWEEP, new JsonObject())
+                                                .getInteger(DiscoverySweepConstants.MAX_HOSTS, 4096));
+                            }
+                            catch (IllegalArgumentException exception)
+                            {
+                                handleInvalidData(ctx, INVALID_TARGETS + ": " + exception.getMessage());
+
+                                return;
+                            }
+
+                            if (addresses.isEmpty())
+                            {
+                                handleInvalidData(ctx, INVALID_TARGETS);
+
+                                return;
+                            }
+
+                            addBulkProfiles(ctx, name, addresses, port, credentialProfileId);
+                        }
+                        catch (Exception exception)
+                        {
+                            LOGGER.error("Error while expanding targets: " + exception.getMessage());
+                        }
+                    })
+                    .onFailure(cause -> handleInvalidData(ctx, INVALID_TARGETS + ": " + cause.getMessage()));
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Invalid input in addBulk(): " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Stores one discovery profile per address in a single statement and queues the sweep over them.
+     *
+     * @param ctx                 the RoutingContext containing the request data
+     * @param name                the name of the bulk import, used as profile name prefix and sweep name
+     * @param addresses           the expanded addresses
+     * @param port                the port to check
+     * @param credentialProfileId the credential profile used for the SSH check
+     */
+    private void addBulkProfiles(RoutingContext ctx, String name, List<String> addresses, int port, int credentialProfileId)
+    {
+        LOGGER.info("Adding bulk discovery '" + name + "' for " + addresses.size() + " addresses");
+
+        var profiles = new JsonArray();
+
+        for (var address : addresses)
+        {
+            profiles.add(new JsonObject()
+                    .put(NAME, name + "-" + address)
+                    .put(IP, address)
+                    .put(PORT, port)
+                    .put(CREDENTIAL_PROFILE_ID, credentialProfileId));
+        }
+
+        executeQuery(BULK_ADD_DISCOVERY, List.of(profiles, INACTIVE))
+                .onSuccess(result ->
+                {
+                    try
+                    {
+                        var rows = result.getJsonArray(ROWS, new JsonArray());
+
+                        var sweepTargets = new JsonArray();
+
+                        for (var i = 0; i < rows.size(); i++)
+                        {
+                            sweepTargets.add(new JsonObject()
+                                    .put(ID, rows.getJsonObject(i).getInteger(ID))
+                                    .put(IP, rows.getJsonObject(i).getString(IP)));
+                        }
+
+                        LOGGER.info("Bulk discovery '" + name + "' stored " + sweepTargets.size() + " profiles");
+
+                        ResponseCache.invalidate(DISCOVERIES);
+
+                        ctx.vertx().eventBus().<JsonObject>request(DiscoveryVerticle.SERVICE_ADDRESS, new JsonObject()
+                                        .put(ACTION, SWEEP_DISCOVERY)
+                                        .put(NAME, name)
+                                        .put(TARGETS, sweepTargets)
+                                        .put(PORT, port)
+                                        .put(CREDENTIAL_PROFILE_ID, credentialProfileId))
+                                .onSuccess(reply -> handleJobQueued(ctx, reply.body().put(DISCOVERY_COUNT_RESPONSE, sweepTargets.size())))
+                                .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_QUEUE, cause));
+                    }
+                    catch (Exception exception)
+                    {
+                        LOGGER.error("Error while processing result: " + exception.getMessage());
+                    }
+                })
+                .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_ADD, cause));
+    }
+
     @Override
     public void list(RoutingContext ctx)
     {
         try
         {
+            var version = ResponseCache.version(DISCOVERIES);
+
+            if (handleCached(ctx, DISCOVERIES, version)) return;
+
             LOGGER.info("Fetching discovery profile list");
 
             executeQuery(GET_ALL_DISCOVERY)
@@ -156,7 +316,7 @@ public class DiscoveryHandler extends AbstractCrudHandler
 
                             LOGGER.info("Fetched " + discoveryList.size() + " discovery profiles");
 
-                            handleSuccess(ctx, new JsonObject().put(DISCOVERIES, discoveryList));
+                            handleCachedSuccess(ctx, DISCOVERIES, version, new JsonObject().put(DISCOVERIES, discoveryList));
                         }
                         catch (Exception exception)
                         {
@@ -236,8 +396,7 @@ public class DiscoveryHandler extends AbstractCrudHandler
 
             LOGGER.info("Updating discovery profile ID " + id + " with data: " + body.encode());
 
-            MainApp.getVertx().executeBlocking(() -> IpResolutionUtil.resolveAndValidateIp(body.getString(IP)))
-                    .timeout(ConfigLoader.get().getInteger("ip.resolution.timeout"), TimeUnit.MILLISECONDS)
+            IpResolutionUtil.resolve(body.getString(IP))
                     .onSuccess(validIp ->
                     {
                         try
@@ -264,6 +423,8 @@ public class DiscoveryHandler extends AbstractCrudHandler
                                             {
                                                 LOGGER.info("Discovery profile updated successfully for ID " + id);
 
+                                                ResponseCache.invalidate(DISCOVERIES);
+
                                                 handleSuccess(ctx, new JsonObject().put(MESSAGE, UPDATED_SUCCESS));
                                             }
                                         }
@@ -318,6 +479,8 @@ public class DiscoveryHandler extends AbstractCrudHandler
                             {
                                 LOGGER.info("Discovery profile deleted for ID: " + id);
 
+                                ResponseCache.invalidate(DISCOVERIES);
+
                                 handleSuccess(ctx, new JsonObject().put(MESSAGE, DELETED_SUCCESS));
                             }
                         }
@@ -338,7 +501,8 @@ public class DiscoveryHandler extends AbstractCrudHandler
     /**
      * Runs the discovery process for a given discovery profile ID.
      * This method validates the discovery profile ID from the URL path, fetches the relevant data from the database,
-     * and then sends the data to the DiscoveryVerticle for processing. If the profile data is not found or there is an error,
+     * and then queues a discovery job in the DiscoveryVerticle. The response carries the job ID, which is the
+     * already active job if the profile is queued or running. If the profile data is not found or there is an error,
      * it sends an appropriate response to the client.
      *
      * @param ctx the RoutingContext containing the request data
@@ -376,12 +540,12 @@ public class DiscoveryHandler extends AbstractCrudHandler
                                                 .put(PORT, row.getInteger(PORT))
                                                 .put(IP, row.getString(IP))
                                                 .put(USERNAME, row.getString(USERNAME))
-                                                .put(PASSWORD, DecryptionUtil.decrypt(row.getString(PASSWORD)))
+                                                .put(PASSWORD, DecryptionUtil.decryptSecret(row.getString(PASSWORD)))
                                                 .put(SYSTEM_TYPE_RESPONSE, row.getString(SYSTEM_TYPE)));
 
-                                ctx.vertx().eventBus().send(DiscoveryVerticle.SERVICE_ADDRESS, discoveryData);
-
-                                handleSuccess(ctx,new JsonObject().put(MESSAGE,"Discovery run successfully started"));
+                                ctx.vertx().eventBus().<JsonObject>request(DiscoveryVerticle.SERVICE_ADDRESS, discoveryData)
+                                        .onSuccess(reply -> handleJobQueued(ctx, reply.body()))
+                                        .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_QUEUE, cause));
                             }
                         }
                         catch (Exception exception)
@@ -396,4 +560,102 @@ public class DiscoveryHandler extends AbstractCrudHandler
             LOGGER.error("Error while running discovery: " + exception.getMessage());
         }
     }
+
+    /**
+     * Returns the status and progress of a discovery job.
+     *
+     * @param ctx the RoutingContext containing the request data
+     */
+    public void getJob(RoutingContext ctx)
+    {
+        try
+        {
+            var id = validateIdFromPath(ctx);
+
+            if (id == -1) return;
+
+            executeQuery(GET_DISCOVERY_JOB_BY_ID, List.of(id))
+                    .onSuccess(result ->
+                    {
+                        try
+                        {
+                            var rows = result.getJsonArray(ROWS, new JsonArray());
+
+                            if (rows.isEmpty())
+                            {
+                                handleNotFound(ctx, new JsonObject().put(ERROR, NOT_FOUND));
+
+                                return;
+                            }
+
+                            var row = rows.getJsonObject(0);
+
+                            handleSuccess(ctx, new JsonObject()
+                                    .put(JOB_ID_RESPONSE, row.getInteger(ID))
+                                    .put(NAME, row.getString(NAME))
+                                    .put(STATUS, row.getString(STATUS))
+                                    .put(TOTAL, row.getInteger(TOTAL))
+                                    .put(PROBED, row.getInteger(PROBED))
+                                    .put(PENDING, row.getInteger(TOTAL) - row.getInteger(PROBED))
+                                    .put(REACHABLE, row.getInteger(REACHABLE))
+                                    .put(WRITTEN, row.getInteger(WRITTEN))
+                                    .put(CREATED_AT_RESPONSE, row.getString(CREATED_AT))
+                                    .put(STARTED_AT_RESPONSE, row.getString(STARTED_AT))
+                                    .put(FINISHED_AT_RESPONSE, row.getString(FINISHED_AT)));
+                        }
+                        catch (Exception exception)
+                        {
+                            LOGGER.error("Error while processing result: " + exception.getMessage());
+                        }
+                    })
+                    .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_FETCH, cause));
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error while fetching discovery job: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Cancels a queued or running discovery job. A running job stops starting new probes and
+     * finishes as cancelled once the probes in flight have completed.
+     *
+     * @param ctx the RoutingContext containing the request data
+     */
+    public void cancelJob(RoutingContext ctx)
+    {
+        try
+        {
+            var id = validateIdFromPath(ctx);
+
+            if (id == -1) return;
+
+            LOGGER.info("Cancelling discovery job ID: " + id);
+
+            ctx.vertx().eventBus().<JsonObject>request(DiscoveryVerticle.SERVICE_ADDRESS, new JsonObject()
+                            .put(ACTION, CANCEL_DISCOVERY_JOB)
+                            .put(ID, id))
+                    .onSuccess(reply -> handleSuccess(ctx, reply.body()))
+                    .onFailure(cause ->
+                    {
+                        if (cause instanceof ReplyException replyException && replyException.failureCode() == 404)
+                        {
+                            handleNotFound(ctx, new JsonObject().put(ERROR, DISCOVERY_JOB_NOT_ACTIVE));
+                        }
+                        else
+                        {
+                            handleDatabaseError(ctx, FAILED_TO_UPDATE, cause);
+                        }
+                    });
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error while cancelling discovery job: " + exception.getMessage());
+        }
+    }
+
+    private void handleJobQueued(RoutingContext ctx, JsonObject job)
+    {
+        sendJsonResponse(ctx, 202, job.put(MESSAGE, job.getBoolean(COLLAPSED, FALSE) ? DISCOVERY_JOB_ALREADY_ACTIVE : DISCOVERY_JOB_QUEUED));
+    }
 }
@@ -0,0 +1,381 @@
+package org.example.services.server.handlers;
+
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.example.MainApp;
+import org.example.services.scheduler.SchedulerService;
+import org.example.services.scheduler.SchedulerVerticle;
+import org.example.utils.ConfigLoader;
+import org.example.utils.MetricsRegistry;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.constants.AppConstants.FALSE;
+import static org.example.constants.AppConstants.TRUE;
+import static org.example.constants.AppConstants.Headers.*;
+import static org.example.constants.AppConstants.JsonKey.ERROR;
+import static org.example.constants.AppConstants.LiveStreamConstants.*;
+import static org.example.constants.AppConstants.Message.INVALID_QUERY_PARAMS;
+import static org.example.constants.AppConstants.Message.TOO_MANY_SUBSCRIBERS;
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.ProvisionField.ID;
+
+/**
+ * Streams availability and metric updates of provisioned devices to clients as Server-Sent Events.
+ * <p>
+ * A client subscribes with {@code GET /provision/stream}, optionally restricted to some devices with
+ * {@code ?ids=1,2,3}. It first receives a {@code snapshot} event with the last known state of its devices,
+ * then {@code update} events with the deltas published by the scheduler on {@code polling.updates}.
+ * <p>
+ * Deltas are buffered per subscriber and coalesced per device, so the buffer never holds more than one
+ * entry per device, and are flushed as a single event every {@code live.stream.flush.interval} milliseconds.
+ * A subscriber whose connection stays backed up beyond {@code write.queue.max.size} bytes for longer than
+ * {@code slow.consumer.timeout} milliseconds is disconnected. Idle streams get a comment line every
+ * {@code heartbeat.interval} milliseconds so that proxies keep them open and dead connections are noticed.
+ */
+public class LiveStreamHandler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(LiveStreamHandler.class);
+
+    private static final LiveStreamHandler INSTANCE = new LiveStreamHandler();
+
+    private final SchedulerService schedulerService;
+
+    private final Map<HttpServerResponse, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicLong eventsSent = new AtomicLong();
+
+    private final AtomicLong deltasReceived = new AtomicLong();
+
+    private final AtomicLong deltasCoalesced = new AtomicLong();
+
+    private final AtomicLong slowConsumersEvicted = new AtomicLong();
+
+    private final AtomicLong subscribersRejected = new AtomicLong();
+
+    private static class Subscriber
+    {
+        private final RoutingContext ctx;
+
+        // Null subscribes to every device
+        private final Set<Integer> ids;
+
+        private final Map<Integer, JsonObject> pending = new LinkedHashMap<>();
+
+        // Deltas are held back until the snapshot has been written, so an older snapshot never overwrites them
+        private boolean ready = FALSE;
+
+        private long blockedSince;
+
+        private long lastWrite = System.currentTimeMillis();
+
+        private Subscriber(RoutingContext ctx, Set<Integer> ids)
+        {
+            this.ctx = ctx;
+
+            this.ids = ids;
+        }
+
+        private boolean wants(Integer id)
+        {
+            return ids == null || ids.contains(id);
+        }
+    }
+
+    private LiveStreamHandler()
+    {
+        var vertx = MainApp.getVertx();
+
+        schedulerService = SchedulerService.createProxy(vertx, SchedulerVerticle.SERVICE_ADDRESS);
+
+        vertx.eventBus().<JsonObject>consumer(POLLING_UPDATES, message -> onUpdates(message.body()));
+
+        vertx.setPeriodic(Math.max(1, getConfig().getInteger(FLUSH_INTERVAL, 1000)), id -> flush());
+
+        MetricsRegistry.register(LIVE_STREAM, this::getStats);
+    }
+
+    public static LiveStreamHandler getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Opens an event stream for the requesting client.
+     *
+     * @param ctx the routing context
+     */
+    public void subscribe(RoutingContext ctx)
+    {
+        try
+        {
+            Set<Integer> ids = null;
+
+            var idsParam = ctx.request().getParam(IDS);
+
+            if (idsParam != null && !idsParam.isBlank())
+            {
+                ids = new HashSet<>();
+
+                try
+                {
+                    for (var id : idsParam.split(","))
+                    {
+                        ids.add(Integer.parseInt(id.trim()));
+                    }
+                }
+                catch (NumberFormatException exception)
+                {
+                    sendJsonResponse(ctx, 400, new JsonObject().put(ERROR, INVALID_QUERY_PARAMS));
+
+                    return;
+                }
+            }
+
+            if (subscribers.size() >= getConfig().getInteger(MAX_SUBSCRIBERS, 500))
+            {
+                subscribersRejected.incrementAndGet();
+
+                sendJsonResponse(ctx, 503, new JsonObject().put(ERROR, TOO_MANY_SUBSCRIBERS));
+
+                return;
+            }
+
+            var response = ctx.response()
+                    .setChunked(TRUE)
+                    .setStatusCode(200)
+                    .putHeader(CONTENT_TYPE, TEXT_EVENT_STREAM)
+                    .putHeader(CACHE_CONTROL, NO_CACHE)
+                    // Events must reach the client as they are written, not wait in a compressor's buffer
+                    .putHeader(CONTENT_ENCODING, IDENTITY)
+                    .setWriteQueueMaxSize(getConfig().getInteger(WRITE_QUEUE_MAX_SIZE, 1048576));
+
+            var subscriber = new Subscriber(ctx, ids);
+
+            subscribers.put(response, subscriber);
+
+            response.closeHandler(v -> subscribers.remove(response));
+
+            // Flushes the headers so that the client sees the stream open before the snapshot arrives
+            response.write(": connected\n\n");
+
+            LOGGER.info("Live stream subscriber connected (" + subscribers.size() + " active)");
+
+            schedulerService.getAllLatest()
+                    .onComplete(result ->
+                    {
+                        try
+                        {
+                            if (!subscribers.containsKey(response))
+                            {
+                                return;
+                            }
+
+                            var snapshot = new JsonArray();
+
+                            if (result.succeeded())
+                            {
+                                for (var i = 0; i < result.result().size(); i++)
+                                {
+                                    var latest = result.result().getJsonObject(i);
+
+                                    if (subscriber.wants(latest.getInteger(ID)))
+                                    {
+                                        snapshot.add(latest);
+                                    }
+                                }
+                            }
+                            else
+                            {
+                                LOGGER.warn("Live stream snapshot unavailable: " + result.cause().getMessage());
+                            }
+
+                            send(subscriber, EVENT_SNAPSHOT, snapshot);
+
+                            subscriber.ready = TRUE;
+                        }
+                        catch (Exception exception)
+                        {
+                            LOGGER.error("Failed to send live stream snapshot: " + exception.getMessage());
+                        }
+                    });
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error while opening live stream: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Merges a batch of deltas into the buffer of every subscriber interested in them.
+     *
+     * @param message the published batch of deltas
+     */
+    private void onUpdates(JsonObject message)
+    {
+        try
+        {
+            var updates = message.getJsonArray(UPDATES, new JsonArray());
+
+            deltasReceived.addAndGet(updates.size());
+
+            if (subscribers.isEmpty())
+            {
+                return;
+            }
+
+            for (var i = 0; i < updates.size(); i++)
+            {
+                var delta = updates.getJsonObject(i);
+
+                var id = delta.getInteger(ID);
+
+                for (var subscriber : subscribers.values())
+                {
+                    if (!subscriber.wants(id))
+                    {
+                        continue;
+                    }
+
+                    var buffered = subscriber.pending.get(id);
+
+                    if (buffered == null)
+                    {
+                        subscriber.pending.put(id, delta.copy());
+                    }
+                    else
+                    {
+                        buffered.mergeIn(delta);
+
+                        deltasCoalesced.incrementAndGet();
+                    }
+                }
+            }
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to buffer live stream updates: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Writes the buffered deltas of every subscriber that can take them, evicts subscribers that have been
+     * backed up for too long and sends heartbeats on idle streams.
+     */
+    private void flush()
+    {
+        var now = System.currentTimeMillis();
+
+        var slowConsumerTimeout = getConfig().getLong(SLOW_CONSUMER_TIMEOUT, 10000L);
+
+        var heartbeatInterval = getConfig().getLong(HEARTBEAT_INTERVAL, 15000L);
+
+        for (var subscriber : subscribers.values())
+        {
+            try
+            {
+                var response = subscriber.ctx.response();
+
+                if (response.closed() || response.ended())
+                {
+                    subscribers.remove(response);
+
+                    continue;
+                }
+
+                if (response.writeQueueFull())
+                {
+                    if (subscriber.blockedSince == 0)
+                    {
+                        subscriber.blockedSince = now;
+                    }
+                    else if (now - subscriber.blockedSince > slowConsumerTimeout)
+                    {
+                        evict(subscriber);
+                    }
+
+                    // Deltas keep coalescing in the buffer meanwhile
+                    continue;
+                }
+
+                subscriber.blockedSince = 0;
+
+                if (!subscriber.ready)
+                {
+                    continue;
+                }
+
+                if (!subscriber.pending.isEmpty())
+                {
+                    var updates = new JsonArray();
+
+                    subscriber.pending.values().forEach(updates::add);
+
+                    subscriber.pending.clear();
+
+                    send(subscriber, EVENT_UPDATE, updates);
+                }
+                else if (now - subscriber.lastWrite >= heartbeatInterval)
+                {
+                    response.write(": heartbeat\n\n");
+
+                    subscriber.lastWrite = now;
+                }
+            }
+            catch (Exception exception)
+            {
+                LOGGER.error("Failed to flush live stream subscriber: " + exception.getMessage());
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, String event, JsonArray data)
+    {
+        subscriber.ctx.response().write("event: " + event + "\ndata: " + data.encode() + "\n\n");
+
+        subscriber.lastWrite = System.currentTimeMillis();
+
+        eventsSent.incrementAndGet();
+    }
+
+    private void evict(Subscriber subscriber)
+    {
+        subscribers.remove(subscriber.ctx.response());
+
+        slowConsumersEvicted.incrementAndGet();
+
+        LOGGER.warn("Evicting slow live stream subscriber from " + subscriber.ctx.request().remoteAddress());
+
+        subscriber.ctx.request().connection().close();
+    }
+
+    private JsonObject getConfig()
+    {
+        return ConfigLoader.get().getJsonObject(LIVE_STREAM, new JsonObject());
+    }
+
+    private JsonObject getStats()
+    {
+        return new JsonObject()
+                .put(SUBSCRIBERS, subscribers.size())
+                .put(EVENTS_SENT, eventsSent.get())
+                .put(DELTAS_RECEIVED, deltasReceived.get())
+                .put(DELTAS_COALESCED, deltasCoalesced.get())
+                .put(SLOW_CONSUMERS_EVICTED, slowConsumersEvicted.get())
+                .put(SUBSCRIBERS_REJECTED, subscribersRejected.get());
+    }
+
+    private void sendJsonResponse(RoutingContext ctx, int statusCode, JsonObject body)
+    {
+        AbstractCrudHandler.endJson(ctx.response(), statusCode, body.encode());
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.services.server.handlers;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.example.utils.MetricsRegistry;
+
+import static org.example.constants.AppConstants.JsonKey.ERROR;
+import static org.example.constants.AppConstants.Message.NOT_FOUND;
+import static org.example.constants.AppConstants.MetricsField.NAME;
+
+/**
+ * Serves runtime metrics collected in {@link MetricsRegistry}, such as scheduler cycle counters.
+ */
+public class MetricsHandler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsHandler.class);
+
+    private static final MetricsHandler INSTANCE = new MetricsHandler();
+
+    private MetricsHandler() {}
+
+    public static MetricsHandler getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the snapshot of every registered metric source.
+     *
+     * @param ctx the routing context
+     */
+    public void getAll(RoutingContext ctx)
+    {
+        try
+        {
+            sendJsonResponse(ctx, 200, MetricsRegistry.snapshotAll());
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error while collecting metrics: " + exception.getMessage());
+
+            sendJsonResponse(ctx, 500, new JsonObject().put(ERROR, exception.getMessage()));
+        }
+    }
+
+    /**
+     * Returns the snapshot of a single metric source named in the path.
+     *
+     * @param ctx the routing context
+     */
+    public void getByName(RoutingContext ctx)
+    {
+        try
+        {
+            var snapshot = MetricsRegistry.snapshot(ctx.pathParam(NAME));
+
+            if (snapshot == null)
+            {
+                sendJsonResponse(ctx, 404, new JsonObject().put(ERROR, NOT_FOUND));
+
+                return;
+            }
+
+            sendJsonResponse(ctx, 200, snapshot);
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error while collecting metrics: " + exception.getMessage());
+
+            sendJsonResponse(ctx, 500, new JsonObject().put(ERROR, exception.getMessage()));
+        }
+    }
+
+    private void sendJsonResponse(RoutingContext ctx, int statusCode, JsonObject body)
+    {
+        AbstractCrudHandler.endJson(ctx.response(), statusCode, body.encode());
+    }
+}
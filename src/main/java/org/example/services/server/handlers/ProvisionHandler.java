@@ -6,6 +6,8 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import org.example.MainApp;
+import org.example.services.db.ReplicaRouter;
+import org.example.services.rollup.Resolution;
 import org.example.services.scheduler.SchedulerService;
 import org.example.services.scheduler.SchedulerVerticle;
 
@@ -14,14 +16,28 @@ import static org.example.constants.AppConstants.ProvisionField.AVAILABILITY_PER
 import static org.example.constants.AppConstants.ProvisionField.AVAILABILITY_PERCENT;
 import static org.example.constants.AppConstants.ProvisionField.POLLING_RESULTS_RESPONSE;
 import static org.example.constants.AppConstants.ProvisionField.POLLING_RESULTS;
+import static org.example.constants.AppConstants.ProvisionField.AVAILABILITY_WINDOW_HOURS;
+import static org.example.constants.AppConstants.ProvisionField.POLLING_RESULTS_LIMIT;
 import static org.example.constants.AppConstants.ProvisionField.DISCOVERY_PROFILE_ID;
 import static org.example.constants.AppConstants.ProvisionField.IS_DELETED;
+import static org.example.constants.AppConstants.ProvisionField.IS_CRITICAL;
+import static org.example.constants.AppConstants.ProvisionField.IS_CRITICAL_RESPONSE;
 import static org.example.constants.AppConstants.ProvisionField.IS_POLLING;
 import static org.example.constants.AppConstants.ProvisionField.PROVISION;
+import static org.example.constants.AppConstants.ProvisionField.PROVISIONS;
 import static org.example.constants.AppConstants.ProvisionQuery.*;
 import static org.example.constants.AppConstants.DiscoveryField.*;
 import static org.example.constants.AppConstants.JsonKey.*;
 import static org.example.constants.AppConstants.Message.*;
+import static org.example.constants.AppConstants.MetricSeriesField.*;
+import static org.example.constants.AppConstants.RollupConstants.ROLLUP;
+import static org.example.constants.AppConstants.RollupConstants.MAX_POINTS;
+import static org.example.constants.AppConstants.RollupQuery.*;
+import static org.example.constants.AppConstants.LiveStreamConstants.POLLING_UPDATES;
+import static org.example.constants.AppConstants.DatabasePoolConstants.ANALYTICS;
+
+import org.example.utils.ConfigLoader;
+import org.example.utils.ResponseCache;
 
 import java.util.List;
 
@@ -36,6 +52,20 @@ public class ProvisionHandler extends AbstractCrudHandler
     private ProvisionHandler()
     {
         schedulerService = SchedulerService.createProxy(MainApp.getVertx(), SchedulerVerticle.SERVICE_ADDRESS);
+
+        // New poll data changes the provision list. The list may be read from a replica, which can still serve
+        // the previous rows for up to its lag bound, so whatever was cached meanwhile is invalidated again after it
+        MainApp.getVertx().eventBus().consumer(POLLING_UPDATES, message ->
+        {
+            ResponseCache.invalidate(PROVISIONS);
+
+            var stalenessBound = ReplicaRouter.getStalenessBound();
+
+            if (stalenessBound > 0)
+            {
+                MainApp.getVertx().setTimer(stalenessBound, id -> ResponseCache.invalidate(PROVISIONS));
+            }
+        });
     }
 
     public static ProvisionHandler getInstance()
@@ -54,6 +84,8 @@ public class ProvisionHandler extends AbstractCrudHandler
 
             var discoveryProfileId = body.getInteger(DISCOVERY_PROFILE_ID);
 
+            var critical = body.getBoolean(IS_CRITICAL, false);
+
             LOGGER.info("Fetching discovery profile with ID: " + discoveryProfileId);
 
             executeQuery(GET_DISCOVERY_BY_ID, List.of(discoveryProfileId))
@@ -91,9 +123,10 @@ public class ProvisionHandler extends AbstractCrudHandler
                                                 executeQuery(ADD_PROVISION, List.of(discoveryProfile.getString(NAME),
                                                         discoveryProfile.getString(IP),
                                                         discoveryProfile.getInteger(PORT),
-                                                        discoveryProfile.getInteger(CREDENTIAL_PROFILE_ID)))
+                                                        discoveryProfile.getInteger(CREDENTIAL_PROFILE_ID),
+                                                        critical))
                                                         .onSuccess(insertResult ->
-                                                                databaseAddSuccess(ctx, insertResult))
+                                                                databaseAddSuccess(ctx, insertResult, critical))
                                                         .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_ADD, cause));
                                             }
                                             else if(!checkDevice.getJsonArray(ROWS).getJsonObject(0).getBoolean(IS_DELETED))
@@ -105,9 +138,10 @@ public class ProvisionHandler extends AbstractCrudHandler
                                                 executeQuery(RE_PROVISION, List.of(discoveryProfile.getString(NAME),
                                                         discoveryProfile.getInteger(PORT),
                                                         discoveryProfile.getInteger(CREDENTIAL_PROFILE_ID),
+                                                        critical,
                                                         discoveryProfile.getString(IP)))
                                                         .onSuccess(insertResult ->
-                                                                databaseAddSuccess(ctx, insertResult))
+                                                                databaseAddSuccess(ctx, insertResult, critical))
                                                         .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_ADD, cause));
                                             }
                                         }
@@ -139,9 +173,14 @@ public class ProvisionHandler extends AbstractCrudHandler
     {
         try
         {
+            var version = ResponseCache.version(PROVISIONS);
+
+            if (handleCached(ctx, PROVISIONS, version)) return;
+
             LOGGER.info("Fetching provisioned device list");
 
-            executeQuery(GET_ALL_PROVISIONS)
+            executeQuery(GET_ALL_PROVISIONS, List.of(ConfigLoader.get().getInteger(POLLING_RESULTS_LIMIT, 20),
+                    ConfigLoader.get().getInteger(AVAILABILITY_WINDOW_HOURS, 24)), ANALYTICS)
                     .onSuccess(result ->
                     {
                         try
@@ -162,6 +201,7 @@ public class ProvisionHandler extends AbstractCrudHandler
                                             .put(IP, row.getString(IP))
                                             .put(PORT, row.getInteger(PORT))
                                             .put(IS_POLLING, !row.getBoolean(IS_DELETED))
+                                            .put(IS_CRITICAL_RESPONSE, row.getBoolean(IS_CRITICAL, false))
                                             .put(CREDENTIAL_PROFILE_ID_RESPONSE, row.getInteger(CREDENTIAL_PROFILE_ID))
                                             .put(AVAILABILITY_PERCENT_RESPONSE, row.getDouble(AVAILABILITY_PERCENT, 0.0))
                                             .put(POLLING_RESULTS_RESPONSE, row.getJsonArray(POLLING_RESULTS, new JsonArray()));
@@ -176,7 +216,7 @@ public class ProvisionHandler extends AbstractCrudHandler
 
                             LOGGER.info("Fetched " + provisionList.size() + " provisioned devices");
 
-                            handleSuccess(ctx, new JsonObject().put("provisions", provisionList));
+                            handleCachedSuccess(ctx, PROVISIONS, version, new JsonObject().put(PROVISIONS, provisionList));
                         }
                         catch (Exception exception)
                         {
@@ -203,7 +243,8 @@ public class ProvisionHandler extends AbstractCrudHandler
 
             LOGGER.info("Fetching provisioned device with ID: " + id);
 
-            executeQuery(GET_PROVISION_BY_ID, List.of(id))
+            executeQuery(GET_PROVISION_BY_ID, List.of(ConfigLoader.get().getInteger(POLLING_RESULTS_LIMIT, 20),
+                    ConfigLoader.get().getInteger(AVAILABILITY_WINDOW_HOURS, 24), id), ANALYTICS)
                     .onSuccess(result ->
                     {
                         try
@@ -224,6 +265,7 @@ public class ProvisionHandler extends AbstractCrudHandler
                                         .put(IP, row.getString(IP))
                                         .put(PORT, row.getInteger(PORT))
                                         .put(IS_POLLING, !row.getBoolean(IS_DELETED))
+                                        .put(IS_CRITICAL_RESPONSE, row.getBoolean(IS_CRITICAL, false))
                                         .put(CREDENTIAL_PROFILE_ID_RESPONSE, row.getInteger(CREDENTIAL_PROFILE_ID))
                                         .put(AVAILABILITY_PERCENT_RESPONSE, row.getDouble(AVAILABILITY_PERCENT, 0.0))
                                         .put(POLLING_RESULTS_RESPONSE, row.getJsonArray(POLLING_RESULTS, new JsonArray()));
@@ -245,6 +287,156 @@ public class ProvisionHandler extends AbstractCrudHandler
 
     }
 
+    /**
+     * Returns the time series of one metric of a provisioned device.
+     * Query parameters: {@code metric} (required), {@code from} and {@code to} in epoch milliseconds
+     * (default: the last 24 hours) and {@code points} (default 200). The series is read from the coarsest
+     * rollup whose bucket still yields {@code points} points over the range, or from raw samples for
+     * short ranges. Rollups trail raw samples by up to one rollup interval plus the lateness window.
+     *
+     * @param ctx the RoutingContext containing the request data
+     */
+    public void getMetrics(RoutingContext ctx)
+    {
+        try
+        {
+            var id = validateIdFromPath(ctx);
+
+            if (id == -1) return;
+
+            var metric = ctx.request().getParam(METRIC);
+
+            long to;
+
+            long from;
+
+            int points;
+
+            try
+            {
+                to = Long.parseLong(ctx.request().getParam(TO, String.valueOf(System.currentTimeMillis())));
+
+                from = Long.parseLong(ctx.request().getParam(FROM, String.valueOf(to - 86400000L)));
+
+                points = Integer.parseInt(ctx.request().getParam(POINTS, "200"));
+            }
+            catch (NumberFormatException exception)
+            {
+                handleInvalidData(ctx, INVALID_QUERY_PARAMS);
+
+                return;
+            }
+
+            var maxPoints = ConfigLoader.get().getJsonObject(ROLLUP, new JsonObject()).getInteger(MAX_POINTS, 10000);
+
+            if (metric == null || metric.isBlank() || from >= to || points < 1 || points > maxPoints)
+            {
+                handleInvalidData(ctx, INVALID_QUERY_PARAMS);
+
+                return;
+            }
+
+            var resolution = Resolution.coarsestFor(to - from, points);
+
+            var query = resolution == null ? GET_RAW_METRIC_SERIES : String.format(GET_ROLLUP_METRIC_SERIES, resolution.getTable());
+
+            executeQuery(query, List.of(id, metric, from, to), ANALYTICS)
+                    .onSuccess(result ->
+                    {
+                        try
+                        {
+                            var rows = result.getJsonArray(ROWS, new JsonArray());
+
+                            var series = new JsonArray();
+
+                            for (var i = 0; i < rows.size(); i++)
+                            {
+                                var row = rows.getJsonObject(i);
+
+                                series.add(new JsonObject()
+                                        .put(TS, row.getLong(TS))
+                                        .put(MIN, row.getDouble(MIN_VALUE))
+                                        .put(MAX, row.getDouble(MAX_VALUE))
+                                        .put(AVG, row.getDouble(AVG_VALUE))
+                                        .put(LAST, row.getDouble(LAST_VALUE))
+                                        .put(COUNT, row.getLong(SAMPLE_COUNT)));
+                            }
+
+                            handleSuccess(ctx, new JsonObject()
+                                    .put(ID, id)
+                                    .put(METRIC, metric)
+                                    .put(FROM, from)
+                                    .put(TO, to)
+                                    .put(RESOLUTION, resolution == null ? RAW : resolution.getLabel())
+                                    .put(POINTS, series));
+                        }
+                        catch (Exception exception)
+                        {
+                            LOGGER.error("Error while processing result: " + exception.getMessage());
+                        }
+                    })
+                    .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_FETCH, cause));
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error while fetching metric series: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Returns the last known availability and metrics of every provisioned device. Served from the
+     * scheduler's in-memory store, so it does not query the database.
+     *
+     * @param ctx the RoutingContext containing the request data
+     */
+    public void listLatest(RoutingContext ctx)
+    {
+        try
+        {
+            schedulerService.getAllLatest()
+                    .onSuccess(latest -> handleSuccess(ctx, new JsonObject().put(PROVISIONS, latest)))
+                    .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_FETCH, cause));
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error while fetching latest values: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Returns the last known availability and metrics of one provisioned device, from the scheduler's
+     * in-memory store. Devices that are not provisioned or have not been polled yet are not found.
+     *
+     * @param ctx the RoutingContext containing the request data
+     */
+    public void getLatest(RoutingContext ctx)
+    {
+        try
+        {
+            var id = validateIdFromPath(ctx);
+
+            if (id == -1) return;
+
+            schedulerService.getLatest(id)
+                    .onSuccess(latest ->
+                    {
+                        if (latest == null)
+                        {
+                            handleNotFound(ctx, new JsonObject().put(ERROR, NOT_FOUND));
+                        }
+                        else
+                        {
+                            handleSuccess(ctx, latest);
+                        }
+                    })
+                    .onFailure(cause -> handleDatabaseError(ctx, FAILED_TO_FETCH, cause));
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error while fetching latest values by ID: " + exception.getMessage());
+        }
+    }
+
     @Override
     public void update(RoutingContext ctx)
     {
@@ -277,6 +469,8 @@ public class ProvisionHandler extends AbstractCrudHandler
                             {
                                 LOGGER.info("Provisioned device deleted with ID: " + id);
 
+                                ResponseCache.invalidate(PROVISIONS);
+
                                 schedulerService.removeEntry(id);
 
                                 handleSuccess(ctx, new JsonObject().put(MESSAGE, DELETED_SUCCESS));
@@ -295,7 +489,7 @@ public class ProvisionHandler extends AbstractCrudHandler
         }
     }
 
-    private void databaseAddSuccess(RoutingContext ctx, JsonObject insertResult)
+    private void databaseAddSuccess(RoutingContext ctx, JsonObject insertResult, boolean critical)
     {
         try
         {
@@ -307,7 +501,9 @@ public class ProvisionHandler extends AbstractCrudHandler
 
                 LOGGER.info("Provisioned device added with ID: " + id);
 
-                schedulerService.addEntry(id);
+                ResponseCache.invalidate(PROVISIONS);
+
+                schedulerService.addEntry(id, critical);
 
                 handleCreated(ctx, new JsonObject().put(MESSAGE, ADDED_SUCCESS).put(ID, id));
             }
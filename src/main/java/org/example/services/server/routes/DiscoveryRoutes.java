@@ -11,7 +11,8 @@ import static org.example.constants.AppConstants.Routes.*;
  *
  * This class configures the HTTP routes related to the `discovery_profile` resource.
  * The routes are mapped to the corresponding handler methods in the `DiscoveryHandler` class
- * for performing CRUD operations on discovery profiles, as well as starting a discovery process.
+ * for performing CRUD operations on discovery profiles, bulk CIDR/range imports, as well as starting,
+ * tracking and cancelling discovery jobs.
  */
 public class DiscoveryRoutes
 {
@@ -35,10 +36,16 @@ public class DiscoveryRoutes
         {
             router.post(DISCOVERIES).handler(handler::add);
 
+            router.post(DISCOVERY_BULK).handler(handler::addBulk);
+
             router.get(DISCOVERIES).handler(handler::list);
 
             router.get(DISCOVERY_RUN).handler(handler::runDiscovery);
 
+            router.get(DISCOVERY_JOB_BY_ID).handler(handler::getJob);
+
+            router.delete(DISCOVERY_JOB_BY_ID).handler(handler::cancelJob);
+
             router.get(DISCOVERY_BY_ID).handler(handler::getById);
 
             router.put(DISCOVERY_BY_ID).handler(handler::update);
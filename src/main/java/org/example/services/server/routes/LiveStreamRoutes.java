@@ -0,0 +1,36 @@
+package org.example.services.server.routes;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.ext.web.Router;
+import org.example.services.server.handlers.LiveStreamHandler;
+
+import static org.example.constants.AppConstants.Routes.*;
+
+/**
+ * Defines the route of the live stream of device updates, served by the {@link LiveStreamHandler}.
+ */
+public class LiveStreamRoutes
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(LiveStreamRoutes.class);
+
+    private final LiveStreamHandler handler = LiveStreamHandler.getInstance();
+
+    /**
+     * Initializes the live stream route. Must be called before the provision routes are initialized,
+     * whose {@code /provision/:id} route would otherwise match {@code /provision/stream}.
+     *
+     * @param router the Vert.x {@link Router} used to define the HTTP routes
+     */
+    public void init(Router router)
+    {
+        try
+        {
+            router.get(PROVISIONS_STREAM).handler(handler::subscribe);
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error(exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.services.server.routes;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.ext.web.Router;
+import org.example.services.server.handlers.MetricsHandler;
+
+import static org.example.constants.AppConstants.Routes.*;
+
+/**
+ * Defines the read-only routes exposing runtime metrics of the system.
+ * The routes are mapped to the corresponding methods in the {@link MetricsHandler}.
+ */
+public class MetricsRoutes
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRoutes.class);
+
+    private final MetricsHandler handler = MetricsHandler.getInstance();
+
+    /**
+     * Initializes the metrics routes.
+     *
+     * @param router the Vert.x {@link Router} used to define the HTTP routes
+     */
+    public void init(Router router)
+    {
+        try
+        {
+            router.get(METRICS).handler(handler::getAll);
+
+            router.get(METRICS_BY_NAME).handler(handler::getByName);
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error(exception.getMessage());
+        }
+    }
+}
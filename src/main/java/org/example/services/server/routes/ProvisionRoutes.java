@@ -3,6 +3,7 @@ package org.example.services.server.routes;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.ext.web.Router;
+import org.example.services.server.handlers.AdmissionHandler;
 import org.example.services.server.handlers.ProvisionHandler;
 
 import static org.example.constants.AppConstants.Routes.*;
@@ -20,6 +21,8 @@ public class ProvisionRoutes
 
     private final ProvisionHandler handler = ProvisionHandler.getInstance();
 
+    private final AdmissionHandler admission = AdmissionHandler.getInstance();
+
     /**
      * Initializes the routes for provisioned device management.
      *
@@ -36,9 +39,17 @@ public class ProvisionRoutes
         {
             router.post(PROVISIONS).handler(handler::add);
 
-            router.get(PROVISIONS).handler(handler::list);
+            // Routes running aggregate queries share the expensive query cap
+            router.get(PROVISIONS).handler(admission::limitExpensive).handler(handler::list);
+
+            // Registered before PROVISION_BY_ID, which would otherwise match "latest" as an ID
+            router.get(PROVISIONS_LATEST).handler(handler::listLatest);
+
+            router.get(PROVISION_LATEST_BY_ID).handler(handler::getLatest);
+
+            router.get(PROVISION_METRICS).handler(admission::limitExpensive).handler(handler::getMetrics);
 
-            router.get(PROVISION_BY_ID).handler(handler::getById);
+            router.get(PROVISION_BY_ID).handler(admission::limitExpensive).handler(handler::getById);
 
             router.put(PROVISION_BY_ID).handler(handler::update);
 
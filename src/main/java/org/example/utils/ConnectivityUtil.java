@@ -3,6 +3,7 @@ package org.example.utils;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import org.example.services.scheduler.SchedulerVerticle;
 
 import java.util.Arrays;
@@ -27,7 +28,8 @@ public class ConnectivityUtil
     }
 
     /**
-     * Filters devices that are reachable based on the specified check type
+     * Filters devices that are reachable based on the specified check type.
+     * Results are served from the {@link ReachabilityCache} when a fresh one exists.
      *
      * @param devices The devices to check
      * @param checkType The type of check to perform (PING or PORT)
@@ -43,54 +45,10 @@ public class ConnectivityUtil
             {
                 var device = devices.getJsonObject(i);
 
-                List<String> command;
-
-                if (checkType == CheckType.PING)
-                {
-                    var pingConfig = ConfigLoader.get().getJsonObject(PING_COMMAND);
-
-                    command = Arrays.asList(
-                            PING_COMMAND,
-                            PACKETS_OPTION, String.valueOf(pingConfig.getInteger(COUNT)),
-                            PING_TIMEOUT_OPTION, String.valueOf(pingConfig.getInteger(TIMEOUT)),
-                            INTERVAL_OPTION, String.valueOf(pingConfig.getDouble(INTERVAL)),
-                            device.getString(IP)
-                    );
-                }
-                else
-                {
-                    var portConfig = ConfigLoader.get().getJsonObject(PORT);
-
-                    command = Arrays.asList(
-                            NC_COMMAND, ZERO_IO, PORT_TIMEOUT_OPTION, String.valueOf(portConfig.getInteger(TIMEOUT)),
-                            device.getString(IP),
-                            String.valueOf(device.getInteger(PORT, 22))
-                    );
-                }
-
-                Process process = null;
-
-                try
-                {
-                    process = new ProcessBuilder(command).start();
-
-                    var exitCode = process.waitFor(ConfigLoader.get().getJsonObject(PROCESS).getInteger(TIMEOUT), TimeUnit.SECONDS) ? process.exitValue() : -1;
-
-                    if (exitCode == 0)
-                    {
-                        reachableDevices.add(device);
-                    }
-                }
-                catch (Exception exception)
+                if (ReachabilityCache.isReachable(checkType, device.getString(IP), device.getInteger(PORT, 22),
+                        () -> probe(device, checkType)))
                 {
-                    LOGGER.error(exception.getMessage());
-                }
-                finally
-                {
-                    if (process != null)
-                    {
-                        process.destroy();
-                    }
+                    reachableDevices.add(device);
                 }
             }
             catch (Exception exception)
@@ -101,4 +59,67 @@ public class ConnectivityUtil
 
         return reachableDevices;
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs a single PING or PORT check against a device. Blocking.
+     *
+     * @param device The device to check
+     * @param checkType The type of check to perform (PING or PORT)
+     * @return true if the check command exited successfully within the process timeout
+     */
+    private static boolean probe(JsonObject device, CheckType checkType)
+    {
+        List<String> command;
+
+        if (checkType == CheckType.PING)
+        {
+            var pingConfig = ConfigLoader.get().getJsonObject(PING_COMMAND);
+
+            command = Arrays.asList(
+                    PING_COMMAND,
+                    PACKETS_OPTION, String.valueOf(pingConfig.getInteger(COUNT)),
+                    PING_TIMEOUT_OPTION, String.valueOf(pingConfig.getInteger(TIMEOUT)),
+                    INTERVAL_OPTION, String.valueOf(pingConfig.getDouble(INTERVAL)),
+                    device.getString(IP)
+            );
+        }
+        else
+        {
+            var portConfig = ConfigLoader.get().getJsonObject(PORT);
+
+            command = Arrays.asList(
+                    NC_COMMAND, ZERO_IO, PORT_TIMEOUT_OPTION, String.valueOf(portConfig.getInteger(TIMEOUT)),
+                    device.getString(IP),
+                    String.valueOf(device.getInteger(PORT, 22))
+            );
+        }
+
+        Process process = null;
+
+        try
+        {
+            process = new ProcessBuilder(command).start();
+
+            // onExit() parks instead of pinning, so waiting is cheap when probes run on virtual threads
+            var exitCode = process.onExit()
+                    .completeOnTimeout(null, ConfigLoader.get().getJsonObject(PROCESS).getInteger(TIMEOUT), TimeUnit.SECONDS)
+                    .thenApply(exited -> exited == null ? -1 : exited.exitValue())
+                    .get();
+
+            return exitCode == 0;
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error(exception.getMessage());
+
+            return false;
+        }
+        finally
+        {
+            if (process != null)
+            {
+                process.destroy();
+            }
+        }
+    }
+}
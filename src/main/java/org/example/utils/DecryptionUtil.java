@@ -3,10 +3,13 @@ package org.example.utils;
 import io.github.cdimascio.dotenv.Dotenv;
 
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.regex.Pattern;
 
 /**
  * Utility class for decrypting AES-encrypted strings using a secret key loaded from environment variables.
@@ -14,6 +17,10 @@ import java.util.Base64;
  * This utility expects the encrypted input to be Base64-encoded with the IV prepended to the ciphertext.
  * The AES key is loaded from a `.env` file using the key {@code ENCRYPTION_SECRET}, which must be Base64-encoded.
  * </p>
+ * <p>
+ * Secrets stored in the database are decrypted with {@link #decryptSecret(String)}, which reads both the
+ * versioned AES-GCM format and the older unversioned CBC format.
+ * </p>
  */
 public class DecryptionUtil
 {
@@ -27,6 +34,8 @@ public class DecryptionUtil
             "AES"
     );
 
+    private static final Pattern VERSIONED_SECRET = Pattern.compile("v(\\d+):(.*)", Pattern.DOTALL);
+
     /**
      * Decrypts a Base64-encoded AES-encrypted string using CBC mode with PKCS5 padding.
      * <p>
@@ -58,4 +67,34 @@ public class DecryptionUtil
 
         return new String(cipher.doFinal(ciphertext));
     }
+
+    /**
+     * Decrypts a stored secret.
+     * <p>
+     * A secret with a key version prefix, as written by {@link EncryptionUtil#encryptSecret(String)}, is decrypted
+     * with AES/GCM/NoPadding under that key version, which also verifies it was not altered. A secret without the
+     * prefix predates key versioning and is decrypted with {@link #decrypt(String)}.
+     * </p>
+     *
+     * @param encryptedText The stored secret.
+     * @return The decrypted plaintext secret.
+     * @throws Exception If decryption or authentication fails, or the key version is not configured.
+     */
+    public static String decryptSecret(String encryptedText) throws Exception
+    {
+        var matcher = VERSIONED_SECRET.matcher(encryptedText);
+
+        if (!matcher.matches())
+        {
+            return decrypt(encryptedText);
+        }
+
+        var decoded = Base64.getDecoder().decode(matcher.group(2));
+
+        var cipher = Cipher.getInstance("AES/GCM/NoPadding");
+
+        cipher.init(Cipher.DECRYPT_MODE, EncryptionKeys.get(Integer.parseInt(matcher.group(1))), new GCMParameterSpec(128, decoded, 0, 12));
+
+        return new String(cipher.doFinal(decoded, 12, decoded.length - 12), StandardCharsets.UTF_8);
+    }
 }
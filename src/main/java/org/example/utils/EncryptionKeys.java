@@ -0,0 +1,86 @@
+package org.example.utils;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import static org.example.constants.AppConstants.EncryptionConstants.*;
+
+/**
+ * Versioned AES keys, loaded from the {@code .env} file.
+ * <p>
+ * Version 1 is {@code ENCRYPTION_SECRET}, the key shared with the plugin. More versions are added as
+ * {@code ENCRYPTION_SECRET_V2}, {@code ENCRYPTION_SECRET_V3} and so on, each Base64-encoded, and
+ * {@code ENCRYPTION_KEY_VERSION} names the version that new secrets are encrypted with. Older versions must stay
+ * in the file until every value encrypted with them has been migrated.
+ */
+public class EncryptionKeys
+{
+    private static final Dotenv dotenv = Dotenv.load();
+
+    private static final Pattern VERSIONED_SECRET = Pattern.compile(Pattern.quote(ENCRYPTION_SECRET) + "_V(\\d+)");
+
+    private static final Map<Integer, SecretKeySpec> KEYS = new TreeMap<>();
+
+    private static final int CURRENT_VERSION;
+
+    static
+    {
+        KEYS.put(1, toKey(dotenv.get(ENCRYPTION_SECRET)));
+
+        for (var entry : dotenv.entries())
+        {
+            var matcher = VERSIONED_SECRET.matcher(entry.getKey());
+
+            if (matcher.matches())
+            {
+                KEYS.put(Integer.parseInt(matcher.group(1)), toKey(entry.getValue()));
+            }
+        }
+
+        CURRENT_VERSION = Integer.parseInt(dotenv.get(ENCRYPTION_KEY_VERSION, "1"));
+
+        if (!KEYS.containsKey(CURRENT_VERSION))
+        {
+            throw new IllegalStateException("No " + ENCRYPTION_SECRET + "_V" + CURRENT_VERSION + " for the configured key version");
+        }
+    }
+
+    /**
+     * Returns the version that new secrets are encrypted with.
+     *
+     * @return the current key version
+     */
+    public static int currentVersion()
+    {
+        return CURRENT_VERSION;
+    }
+
+    /**
+     * Returns the key of a version.
+     *
+     * @param version the key version
+     * @return the key
+     * @throws IllegalArgumentException if the version is not configured
+     */
+    public static SecretKeySpec get(int version)
+    {
+        var key = KEYS.get(version);
+
+        if (key == null)
+        {
+            throw new IllegalArgumentException("Unknown encryption key version " + version);
+        }
+
+        return key;
+    }
+
+    private static SecretKeySpec toKey(String secret)
+    {
+        return new SecretKeySpec(Base64.getDecoder().decode(secret), "AES");
+    }
+}
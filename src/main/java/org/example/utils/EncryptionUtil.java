@@ -3,18 +3,27 @@ package org.example.utils;
 import io.github.cdimascio.dotenv.Dotenv;
 
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
 
+import static org.example.constants.AppConstants.EncryptionConstants.SECRET_PREFIX;
+
 /**
  * Utility class for encrypting plaintext strings using AES encryption in CBC mode with PKCS5 padding.
  * <p>
  * The encryption key is loaded from a `.env` file using the key {@code ENCRYPTION_SECRET}, which must be Base64-encoded.
  * The generated ciphertext is Base64-encoded with the 16-byte IV prepended.
  * </p>
+ * <p>
+ * Secrets stored in the database are encrypted with {@link #encryptSecret(String)} instead, which uses
+ * authenticated AES-GCM under the current version of {@link EncryptionKeys}.
+ * </p>
  */
 public class EncryptionUtil
 {
@@ -28,6 +37,8 @@ public class EncryptionUtil
             "AES"
     );
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     /**
      * Encrypts a plaintext string using AES/CBC/PKCS5Padding.
      * <p>
@@ -62,4 +73,39 @@ public class EncryptionUtil
 
         return Base64.getEncoder().encodeToString(byteBuffer.array());
     }
+
+    /**
+     * Encrypts a secret using AES/GCM/NoPadding with the current key version.
+     * <p>
+     * A random 12-byte nonce is generated for each encryption. The result is the key version prefix, such as
+     * {@code v2:}, followed by the Base64 encoding of the nonce, the ciphertext and the 16-byte tag.
+     * </p>
+     *
+     * @param plainText The plaintext secret to encrypt.
+     * @return The versioned, Base64-encoded string containing the nonce, ciphertext and tag.
+     * @throws Exception If encryption fails due to key configuration or cipher error.
+     */
+    public static String encryptSecret(String plainText) throws Exception
+    {
+        var version = EncryptionKeys.currentVersion();
+
+        var cipher = Cipher.getInstance("AES/GCM/NoPadding");
+
+        var nonce = new byte[12];
+
+        RANDOM.nextBytes(nonce);
+
+        cipher.init(Cipher.ENCRYPT_MODE, EncryptionKeys.get(version), new GCMParameterSpec(128, nonce));
+
+        var plain = plainText.getBytes(StandardCharsets.UTF_8);
+
+        // Nonce and ciphertext share one array so they are encoded in a single pass
+        var output = new byte[12 + cipher.getOutputSize(plain.length)];
+
+        System.arraycopy(nonce, 0, output, 0, 12);
+
+        var encrypted = cipher.doFinal(plain, 0, plain.length, output, 12);
+
+        return String.format(SECRET_PREFIX, version) + Base64.getEncoder().encodeToString(Arrays.copyOf(output, 12 + encrypted));
+    }
 }
@@ -0,0 +1,104 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe fixed-bucket histogram for latency-like values.
+ * <p>
+ * Each bucket counts the values less than or equal to its upper bound; values above the
+ * largest bound fall into an overflow bucket. Recording is lock-free, so it can be used
+ * from event loops and worker threads alike.
+ */
+public class Histogram
+{
+    private final long[] bounds;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates a histogram with the given bucket upper bounds.
+     *
+     * @param bounds the ascending bucket upper bounds
+     */
+    public Histogram(long... bounds)
+    {
+        this.bounds = bounds.clone();
+
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * Records a single value.
+     *
+     * @param value the value to record; negative values are recorded as zero
+     */
+    public void record(long value)
+    {
+        var normalized = Math.max(0, value);
+
+        var bucket = bounds.length;
+
+        for (var i = 0; i < bounds.length; i++)
+        {
+            if (normalized <= bounds[i])
+            {
+                bucket = i;
+
+                break;
+            }
+        }
+
+        counts.incrementAndGet(bucket);
+
+        count.incrementAndGet();
+
+        sum.addAndGet(normalized);
+
+        max.accumulateAndGet(normalized, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values recorded so far
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * Builds a snapshot of the histogram.
+     *
+     * @return a JsonObject with count, sum, max, mean and per-bucket counts keyed as {@code le.<bound>}
+     */
+    public JsonObject toJson()
+    {
+        var buckets = new JsonObject();
+
+        for (var i = 0; i < bounds.length; i++)
+        {
+            buckets.put("le." + bounds[i], counts.get(i));
+        }
+
+        buckets.put("le.inf", counts.get(bounds.length));
+
+        var total = count.get();
+
+        return new JsonObject()
+                .put("count", total)
+                .put("sum", sum.get())
+                .put("max", max.get())
+                .put("mean", total == 0 ? 0 : sum.get() / total)
+                .put("buckets", buckets);
+    }
+}
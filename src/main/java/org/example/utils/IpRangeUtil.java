@@ -0,0 +1,176 @@
+package org.example.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for expanding IPv4 discovery targets into individual host addresses.
+ * <p>
+ * Supported target formats:
+ * <ul>
+ *     <li>A single address: {@code 10.0.0.5}</li>
+ *     <li>A CIDR block: {@code 10.0.0.0/22} (network and broadcast addresses are excluded below /31)</li>
+ *     <li>A full range: {@code 10.0.0.10-10.0.0.50}</li>
+ *     <li>A last-octet range: {@code 10.0.0.10-50}</li>
+ * </ul>
+ */
+public class IpRangeUtil
+{
+    private static final Pattern IPV4_PATTERN = Pattern.compile(
+            "^((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)$"
+    );
+
+    private static final Pattern ADDRESS_TARGET_PATTERN = Pattern.compile("^[0-9./\\-\\s]+$");
+
+    /**
+     * Returns whether a target is written as an address, CIDR block or range rather than as a hostname.
+     *
+     * @param target the target to check
+     * @return true if the target only consists of digits, dots, slashes, dashes and whitespace
+     */
+    public static boolean isAddressTarget(String target)
+    {
+        return target != null && ADDRESS_TARGET_PATTERN.matcher(target).matches();
+    }
+
+    /**
+     * Expands a list of targets into individual IPv4 addresses, preserving order and removing duplicates.
+     *
+     * @param targets  the targets to expand
+     * @param maxHosts the maximum number of addresses the expansion may produce
+     * @return the expanded addresses
+     * @throws IllegalArgumentException if a target is malformed or the expansion exceeds {@code maxHosts}
+     */
+    public static List<String> expand(List<String> targets, int maxHosts)
+    {
+        var seen = new LinkedHashSet<String>();
+
+        for (var target : targets)
+        {
+            seen.addAll(expand(target, maxHosts - seen.size()));
+        }
+
+        return new ArrayList<>(seen);
+    }
+
+    /**
+     * Expands a single target into individual IPv4 addresses.
+     *
+     * @param target   the single address, CIDR block or range to expand
+     * @param maxHosts the maximum number of addresses the expansion may produce
+     * @return the expanded addresses in ascending order
+     * @throws IllegalArgumentException if the target is malformed or the expansion exceeds {@code maxHosts}
+     */
+    public static List<String> expand(String target, int maxHosts)
+    {
+        if (target == null || target.isBlank())
+        {
+            throw new IllegalArgumentException("Empty target");
+        }
+
+        var trimmed = target.trim();
+
+        long first;
+
+        long last;
+
+        if (trimmed.contains("/"))
+        {
+            var parts = trimmed.split("/", 2);
+
+            var prefix = Integer.parseInt(parts[1]);
+
+            if (prefix < 0 || prefix > 32)
+            {
+                throw new IllegalArgumentException("Invalid prefix length in " + trimmed);
+            }
+
+            var mask = prefix == 0 ? 0L : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+
+            first = toLong(parts[0]) & mask;
+
+            last = first | (~mask & 0xFFFFFFFFL);
+
+            // Skip network and broadcast addresses where they exist
+            if (prefix < 31)
+            {
+                first++;
+
+                last--;
+            }
+        }
+        else if (trimmed.contains("-"))
+        {
+            var parts = trimmed.split("-", 2);
+
+            first = toLong(parts[0]);
+
+            if (parts[1].contains("."))
+            {
+                last = toLong(parts[1]);
+            }
+            else
+            {
+                var lastOctet = Integer.parseInt(parts[1].trim());
+
+                if (lastOctet < 0 || lastOctet > 255)
+                {
+                    throw new IllegalArgumentException("Invalid range end in " + trimmed);
+                }
+
+                last = (first & 0xFFFFFF00L) | lastOctet;
+            }
+
+            if (last < first)
+            {
+                throw new IllegalArgumentException("Range end precedes range start in " + trimmed);
+            }
+        }
+        else
+        {
+            first = toLong(trimmed);
+
+            last = first;
+        }
+
+        if (last - first + 1 > maxHosts)
+        {
+            throw new IllegalArgumentException("Target " + trimmed + " expands to more than " + maxHosts + " hosts");
+        }
+
+        var addresses = new ArrayList<String>((int) (last - first + 1));
+
+        for (var address = first; address <= last; address++)
+        {
+            addresses.add(toAddress(address));
+        }
+
+        return addresses;
+    }
+
+    private static long toLong(String address)
+    {
+        var trimmed = address.trim();
+
+        if (!IPV4_PATTERN.matcher(trimmed).matches())
+        {
+            throw new IllegalArgumentException("Invalid IPv4 address " + trimmed);
+        }
+
+        var value = 0L;
+
+        for (var octet : trimmed.split("\\."))
+        {
+            value = (value << 8) | Integer.parseInt(octet);
+        }
+
+        return value;
+    }
+
+    private static String toAddress(long value)
+    {
+        return ((value >> 24) & 0xFF) + "." + ((value >> 16) & 0xFF) + "." + ((value >> 8) & 0xFF) + "." + (value & 0xFF);
+    }
+}
@@ -1,33 +1,389 @@
 package org.example.utils;
 
+import io.netty.resolver.HostsFileEntriesResolver;
+import io.netty.resolver.ResolvedAddressTypes;
+import io.netty.util.NetUtil;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.dns.DnsClient;
+import io.vertx.core.dns.DnsClientOptions;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonArray;
+import org.example.MainApp;
+
 import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static org.example.constants.AppConstants.IpResolutionConstants.*;
+
+/**
+ * Non-blocking resolution and validation of discovery targets.
+ * <p>
+ * IPv4 and IPv6 literals are validated without any lookup; anything else containing a colon, such as
+ * {@code host:port}, is rejected. Hostnames are resolved from the hosts file first and otherwise through the
+ * Vert.x DNS client, whose queries time out after {@code ip.resolution.timeout} milliseconds. Results are
+ * kept in a bounded LRU cache: resolved names for {@code ip.resolution.cache.ttl} milliseconds and
+ * unresolvable names for {@code ip.resolution.cache.negative.ttl}. The Vert.x DNS client does not expose
+ * record TTLs, so the configured TTL acts as the upper bound for every record. Concurrent lookups of the same
+ * name share a single query.
+ * <p>
+ * The DNS client only sends the name it is given, so the search list of the system resolver is applied here,
+ * as the system resolver would: a name with fewer dots than {@code ndots} is tried with each search domain
+ * before as given, any other name as given first, and a name ending with a dot only as given. The search
+ * domains and {@code ndots} are read once from {@code /etc/resolv.conf}, unless set with
+ * {@code ip.resolution.search} and {@code ip.resolution.ndots}. Queries go to the first name server of the
+ * system, or to {@code ip.resolution.dns.host} and {@code ip.resolution.dns.port} when set.
+ */
+public class IpResolutionUtil
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(IpResolutionUtil.class);
+
+    private static final Pattern IPV4_PATTERN = Pattern.compile(
+            "^((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)$"
+    );
+
+    private static final Map<String, Future<String>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static final int MAX_CACHE_ENTRIES = ConfigLoader.get().getInteger(CACHE_MAX_ENTRIES, 1024);
+
+    private static final long CACHE_TTL_MS = ConfigLoader.get().getLong(CACHE_TTL, 300000L);
+
+    private static final long CACHE_NEGATIVE_TTL_MS = ConfigLoader.get().getLong(CACHE_NEGATIVE_TTL, 10000L);
+
+    private static final Map<String, CachedAddress> CACHE = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedAddress> eldest)
+        {
+            return size() > MAX_CACHE_ENTRIES;
+        }
+    };
+
+    private static volatile DnsClient dnsClient;
+
+    private static volatile SearchList searchList;
+
+    private record CachedAddress(String address, long expiresAt)
+    {
+    }
 
-public class IpResolutionUtil {
+    record SearchList(List<String> domains, int ndots)
+    {
+    }
 
     /**
-     * Resolves and validates an IP address or hostname.
-     * This method performs synchronous hostname resolution and should be called from within an executeBlocking context.
+     * Resolves and validates an IP address or hostname without blocking the calling thread.
      *
      * @param hostOrIp The hostname or IP address to resolve
-     * @return The resolved IP address as a string, or null if resolution fails
+     * @return a Future with the resolved IP address as a string, or null if resolution fails
      */
-    public static String resolveAndValidateIp(String hostOrIp)
+    public static Future<String> resolve(String hostOrIp)
     {
         try
         {
-            if (hostOrIp == null || hostOrIp.isEmpty())
+            if (hostOrIp == null || hostOrIp.isBlank())
             {
-                return null;
+                return Future.succeededFuture(null);
+            }
+
+            var host = hostOrIp.trim();
+
+            if (IPV4_PATTERN.matcher(host).matches())
+            {
+                return Future.succeededFuture(host);
+            }
+
+            // Only a valid IPv6 literal may contain a colon; it is converted from its bytes, never looked up
+            if (host.contains(":"))
+            {
+                if (!NetUtil.isValidIpV6Address(host))
+                {
+                    LOGGER.warn("Invalid IP address or hostname: " + host);
+
+                    return Future.succeededFuture(null);
+                }
+
+                return Future.succeededFuture(InetAddress.getByAddress(NetUtil.createByteArrayFromIpAddressString(host)).getHostAddress());
+            }
+
+            var cached = getCached(host);
+
+            if (cached != null)
+            {
+                return Future.succeededFuture(cached.address());
+            }
+
+            var hostsFileEntry = HostsFileEntriesResolver.DEFAULT.address(host, ResolvedAddressTypes.IPV4_PREFERRED);
+
+            if (hostsFileEntry != null)
+            {
+                return Future.succeededFuture(putCached(host, hostsFileEntry.getHostAddress()));
+            }
+
+            var promise = Promise.<String>promise();
+
+            var inFlight = IN_FLIGHT.putIfAbsent(host, promise.future());
+
+            if (inFlight != null)
+            {
+                return inFlight;
+            }
+
+            var client = getDnsClient();
+
+            lookup(client, candidates(host, searchList), 0)
+                    .otherwise(error ->
+                    {
+                        LOGGER.warn("DNS lookup failed for " + host + ": " + error.getMessage());
+
+                        return null;
+                    })
+                    .map(address -> putCached(host, address))
+                    .onComplete(result ->
+                    {
+                        IN_FLIGHT.remove(host);
+
+                        promise.handle(result);
+                    });
+
+            return promise.future();
+        }
+        catch (Exception exception)
+        {
+            LOGGER.warn("Failed to resolve " + hostOrIp + ": " + exception.getMessage());
+
+            return Future.succeededFuture(null);
+        }
+    }
+
+    /**
+     * Resolves a batch of hostnames or IP addresses concurrently, each distinct name only once.
+     *
+     * @param hostsOrIps the hostnames or IP addresses to resolve
+     * @return a Future with a map from every given name to its IP address, or to null if it could not be resolved
+     */
+    public static Future<Map<String, String>> resolveAll(Collection<String> hostsOrIps)
+    {
+        var names = new ArrayList<>(new LinkedHashSet<>(hostsOrIps));
+
+        var lookups = new ArrayList<Future<String>>(names.size());
+
+        for (var name : names)
+        {
+            lookups.add(resolve(name));
+        }
+
+        return Future.join(lookups).transform(ignored ->
+        {
+            var addresses = new HashMap<String, String>();
+
+            for (var i = 0; i < names.size(); i++)
+            {
+                addresses.put(names.get(i), lookups.get(i).succeeded() ? lookups.get(i).result() : null);
+            }
+
+            return Future.succeededFuture(addresses);
+        });
+    }
+
+    /**
+     * Returns the names to query for a hostname, in order, following the search rules of the system resolver.
+     *
+     * @param host       the hostname as given
+     * @param searchList the search domains and ndots threshold
+     * @return the fully qualified names to try
+     */
+    static List<String> candidates(String host, SearchList searchList)
+    {
+        if (host.endsWith("."))
+        {
+            return List.of(host.substring(0, host.length() - 1));
+        }
+
+        var dots = host.chars().filter(character -> character == '.').count();
+
+        var candidates = new ArrayList<String>();
+
+        if (dots >= searchList.ndots())
+        {
+            candidates.add(host);
+        }
+
+        for (var domain : searchList.domains())
+        {
+            candidates.add(host + "." + domain);
+        }
+
+        if (dots < searchList.ndots())
+        {
+            candidates.add(host);
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Queries the candidate names in order until one has an address.
+     *
+     * @param client     the DNS client
+     * @param candidates the names to try
+     * @param index      the index of the next name to try
+     * @return a Future with the first address found, null if no name has one, or the failure of the last query
+     */
+    private static Future<String> lookup(DnsClient client, List<String> candidates, int index)
+    {
+        var last = index == candidates.size() - 1;
+
+        return client.lookup(candidates.get(index)).transform(result ->
+        {
+            if (last || (result.succeeded() && result.result() != null))
+            {
+                return result.failed() ? Future.failedFuture(result.cause()) : Future.succeededFuture(result.result());
             }
 
-            var inetAddress = InetAddress.getByName(hostOrIp);
+            return lookup(client, candidates, index + 1);
+        });
+    }
+
+    /**
+     * Parses the search domains and the ndots option of a resolv.conf file. As in the system resolver, the last
+     * {@code search} or {@code domain} line wins and ndots is capped at 15.
+     *
+     * @param path the resolv.conf file
+     * @return the search list, empty with ndots 1 if the file cannot be read
+     */
+    static SearchList parseResolvConf(Path path)
+    {
+        var domains = List.<String>of();
+
+        var ndots = 1;
 
-            return inetAddress.getHostAddress();
+        try
+        {
+            for (var line : Files.readAllLines(path))
+            {
+                var fields = line.trim().split("\\s+");
 
+                if (fields[0].isEmpty() || fields[0].startsWith("#") || fields[0].startsWith(";"))
+                {
+                    continue;
+                }
+
+                switch (fields[0])
+                {
+                    case "search" -> domains = List.of(fields).subList(1, fields.length);
+
+                    case "domain" -> domains = fields.length > 1 ? List.of(fields[1]) : List.of();
+
+                    case "options" ->
+                    {
+                        for (var option : fields)
+                        {
+                            if (option.startsWith(NDOTS_OPTION))
+                            {
+                                ndots = Math.min(15, Integer.parseInt(option.substring(NDOTS_OPTION.length())));
+                            }
+                        }
+                    }
+
+                    default ->
+                    {
+                    }
+                }
+            }
         }
         catch (Exception exception)
         {
-            return null;
+            LOGGER.warn("Failed to read the search list from " + path + ": " + exception.getMessage());
+        }
+
+        return new SearchList(domains, ndots);
+    }
+
+    private static SearchList getSearchList()
+    {
+        var system = parseResolvConf(Path.of(RESOLV_CONF));
+
+        var config = ConfigLoader.get();
+
+        var domains = new ArrayList<String>();
+
+        for (var domain : config.getJsonArray(SEARCH, new JsonArray(new ArrayList<>(system.domains()))))
+        {
+            domains.add(domain.toString());
         }
+
+        return new SearchList(domains, config.getInteger(NDOTS, system.ndots()));
+    }
+
+    private static CachedAddress getCached(String host)
+    {
+        synchronized (CACHE)
+        {
+            var cached = CACHE.get(host);
+
+            if (cached == null)
+            {
+                return null;
+            }
+
+            if (System.currentTimeMillis() >= cached.expiresAt())
+            {
+                CACHE.remove(host);
+
+                return null;
+            }
+
+            return cached;
+        }
+    }
+
+    private static String putCached(String host, String address)
+    {
+        var ttl = address == null ? CACHE_NEGATIVE_TTL_MS : CACHE_TTL_MS;
+
+        synchronized (CACHE)
+        {
+            CACHE.put(host, new CachedAddress(address, System.currentTimeMillis() + ttl));
+        }
+
+        return address;
+    }
+
+    private static DnsClient getDnsClient()
+    {
+        if (dnsClient == null)
+        {
+            synchronized (IpResolutionUtil.class)
+            {
+                if (dnsClient == null)
+                {
+                    // Read once, a small local file
+                    searchList = getSearchList();
+
+                    var options = new DnsClientOptions().setQueryTimeout(ConfigLoader.get().getLong(TIMEOUT, 500L));
+
+                    if (ConfigLoader.get().getString(DNS_HOST) != null)
+                    {
+                        options.setHost(ConfigLoader.get().getString(DNS_HOST)).setPort(ConfigLoader.get().getInteger(DNS_PORT, 53));
+                    }
+
+                    dnsClient = MainApp.getVertx().createDnsClient(options);
+                }
+            }
+        }
+
+        return dnsClient;
     }
-}
\ No newline at end of file
+}
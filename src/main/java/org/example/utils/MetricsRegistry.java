@@ -0,0 +1,91 @@
+package org.example.utils;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.example.constants.AppConstants.JsonKey.ERROR;
+
+/**
+ * Process-wide registry of runtime metric sources.
+ * <p>
+ * Components register a named {@link Supplier} that builds a snapshot of their counters on demand.
+ * Suppliers are called from the HTTP event loop, so they must only read thread-safe state
+ * (atomics, concurrent collections).
+ */
+public class MetricsRegistry
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    private static final Map<String, Supplier<JsonObject>> SOURCES = new ConcurrentHashMap<>();
+
+    /**
+     * Registers (or replaces) a metric source under the given name.
+     *
+     * @param name   the name the snapshot is exposed under
+     * @param source a supplier producing the current snapshot
+     */
+    public static void register(String name, Supplier<JsonObject> source)
+    {
+        SOURCES.put(name, source);
+    }
+
+    /**
+     * Removes a metric source.
+     *
+     * @param name the name the source was registered under
+     */
+    public static void unregister(String name)
+    {
+        SOURCES.remove(name);
+    }
+
+    /**
+     * Builds the snapshot of a single metric source.
+     *
+     * @param name the name of the source
+     * @return the snapshot, or null if no source is registered under that name
+     */
+    public static JsonObject snapshot(String name)
+    {
+        var source = SOURCES.get(name);
+
+        if (source == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return source.get();
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to collect metrics for " + name + ": " + exception.getMessage());
+
+            return new JsonObject().put(ERROR, exception.getMessage());
+        }
+    }
+
+    /**
+     * Builds the snapshot of all registered metric sources, keyed by source name.
+     *
+     * @return a JsonObject containing one entry per registered source
+     */
+    public static JsonObject snapshotAll()
+    {
+        var snapshot = new JsonObject();
+
+        for (var name : new TreeMap<>(SOURCES).keySet())
+        {
+            snapshot.put(name, snapshot(name));
+        }
+
+        return snapshot;
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for turning plugin metric documents into typed samples.
+ * <p>
+ * A metric document is flattened into {@code name -> (value, unit)} pairs, where the name is the dotted path of
+ * the value in the document (array elements use their index as a path segment). Numbers are taken as-is,
+ * booleans become 1 or 0, and strings are kept when they hold a number, optionally followed by a unit
+ * such as {@code %} or {@code MB}. Any other value is not a metric and is skipped.
+ * <p>
+ * Units of size, size per second, time and frequency are converted to their base unit ({@code B}, {@code B/s},
+ * {@code s}, {@code Hz}), so that {@code "512 MB"} and {@code "0.5 GB"} are the same value. Sizes are taken as
+ * powers of 1024, as {@code df} and {@code free} print them. Other units are kept as written, and a value
+ * without a unit has the empty unit.
+ */
+public class MetricsUtil
+{
+    private static final Pattern NUMERIC_PATTERN = Pattern.compile("^\\s*(-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)\\s*([a-zA-Zµ%/]*)\\s*$");
+
+    private static final Map<String, Unit> UNITS = new HashMap<>();
+
+    static
+    {
+        var sizes = new String[][] { { "B" }, { "KB", "kB", "KiB", "K", "Ki" }, { "MB", "MiB", "M", "Mi" },
+                { "GB", "GiB", "G", "Gi" }, { "TB", "TiB", "T", "Ti" }, { "PB", "PiB", "P", "Pi" } };
+
+        for (var power = 0; power < sizes.length; power++)
+        {
+            for (var unit : sizes[power])
+            {
+                UNITS.put(unit, new Unit("B", Math.pow(1024, power)));
+
+                UNITS.put(unit + "/s", new Unit("B/s", Math.pow(1024, power)));
+            }
+        }
+
+        UNITS.put("ns", new Unit("s", 1e-9));
+
+        UNITS.put("us", new Unit("s", 1e-6));
+
+        UNITS.put("µs", new Unit("s", 1e-6));
+
+        UNITS.put("ms", new Unit("s", 1e-3));
+
+        UNITS.put("s", new Unit("s", 1));
+
+        UNITS.put("sec", new Unit("s", 1));
+
+        UNITS.put("min", new Unit("s", 60));
+
+        UNITS.put("h", new Unit("s", 3600));
+
+        UNITS.put("d", new Unit("s", 86400));
+
+        UNITS.put("Hz", new Unit("Hz", 1));
+
+        UNITS.put("kHz", new Unit("Hz", 1e3));
+
+        UNITS.put("MHz", new Unit("Hz", 1e6));
+
+        UNITS.put("GHz", new Unit("Hz", 1e9));
+    }
+
+    /**
+     * A metric value in the unit it is stored in.
+     *
+     * @param value the value, converted to {@code unit}
+     * @param unit  the base unit of the value, the unit as written if it has none, or empty
+     */
+    public record Metric(double value, String unit)
+    {
+    }
+
+    // A base unit and the factor converting a value to it
+    private record Unit(String base, double factor)
+    {
+    }
+
+    /**
+     * Flattens a metric document into named numeric values.
+     *
+     * @param metrics the metric document returned by the plugin for one device
+     * @return the numeric values and their units keyed by their dotted path, in document order
+     */
+    public static Map<String, Metric> flatten(JsonObject metrics)
+    {
+        var values = new LinkedHashMap<String, Metric>();
+
+        if (metrics != null)
+        {
+            flatten("", metrics, values);
+        }
+
+        return values;
+    }
+
+    private static void flatten(String name, Object value, Map<String, Metric> values)
+    {
+        if (value instanceof JsonObject object)
+        {
+            for (var field : object.fieldNames())
+            {
+                flatten(name.isEmpty() ? field : name + "." + field, object.getValue(field), values);
+            }
+        }
+        else if (value instanceof JsonArray array)
+        {
+            for (var i = 0; i < array.size(); i++)
+            {
+                flatten(name + "." + i, array.getValue(i), values);
+            }
+        }
+        else if (value instanceof Number number)
+        {
+            var doubleValue = number.doubleValue();
+
+            if (Double.isFinite(doubleValue))
+            {
+                values.put(name, new Metric(doubleValue, ""));
+            }
+        }
+        else if (value instanceof Boolean flag)
+        {
+            values.put(name, new Metric(flag ? 1.0 : 0.0, ""));
+        }
+        else if (value instanceof String text)
+        {
+            var matcher = NUMERIC_PATTERN.matcher(text);
+
+            if (matcher.matches())
+            {
+                var unit = UNITS.get(matcher.group(2));
+
+                var number = Double.parseDouble(matcher.group(1));
+
+                values.put(name, unit == null ? new Metric(number, matcher.group(2)) : new Metric(number * unit.factor(), unit.base()));
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.example.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.constants.AppConstants.PluginConstants.*;
+
+/**
+ * Binary framing of the channel between the backend and the plugin.
+ * <p>
+ * Every message is one frame: a 4-byte big-endian length followed by that many bytes, a 12-byte random nonce
+ * and the AES-GCM encryption of the compact JSON message with its 16-byte tag. The backend writes the whole
+ * device list as one frame and the plugin answers with one frame per device until it closes its output.
+ * Compared to the text mode, frames carry no Base64 and are read straight from the process stream into
+ * buffers that are reused across frames, so each result is decoded from bytes without intermediate Strings.
+ * <p>
+ * Each frame is authenticated together with 9 bytes of associated data that are not sent: its direction, 0 from
+ * the backend and 1 from the plugin, and its 8-byte big-endian index among the frames sent in that direction,
+ * counting from 0 for each run. A frame replayed, reordered or reflected back within a run therefore fails
+ * authentication like an altered one.
+ * <p>
+ * The key is version 1 of {@link EncryptionKeys}, the {@code ENCRYPTION_SECRET} shared with the text mode.
+ * A codec reuses its buffers and cipher and counts frames, so it is not thread-safe; use one per plugin run.
+ */
+public class PluginFrameCodec
+{
+    // The plugin only knows the original key
+    private static final SecretKeySpec KEY_SPEC = EncryptionKeys.get(1);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final int NONCE_SIZE = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private static final TypeReference<Map<String, Object>> OBJECT_TYPE = new TypeReference<>()
+    {
+    };
+
+    private static final TypeReference<List<Object>> ARRAY_TYPE = new TypeReference<>()
+    {
+    };
+
+    static final byte FROM_BACKEND = 0;
+
+    static final byte FROM_PLUGIN = 1;
+
+    private final Cipher cipher;
+
+    private final int maxFrameSize;
+
+    private final byte outbound;
+
+    private final byte inbound;
+
+    private final byte[] associatedData = new byte[9];
+
+    private long sent;
+
+    private long received;
+
+    private byte[] frame = new byte[8192];
+
+    private byte[] plaintext = new byte[8192];
+
+    /**
+     * Creates the codec of the backend side of a plugin run.
+     *
+     * @throws Exception if AES-GCM is not available
+     */
+    public PluginFrameCodec() throws Exception
+    {
+        this(FROM_BACKEND, FROM_PLUGIN, ConfigLoader.get().getInteger(PLUGIN_MAX_FRAME_SIZE, 16777216));
+    }
+
+    PluginFrameCodec(byte outbound, byte inbound, int maxFrameSize) throws Exception
+    {
+        this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
+
+        this.outbound = outbound;
+
+        this.inbound = inbound;
+
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Returns whether the plugin channel is configured to use binary frames instead of Base64 text lines.
+     *
+     * @return true if {@code plugin.framing} is {@code binary}
+     */
+    public static boolean isBinary()
+    {
+        return BINARY.equals(ConfigLoader.get().getString(PLUGIN_FRAMING, TEXT));
+    }
+
+    /**
+     * Encrypts a message and writes it as one frame.
+     *
+     * @param out     the stream to the plugin
+     * @param message the compact JSON message
+     * @throws Exception if encryption or writing fails
+     */
+    public void writeFrame(DataOutputStream out, byte[] message) throws Exception
+    {
+        var nonce = new byte[NONCE_SIZE];
+
+        RANDOM.nextBytes(nonce);
+
+        cipher.init(Cipher.ENCRYPT_MODE, KEY_SPEC, new GCMParameterSpec(TAG_BITS, nonce));
+
+        cipher.updateAAD(associatedData(outbound, sent++));
+
+        var length = NONCE_SIZE + cipher.getOutputSize(message.length);
+
+        ensureFrameCapacity(length);
+
+        System.arraycopy(nonce, 0, frame, 0, NONCE_SIZE);
+
+        var encrypted = cipher.doFinal(message, 0, message.length, frame, NONCE_SIZE);
+
+        out.writeInt(NONCE_SIZE + encrypted);
+
+        out.write(frame, 0, NONCE_SIZE + encrypted);
+    }
+
+    /**
+     * Reads and decrypts the next frame.
+     * <p>
+     * A frame that fails authentication is consumed entirely, and counted, before the exception is thrown, so
+     * the caller can log it and carry on with the next frame.
+     *
+     * @param in the stream from the plugin
+     * @return the decoded message, or null once the plugin has closed its output
+     * @throws AEADBadTagException if the frame was not encrypted with the shared key, was altered or is out of sequence
+     * @throws DecodeException     if the message is not a JSON object
+     * @throws Exception           if the stream is truncated or the frame is malformed
+     */
+    public JsonObject readFrame(DataInputStream in) throws Exception
+    {
+        var decrypted = decryptFrame(in);
+
+        return decrypted < 0 ? null : new JsonObject(decode(decrypted, OBJECT_TYPE));
+    }
+
+    /**
+     * Reads and decrypts the device list sent by the backend, on the plugin side of the channel.
+     *
+     * @param in the stream from the backend
+     * @return the device list, or null if the backend sent nothing
+     * @throws Exception if the frame cannot be read, authenticated or decoded
+     */
+    JsonArray readDeviceList(DataInputStream in) throws Exception
+    {
+        var decrypted = decryptFrame(in);
+
+        return decrypted < 0 ? null : new JsonArray(decode(decrypted, ARRAY_TYPE));
+    }
+
+    private int decryptFrame(DataInputStream in) throws Exception
+    {
+        int length;
+
+        try
+        {
+            length = in.readInt();
+        }
+        catch (EOFException exception)
+        {
+            return -1;
+        }
+
+        if (length <= NONCE_SIZE || length > maxFrameSize)
+        {
+            // Nothing after a bad length can be trusted to be aligned on a frame
+            throw new IOException("Invalid plugin frame length " + length);
+        }
+
+        ensureFrameCapacity(length);
+
+        in.readFully(frame, 0, length);
+
+        cipher.init(Cipher.DECRYPT_MODE, KEY_SPEC, new GCMParameterSpec(TAG_BITS, frame, 0, NONCE_SIZE));
+
+        cipher.updateAAD(associatedData(inbound, received++));
+
+        var size = cipher.getOutputSize(length - NONCE_SIZE);
+
+        if (plaintext.length < size)
+        {
+            plaintext = new byte[Math.max(size, plaintext.length * 2)];
+        }
+
+        return cipher.doFinal(frame, NONCE_SIZE, length - NONCE_SIZE, plaintext, 0);
+    }
+
+    private <T> T decode(int length, TypeReference<T> type)
+    {
+        try
+        {
+            // Parsed in place, and in full before the buffer is reused for the next frame
+            return DatabindCodec.mapper().readValue(plaintext, 0, length, type);
+        }
+        catch (IOException exception)
+        {
+            // Not an IOException to the caller: the stream itself is still aligned on the next frame
+            throw new DecodeException("Failed to decode plugin frame: " + exception.getMessage());
+        }
+    }
+
+    private byte[] associatedData(byte direction, long index)
+    {
+        associatedData[0] = direction;
+
+        for (var i = 8; i > 0; i--)
+        {
+            associatedData[i] = (byte) index;
+
+            index >>>= 8;
+        }
+
+        return associatedData;
+    }
+
+    private void ensureFrameCapacity(int length)
+    {
+        if (frame.length < length)
+        {
+            frame = new byte[Math.max(length, frame.length * 2)];
+        }
+    }
+}
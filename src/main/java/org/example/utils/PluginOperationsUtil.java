@@ -2,13 +2,22 @@ package org.example.utils;
 
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
+
+import javax.crypto.AEADBadTagException;
 import java.io.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import static org.example.constants.AppConstants.AddressesAndPaths.PLUGIN_PATH;
 import static org.example.constants.AppConstants.CredentialField.ID;
 import static org.example.constants.AppConstants.JsonKey.ERROR;
+import static org.example.constants.AppConstants.PluginConstants.FRAMING_OPTION;
+import static org.example.constants.AppConstants.PluginConstants.PLUGIN_EXECUTABLE;
+import static org.example.constants.AppConstants.PluginConstants.UNKNOWN_FRAMING_OPTION;
+import static org.example.constants.AppConstants.PluginConstants.USAGE_EXIT_CODE;
 
 import io.vertx.core.json.JsonObject;
 
@@ -16,6 +25,9 @@ public class PluginOperationsUtil
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(PluginOperationsUtil.class);
 
+    // Plugins that rejected the framing option as unknown, spoken to in text lines from then on
+    private static final Set<String> TEXT_ONLY_PLUGINS = ConcurrentHashMap.newKeySet();
+
     /**
      * Synchronously checks SSH reachability of the provided devices
      *
@@ -40,6 +52,11 @@ public class PluginOperationsUtil
 
     /**
      * Executes the plugin command synchronously and returns the results
+     * <p>
+     * Binary framing is only understood by plugin builds that accept {@link PluginFrameCodec}'s
+     * {@code --framing=binary} option. A plugin that rejects it as an unknown flag, with a usage error and exit
+     * code 2 before answering a single frame, is run again, and from then on, in text mode. Any other failure of
+     * a binary run fails the call like a failed text run does: the plugin may have reached the devices already.
      *
      * @param devices The JSON array of device data
      * @param command The command to execute (reachability or metrics)
@@ -48,50 +65,46 @@ public class PluginOperationsUtil
      */
     private static JsonArray executePlugin(JsonArray devices, String command) throws Exception
     {
-        Process process = null;
+        var path = ConfigLoader.get().getString(PLUGIN_EXECUTABLE, PLUGIN_PATH);
 
-        try
+        if (PluginFrameCodec.isBinary() && !TEXT_ONLY_PLUGINS.contains(path))
         {
-            var pb = new ProcessBuilder(PLUGIN_PATH, command);
-
-            process = pb.start();
+            var devicesFromPlugin = executePlugin(path, devices, command, true);
 
-            try (var writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream())))
+            if (devicesFromPlugin != null)
             {
-                var encryptedInput = EncryptionUtil.encrypt(devices.encode());
-
-                writer.write(encryptedInput);
-
-                writer.flush();
+                return devicesFromPlugin;
             }
 
-            var devicesFromPlugin = new JsonArray();
+            TEXT_ONLY_PLUGINS.add(path);
 
-            try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream())))
-            {
-                var line = "";
+            LOGGER.warn("Plugin " + path + " does not support binary framing, falling back to text lines");
+        }
 
-                while ((line = reader.readLine()) != null)
-                {
-                    try
-                    {
-                        var decrypted = DecryptionUtil.decrypt(line);
+        return executePlugin(path, devices, command, false);
+    }
+
+    /**
+     * Runs the plugin once in the given framing mode
+     *
+     * @param path    The plugin executable
+     * @param devices The JSON array of device data
+     * @param command The command to execute (reachability or metrics)
+     * @param binary  Whether to exchange binary frames instead of Base64 text lines
+     * @return A JSON array with the command results, or null if the plugin rejected the framing option
+     * @throws Exception if the plugin execution fails
+     */
+    private static JsonArray executePlugin(String path, JsonArray devices, String command, boolean binary) throws Exception
+    {
+        Process process = null;
 
-                        var device = new JsonObject(decrypted);
+        try
+        {
+            var pb = binary ? new ProcessBuilder(path, command, FRAMING_OPTION) : new ProcessBuilder(path, command);
 
-                        if(device.getString(ERROR) != null)
-                        {
-                            LOGGER.error("Plugin error for " + device.getString(ID) + ": " + device.getString(ERROR));
-                        }
+            process = pb.start();
 
-                        devicesFromPlugin.add(device);
-                    }
-                    catch (Exception exception)
-                    {
-                        LOGGER.error("Decryption failed for plugin output: " + exception.getMessage());
-                    }
-                }
-            }
+            var devicesFromPlugin = binary ? exchangeFrames(process, devices) : exchangeLines(process, devices);
 
             var exitCode = process.waitFor(ConfigLoader.get().getInteger("plugin.timeout"), TimeUnit.SECONDS) ? process.exitValue() : -1;
 
@@ -117,6 +130,11 @@ public class PluginOperationsUtil
 
                 LOGGER.error(errorMsg);
 
+                if (binary && exitCode == USAGE_EXIT_CODE && devicesFromPlugin.isEmpty() && errorOutput.indexOf(UNKNOWN_FRAMING_OPTION) >= 0)
+                {
+                    return null;
+                }
+
                 throw new Exception(errorMsg);
             }
         }
@@ -134,4 +152,117 @@ public class PluginOperationsUtil
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sends the devices as one Base64 text blob and reads one Base64 line per device back
+     *
+     * @param process The running plugin
+     * @param devices The JSON array of device data
+     * @return A JSON array with the devices returned by the plugin
+     * @throws Exception if writing to or reading from the plugin fails
+     */
+    static JsonArray exchangeLines(Process process, JsonArray devices) throws Exception
+    {
+        try (var writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream())))
+        {
+            var encryptedInput = EncryptionUtil.encrypt(devices.encode());
+
+            writer.write(encryptedInput);
+
+            writer.flush();
+        }
+
+        var devicesFromPlugin = new JsonArray();
+
+        try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream())))
+        {
+            var line = "";
+
+            while ((line = reader.readLine()) != null)
+            {
+                try
+                {
+                    var decrypted = DecryptionUtil.decrypt(line);
+
+                    addDevice(devicesFromPlugin, new JsonObject(decrypted));
+                }
+                catch (Exception exception)
+                {
+                    LOGGER.error("Decryption failed for plugin output: " + exception.getMessage());
+                }
+            }
+        }
+
+        return devicesFromPlugin;
+    }
+
+    /**
+     * Sends the devices as one binary frame and reads one binary frame per device back
+     *
+     * @param process The running plugin
+     * @param devices The JSON array of device data
+     * @return A JSON array with the devices returned by the plugin
+     * @throws Exception if writing to or reading from the plugin fails
+     */
+    static JsonArray exchangeFrames(Process process, JsonArray devices) throws Exception
+    {
+        var codec = new PluginFrameCodec();
+
+        try (var output = new DataOutputStream(new BufferedOutputStream(process.getOutputStream())))
+        {
+            codec.writeFrame(output, devices.toBuffer().getBytes());
+
+            output.flush();
+        }
+        catch (IOException exception)
+        {
+            // The plugin exited without reading the request, its exit code tells why
+            LOGGER.error("Failed to send devices to plugin: " + exception.getMessage());
+
+            return new JsonArray();
+        }
+
+        var devicesFromPlugin = new JsonArray();
+
+        try (var input = new DataInputStream(new BufferedInputStream(process.getInputStream(), 65536)))
+        {
+            while (true)
+            {
+                try
+                {
+                    var device = codec.readFrame(input);
+
+                    if (device == null)
+                    {
+                        break;
+                    }
+
+                    addDevice(devicesFromPlugin, device);
+                }
+                catch (AEADBadTagException | DecodeException exception)
+                {
+                    // The frame was read in full, so the stream is still aligned on the next one
+                    LOGGER.error("Decryption failed for plugin output: " + exception.getMessage());
+                }
+                catch (IOException exception)
+                {
+                    LOGGER.error("Plugin output is no longer readable: " + exception.getMessage());
+
+                    break;
+                }
+            }
+        }
+
+        return devicesFromPlugin;
+    }
+
+    private static void addDevice(JsonArray devicesFromPlugin, JsonObject device)
+    {
+        if(device.getString(ERROR) != null)
+        {
+            LOGGER.error("Plugin error for " + device.getString(ID) + ": " + device.getString(ERROR));
+        }
+
+        devicesFromPlugin.add(device);
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static org.example.constants.AppConstants.FALSE;
+import static org.example.constants.AppConstants.ProbeExecutorConstants.*;
+
+/**
+ * Executes blocking probe and plugin work (ping, nc, SSH plugin) off the event loop.
+ * <p>
+ * By default tasks run on the shared Vert.x worker pool through {@code executeBlocking}, which caps the
+ * number of in-flight probes at {@code vertx.worker.pool.size}. When {@code probe.executor.virtual.threads}
+ * is enabled, every task gets its own virtual thread instead, bounded only by
+ * {@code probe.executor.max.concurrency}, so thousands of device checks can wait on their processes at once.
+ * <p>
+ * An executor may also be created with a dedicated pool size. It then runs its tasks on its own named worker
+ * pool (or, on virtual threads, under its own permit count) so that a burst of work on it, such as a large
+ * discovery sweep, cannot starve the shared worker pool the poller depends on.
+ * <p>
+ * Results are always delivered back on the Vert.x context of the caller.
+ */
+public class ProbeExecutor
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProbeExecutor.class);
+
+    private final Vertx vertx;
+
+    private final ExecutorService virtualExecutor;
+
+    private final WorkerExecutor workerExecutor;
+
+    private final Semaphore permits;
+
+    private ProbeExecutor(Vertx vertx, String name, boolean virtualThreads, int maxConcurrency, int dedicatedPoolSize)
+    {
+        this.vertx = vertx;
+
+        if (virtualThreads)
+        {
+            var limit = dedicatedPoolSize > 0 ? dedicatedPoolSize : maxConcurrency;
+
+            this.virtualExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+
+            this.workerExecutor = null;
+
+            this.permits = new Semaphore(limit);
+
+            LOGGER.info("Probe executor '" + name + "' running on virtual threads (max " + limit + " in flight)");
+        }
+        else if (dedicatedPoolSize > 0)
+        {
+            this.virtualExecutor = null;
+
+            this.workerExecutor = vertx.createSharedWorkerExecutor(name, dedicatedPoolSize);
+
+            this.permits = null;
+
+            LOGGER.info("Probe executor '" + name + "' running on a dedicated worker pool of " + dedicatedPoolSize + " threads");
+        }
+        else
+        {
+            this.virtualExecutor = null;
+
+            this.workerExecutor = null;
+
+            this.permits = null;
+
+            LOGGER.info("Probe executor '" + name + "' running on the Vert.x worker pool");
+        }
+    }
+
+    /**
+     * Creates a probe executor configured from the {@code probe.executor} section of config.json.
+     *
+     * @param vertx the Vert.x instance whose context receives the results
+     * @param name  a name used for virtual thread naming and logging
+     * @return a new {@link ProbeExecutor}
+     */
+    public static ProbeExecutor create(Vertx vertx, String name)
+    {
+        return create(vertx, name, 0);
+    }
+
+    /**
+     * Creates a probe executor isolated from the other executors by its own pool of the given size.
+     *
+     * @param vertx             the Vert.x instance whose context receives the results
+     * @param name              a name used for the worker pool, virtual thread naming and logging
+     * @param dedicatedPoolSize the number of tasks the executor may run at once; 0 shares the Vert.x worker pool
+     * @return a new {@link ProbeExecutor}
+     */
+    public static ProbeExecutor create(Vertx vertx, String name, int dedicatedPoolSize)
+    {
+        var config = ConfigLoader.get().getJsonObject(PROBE_EXECUTOR);
+
+        if (config == null)
+        {
+            return new ProbeExecutor(vertx, name, FALSE, 0, dedicatedPoolSize);
+        }
+
+        return new ProbeExecutor(vertx, name,
+                config.getBoolean(VIRTUAL_THREADS, FALSE),
+                config.getInteger(MAX_CONCURRENCY, 1000),
+                dedicatedPoolSize);
+    }
+
+    /**
+     * Runs a blocking task and completes the returned future on the caller's context.
+     * Ordering between tasks is not preserved.
+     *
+     * @param task the blocking task to run
+     * @param <T>  the type of the task result
+     * @return a Future completed with the task result or failure
+     */
+    public <T> Future<T> execute(Callable<T> task)
+    {
+        if (workerExecutor != null)
+        {
+            return workerExecutor.executeBlocking(task, FALSE);
+        }
+
+        if (virtualExecutor == null)
+        {
+            return vertx.executeBlocking(task, FALSE);
+        }
+
+        var context = vertx.getOrCreateContext();
+
+        var promise = Promise.<T>promise();
+
+        try
+        {
+            virtualExecutor.execute(() ->
+            {
+                try
+                {
+                    permits.acquire();
+
+                    try
+                    {
+                        var result = task.call();
+
+                        context.runOnContext(v -> promise.complete(result));
+                    }
+                    finally
+                    {
+                        permits.release();
+                    }
+                }
+                catch (Exception exception)
+                {
+                    context.runOnContext(v -> promise.fail(exception));
+                }
+            });
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Failed to submit probe task: " + exception.getMessage());
+
+            promise.fail(exception);
+        }
+
+        return promise.future();
+    }
+
+    /**
+     * Stops accepting new tasks. Tasks already running are allowed to finish.
+     */
+    public void close()
+    {
+        if (virtualExecutor != null)
+        {
+            virtualExecutor.shutdown();
+        }
+
+        if (workerExecutor != null)
+        {
+            workerExecutor.close();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.utils;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+import org.example.utils.ConnectivityUtil.CheckType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.ReachabilityCacheConstants.*;
+import static org.example.constants.AppConstants.TRUE;
+
+/**
+ * Short-lived cache of PING and PORT check results, shared by discovery and polling.
+ * <p>
+ * Results are keyed by (check type, ip, port). Reachable results are kept for {@code reachability.cache.ttl}
+ * milliseconds, unreachable ones for {@code reachability.cache.negative.ttl}. Concurrent checks of the same
+ * target are deduplicated: the first caller runs the probe and the others wait for its result instead of
+ * probing again. The cache is an LRU map bounded by {@code reachability.cache.max.entries}.
+ * <p>
+ * The hit ratio only counts fresh results found in the cache; callers that waited for a probe in flight are
+ * reported apart as coalesced, since they still waited for a full probe.
+ * <p>
+ * Callers run on worker or virtual threads, so waiting for an in-flight probe blocks the caller just like
+ * running the probe itself would.
+ */
+public class ReachabilityCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReachabilityCache.class);
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+    private static final AtomicLong COALESCED_COUNT = new AtomicLong();
+
+    private static final boolean ENABLED_FLAG;
+
+    private static final long TTL_MS;
+
+    private static final long NEGATIVE_TTL_MS;
+
+    private static final int MAX_ENTRIES_LIMIT;
+
+    private static final Map<String, Entry> CACHE;
+
+    static
+    {
+        var config = ConfigLoader.get().getJsonObject(REACHABILITY_CACHE, new JsonObject());
+
+        ENABLED_FLAG = config.getBoolean(ENABLED, TRUE);
+
+        TTL_MS = config.getLong(TTL, 5000L);
+
+        NEGATIVE_TTL_MS = config.getLong(NEGATIVE_TTL, 2000L);
+
+        MAX_ENTRIES_LIMIT = config.getInteger(MAX_ENTRIES, 10000);
+
+        // An evicted probe in flight still completes for the callers already waiting on it
+        CACHE = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+            {
+                return size() > MAX_ENTRIES_LIMIT;
+            }
+        };
+
+        MetricsRegistry.register(REACHABILITY_CACHE, ReachabilityCache::getStats);
+    }
+
+    /**
+     * A cached or in-flight check result. The expiry is written before the result is completed,
+     * so readers that see a completed result also see its expiry.
+     */
+    private static class Entry
+    {
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private volatile long expiresAt;
+    }
+
+    /**
+     * Returns whether the target is reachable, running the probe only if no fresh result is cached
+     * and no other caller is probing the same target.
+     *
+     * @param checkType the type of check
+     * @param ip        the IP address checked
+     * @param port      the port checked, ignored for PING
+     * @param probe     runs the check; blocking
+     * @return true if the target is reachable
+     */
+    public static boolean isReachable(CheckType checkType, String ip, int port, BooleanSupplier probe)
+    {
+        if (!ENABLED_FLAG)
+        {
+            return probe.getAsBoolean();
+        }
+
+        var key = checkType == CheckType.PING ? checkType + "|" + ip : checkType + "|" + ip + "|" + port;
+
+        Entry entry;
+
+        var probing = false;
+
+        synchronized (CACHE)
+        {
+            entry = CACHE.get(key);
+
+            if (entry != null && entry.result.isDone() && System.currentTimeMillis() >= entry.expiresAt)
+            {
+                entry = null;
+            }
+
+            if (entry == null)
+            {
+                entry = new Entry();
+
+                CACHE.put(key, entry);
+
+                probing = true;
+            }
+        }
+
+        if (!probing)
+        {
+            if (entry.result.isDone())
+            {
+                HIT_COUNT.incrementAndGet();
+            }
+            else
+            {
+                COALESCED_COUNT.incrementAndGet();
+            }
+
+            return entry.result.join();
+        }
+
+        MISS_COUNT.incrementAndGet();
+
+        var reachable = false;
+
+        try
+        {
+            reachable = probe.getAsBoolean();
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Reachability probe failed for " + key + ": " + exception.getMessage());
+        }
+
+        entry.expiresAt = System.currentTimeMillis() + (reachable ? TTL_MS : NEGATIVE_TTL_MS);
+
+        entry.result.complete(reachable);
+
+        return reachable;
+    }
+
+    /**
+     * Builds a snapshot of the cache counters for the metrics endpoint.
+     *
+     * @return a JsonObject with hit, miss and coalesced counts, the hit ratio and the number of entries
+     */
+    public static JsonObject getStats()
+    {
+        int entries;
+
+        synchronized (CACHE)
+        {
+            entries = CACHE.size();
+        }
+
+        var hits = HIT_COUNT.get();
+
+        var misses = MISS_COUNT.get();
+
+        return new JsonObject()
+                .put(ENABLED, ENABLED_FLAG)
+                .put(HITS, hits)
+                .put(COALESCED, COALESCED_COUNT.get())
+                .put(MISSES, misses)
+                .put(HIT_RATIO, hits + misses == 0 ? 0.0 : (double) hits / (hits + misses))
+                .put(ENTRIES, entries);
+    }
+}
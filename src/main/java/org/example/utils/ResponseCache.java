@@ -0,0 +1,214 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.ResponseCacheConstants.*;
+import static org.example.constants.AppConstants.TRUE;
+
+/**
+ * Versioned cache of encoded HTTP response bodies, backing ETag and If-None-Match handling.
+ * <p>
+ * Every resource collection has a version, bumped by {@link #invalidate(String)} whenever its data changes.
+ * A response body is cached together with the version it was built from, and its ETag is derived from that
+ * version, so a client holding the current ETag can be answered with 304 without any lookup, and a cached
+ * body is served only while its version is current. The ETag also carries the start time of the process,
+ * so versions restarting from zero never produce an ETag a client has already seen.
+ * <p>
+ * Bodies are kept in an LRU map bounded by {@code response.cache.max.entries}; stale entries are dropped
+ * when they are next looked up.
+ */
+public class ResponseCache
+{
+    private static final String INSTANCE_TAG = Long.toString(System.currentTimeMillis(), 36);
+
+    private static final Map<String, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+    private static final AtomicLong NOT_MODIFIED_COUNT = new AtomicLong();
+
+    private static final AtomicLong INVALIDATION_COUNT = new AtomicLong();
+
+    private static final boolean ENABLED_FLAG;
+
+    private static final int MAX_ENTRIES_LIMIT;
+
+    private static final Map<String, CachedBody> CACHE;
+
+    static
+    {
+        var config = ConfigLoader.get().getJsonObject(RESPONSE_CACHE, new JsonObject());
+
+        ENABLED_FLAG = config.getBoolean(ENABLED, TRUE);
+
+        MAX_ENTRIES_LIMIT = config.getInteger(MAX_ENTRIES, 256);
+
+        CACHE = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedBody> eldest)
+            {
+                return size() > MAX_ENTRIES_LIMIT;
+            }
+        };
+
+        MetricsRegistry.register(RESPONSE_CACHE, ResponseCache::getStats);
+    }
+
+    private record CachedBody(long version, String body)
+    {
+    }
+
+    public static boolean isEnabled()
+    {
+        return ENABLED_FLAG;
+    }
+
+    /**
+     * Returns the current version of a collection. Read it before loading the data, so that a change made
+     * while the data is being loaded leaves the cached body stale instead of current.
+     *
+     * @param collection the collection name
+     * @return the current version of the collection
+     */
+    public static long version(String collection)
+    {
+        return VERSIONS.computeIfAbsent(collection, key -> new AtomicLong()).get();
+    }
+
+    /**
+     * Marks a collection as changed, so its current ETag and cached bodies no longer match.
+     *
+     * @param collection the collection name
+     */
+    public static void invalidate(String collection)
+    {
+        VERSIONS.computeIfAbsent(collection, key -> new AtomicLong()).incrementAndGet();
+
+        INVALIDATION_COUNT.incrementAndGet();
+    }
+
+    /**
+     * Builds the ETag of a collection at a version.
+     *
+     * @param collection the collection name
+     * @param version    the version of the collection
+     * @return the quoted ETag
+     */
+    public static String etag(String collection, long version)
+    {
+        return "\"" + collection + "-" + INSTANCE_TAG + "-" + version + "\"";
+    }
+
+    /**
+     * Checks an If-None-Match header against an ETag, counting the match.
+     *
+     * @param ifNoneMatch the header value, may be null
+     * @param etag        the current ETag
+     * @return true if the client already holds the current representation
+     */
+    public static boolean matches(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null)
+        {
+            return false;
+        }
+
+        for (var candidate : ifNoneMatch.split(","))
+        {
+            var tag = candidate.trim();
+
+            // Weak comparison, as required for If-None-Match
+            if (tag.startsWith("W/"))
+            {
+                tag = tag.substring(2);
+            }
+
+            if (tag.equals("*") || tag.equals(etag))
+            {
+                NOT_MODIFIED_COUNT.incrementAndGet();
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the cached body of a key if it was built from the given version.
+     *
+     * @param key     the cache key, usually the request path
+     * @param version the current version of the collection
+     * @return the encoded body, or null if none is cached for this version
+     */
+    public static String get(String key, long version)
+    {
+        synchronized (CACHE)
+        {
+            var cached = CACHE.get(key);
+
+            if (cached != null && cached.version() == version)
+            {
+                HIT_COUNT.incrementAndGet();
+
+                return cached.body();
+            }
+
+            if (cached != null)
+            {
+                CACHE.remove(key);
+            }
+        }
+
+        MISS_COUNT.incrementAndGet();
+
+        return null;
+    }
+
+    /**
+     * Caches an encoded body built from the given version.
+     *
+     * @param key     the cache key, usually the request path
+     * @param version the version of the collection the body was built from
+     * @param body    the encoded body
+     */
+    public static void put(String key, long version, String body)
+    {
+        synchronized (CACHE)
+        {
+            CACHE.put(key, new CachedBody(version, body));
+        }
+    }
+
+    private static JsonObject getStats()
+    {
+        int entries;
+
+        synchronized (CACHE)
+        {
+            entries = CACHE.size();
+        }
+
+        var hits = HIT_COUNT.get();
+
+        var misses = MISS_COUNT.get();
+
+        return new JsonObject()
+                .put(ENABLED, ENABLED_FLAG)
+                .put(HITS, hits)
+                .put(MISSES, misses)
+                .put(NOT_MODIFIED, NOT_MODIFIED_COUNT.get())
+                .put(HIT_RATIO, hits + misses == 0 ? 0.0 : (double) hits / (hits + misses))
+                .put(INVALIDATIONS, INVALIDATION_COUNT.get())
+                .put(ENTRIES, entries);
+    }
+}
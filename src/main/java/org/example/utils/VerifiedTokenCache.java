@@ -0,0 +1,159 @@
+package org.example.utils;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.constants.AppConstants.JwtCacheConstants.*;
+import static org.example.constants.AppConstants.MetricsField.*;
+import static org.example.constants.AppConstants.TRUE;
+
+/**
+ * Cache of access tokens whose signature has already been verified, so that repeated requests with the same
+ * token skip parsing and signature verification.
+ * <p>
+ * Entries are keyed by the SHA-256 hash of the token, so raw tokens are never kept in memory, and expire at
+ * the token's {@code exp} claim; tokens without one are not cached. The cache is an LRU map bounded by
+ * {@code jwt.cache.max.entries}.
+ */
+public class VerifiedTokenCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+    private static final boolean ENABLED_FLAG;
+
+    private static final int MAX_ENTRIES_LIMIT;
+
+    private static final Map<String, Entry> CACHE;
+
+    static
+    {
+        var config = ConfigLoader.get().getJsonObject(JWT_CACHE, new JsonObject());
+
+        ENABLED_FLAG = config.getBoolean(ENABLED, TRUE);
+
+        MAX_ENTRIES_LIMIT = config.getInteger(MAX_ENTRIES, 10000);
+
+        CACHE = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+            {
+                return size() > MAX_ENTRIES_LIMIT;
+            }
+        };
+
+        MetricsRegistry.register(JWT_CACHE, VerifiedTokenCache::getStats);
+    }
+
+    private record Entry(User user, long expiresAt)
+    {
+    }
+
+    public static boolean isEnabled()
+    {
+        return ENABLED_FLAG;
+    }
+
+    /**
+     * Returns the user of an already verified, unexpired token.
+     *
+     * @param token the raw bearer token
+     * @return the cached user, or null if the token must be verified
+     */
+    public static User get(String token)
+    {
+        var key = hash(token);
+
+        synchronized (CACHE)
+        {
+            var entry = CACHE.get(key);
+
+            if (entry != null && System.currentTimeMillis() < entry.expiresAt())
+            {
+                HIT_COUNT.incrementAndGet();
+
+                return entry.user();
+            }
+
+            if (entry != null)
+            {
+                CACHE.remove(key);
+            }
+        }
+
+        MISS_COUNT.incrementAndGet();
+
+        return null;
+    }
+
+    /**
+     * Caches the user of a freshly verified token until the token expires.
+     *
+     * @param token the raw bearer token
+     * @param user  the user the token was verified to
+     */
+    public static void put(String token, User user)
+    {
+        // JWTAuth keeps the claims of the token in the attributes of the user, the principal only has the token
+        var exp = user.attributes().getLong(EXP);
+
+        if (exp == null)
+        {
+            return;
+        }
+
+        synchronized (CACHE)
+        {
+            CACHE.put(hash(token), new Entry(user, exp * 1000));
+        }
+    }
+
+    private static String hash(String token)
+    {
+        try
+        {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (Exception exception)
+        {
+            // SHA-256 is always available, this is not expected to happen
+            LOGGER.error("Failed to hash token: " + exception.getMessage());
+
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static JsonObject getStats()
+    {
+        int entries;
+
+        synchronized (CACHE)
+        {
+            entries = CACHE.size();
+        }
+
+        var hits = HIT_COUNT.get();
+
+        var misses = MISS_COUNT.get();
+
+        return new JsonObject()
+                .put(ENABLED, ENABLED_FLAG)
+                .put(HITS, hits)
+                .put(MISSES, misses)
+                .put(HIT_RATIO, hits + misses == 0 ? 0.0 : (double) hits / (hits + misses))
+                .put(ENTRIES, entries);
+    }
+}
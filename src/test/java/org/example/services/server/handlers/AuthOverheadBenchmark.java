@@ -0,0 +1,81 @@
+package org.example.services.server.handlers;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.JWTOptions;
+import io.vertx.ext.auth.authentication.AuthenticationProvider;
+import io.vertx.ext.auth.authentication.TokenCredentials;
+import org.example.utils.ConfigLoader;
+
+import java.nio.file.Files;
+
+/**
+ * Measures the authentication cost of a request carrying an access token seen before, with a plain HS256
+ * {@code JWTAuth} and with {@link CachingJWTAuth}.
+ * <p>
+ * Not run by the build; run its {@code main} on the test classpath. Each round authenticates the same token
+ * {@code ITERATIONS} times and prints the mean time per request; the first rounds are warm-up.
+ */
+public class AuthOverheadBenchmark
+{
+    private static final int ROUNDS = 8;
+
+    private static final int ITERATIONS = 200000;
+
+    public static void main(String[] args) throws Exception
+    {
+        var config = Files.createTempFile("benchmark", ".json");
+
+        Files.writeString(config, new JsonObject()
+                .put("jwt.cache", new JsonObject().put("enabled", true).put("max.entries", 10000))
+                .encode());
+
+        ConfigLoader.init(config.toString());
+
+        var vertx = Vertx.vertx();
+
+        try
+        {
+            var jwtAuth = CachingJWTAuthTest.create(vertx);
+
+            var cachingAuth = new CachingJWTAuth(jwtAuth);
+
+            var token = jwtAuth.generateToken(new JsonObject().put("username", "admin").put("role", "admin"),
+                    new JWTOptions().setExpiresInMinutes(15));
+
+            for (var round = 1; round <= ROUNDS; round++)
+            {
+                System.out.printf("round %d: verify %.0f ns/request, cached %.0f ns/request%n",
+                        round, measure(jwtAuth, token), measure(cachingAuth, token));
+            }
+        }
+        finally
+        {
+            vertx.close();
+
+            Files.delete(config);
+        }
+    }
+
+    private static double measure(AuthenticationProvider provider, String token)
+    {
+        var start = System.nanoTime();
+
+        var failed = 0;
+
+        for (var i = 0; i < ITERATIONS; i++)
+        {
+            if (provider.authenticate(new TokenCredentials(token)).failed())
+            {
+                failed++;
+            }
+        }
+
+        if (failed > 0)
+        {
+            throw new IllegalStateException(failed + " authentications failed");
+        }
+
+        return (System.nanoTime() - start) / (double) ITERATIONS;
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.services.server.handlers;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.JWTOptions;
+import io.vertx.ext.auth.PubSecKeyOptions;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.authentication.TokenCredentials;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.auth.jwt.JWTAuthOptions;
+import org.example.utils.ConfigLoader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingJWTAuthTest
+{
+    private static Vertx vertx;
+
+    private static JWTAuth jwtAuth;
+
+    private static CachingJWTAuth cachingAuth;
+
+    @BeforeAll
+    static void setUp(@TempDir Path directory) throws Exception
+    {
+        var config = directory.resolve("config.json");
+
+        Files.writeString(config, new JsonObject()
+                .put("jwt.cache", new JsonObject().put("enabled", true).put("max.entries", 100))
+                .encode());
+
+        ConfigLoader.init(config.toString());
+
+        vertx = Vertx.vertx();
+
+        jwtAuth = create(vertx);
+
+        cachingAuth = new CachingJWTAuth(jwtAuth);
+    }
+
+    @AfterAll
+    static void tearDown()
+    {
+        vertx.close();
+    }
+
+    @Test
+    void answersAVerifiedTokenFromTheCache() throws Exception
+    {
+        var token = jwtAuth.generateToken(new JsonObject().put("username", "cached"), new JWTOptions().setExpiresInMinutes(15));
+
+        assertSame(authenticate(token), authenticate(token));
+    }
+
+    @Test
+    void verifiesATokenWithoutExpiryEveryTime() throws Exception
+    {
+        var token = jwtAuth.generateToken(new JsonObject().put("username", "uncached"), new JWTOptions());
+
+        assertNotSame(authenticate(token), authenticate(token));
+    }
+
+    @Test
+    void rejectsATokenSignedWithAnotherKey() throws Exception
+    {
+        var token = jwtAuth.generateToken(new JsonObject().put("username", "forged"), new JWTOptions().setExpiresInMinutes(15));
+
+        var forged = token.substring(0, token.lastIndexOf('.') + 1) + "c2lnbmF0dXJl";
+
+        assertThrows(ExecutionException.class, () -> authenticate(forged));
+
+        assertThrows(ExecutionException.class, () -> authenticate(forged));
+    }
+
+    static JWTAuth create(Vertx vertx)
+    {
+        return JWTAuth.create(vertx, new JWTAuthOptions()
+                .addPubSecKey(new PubSecKeyOptions().setAlgorithm("HS256").setBuffer("test-only-secret-for-hs256-signing")));
+    }
+
+    private static User authenticate(String token) throws Exception
+    {
+        return cachingAuth.authenticate(new TokenCredentials(token)).toCompletionStage().toCompletableFuture().get();
+    }
+}
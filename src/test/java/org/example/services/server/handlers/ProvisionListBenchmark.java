@@ -0,0 +1,178 @@
+package org.example.services.server.handlers;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.example.utils.ConfigLoader;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bytes on the wire and the latency of a provisioned device list response, as it was sent before
+ * (pretty-printed, uncompressed) and as it is sent now (compact, gzip when accepted).
+ * <p>
+ * Not run by the build; run its {@code main} on the test classpath. The list holds {@code DEVICES} devices with
+ * {@code POLLING_RESULTS} metrics documents each, the size of a default {@code GET /provision} page, and is ended
+ * through {@link AbstractCrudHandler#endJson} by a server with the compression options of
+ * {@code HttpServerVerticle}. The client does not decompress, so the bytes counted are those sent. Each round
+ * fetches every variant {@code ITERATIONS} times over loopback and prints bytes and mean time per response; the
+ * first rounds are warm-up. Loopback has no bandwidth limit, so the time to send the bytes over a real link is
+ * printed next to it.
+ */
+public class ProvisionListBenchmark
+{
+    private static final int ROUNDS = 6;
+
+    private static final int ITERATIONS = 20;
+
+    private static final int DEVICES = 500;
+
+    private static final int POLLING_RESULTS = 20;
+
+    // Link used to convert bytes to transfer time, in bits per second
+    private static final double LINK_SPEED = 100e6;
+
+    public static void main(String[] args) throws Exception
+    {
+        var config = Files.createTempFile("benchmark", ".json");
+
+        Files.writeString(config, new JsonObject()
+                .put("http.server.compression", new JsonObject().put("enabled", true).put("level", 6).put("min.size", 1024))
+                .encode());
+
+        ConfigLoader.init(config.toString());
+
+        Files.delete(config);
+
+        var list = provisions();
+
+        var pretty = list.encodePrettily();
+
+        var compact = list.encode();
+
+        var vertx = Vertx.vertx();
+
+        try
+        {
+            var server = vertx.createHttpServer(new HttpServerOptions().setCompressionSupported(true).setCompressionLevel(6))
+                    .requestHandler(request -> AbstractCrudHandler.endJson(request.response(), 200,
+                            request.path().equals("/pretty") ? pretty : compact))
+                    .listen(0)
+                    .toCompletionStage().toCompletableFuture().get();
+
+            var client = vertx.createHttpClient(new HttpClientOptions()
+                    .setDecompressionSupported(false)
+                    .setDefaultPort(server.actualPort()));
+
+            for (var round = 1; round <= ROUNDS; round++)
+            {
+                System.out.printf("round %d: %s, %s, %s%n", round,
+                        measure(client, "pretty", "/pretty", null),
+                        measure(client, "compact", "/compact", null),
+                        measure(client, "compact gzip", "/compact", "gzip"));
+            }
+        }
+        finally
+        {
+            vertx.close();
+        }
+    }
+
+    private static String measure(HttpClient client, String variant, String path, String acceptEncoding) throws Exception
+    {
+        var bytes = 0L;
+
+        var start = System.nanoTime();
+
+        for (var i = 0; i < ITERATIONS; i++)
+        {
+            var body = client.request(HttpMethod.GET, path)
+                    .compose(request ->
+                    {
+                        if (acceptEncoding != null)
+                        {
+                            request.putHeader("Accept-Encoding", acceptEncoding);
+                        }
+
+                        return request.send();
+                    })
+                    .compose(response -> response.body())
+                    .toCompletionStage().toCompletableFuture().get(1, TimeUnit.MINUTES);
+
+            bytes = body.length();
+        }
+
+        var millis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+        return String.format("%s %d bytes %.1f ms (+%.1f ms at %.0f Mbit/s)", variant, bytes, millis,
+                bytes * 8 / LINK_SPEED * 1000, LINK_SPEED / 1e6);
+    }
+
+    private static JsonObject provisions()
+    {
+        var provisions = new JsonArray();
+
+        for (var i = 0; i < DEVICES; i++)
+        {
+            var pollingResults = new JsonArray();
+
+            for (var j = 0; j < POLLING_RESULTS; j++)
+            {
+                pollingResults.add(new JsonObject()
+                        .put("polled.at", "2026-10-18T12:" + String.format("%02d", 59 - j) + ":00")
+                        .put("metrics", metrics(i, j)));
+            }
+
+            provisions.add(new JsonObject()
+                    .put("id", i)
+                    .put("name", "host-" + i)
+                    .put("ip", "10.0." + i / 256 + "." + i % 256)
+                    .put("port", 22)
+                    .put("is.polling", true)
+                    .put("is.critical", i % 10 == 0)
+                    .put("credential.profile.id", 1)
+                    .put("availability.percent", 99.31)
+                    .put("polling.results", pollingResults));
+        }
+
+        return new JsonObject().put("provisions", provisions);
+    }
+
+    private static JsonObject metrics(int device, int poll)
+    {
+        var disks = new JsonArray();
+
+        for (var i = 0; i < 4; i++)
+        {
+            disks.add(new JsonObject()
+                    .put("mount", "/data" + i)
+                    .put("size", "512 GB")
+                    .put("used", (100 + i * 37 + poll) + " GB")
+                    .put("used.percent", (20 + i * 7) + " %"));
+        }
+
+        return new JsonObject()
+                .put("system.name", "host-" + device)
+                .put("uptime", (1728000 + poll * 30) + " s")
+                .put("cpu.cores", 16)
+                .put("cpu.usage", (20 + (device + poll) % 60) + "." + poll % 10 + " %")
+                .put("cpu.load.1", 1.42 + poll / 100.0)
+                .put("cpu.load.5", 1.17)
+                .put("cpu.load.15", 0.98)
+                .put("memory.total", "64 GB")
+                .put("memory.used", (20 + poll % 8) + ".4 GB")
+                .put("memory.free", (44 - poll % 8) + ".6 GB")
+                .put("memory.used.percent", "36.5 %")
+                .put("swap.used", "0 MB")
+                .put("processes", 400 + poll)
+                .put("threads", 1893 + device % 50)
+                .put("network.rx", (1834223 + device * 31 + poll * 977) + " B/s")
+                .put("network.tx", (922341 + device * 17 + poll * 313) + " B/s")
+                .put("disks", disks);
+    }
+}
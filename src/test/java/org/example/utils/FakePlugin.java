@@ -0,0 +1,98 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.example.constants.AppConstants.PluginConstants.FRAMING_OPTION;
+
+/**
+ * Stand-in for the SSH plugin, speaking both of its framings.
+ * <p>
+ * Run as {@code FakePlugin <command> [--framing=binary]}, it reads the device list and answers one result per
+ * device: the device itself with the command and {@code "status": "Up"}. With {@code TEXT_ONLY} in its
+ * environment it behaves like a plugin without binary framing and rejects the option; with {@code CRASH} it
+ * reads the request and dies like a panicking Go program, exit code 2 included. Each run appends its arguments
+ * to the file named by {@code LOG}, if set.
+ */
+public class FakePlugin
+{
+    static final String TEXT_ONLY = "FAKE_PLUGIN_TEXT_ONLY";
+
+    static final String CRASH = "FAKE_PLUGIN_CRASH";
+
+    static final String LOG = "FAKE_PLUGIN_LOG";
+
+    public static void main(String[] args) throws Exception
+    {
+        var command = args[0];
+
+        var binary = List.of(args).contains(FRAMING_OPTION);
+
+        if (System.getenv(LOG) != null)
+        {
+            Files.writeString(Path.of(System.getenv(LOG)), String.join(" ", args) + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        if (binary && System.getenv(TEXT_ONLY) != null)
+        {
+            System.err.println("flag provided but not defined: -framing");
+
+            System.exit(2);
+        }
+
+        if (binary)
+        {
+            var codec = new PluginFrameCodec(PluginFrameCodec.FROM_PLUGIN, PluginFrameCodec.FROM_BACKEND, 16777216);
+
+            var devices = codec.readDeviceList(new DataInputStream(System.in));
+
+            if (System.getenv(CRASH) != null)
+            {
+                System.err.println("panic: runtime error: invalid memory address or nil pointer dereference");
+
+                System.exit(2);
+            }
+
+            try (var output = new DataOutputStream(new BufferedOutputStream(System.out)))
+            {
+                for (var i = 0; i < devices.size(); i++)
+                {
+                    codec.writeFrame(output, answer(devices.getJsonObject(i), command).toBuffer().getBytes());
+                }
+            }
+        }
+        else
+        {
+            var input = new BufferedReader(new InputStreamReader(System.in)).readLine();
+
+            var devices = new JsonArray(DecryptionUtil.decrypt(input));
+
+            try (var output = new BufferedWriter(new OutputStreamWriter(System.out)))
+            {
+                for (var i = 0; i < devices.size(); i++)
+                {
+                    output.write(EncryptionUtil.encrypt(answer(devices.getJsonObject(i), command).encode()));
+
+                    output.newLine();
+                }
+            }
+        }
+    }
+
+    private static JsonObject answer(JsonObject device, String command)
+    {
+        return device.copy().put("command", command).put("status", "Up");
+    }
+}
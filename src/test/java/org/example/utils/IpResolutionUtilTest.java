@@ -0,0 +1,222 @@
+package org.example.utils;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponseCode;
+import io.netty.handler.codec.dns.DnsSection;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.example.MainApp;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Resolves against a stub DNS server on the loopback interface that answers A queries from a fixed table,
+ * NXDOMAIN for unknown names and no records otherwise.
+ */
+class IpResolutionUtilTest
+{
+    private static final Map<String, String> RECORDS = Map.of(
+            "db.lab.example.", "10.0.0.5",
+            "web.example.", "10.0.0.6",
+            "api.lab.example.", "10.0.0.7",
+            "api.lab.example.lab.example.", "10.0.0.8");
+
+    private static final List<String> QUERIES = new CopyOnWriteArrayList<>();
+
+    private static EventLoopGroup group;
+
+    private static Channel server;
+
+    @BeforeAll
+    static void setUp(@TempDir Path directory) throws Exception
+    {
+        group = new NioEventLoopGroup(1);
+
+        server = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new ChannelInitializer<DatagramChannel>()
+                {
+                    @Override
+                    protected void initChannel(DatagramChannel channel)
+                    {
+                        channel.pipeline().addLast(new DatagramDnsQueryDecoder(), new DatagramDnsResponseEncoder(), new StubDnsHandler());
+                    }
+                })
+                .bind("127.0.0.1", 0)
+                .sync()
+                .channel();
+
+        // Created first: MainApp loads the application config when initialized
+        MainApp.getVertx();
+
+        var config = directory.resolve("config.json");
+
+        Files.writeString(config, new JsonObject()
+                .put("ip.resolution.timeout", 2000)
+                .put("ip.resolution.dns.host", "127.0.0.1")
+                .put("ip.resolution.dns.port", ((InetSocketAddress) server.localAddress()).getPort())
+                .put("ip.resolution.search", new JsonArray().add("lab.example").add("example"))
+                .put("ip.resolution.ndots", 1)
+                .encode());
+
+        ConfigLoader.init(config.toString());
+    }
+
+    @AfterAll
+    static void tearDown()
+    {
+        server.close();
+
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    @BeforeEach
+    void clearQueries()
+    {
+        QUERIES.clear();
+    }
+
+    @Test
+    void resolvesShortNamesThroughTheSearchDomains() throws Exception
+    {
+        assertEquals("10.0.0.5", resolve("db"));
+
+        assertEquals("10.0.0.6", resolve("web"));
+
+        assertEquals(List.of("db.lab.example.", "web.lab.example.", "web.example."), aQueries());
+    }
+
+    @Test
+    void triesNamesWithEnoughDotsAsGivenFirst() throws Exception
+    {
+        assertEquals("10.0.0.7", resolve("api.lab.example"));
+
+        assertEquals(List.of("api.lab.example."), aQueries());
+    }
+
+    @Test
+    void neverSearchesAbsoluteNames() throws Exception
+    {
+        assertNull(resolve("mail."));
+
+        assertEquals(List.of("mail."), aQueries());
+    }
+
+    @Test
+    void returnsNullForUnknownNames() throws Exception
+    {
+        assertNull(resolve("unknown"));
+
+        assertEquals(List.of("unknown.lab.example.", "unknown.example.", "unknown."), aQueries());
+    }
+
+    @Test
+    void validatesIpLiteralsWithoutQueries() throws Exception
+    {
+        assertEquals("10.1.2.3", resolve("10.1.2.3"));
+
+        assertEquals(InetAddress.getByName("2001:db8::1").getHostAddress(), resolve("2001:db8::1"));
+
+        assertNull(resolve("10.1.2.3:22"));
+
+        assertNull(resolve("[2001:db8::1]:22"));
+
+        assertNull(resolve("printer.local:631"));
+
+        assertTrue(QUERIES.isEmpty());
+    }
+
+    @Test
+    void parsesTheSearchListOfResolvConf(@TempDir Path directory) throws Exception
+    {
+        var resolvConf = directory.resolve("resolv.conf");
+
+        Files.writeString(resolvConf, """
+                # generated
+                nameserver 10.0.0.53
+                domain corp.example
+                search lab.example example
+                options timeout:2 ndots:3
+                """);
+
+        var searchList = IpResolutionUtil.parseResolvConf(resolvConf);
+
+        assertEquals(List.of("lab.example", "example"), searchList.domains());
+
+        assertEquals(3, searchList.ndots());
+
+        assertEquals(new IpResolutionUtil.SearchList(List.of(), 1), IpResolutionUtil.parseResolvConf(directory.resolve("missing")));
+    }
+
+    private static String resolve(String host) throws Exception
+    {
+        return IpResolutionUtil.resolve(host).toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private static List<String> aQueries()
+    {
+        return QUERIES.stream().filter(query -> query.startsWith("A ")).map(query -> query.substring(2)).toList();
+    }
+
+    private static class StubDnsHandler extends SimpleChannelInboundHandler<DatagramDnsQuery>
+    {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramDnsQuery query) throws Exception
+        {
+            DnsQuestion question = query.recordAt(DnsSection.QUESTION);
+
+            QUERIES.add(question.type().name() + " " + question.name());
+
+            var response = new DatagramDnsResponse(query.recipient(), query.sender(), query.id());
+
+            response.addRecord(DnsSection.QUESTION, question);
+
+            var address = RECORDS.get(question.name());
+
+            if (address == null)
+            {
+                response.setCode(DnsResponseCode.NXDOMAIN);
+            }
+            else if (question.type() == DnsRecordType.A)
+            {
+                response.addRecord(DnsSection.ANSWER, new DefaultDnsRawRecord(question.name(), DnsRecordType.A, 60,
+                        Unpooled.wrappedBuffer(InetAddress.getByName(address).getAddress())));
+            }
+
+            ctx.writeAndFlush(response);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.example.utils.MetricsUtil.Metric;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class MetricsUtilTest
+{
+    @Test
+    void convertsKnownUnitsToTheirBaseUnit()
+    {
+        var metrics = MetricsUtil.flatten(new JsonObject()
+                .put("memory.total", "64 GB")
+                .put("memory.used", "512 MiB")
+                .put("swap.used", "0 MB")
+                .put("network.rx", "2 KB/s")
+                .put("uptime", "1.5 h")
+                .put("latency", "250ms")
+                .put("cpu.frequency", "2.4 GHz"));
+
+        assertEquals(new Metric(64 * Math.pow(1024, 3), "B"), metrics.get("memory.total"));
+
+        assertEquals(new Metric(512 * Math.pow(1024, 2), "B"), metrics.get("memory.used"));
+
+        assertEquals(new Metric(0, "B"), metrics.get("swap.used"));
+
+        assertEquals(new Metric(2048, "B/s"), metrics.get("network.rx"));
+
+        assertEquals(new Metric(5400, "s"), metrics.get("uptime"));
+
+        assertEquals(new Metric(0.25, "s"), metrics.get("latency"));
+
+        assertEquals(new Metric(2.4e9, "Hz"), metrics.get("cpu.frequency"));
+    }
+
+    @Test
+    void keepsOtherUnitsAsWrittenAndSkipsNonNumbers()
+    {
+        var metrics = MetricsUtil.flatten(new JsonObject()
+                .put("cpu.usage", "23.5 %")
+                .put("cpu.cores", 16)
+                .put("reachable", true)
+                .put("temperature", "41 C")
+                .put("system.name", "host-1")
+                .put("disks", new JsonArray().add(new JsonObject().put("used", "100 GB"))));
+
+        assertEquals(new Metric(23.5, "%"), metrics.get("cpu.usage"));
+
+        assertEquals(new Metric(16, ""), metrics.get("cpu.cores"));
+
+        assertEquals(new Metric(1, ""), metrics.get("reachable"));
+
+        assertEquals(new Metric(41, "C"), metrics.get("temperature"));
+
+        assertEquals(new Metric(100 * Math.pow(1024, 3), "B"), metrics.get("disks.0.used"));
+
+        assertFalse(metrics.containsKey("system.name"));
+    }
+}
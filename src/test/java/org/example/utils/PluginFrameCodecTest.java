@@ -0,0 +1,146 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PluginFrameCodecTest
+{
+    private static final int MAX_FRAME_SIZE = 16777216;
+
+    private static final JsonObject FIRST = new JsonObject().put("id", 1).put("ip", "10.0.0.1").put("status", "Up");
+
+    private static final JsonObject SECOND = new JsonObject().put("id", 2).put("ip", "10.0.0.2").put("status", "Down");
+
+    @Test
+    void roundTripsTheDeviceListAndTheResults() throws Exception
+    {
+        var backend = backend();
+
+        var plugin = plugin();
+
+        var devices = new JsonArray()
+                .add(new JsonObject().put("id", 1).put("ip", "10.0.0.1").put("port", 22))
+                .add(new JsonObject().put("id", 2).put("ip", "10.0.0.2").put("port", 2222));
+
+        var request = new ByteArrayOutputStream();
+
+        backend.writeFrame(new DataOutputStream(request), devices.toBuffer().getBytes());
+
+        assertEquals(devices, plugin.readDeviceList(input(request.toByteArray())));
+
+        var in = input(pluginFrames(plugin, FIRST, SECOND));
+
+        assertEquals(FIRST, backend.readFrame(in));
+
+        assertEquals(SECOND, backend.readFrame(in));
+
+        assertNull(backend.readFrame(in));
+    }
+
+    @Test
+    void rejectsATamperedFrameAndReadsTheNextOne() throws Exception
+    {
+        var frames = pluginFrames(plugin(), FIRST, SECOND);
+
+        // Last byte of the first frame's ciphertext, after its 4-byte length and 12-byte nonce
+        var firstLength = new DataInputStream(new ByteArrayInputStream(frames)).readInt();
+
+        frames[4 + firstLength - 17] ^= 1;
+
+        var backend = backend();
+
+        var in = input(frames);
+
+        assertThrows(AEADBadTagException.class, () -> backend.readFrame(in));
+
+        assertEquals(SECOND, backend.readFrame(in));
+    }
+
+    @Test
+    void rejectsReorderedFrames() throws Exception
+    {
+        var frames = pluginFrames(plugin(), FIRST, SECOND);
+
+        var firstLength = 4 + new DataInputStream(new ByteArrayInputStream(frames)).readInt();
+
+        var swapped = new byte[frames.length];
+
+        System.arraycopy(frames, firstLength, swapped, 0, frames.length - firstLength);
+
+        System.arraycopy(frames, 0, swapped, frames.length - firstLength, firstLength);
+
+        var backend = backend();
+
+        var in = input(swapped);
+
+        assertThrows(AEADBadTagException.class, () -> backend.readFrame(in));
+
+        assertThrows(AEADBadTagException.class, () -> backend.readFrame(in));
+    }
+
+    @Test
+    void rejectsAFrameReflectedBackToItsSender() throws Exception
+    {
+        var backend = backend();
+
+        var request = new ByteArrayOutputStream();
+
+        backend.writeFrame(new DataOutputStream(request), FIRST.toBuffer().getBytes());
+
+        assertThrows(AEADBadTagException.class, () -> backend().readFrame(input(request.toByteArray())));
+    }
+
+    @Test
+    void encryptsEveryFrameUnderAFreshNonce() throws Exception
+    {
+        var first = pluginFrames(plugin(), FIRST);
+
+        var second = pluginFrames(plugin(), FIRST);
+
+        assertEquals(first.length, second.length);
+
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    private static PluginFrameCodec backend() throws Exception
+    {
+        return new PluginFrameCodec(PluginFrameCodec.FROM_BACKEND, PluginFrameCodec.FROM_PLUGIN, MAX_FRAME_SIZE);
+    }
+
+    private static PluginFrameCodec plugin() throws Exception
+    {
+        return new PluginFrameCodec(PluginFrameCodec.FROM_PLUGIN, PluginFrameCodec.FROM_BACKEND, MAX_FRAME_SIZE);
+    }
+
+    private static byte[] pluginFrames(PluginFrameCodec plugin, JsonObject... results) throws Exception
+    {
+        var out = new ByteArrayOutputStream();
+
+        var data = new DataOutputStream(out);
+
+        for (var result : results)
+        {
+            plugin.writeFrame(data, result.toBuffer().getBytes());
+        }
+
+        return out.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes)
+    {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
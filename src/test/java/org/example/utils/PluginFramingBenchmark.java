@@ -0,0 +1,180 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Measures how fast the backend reads a plugin's metrics results in text lines and in binary frames.
+ * <p>
+ * Not run by the build; run its {@code main} on the test classpath. The plugin side is replaced by an in-memory
+ * {@link Process} replaying the output {@link FakePlugin} would write for {@code DEVICES} metrics documents, so
+ * that process start-up and SSH do not hide the cost of the framing itself. Each round runs both exchanges
+ * {@code ITERATIONS} times and prints results per second and bytes read per result; the first rounds are warm-up.
+ */
+public class PluginFramingBenchmark
+{
+    private static final int ROUNDS = 10;
+
+    private static final int ITERATIONS = 50;
+
+    private static final int DEVICES = 1000;
+
+    public static void main(String[] args) throws Exception
+    {
+        var config = Files.createTempFile("benchmark", ".json");
+
+        Files.writeString(config, new JsonObject().put("plugin.max.frame.size", 16777216).encode());
+
+        ConfigLoader.init(config.toString());
+
+        Files.delete(config);
+
+        var devices = new JsonArray();
+
+        var textOutput = new StringBuilder();
+
+        var binaryOutput = new ByteArrayOutputStream();
+
+        var plugin = new PluginFrameCodec(PluginFrameCodec.FROM_PLUGIN, PluginFrameCodec.FROM_BACKEND, 16777216);
+
+        try (var frames = new DataOutputStream(binaryOutput))
+        {
+            for (var i = 0; i < DEVICES; i++)
+            {
+                var device = new JsonObject().put("id", i).put("ip", "10.0." + i / 256 + "." + i % 256).put("port", 22);
+
+                devices.add(device);
+
+                var result = metrics(device);
+
+                textOutput.append(EncryptionUtil.encrypt(result.encode())).append('\n');
+
+                plugin.writeFrame(frames, result.toBuffer().getBytes());
+            }
+        }
+
+        var text = textOutput.toString().getBytes(StandardCharsets.UTF_8);
+
+        var binary = binaryOutput.toByteArray();
+
+        for (var round = 1; round <= ROUNDS; round++)
+        {
+            var textRate = measure(devices, text, false);
+
+            var binaryRate = measure(devices, binary, true);
+
+            System.out.printf("round %d: text %.0f results/s (%d bytes/result), binary %.0f results/s (%d bytes/result), %.2fx%n",
+                    round, textRate, text.length / DEVICES, binaryRate, binary.length / DEVICES, binaryRate / textRate);
+        }
+    }
+
+    private static double measure(JsonArray devices, byte[] output, boolean binary) throws Exception
+    {
+        var start = System.nanoTime();
+
+        for (var i = 0; i < ITERATIONS; i++)
+        {
+            var process = new ReplayedProcess(output);
+
+            var results = binary ? PluginOperationsUtil.exchangeFrames(process, devices) : PluginOperationsUtil.exchangeLines(process, devices);
+
+            if (results.size() != DEVICES)
+            {
+                throw new IllegalStateException(results.size() + " results read instead of " + DEVICES);
+            }
+        }
+
+        return ITERATIONS * (double) DEVICES / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static JsonObject metrics(JsonObject device)
+    {
+        var disks = new JsonArray();
+
+        for (var i = 0; i < 4; i++)
+        {
+            disks.add(new JsonObject()
+                    .put("mount", "/data" + i)
+                    .put("size", "512 GB")
+                    .put("used", (100 + i * 37) + " GB")
+                    .put("used.percent", (20 + i * 7) + " %"));
+        }
+
+        return device.copy()
+                .put("command", "metrics")
+                .put("status", "Up")
+                .put("system.name", "host-" + device.getInteger("id"))
+                .put("uptime", "1728000 s")
+                .put("cpu.cores", 16)
+                .put("cpu.usage", "23.5 %")
+                .put("cpu.load.1", 1.42)
+                .put("cpu.load.5", 1.17)
+                .put("cpu.load.15", 0.98)
+                .put("memory.total", "64 GB")
+                .put("memory.used", "23.4 GB")
+                .put("memory.free", "40.6 GB")
+                .put("memory.used.percent", "36.5 %")
+                .put("swap.used", "0 MB")
+                .put("processes", 412)
+                .put("threads", 1893)
+                .put("network.rx", "1834223 B/s")
+                .put("network.tx", "922341 B/s")
+                .put("disks", disks);
+    }
+
+    /**
+     * A plugin process that has already exited, having written the given output.
+     */
+    private static class ReplayedProcess extends Process
+    {
+        private final InputStream output;
+
+        private ReplayedProcess(byte[] output)
+        {
+            this.output = new ByteArrayInputStream(output);
+        }
+
+        @Override
+        public OutputStream getOutputStream()
+        {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream()
+        {
+            return output;
+        }
+
+        @Override
+        public InputStream getErrorStream()
+        {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor()
+        {
+            return 0;
+        }
+
+        @Override
+        public int exitValue()
+        {
+            return 0;
+        }
+
+        @Override
+        public void destroy()
+        {
+        }
+    }
+}
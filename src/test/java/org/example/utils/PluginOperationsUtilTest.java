@@ -0,0 +1,114 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs {@link FakePlugin} as the plugin executable, through a shell script starting it on the test classpath.
+ */
+class PluginOperationsUtilTest
+{
+    private static final JsonArray DEVICES = new JsonArray()
+            .add(new JsonObject().put("id", 1).put("ip", "10.0.0.1").put("port", 22))
+            .add(new JsonObject().put("id", 2).put("ip", "10.0.0.2").put("port", 22));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void exchangesBinaryFramesWithAPluginThatSupportsThem() throws Exception
+    {
+        configure(plugin(null), "binary");
+
+        assertResults(PluginOperationsUtil.runSSHMetrics(DEVICES), "metrics");
+    }
+
+    @Test
+    void fallsBackToTextLinesWhenThePluginRejectsBinaryFraming() throws Exception
+    {
+        configure(plugin(FakePlugin.TEXT_ONLY), "binary");
+
+        assertResults(PluginOperationsUtil.runSSHReachability(DEVICES), "reachability");
+
+        // Known to be text-only from now on
+        assertResults(PluginOperationsUtil.runSSHReachability(DEVICES), "reachability");
+
+        assertEquals(List.of("reachability --framing=binary", "reachability", "reachability"), runs());
+    }
+
+    @Test
+    void failsWithoutFallingBackWhenABinaryRunCrashes() throws Exception
+    {
+        configure(plugin(FakePlugin.CRASH), "binary");
+
+        assertThrows(Exception.class, () -> PluginOperationsUtil.runSSHMetrics(DEVICES));
+
+        assertThrows(Exception.class, () -> PluginOperationsUtil.runSSHMetrics(DEVICES));
+
+        // Neither run repeated in text mode, nor the plugin downgraded
+        assertEquals(List.of("metrics --framing=binary", "metrics --framing=binary"), runs());
+    }
+
+    @Test
+    void exchangesTextLinesByDefault() throws Exception
+    {
+        configure(plugin(null), "text");
+
+        assertResults(PluginOperationsUtil.runSSHReachability(DEVICES), "reachability");
+    }
+
+    /**
+     * @param mode The environment variable switching {@link FakePlugin} to another behavior, or null
+     */
+    private Path plugin(String mode) throws Exception
+    {
+        var script = directory.resolve(mode == null ? "plugin" : mode.toLowerCase());
+
+        Files.writeString(script, "#!/bin/sh\n"
+                + (mode == null ? "" : "export " + mode + "=1\n")
+                + "export " + FakePlugin.LOG + "='" + directory.resolve("runs") + "'\n"
+                + "exec '" + Path.of(System.getProperty("java.home"), "bin", "java") + "' -cp '" + System.getProperty("java.class.path") + "' "
+                + FakePlugin.class.getName() + " \"$@\"\n");
+
+        script.toFile().setExecutable(true);
+
+        return script;
+    }
+
+    private void configure(Path plugin, String framing) throws Exception
+    {
+        var config = directory.resolve("config.json");
+
+        Files.writeString(config, new JsonObject()
+                .put("plugin.path", plugin.toString())
+                .put("plugin.framing", framing)
+                .put("plugin.timeout", 30)
+                .encode());
+
+        ConfigLoader.init(config.toString());
+    }
+
+    private List<String> runs() throws Exception
+    {
+        return Files.readAllLines(directory.resolve("runs"));
+    }
+
+    private static void assertResults(JsonArray results, String command)
+    {
+        assertEquals(DEVICES.size(), results.size());
+
+        for (var i = 0; i < DEVICES.size(); i++)
+        {
+            assertEquals(DEVICES.getJsonObject(i).copy().put("command", command).put("status", "Up"), results.getJsonObject(i));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many probes per second {@link ProbeExecutor} completes on the Vert.x worker pool and on virtual
+ * threads.
+ * <p>
+ * Not run by the build; run its {@code main} on the test classpath. Each probe starts a {@code sleep} process and
+ * waits on it the way {@link ConnectivityUtil} waits on ping and nc, standing in for a check against a slow or
+ * unreachable device without needing one. The worker pool has the {@code vertx.worker.pool.size} of the shipped
+ * config.json. Each round submits {@code PROBES} probes at once from an event loop to both executors and prints
+ * probes per second; the first round is warm-up.
+ */
+public class ProbeExecutorBenchmark
+{
+    private static final int ROUNDS = 3;
+
+    private static final int PROBES = 200;
+
+    private static final String PROBE_SECONDS = "0.2";
+
+    private static final int WORKER_POOL_SIZE = 5;
+
+    public static void main(String[] args) throws Exception
+    {
+        for (var round = 1; round <= ROUNDS; round++)
+        {
+            var workerRate = measure(false);
+
+            var virtualRate = measure(true);
+
+            System.out.printf("round %d: worker pool %.1f probes/s, virtual threads %.1f probes/s, %.2fx%n",
+                    round, workerRate, virtualRate, virtualRate / workerRate);
+        }
+    }
+
+    private static double measure(boolean virtualThreads) throws Exception
+    {
+        var config = Files.createTempFile("benchmark", ".json");
+
+        Files.writeString(config, new JsonObject()
+                .put("probe.executor", new JsonObject()
+                        .put("virtual.threads", virtualThreads)
+                        .put("max.concurrency", 1000))
+                .encode());
+
+        ConfigLoader.init(config.toString());
+
+        Files.delete(config);
+
+        var vertx = Vertx.vertx(new VertxOptions().setWorkerPoolSize(WORKER_POOL_SIZE));
+
+        try
+        {
+            var done = new CompletableFuture<Long>();
+
+            vertx.runOnContext(v ->
+            {
+                var executor = ProbeExecutor.create(vertx, "benchmark-probe");
+
+                var start = System.nanoTime();
+
+                var probes = new ArrayList<Future<Boolean>>();
+
+                for (var i = 0; i < PROBES; i++)
+                {
+                    probes.add(executor.execute(ProbeExecutorBenchmark::probe));
+                }
+
+                Future.all(probes).onComplete(result ->
+                {
+                    executor.close();
+
+                    if (result.succeeded())
+                    {
+                        done.complete(System.nanoTime() - start);
+                    }
+                    else
+                    {
+                        done.completeExceptionally(result.cause());
+                    }
+                });
+            });
+
+            return PROBES / (done.get(5, TimeUnit.MINUTES) / 1e9);
+        }
+        finally
+        {
+            vertx.close().toCompletionStage().toCompletableFuture().get();
+        }
+    }
+
+    private static boolean probe() throws Exception
+    {
+        var process = new ProcessBuilder("sleep", PROBE_SECONDS).start();
+
+        return process.onExit().get().exitValue() == 0;
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.utils;
+
+import io.vertx.core.json.JsonObject;
+import org.example.utils.ConnectivityUtil.CheckType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReachabilityCacheTest
+{
+    private static final int MAX_ENTRIES = 3;
+
+    @BeforeAll
+    static void setUp(@TempDir Path directory) throws Exception
+    {
+        var config = directory.resolve("config.json");
+
+        Files.writeString(config, new JsonObject()
+                .put("reachability.cache", new JsonObject()
+                        .put("enabled", true)
+                        .put("ttl", 60000)
+                        .put("negative.ttl", 60000)
+                        .put("max.entries", MAX_ENTRIES))
+                .encode());
+
+        ConfigLoader.init(config.toString());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedTargetOnceFull()
+    {
+        var probes = new AtomicInteger();
+
+        for (var i = 1; i <= MAX_ENTRIES + 1; i++)
+        {
+            ReachabilityCache.isReachable(CheckType.PORT, "10.1.0." + i, 22, () -> probes.incrementAndGet() > 0);
+        }
+
+        assertEquals(MAX_ENTRIES, ReachabilityCache.getStats().getInteger("entries"));
+
+        // The newest targets are still cached, the first one was evicted and is probed again
+        ReachabilityCache.isReachable(CheckType.PORT, "10.1.0." + (MAX_ENTRIES + 1), 22, () -> probes.incrementAndGet() > 0);
+
+        assertEquals(MAX_ENTRIES + 1, probes.get());
+
+        ReachabilityCache.isReachable(CheckType.PORT, "10.1.0.1", 22, () -> probes.incrementAndGet() > 0);
+
+        assertEquals(MAX_ENTRIES + 2, probes.get());
+
+        assertEquals(MAX_ENTRIES, ReachabilityCache.getStats().getInteger("entries"));
+    }
+
+    @Test
+    void countsWaitsForAProbeInFlightApartFromHits() throws Exception
+    {
+        var before = ReachabilityCache.getStats();
+
+        var started = new CountDownLatch(1);
+
+        var release = new CountDownLatch(1);
+
+        var first = CompletableFuture.supplyAsync(() -> ReachabilityCache.isReachable(CheckType.PING, "10.2.0.1", 0, () ->
+        {
+            started.countDown();
+
+            try
+            {
+                return release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException exception)
+            {
+                return false;
+            }
+        }));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        var second = CompletableFuture.supplyAsync(() -> ReachabilityCache.isReachable(CheckType.PING, "10.2.0.1", 0, () -> false));
+
+        // The second caller finds the probe in flight before it completes
+        while (ReachabilityCache.getStats().getLong("coalesced") == before.getLong("coalesced"))
+        {
+            Thread.sleep(10);
+        }
+
+        release.countDown();
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+
+        assertTrue(ReachabilityCache.isReachable(CheckType.PING, "10.2.0.1", 0, () -> false));
+
+        var after = ReachabilityCache.getStats();
+
+        assertEquals(1, after.getLong("misses") - before.getLong("misses"));
+
+        assertEquals(1, after.getLong("coalesced") - before.getLong("coalesced"));
+
+        assertEquals(1, after.getLong("hits") - before.getLong("hits"));
+
+        assertEquals((double) after.getLong("hits") / (after.getLong("hits") + after.getLong("misses")), after.getDouble("hit.ratio"));
+    }
+}